@@ -0,0 +1,164 @@
+package com.example.jwtauthenticator.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Dedicated executors per async workload, replacing the shared transactionalAsyncExecutor.
+ *
+ * Each pool has its own bounded queue and rejection policy so a burst in one workload
+ * (e.g. request logging) cannot starve another (e.g. dashboard queries). Sizes are set
+ * through app.async.executors.<name>.* and are kept small enough for the Hikari pool.
+ * Queue depth, active threads and completed tasks are published as executor.* metrics by
+ * ThreadPoolHealthService; rejections are counted in executor.rejected.
+ *
+ * With spring.threads.virtual.enabled=true the same beans are BoundedVirtualThreadExecutors:
+ * one virtual thread per task, with max-size as a semaphore bound and the same queue limit.
+ *
+ * Rejection policies:
+ * - CALLER_RUNS: run on the submitting thread (slows the caller down, nothing is lost)
+ * - DISCARD: drop the task (best-effort work such as logging)
+ * - ABORT: throw RejectedExecutionException to the caller
+ */
+@Configuration
+@Slf4j
+public class AsyncExecutorConfig {
+
+    public static final String LOGGING_EXECUTOR = "loggingExecutor";
+    public static final String QUOTA_EXECUTOR = "quotaExecutor";
+    public static final String DASHBOARD_EXECUTOR = "dashboardExecutor";
+    public static final String ASSET_DOWNLOAD_EXECUTOR = "assetDownloadExecutor";
+    public static final List<String> EXECUTOR_NAMES =
+            List.of(LOGGING_EXECUTOR, QUOTA_EXECUTOR, DASHBOARD_EXECUTOR, ASSET_DOWNLOAD_EXECUTOR);
+
+    // Opt-in virtual-thread mode, shared with Boot's Tomcat/scheduler switch
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    /**
+     * Request / RivoFetch / audit log writes. Best effort: dropped when saturated.
+     */
+    @Bean(name = LOGGING_EXECUTOR)
+    public AsyncTaskExecutor loggingExecutor(
+            MeterRegistry meterRegistry,
+            @Value("${app.async.executors.logging.core-size:4}") int coreSize,
+            @Value("${app.async.executors.logging.max-size:8}") int maxSize,
+            @Value("${app.async.executors.logging.queue-capacity:2000}") int queueCapacity,
+            @Value("${app.async.executors.logging.rejection-policy:DISCARD}") String rejectionPolicy) {
+        return createExecutor(LOGGING_EXECUTOR, "logging-async-", coreSize, maxSize, queueCapacity,
+                rejectionPolicy, meterRegistry);
+    }
+
+    /**
+     * Usage and quota tracking. Billing relevant, so saturation falls back to the caller.
+     */
+    @Bean(name = QUOTA_EXECUTOR)
+    public AsyncTaskExecutor quotaExecutor(
+            MeterRegistry meterRegistry,
+            @Value("${app.async.executors.quota.core-size:4}") int coreSize,
+            @Value("${app.async.executors.quota.max-size:8}") int maxSize,
+            @Value("${app.async.executors.quota.queue-capacity:1000}") int queueCapacity,
+            @Value("${app.async.executors.quota.rejection-policy:CALLER_RUNS}") String rejectionPolicy) {
+        return createExecutor(QUOTA_EXECUTOR, "quota-async-", coreSize, maxSize, queueCapacity,
+                rejectionPolicy, meterRegistry);
+    }
+
+    /**
+     * Parallel dashboard queries. Saturation degrades to sequential execution on the request thread.
+     */
+    @Bean(name = DASHBOARD_EXECUTOR)
+    public AsyncTaskExecutor dashboardExecutor(
+            MeterRegistry meterRegistry,
+            @Value("${app.async.executors.dashboard.core-size:6}") int coreSize,
+            @Value("${app.async.executors.dashboard.max-size:12}") int maxSize,
+            @Value("${app.async.executors.dashboard.queue-capacity:200}") int queueCapacity,
+            @Value("${app.async.executors.dashboard.rejection-policy:CALLER_RUNS}") String rejectionPolicy) {
+        return createExecutor(DASHBOARD_EXECUTOR, "dashboard-async-", coreSize, maxSize, queueCapacity,
+                rejectionPolicy, meterRegistry);
+    }
+
+    /**
+     * Brand asset downloads. Skipped assets stay PENDING and are picked up by the next extraction.
+     */
+    @Bean(name = ASSET_DOWNLOAD_EXECUTOR)
+    public AsyncTaskExecutor assetDownloadExecutor(
+            MeterRegistry meterRegistry,
+            @Value("${app.async.executors.asset-download.core-size:2}") int coreSize,
+            @Value("${app.async.executors.asset-download.max-size:4}") int maxSize,
+            @Value("${app.async.executors.asset-download.queue-capacity:500}") int queueCapacity,
+            @Value("${app.async.executors.asset-download.rejection-policy:DISCARD}") String rejectionPolicy) {
+        return createExecutor(ASSET_DOWNLOAD_EXECUTOR, "asset-download-", coreSize, maxSize, queueCapacity,
+                rejectionPolicy, meterRegistry);
+    }
+
+    private AsyncTaskExecutor createExecutor(String name, String threadNamePrefix, int coreSize, int maxSize,
+                                             int queueCapacity, String rejectionPolicy,
+                                             MeterRegistry meterRegistry) {
+        Counter rejected = Counter.builder("executor.rejected")
+                .tag("name", name)
+                .description("Tasks rejected because the executor queue was full")
+                .register(meterRegistry);
+        String policy = rejectionPolicy.trim().toUpperCase(Locale.ROOT);
+        if (!List.of("CALLER_RUNS", "DISCARD", "ABORT").contains(policy)) {
+            throw new IllegalArgumentException("Unknown rejection policy '" + rejectionPolicy + "' for executor " + name);
+        }
+
+        if (virtualThreads) {
+            // Same concurrency bound as the platform pool, enforced by a semaphore instead of pool size
+            int maxConcurrency = Math.max(coreSize, maxSize);
+            log.info("Configuring virtual-thread executor '{}' (max concurrent: {}, queue: {}, rejection: {})",
+                    name, maxConcurrency, queueCapacity, policy);
+            return new BoundedVirtualThreadExecutor(name, threadNamePrefix, maxConcurrency, queueCapacity,
+                    policy, rejected);
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(coreSize);
+        executor.setMaxPoolSize(Math.max(coreSize, maxSize));
+        executor.setQueueCapacity(queueCapacity);
+        executor.setKeepAliveSeconds(120);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setRejectedExecutionHandler(countingHandler(name, policy, rejected));
+        // Let queued work (log rows, quota updates) finish on shutdown
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+
+        log.info("Configuring executor '{}' (core: {}, max: {}, queue: {}, rejection: {})",
+                name, coreSize, executor.getMaxPoolSize(), queueCapacity, policy);
+        return executor;
+    }
+
+    private RejectedExecutionHandler countingHandler(String name, String rejectionPolicy, Counter rejected) {
+        RejectedExecutionHandler delegate = switch (rejectionPolicy) {
+            case "CALLER_RUNS" -> new ThreadPoolExecutor.CallerRunsPolicy();
+            case "DISCARD" -> new ThreadPoolExecutor.DiscardPolicy();
+            default -> new ThreadPoolExecutor.AbortPolicy();
+        };
+        return (task, pool) -> {
+            rejected.increment();
+            long count = (long) rejected.count();
+            if (count == 1 || count % 1000 == 0) {
+                log.warn("Executor '{}' saturated (queue full), {} tasks rejected so far ({})",
+                        name, count, rejectionPolicy);
+            }
+            try {
+                delegate.rejectedExecution(task, pool);
+            } catch (RejectedExecutionException e) {
+                throw new RejectedExecutionException("Executor '" + name + "' is saturated", e);
+            }
+        };
+    }
+}
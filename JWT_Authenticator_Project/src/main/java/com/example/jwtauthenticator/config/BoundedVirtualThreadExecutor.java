@@ -0,0 +1,149 @@
+package com.example.jwtauthenticator.config;
+
+import io.micrometer.core.instrument.Counter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Virtual-thread counterpart of the bounded ThreadPoolTaskExecutors in AsyncExecutorConfig.
+ *
+ * Every task gets its own virtual thread, but only {@code maxConcurrency} of them run at
+ * once (semaphore), so the number of concurrent JDBC users per workload stays the same as
+ * in platform-thread mode. At most {@code queueCapacity} tasks wait for a permit; beyond
+ * that the rejection policy applies, as with a full ThreadPoolExecutor queue.
+ */
+@Slf4j
+public class BoundedVirtualThreadExecutor implements AsyncTaskExecutor, DisposableBean {
+
+    private final String name;
+    private final int maxConcurrency;
+    private final int queueCapacity;
+    private final String rejectionPolicy;
+    private final Counter rejected;
+    private final Semaphore permits;
+    private final ThreadFactory threadFactory;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private volatile boolean shutdown;
+
+    public BoundedVirtualThreadExecutor(String name, String threadNamePrefix, int maxConcurrency, int queueCapacity,
+                                        String rejectionPolicy, Counter rejected) {
+        this.name = name;
+        this.maxConcurrency = maxConcurrency;
+        this.queueCapacity = queueCapacity;
+        this.rejectionPolicy = rejectionPolicy;
+        this.rejected = rejected;
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.threadFactory = Thread.ofVirtual().name(threadNamePrefix, 1).factory();
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (shutdown || inFlight.incrementAndGet() > maxConcurrency + queueCapacity) {
+            if (!shutdown) {
+                inFlight.decrementAndGet();
+            }
+            reject(task);
+            return;
+        }
+        threadFactory.newThread(() -> run(task)).start();
+    }
+
+    @Override
+    public Future<?> submit(Runnable task) {
+        FutureTask<Object> future = new FutureTask<>(task, null);
+        execute(future);
+        return future;
+    }
+
+    @Override
+    public <T> Future<T> submit(Callable<T> task) {
+        FutureTask<T> future = new FutureTask<>(task);
+        execute(future);
+        return future;
+    }
+
+    private void run(Runnable task) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            inFlight.decrementAndGet();
+            Thread.currentThread().interrupt();
+            return;
+        }
+        active.incrementAndGet();
+        try {
+            task.run();
+        } catch (Throwable t) {
+            log.error("Uncaught exception in executor '{}'", name, t);
+        } finally {
+            active.decrementAndGet();
+            completed.incrementAndGet();
+            inFlight.decrementAndGet();
+            permits.release();
+        }
+    }
+
+    private void reject(Runnable task) {
+        rejected.increment();
+        long count = (long) rejected.count();
+        if (count == 1 || count % 1000 == 0) {
+            log.warn("Executor '{}' saturated (queue full), {} tasks rejected so far ({})",
+                    name, count, rejectionPolicy);
+        }
+        switch (rejectionPolicy) {
+            case "CALLER_RUNS" -> task.run();
+            case "DISCARD" -> { }
+            default -> throw new RejectedExecutionException("Executor '" + name + "' is saturated");
+        }
+    }
+
+    /**
+     * Stop accepting tasks and wait up to 30 seconds for queued and running ones, like
+     * waitForTasksToCompleteOnShutdown on the platform executors.
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        shutdown = true;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        if (inFlight.get() > 0) {
+            log.warn("Executor '{}' shut down with {} tasks still pending", name, inFlight.get());
+        }
+    }
+
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    public int getQueueSize() {
+        return Math.max(0, inFlight.get() - active.get());
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public long getCompletedTaskCount() {
+        return completed.get();
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.jwtauthenticator.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.pool.HikariPool;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * HikariDataSource that admits at most maximumPoolSize borrowers at a time through a fair
+ * semaphore, used in virtual-thread mode.
+ *
+ * With virtual threads there is no Tomcat thread cap in front of the pool, so thousands of
+ * requests can wait on Hikari at once. Waiting on the semaphore instead keeps Hikari's own
+ * waiter count at the pool size and serves waiters in arrival order. The semaphore wait and
+ * the Hikari borrow share one connectionTimeout deadline, so a borrow takes no longer than
+ * with plain Hikari. Still a HikariDataSource, so pool monitoring and actuator metrics keep
+ * working unchanged.
+ */
+public class ConnectionLimitingHikariDataSource extends HikariDataSource {
+
+    // Created on first use: pool settings are bound after construction
+    private final AtomicReference<Semaphore> permits = new AtomicReference<>();
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(getConnectionTimeout());
+        Semaphore semaphore = acquire(deadline);
+        try {
+            return releasingOnClose(borrow(deadline), semaphore);
+        } catch (SQLException | RuntimeException e) {
+            semaphore.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Borrowers currently waiting for a permit.
+     */
+    public int getThreadsAwaitingPermit() {
+        Semaphore semaphore = permits.get();
+        return semaphore != null ? semaphore.getQueueLength() : 0;
+    }
+
+    private Semaphore acquire(long deadline) throws SQLException {
+        Semaphore semaphore = permits.get();
+        if (semaphore == null) {
+            permits.compareAndSet(null, new Semaphore(getMaximumPoolSize(), true));
+            semaphore = permits.get();
+        }
+        try {
+            if (semaphore.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                return semaphore;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a connection permit", e);
+        }
+        throw new SQLTransientConnectionException(getPoolName() + " - Connection permit not available, request timed out after "
+                + getConnectionTimeout() + "ms (" + semaphore.getQueueLength() + " waiting)");
+    }
+
+    /**
+     * Borrow from Hikari with whatever is left of the deadline. The pool is created by the
+     * first borrow, which therefore goes through the plain HikariDataSource path.
+     */
+    private Connection borrow(long deadline) throws SQLException {
+        if (isClosed()) {
+            throw new SQLException("HikariDataSource " + this + " has been closed.");
+        }
+        if (getHikariPoolMXBean() instanceof HikariPool pool) {
+            long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            return pool.getConnection(Math.max(remainingMs, 0));
+        }
+        return super.getConnection();
+    }
+
+    private static Connection releasingOnClose(Connection connection, Semaphore semaphore) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "close" -> {
+                        try {
+                            yield invoke(connection, method, args);
+                        } finally {
+                            if (released.compareAndSet(false, true)) {
+                                semaphore.release();
+                            }
+                        }
+                    }
+                    default -> invoke(connection, method, args);
+                });
+    }
+
+    private static Object invoke(Connection connection, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(connection, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
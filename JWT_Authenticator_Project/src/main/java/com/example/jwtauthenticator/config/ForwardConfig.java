@@ -2,6 +2,9 @@ package com.example.jwtauthenticator.config;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import io.netty.channel.ChannelOption;
 import io.netty.handler.timeout.ReadTimeoutHandler;
 import lombok.Getter;
@@ -19,12 +22,18 @@ import java.util.concurrent.TimeUnit;
 @Getter
 public class ForwardConfig {
 
+    // Rough per-entry cost of the map node, key and value objects
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+
     @Value("${app.forward.timeout-seconds:300}")
     private long timeoutSeconds;
 
     @Value("${app.forward.cache-ttl-seconds:3600}")
     private long cacheTtlSeconds;
 
+    @Value("${app.forward.cache-max-bytes:134217728}")
+    private long cacheMaxBytes;
+
     @Value("${app.forward.rate-limit.requests-per-minute:100}")
     private long requestsPerMinute;
 
@@ -39,10 +48,28 @@ public class ForwardConfig {
                 .build();
     }
 
+    /**
+     * Cache of external API response bodies keyed by URL, bounded by approximate size in bytes.
+     * Hit/miss/eviction counters and the weighted size are published to actuator metrics
+     * under cache=forwardCache.
+     */
     @Bean
-    public Cache<String, String> forwardCache() {
-        return Caffeine.newBuilder()
+    public Cache<String, String> forwardCache(MeterRegistry meterRegistry) {
+        Cache<String, String> cache = Caffeine.newBuilder()
+                .maximumWeight(cacheMaxBytes)
+                .weigher((String url, String body) -> ENTRY_OVERHEAD_BYTES + url.length() + body.length())
                 .expireAfterWrite(Duration.ofSeconds(cacheTtlSeconds))
+                .recordStats()
                 .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "forwardCache");
+        Gauge.builder("cache.weighted.size", cache, c -> c.policy().eviction()
+                        .map(eviction -> eviction.weightedSize().orElse(0L))
+                        .orElse(0L))
+                .tag("cache", "forwardCache")
+                .baseUnit("bytes")
+                .description("Approximate size of cached forward responses")
+                .register(meterRegistry);
+        return cache;
     }
 }
@@ -0,0 +1,53 @@
+package com.example.jwtauthenticator.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+/**
+ * Opt-in virtual-thread mode (spring.threads.virtual.enabled=true).
+ *
+ * Spring Boot switches Tomcat request handling and the task scheduler to virtual threads;
+ * AsyncExecutorConfig switches the @Async executors (logging, quota, dashboard, asset
+ * download pipeline). This configuration adds the JDBC side: the DataSource admits at most
+ * maximum-pool-size borrowers through a semaphore, since request concurrency is no longer
+ * capped by server.tomcat.max-threads.
+ *
+ * Pinning: the application code has no synchronized blocks around blocking calls, and the
+ * PostgreSQL driver (42.6+) and Hikari use j.u.c locks. JSch (SFTP uploads) does block
+ * inside synchronized methods, so asset downloads stay limited to a few concurrent tasks
+ * (app.async.executors.asset-download.max-size), well below the carrier thread count.
+ * Run with -Djdk.tracePinnedThreads=short to verify under load.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+@Slf4j
+public class VirtualThreadConfig {
+
+    /**
+     * Same as Boot's Hikari auto-configuration, with the semaphore-guarded subclass
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(ConnectionLimitingHikariDataSource.class)
+                .build();
+        if (StringUtils.hasText(properties.getName())) {
+            dataSource.setPoolName(properties.getName());
+        }
+        return dataSource;
+    }
+
+    @PostConstruct
+    public void logMode() {
+        log.info("🧵 Virtual-thread mode enabled (carrier threads: {}); JDBC borrowers limited to the Hikari pool size",
+                Runtime.getRuntime().availableProcessors());
+    }
+}
@@ -72,6 +72,7 @@ public class ApiKeyController {
     private final UserRepository userRepository;
     private final com.example.jwtauthenticator.repository.ApiKeyRepository apiKeyRepository;
     private final com.example.jwtauthenticator.util.ApiKeyHashUtil apiKeyHashUtil;
+    private final com.example.jwtauthenticator.service.ApiKeyResolutionCache apiKeyResolutionCache;
     
     // INTEGRATION: Add new services for comprehensive API key functionality
     @org.springframework.beans.factory.annotation.Autowired(required = false)
@@ -515,6 +516,7 @@ public class ApiKeyController {
             existingKey.setUpdatedAt(LocalDateTime.now());
             
             ApiKey updatedKey = apiKeyRepository.save(existingKey);
+            apiKeyResolutionCache.invalidate(updatedKey);
 
             // Create response with new key (shown only once)
             Map<String, Object> response = new HashMap<>();
@@ -2,16 +2,13 @@ package com.example.jwtauthenticator.controller;
 
 import com.example.jwtauthenticator.dto.BrandDataResponse;
 import com.example.jwtauthenticator.entity.Brand;
-import com.example.jwtauthenticator.entity.BrandAsset;
-import com.example.jwtauthenticator.entity.BrandImage;
-import com.example.jwtauthenticator.repository.BrandAssetRepository;
-import com.example.jwtauthenticator.repository.BrandImageRepository;
 import com.example.jwtauthenticator.repository.BrandRepository;
+import com.example.jwtauthenticator.service.AssetFileIndex;
 import com.example.jwtauthenticator.service.BrandDataService;
 import com.example.jwtauthenticator.service.BrandExtractionService;
 import com.example.jwtauthenticator.service.BrandManagementService;
 import com.example.jwtauthenticator.service.BrandOptimizedService;
-import com.example.jwtauthenticator.service.FileStorageService;
+import com.example.jwtauthenticator.service.StoredFileResponder;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -20,15 +17,15 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -49,11 +46,10 @@ public class BrandController {
     private final BrandDataService brandDataService;
     private final BrandExtractionService brandExtractionService;
     private final BrandManagementService brandManagementService;
-    private final FileStorageService fileStorageService;
-    private final BrandAssetRepository brandAssetRepository;
-    private final BrandImageRepository brandImageRepository;
     private final BrandRepository brandRepository;
     private final BrandOptimizedService brandOptimizedService;
+    private final AssetFileIndex assetFileIndex;
+    private final StoredFileResponder storedFileResponder;
     
     @GetMapping("/{id}")
     @Operation(
@@ -293,54 +289,19 @@ public class BrandController {
     )
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Asset file served"),
+        @ApiResponse(responseCode = "206", description = "Requested byte range served"),
+        @ApiResponse(responseCode = "302", description = "Not stored yet, redirect to the source URL"),
+        @ApiResponse(responseCode = "304", description = "Not modified (ETag / Last-Modified)"),
         @ApiResponse(responseCode = "404", description = "Asset not found"),
         @ApiResponse(responseCode = "500", description = "Error serving file")
     })
-    public ResponseEntity<Resource> serveBrandAsset(
+    public void serveBrandAsset(
             @Parameter(description = "Asset ID", required = true)
-            @PathVariable Long assetId) {
+            @PathVariable Long assetId,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
         
-        try {
-            Optional<BrandAsset> assetOpt = brandAssetRepository.findById(assetId);
-            
-            if (assetOpt.isEmpty()) {
-                return ResponseEntity.notFound().build();
-            }
-            
-            BrandAsset asset = assetOpt.get();
-            
-            // If file is not downloaded yet, return the original URL as redirect
-            if (asset.getDownloadStatus() != BrandAsset.DownloadStatus.COMPLETED || 
-                asset.getStoredPath() == null) {
-                return ResponseEntity.status(HttpStatus.FOUND)
-                        .header(HttpHeaders.LOCATION, asset.getOriginalUrl())
-                        .build();
-            }
-            
-            // Serve the stored file
-            Resource resource = fileStorageService.getFileAsResource(asset.getStoredPath());
-            
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(asset.getMimeType() != null ? 
-                            asset.getMimeType() : "application/octet-stream"))
-                    .header(HttpHeaders.CONTENT_DISPOSITION, 
-                            "inline; filename=\"" + asset.getFileName() + "\"")
-                    .body(resource);
-            
-        } catch (IOException e) {
-            log.error("Error serving brand asset file: {}", assetId, e);
-            // Fallback to original URL
-            Optional<BrandAsset> assetOpt = brandAssetRepository.findById(assetId);
-            if (assetOpt.isPresent()) {
-                return ResponseEntity.status(HttpStatus.FOUND)
-                        .header(HttpHeaders.LOCATION, assetOpt.get().getOriginalUrl())
-                        .build();
-            }
-            return ResponseEntity.notFound().build();
-        } catch (Exception e) {
-            log.error("Unexpected error serving brand asset: {}", assetId, e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
-        }
+        serveStoredFile(assetFileIndex.asset(assetId), "asset", assetId, request, response);
     }
     
     @GetMapping("/images/{imageId}")
@@ -348,50 +309,41 @@ public class BrandController {
         summary = "Serve brand image file",
         description = "Serve a brand image file by image ID"
     )
-    public ResponseEntity<Resource> serveBrandImage(
+    public void serveBrandImage(
             @Parameter(description = "Image ID", required = true)
-            @PathVariable Long imageId) {
+            @PathVariable Long imageId,
+            HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
         
+        serveStoredFile(assetFileIndex.image(imageId), "image", imageId, request, response);
+    }
+    
+    /**
+     * Serve a stored asset or image file, or redirect to its source URL when the file is not
+     * downloaded yet or missing on disk
+     */
+    private void serveStoredFile(AssetFileIndex.Lookup lookup, String kind, Long id,
+                                 HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (lookup == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        if (lookup.file() == null) {
+            response.setStatus(HttpServletResponse.SC_FOUND);
+            response.setHeader(HttpHeaders.LOCATION, lookup.redirectUrl());
+            return;
+        }
         try {
-            Optional<BrandImage> imageOpt = brandImageRepository.findById(imageId);
-            
-            if (imageOpt.isEmpty()) {
-                return ResponseEntity.notFound().build();
-            }
-            
-            BrandImage image = imageOpt.get();
-            
-            // If file is not downloaded yet, return the original URL as redirect
-            if (image.getDownloadStatus() != BrandImage.DownloadStatus.COMPLETED || 
-                image.getStoredPath() == null) {
-                return ResponseEntity.status(HttpStatus.FOUND)
-                        .header(HttpHeaders.LOCATION, image.getSourceUrl())
-                        .build();
-            }
-            
-            // Serve the stored file
-            Resource resource = fileStorageService.getFileAsResource(image.getStoredPath());
-            
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(image.getMimeType() != null ? 
-                            image.getMimeType() : "application/octet-stream"))
-                    .header(HttpHeaders.CONTENT_DISPOSITION, 
-                            "inline; filename=\"" + image.getFileName() + "\"")
-                    .body(resource);
-            
+            storedFileResponder.serve(lookup.file(), request, response);
         } catch (IOException e) {
-            log.error("Error serving brand image file: {}", imageId, e);
-            // Fallback to original URL
-            Optional<BrandImage> imageOpt = brandImageRepository.findById(imageId);
-            if (imageOpt.isPresent()) {
-                return ResponseEntity.status(HttpStatus.FOUND)
-                        .header(HttpHeaders.LOCATION, imageOpt.get().getSourceUrl())
-                        .build();
-            }
-            return ResponseEntity.notFound().build();
+            // Mostly clients going away mid-transfer
+            log.debug("Error serving brand {} file {}: {}", kind, id, e.getMessage());
         } catch (Exception e) {
-            log.error("Unexpected error serving brand image: {}", imageId, e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+            log.error("Unexpected error serving brand {}: {}", kind, id, e);
+            if (!response.isCommitted()) {
+                response.reset();
+                response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            }
         }
     }
     
@@ -1,12 +1,17 @@
 package com.example.jwtauthenticator.controller;
 
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.example.jwtauthenticator.dto.MasterDataHierarchyDTO;
+import com.example.jwtauthenticator.service.CategoryHierarchySnapshot;
 import com.example.jwtauthenticator.service.CategoryService;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -30,19 +35,34 @@ public class CategoryController {
 	 @GetMapping("/hierarchy")
 	    @Operation(
 	        summary = "Get all hierarchical master data",
-	        description = "Retrieve all brand categories with their subcategories and regions with their countries in a complete hierarchical structure."
+	        description = "Retrieve all brand categories with their subcategories and regions with their countries in a complete hierarchical structure. " +
+	                      "Responses carry an ETag; send it back in If-None-Match to get 304 Not Modified while the data is unchanged."
 	    )
 	    @ApiResponses(value = {
 	        @ApiResponse(responseCode = "200", description = "Hierarchical master data successfully retrieved",
 	                    content = @Content(schema = @Schema(implementation = MasterDataHierarchyDTO.class))),
+	        @ApiResponse(responseCode = "304", description = "Not Modified - The data still matches the ETag sent in If-None-Match"),
 	        @ApiResponse(responseCode = "401", description = "Unauthorized - Authentication required or token is invalid"),
 	        @ApiResponse(responseCode = "500", description = "Internal Server Error - Failed to retrieve data due to a server-side issue")
 	    })
-	    public ResponseEntity<?> getHierarchyData() {
+	    public ResponseEntity<?> getHierarchyData(
+	            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
 	        try {
-	            MasterDataHierarchyDTO data = categoryService.getCategorizedHierarchyData();
+	            CategoryHierarchySnapshot snapshot = categoryService.getHierarchySnapshot();
+	            // Clients may keep the response but must revalidate it, since the snapshot is rebuilt in the background
+	            CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+	            if (snapshot.matches(ifNoneMatch)) {
+	                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+	                                     .eTag(snapshot.getETag())
+	                                     .cacheControl(cacheControl)
+	                                     .build();
+	            }
 	            // In case no data is found (e.g., empty lists), still return 200 OK with empty lists
-	            return ResponseEntity.ok(data);
+	            return ResponseEntity.ok()
+	                                 .eTag(snapshot.getETag())
+	                                 .cacheControl(cacheControl)
+	                                 .contentType(MediaType.APPLICATION_JSON)
+	                                 .body(snapshot.getJson());
 	        } catch (Exception e) {
 	            // Log the exception (e.g., using SLF4J, Log4j)
 	            e.printStackTrace();
@@ -0,0 +1,55 @@
+package com.example.jwtauthenticator.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Brand asset/image content stored once per SHA-256 (see ContentAddressedAssetStore).
+ *
+ * refCount is the number of brand_assets/brand_images rows whose stored_path points at the
+ * blob. It is incremented when a download resolves to the blob and recomputed from those
+ * tables by the reconcile job, which also removes blobs that stayed unreferenced.
+ */
+@Entity
+@Table(name = "asset_blobs", indexes = {
+    @Index(name = "idx_asset_blob_unreferenced", columnList = "refCount,lastReferencedAt")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AssetBlob {
+
+    /**
+     * Lowercase hex SHA-256 of the content
+     */
+    @Id
+    @Column(name = "sha256", length = 64)
+    private String sha256;
+
+    /**
+     * Path relative to the storage root, as stored in BrandAsset/BrandImage.storedPath
+     */
+    @Column(name = "stored_path", columnDefinition = "TEXT", nullable = false)
+    private String storedPath;
+
+    @Column(name = "file_size", nullable = false)
+    private Long fileSize;
+
+    @Column(name = "mime_type")
+    private String mimeType;
+
+    @Column(name = "ref_count", nullable = false)
+    private Long refCount;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "last_referenced_at", nullable = false)
+    private LocalDateTime lastReferencedAt;
+}
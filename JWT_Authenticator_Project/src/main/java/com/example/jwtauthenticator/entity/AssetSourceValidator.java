@@ -0,0 +1,47 @@
+package com.example.jwtauthenticator.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * HTTP validators (ETag / Last-Modified) last seen for an asset source URL and the blob its
+ * content resolved to, so a re-download can be a conditional GET answered with 304.
+ */
+@Entity
+@Table(name = "asset_source_validators")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AssetSourceValidator {
+
+    /**
+     * Lowercase hex SHA-256 of the source URL (URLs are too long to key on directly)
+     */
+    @Id
+    @Column(name = "url_hash", length = 64)
+    private String urlHash;
+
+    @Column(name = "source_url", columnDefinition = "TEXT", nullable = false)
+    private String sourceUrl;
+
+    @Column(name = "etag", length = 512)
+    private String eTag;
+
+    /**
+     * Last-Modified header value as received
+     */
+    @Column(name = "last_modified", length = 64)
+    private String lastModified;
+
+    @Column(name = "blob_sha256", length = 64, nullable = false)
+    private String blobSha256;
+
+    @Column(name = "checked_at", nullable = false)
+    private LocalDateTime checkedAt;
+}
@@ -1,5 +1,6 @@
 package com.example.jwtauthenticator.entity;
 
+import com.example.jwtauthenticator.util.BrandWebsiteUtil;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -16,6 +17,9 @@ import java.util.List;
 @Table(name = "brands", indexes = {
     @Index(name = "idx_brand_name", columnList = "name"),
     @Index(name = "idx_brand_website", columnList = "website"),
+    @Index(name = "idx_brand_normalized_website", columnList = "normalized_website"),
+    @Index(name = "idx_brand_normalized_host", columnList = "normalized_host"),
+    @Index(name = "idx_brand_registrable_domain", columnList = "registrable_domain"),
     @Index(name = "idx_brand_created", columnList = "createdAt")
 })
 @NamedEntityGraphs({
@@ -56,6 +60,16 @@ public class Brand {
     @Column(nullable = false, unique = true)
     private String website;
     
+    // Lookup keys derived from website on every write, see BrandWebsiteUtil
+    @Column(name = "normalized_website")
+    private String normalizedWebsite;
+    
+    @Column(name = "normalized_host")
+    private String normalizedHost;
+    
+    @Column(name = "registrable_domain")
+    private String registrableDomain;
+    
     @Column(columnDefinition = "TEXT")
     private String description;
     
@@ -133,6 +147,14 @@ public class Brand {
     @Builder.Default
     private List<BrandImage> images = new ArrayList<>();
     
+    @PrePersist
+    @PreUpdate
+    protected void updateWebsiteKeys() {
+        this.normalizedWebsite = BrandWebsiteUtil.normalize(website);
+        this.normalizedHost = BrandWebsiteUtil.host(website);
+        this.registrableDomain = BrandWebsiteUtil.registrableDomain(website);
+    }
+    
     // Helper methods for managing relationships
     public void addAsset(BrandAsset asset) {
         assets.add(asset);
@@ -12,7 +12,8 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "brand_assets", indexes = {
     @Index(name = "idx_asset_type", columnList = "assetType"),
-    @Index(name = "idx_asset_brand", columnList = "brand_id")
+    @Index(name = "idx_asset_brand", columnList = "brand_id"),
+    @Index(name = "idx_asset_stored_path", columnList = "storedPath")
 })
 @Data
 @Builder
@@ -11,7 +11,8 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "brand_images", indexes = {
-    @Index(name = "idx_image_brand", columnList = "brand_id")
+    @Index(name = "idx_image_brand", columnList = "brand_id"),
+    @Index(name = "idx_image_stored_path", columnList = "storedPath")
 })
 @Data
 @Builder
@@ -0,0 +1,53 @@
+package com.example.jwtauthenticator.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Failed RivoFetch requests per hour or day, by user, API key, response status and error message
+ * (first 500 characters). Maintained alongside {@link RivoFetchRollup}.
+ */
+@Entity
+@Table(name = "rivo_fetch_error_rollups", indexes = {
+    @Index(name = "idx_rivo_error_rollup_bucket", columnList = "granularity,bucketStart"),
+    @Index(name = "idx_rivo_error_rollup_user_bucket", columnList = "userId,granularity,bucketStart"),
+    @Index(name = "idx_rivo_error_rollup_api_key_bucket", columnList = "apiKeyId,granularity,bucketStart")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RivoFetchErrorRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "granularity", length = 8, nullable = false)
+    private RivoFetchRollup.Granularity granularity;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "user_id", length = 11)
+    private String userId;
+
+    @Column(name = "api_key_id")
+    private UUID apiKeyId;
+
+    @Column(name = "response_status")
+    private Integer responseStatus;
+
+    @Column(name = "error_message", length = 500)
+    private String errorMessage;
+
+    @Column(name = "request_count", nullable = false)
+    private Long requestCount;
+}
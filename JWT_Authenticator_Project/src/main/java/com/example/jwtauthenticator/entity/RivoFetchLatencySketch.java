@@ -0,0 +1,61 @@
+package com.example.jwtauthenticator.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Response time sketch ({@link com.example.jwtauthenticator.util.LatencySketch}) per hour or day,
+ * API key and cache hit type. Kept next to {@link RivoFetchRollup} and merged to get latency
+ * percentiles over a window.
+ */
+@Entity
+@Table(name = "rivo_fetch_latency_sketches",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"granularity", "bucket_start", "api_key_id", "cache_hit_type"}),
+       indexes = {
+           @Index(name = "idx_rivo_latency_sketch_api_key_bucket", columnList = "apiKeyId,granularity,bucketStart"),
+           @Index(name = "idx_rivo_latency_sketch_bucket", columnList = "granularity,bucketStart")
+       })
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RivoFetchLatencySketch {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "granularity", length = 8, nullable = false)
+    private RivoFetchRollup.Granularity granularity;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "api_key_id", nullable = false)
+    private UUID apiKeyId;
+
+    /**
+     * Cache hit type, UNKNOWN when the request had none
+     */
+    @Column(name = "cache_hit_type", length = 20, nullable = false)
+    private String cacheHitType;
+
+    @Column(name = "sample_count", nullable = false)
+    private Long sampleCount;
+
+    /**
+     * Serialized sketch, see LatencySketch#toBytes()
+     */
+    @Column(name = "sketch", columnDefinition = "bytea", nullable = false)
+    private byte[] sketch;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
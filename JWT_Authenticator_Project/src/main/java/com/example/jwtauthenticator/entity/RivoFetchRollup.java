@@ -0,0 +1,90 @@
+package com.example.jwtauthenticator.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Pre-aggregated RivoFetch request counters per hour or day.
+ *
+ * One row per bucket and (user, API key, URL domain, cache hit type, status class, success).
+ * Rows are (re)computed from rivo_fetch_request_logs by RivoFetchRollupService; daily rows
+ * are summed from the hourly ones. Durations are stored as count + sum so averages can be
+ * combined across rows.
+ */
+@Entity
+@Table(name = "rivo_fetch_rollups", indexes = {
+    @Index(name = "idx_rivo_rollup_bucket", columnList = "granularity,bucketStart"),
+    @Index(name = "idx_rivo_rollup_user_bucket", columnList = "userId,granularity,bucketStart"),
+    @Index(name = "idx_rivo_rollup_api_key_bucket", columnList = "apiKeyId,granularity,bucketStart")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RivoFetchRollup {
+
+    public enum Granularity { HOUR, DAY }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "granularity", length = 8, nullable = false)
+    private Granularity granularity;
+
+    /**
+     * Start of the hour or day the row covers
+     */
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    // ==================== DIMENSIONS ====================
+
+    @Column(name = "user_id", length = 11)
+    private String userId;
+
+    @Column(name = "api_key_id")
+    private UUID apiKeyId;
+
+    @Column(name = "url_domain", length = 255)
+    private String urlDomain;
+
+    @Column(name = "cache_hit_type", length = 20)
+    private String cacheHitType;
+
+    /**
+     * Response status class: 2xx, 4xx, 5xx, ... or UNKNOWN
+     */
+    @Column(name = "status_class", length = 7, nullable = false)
+    private String statusClass;
+
+    @Column(name = "success")
+    private Boolean success;
+
+    // ==================== MEASURES ====================
+
+    @Column(name = "request_count", nullable = false)
+    private Long requestCount;
+
+    /**
+     * Requests with a total duration, and the sum of those durations
+     */
+    @Column(name = "duration_count", nullable = false)
+    private Long durationCount;
+
+    @Column(name = "duration_sum_ms", nullable = false)
+    private Long durationSumMs;
+
+    @Column(name = "external_duration_count", nullable = false)
+    private Long externalDurationCount;
+
+    @Column(name = "external_duration_sum_ms", nullable = false)
+    private Long externalDurationSumMs;
+}
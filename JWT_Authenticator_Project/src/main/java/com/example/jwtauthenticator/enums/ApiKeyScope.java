@@ -60,6 +60,15 @@ public enum ApiKeyScope {
     // ===== SPECIAL DOMAIN BYPASS PERMISSIONS =====
     DOMAINLESS_ACCESS("domainless.access", "Explicit permission to bypass domain validation");
     
+    private static final ApiKeyScope[] VALUES = values();
+
+    static {
+        // Scope sets are stored as a long bitmask (see mask())
+        if (VALUES.length > Long.SIZE) {
+            throw new IllegalStateException("ApiKeyScope has more constants than fit in a long mask");
+        }
+    }
+
     private final String permission;
     private final String description;
     
@@ -101,6 +110,38 @@ public enum ApiKeyScope {
         return scopes;
     }
     
+    /**
+     * Bit of this scope in a scope mask.
+     */
+    public long mask() {
+        return 1L << ordinal();
+    }
+
+    /**
+     * Bitmask of the given scopes, for single-instruction membership tests.
+     */
+    public static long toMask(ApiKeyScope... scopes) {
+        long mask = 0L;
+        if (scopes != null) {
+            for (ApiKeyScope scope : scopes) {
+                mask |= scope.mask();
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Scopes contained in the mask, in declaration order.
+     */
+    public static ApiKeyScope[] fromMask(long mask) {
+        ApiKeyScope[] scopes = new ApiKeyScope[Long.bitCount(mask)];
+        int i = 0;
+        for (long remaining = mask; remaining != 0; remaining &= remaining - 1) {
+            scopes[i++] = VALUES[Long.numberOfTrailingZeros(remaining)];
+        }
+        return scopes;
+    }
+
     /**
      * Convert an array of ApiKeyScope enums to a comma-separated string.
      * @param scopes Array of ApiKeyScope enums
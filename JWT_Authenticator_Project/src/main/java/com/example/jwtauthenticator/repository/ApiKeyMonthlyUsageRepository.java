@@ -11,6 +11,7 @@ import org.springframework.stereotype.Repository;
 import jakarta.persistence.LockModeType;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -222,4 +223,23 @@ public interface ApiKeyMonthlyUsageRepository extends JpaRepository<ApiKeyMonthl
            "u.lastCallAt = CURRENT_TIMESTAMP " +
            "WHERE u.id = :id")
     int incrementQuotaExceededCalls(@Param("id") UUID id);
+    
+    /**
+     * Additive update of all counters for one key and month (used by MonthlyUsageAccumulator)
+     */
+    @Modifying
+    @Query("UPDATE ApiKeyMonthlyUsage u SET " +
+           "u.successfulCalls = COALESCE(u.successfulCalls, 0) + :successful, " +
+           "u.failedCalls = COALESCE(u.failedCalls, 0) + :failed, " +
+           "u.quotaExceededCalls = COALESCE(u.quotaExceededCalls, 0) + :quotaExceeded, " +
+           "u.totalCalls = COALESCE(u.totalCalls, 0) + :successful + :failed + :quotaExceeded, " +
+           "u.firstCallAt = COALESCE(u.firstCallAt, :lastCallAt), " +
+           "u.lastCallAt = :lastCallAt " +
+           "WHERE u.apiKeyId = :apiKeyId AND u.monthYear = :monthYear")
+    int addToCounters(@Param("apiKeyId") UUID apiKeyId,
+                      @Param("monthYear") String monthYear,
+                      @Param("successful") int successful,
+                      @Param("failed") int failed,
+                      @Param("quotaExceeded") int quotaExceeded,
+                      @Param("lastCallAt") LocalDateTime lastCallAt);
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.example.jwtauthenticator.repository;
 
 import com.example.jwtauthenticator.entity.ApiKeyUsageStats;
 import com.example.jwtauthenticator.enums.RateLimitTier;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -70,6 +71,38 @@ public interface ApiKeyUsageStatsRepository extends JpaRepository<ApiKeyUsageSta
            "ORDER BY aus.totalRequestsLifetime DESC")
     List<ApiKeyUsageStats> getTopApiKeysByUsage(@Param("since") LocalDateTime since);
 
+    /**
+     * Get top API keys by usage, limited to one page
+     */
+    @Query("SELECT aus FROM ApiKeyUsageStats aus WHERE aus.windowStart >= :since " +
+           "ORDER BY aus.totalRequestsLifetime DESC")
+    List<ApiKeyUsageStats> getTopApiKeysByUsage(@Param("since") LocalDateTime since, Pageable pageable);
+
+    /**
+     * Count currently rate-limited API keys
+     */
+    @Query("SELECT COUNT(aus) FROM ApiKeyUsageStats aus WHERE aus.isRateLimited = true " +
+           "AND aus.rateLimitResetAt > :currentTime")
+    long countCurrentlyRateLimitedKeys(@Param("currentTime") LocalDateTime currentTime);
+
+    /**
+     * Count API keys with a request after the given time
+     */
+    @Query("SELECT COUNT(DISTINCT aus.apiKeyId) FROM ApiKeyUsageStats aus WHERE aus.lastRequestAt > :since")
+    long countKeysActiveSince(@Param("since") LocalDateTime since);
+
+    /**
+     * Sum of requests in windows that started after the given time
+     */
+    @Query("SELECT COALESCE(SUM(aus.requestCount), 0) FROM ApiKeyUsageStats aus WHERE aus.windowStart > :since")
+    long sumRequestsInWindowsStartedAfter(@Param("since") LocalDateTime since);
+
+    /**
+     * Number of usage rows per rate limit tier: [rateLimitTier, count]
+     */
+    @Query("SELECT aus.rateLimitTier, COUNT(aus) FROM ApiKeyUsageStats aus GROUP BY aus.rateLimitTier")
+    List<Object[]> countByRateLimitTier();
+
     /**
      * Get system-wide statistics
      */
@@ -100,6 +133,31 @@ public interface ApiKeyUsageStatsRepository extends JpaRepository<ApiKeyUsageSta
      */
     Optional<ApiKeyUsageStats> findByApiKeyIdAndWindowStart(UUID apiKeyId, LocalDateTime windowStart);
     
+    /**
+     * Add aggregated request/blocked deltas to the usage row of a window (used by the in-memory rate limiter).
+     * Returns the number of rows updated; 0 means the row for this window does not exist yet.
+     */
+    @Modifying
+    @Query("UPDATE ApiKeyUsageStats aus SET " +
+           "aus.requestCount = aus.requestCount + :requests, " +
+           "aus.totalRequestsLifetime = COALESCE(aus.totalRequestsLifetime, 0) + :requests, " +
+           "aus.blockedRequests = COALESCE(aus.blockedRequests, 0) + :blocked, " +
+           "aus.remainingRequests = CASE WHEN aus.requestLimit - aus.requestCount - :requests > 0 " +
+           "THEN aus.requestLimit - aus.requestCount - :requests ELSE 0 END, " +
+           "aus.isRateLimited = CASE WHEN aus.rateLimitTier <> com.example.jwtauthenticator.enums.RateLimitTier.BUSINESS_TIER " +
+           "AND aus.requestCount + :requests >= aus.requestLimit THEN true ELSE false END, " +
+           "aus.rateLimitResetAt = CASE WHEN aus.rateLimitTier <> com.example.jwtauthenticator.enums.RateLimitTier.BUSINESS_TIER " +
+           "AND aus.requestCount + :requests >= aus.requestLimit THEN aus.windowEnd ELSE aus.rateLimitResetAt END, " +
+           "aus.firstRequestAt = COALESCE(aus.firstRequestAt, :now), " +
+           "aus.lastRequestAt = :now, " +
+           "aus.updatedAt = :now " +
+           "WHERE aus.apiKeyId = :apiKeyId AND aus.windowStart = :windowStart")
+    int applyUsageDelta(@Param("apiKeyId") UUID apiKeyId,
+                        @Param("windowStart") LocalDateTime windowStart,
+                        @Param("requests") int requests,
+                        @Param("blocked") int blocked,
+                        @Param("now") LocalDateTime now);
+
     /**
      * Find usage stats by API key ID within date range
      */
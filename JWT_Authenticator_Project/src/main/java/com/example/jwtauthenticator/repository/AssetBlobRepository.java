@@ -0,0 +1,79 @@
+package com.example.jwtauthenticator.repository;
+
+import com.example.jwtauthenticator.entity.AssetBlob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Content-addressed asset blobs (asset_blobs), maintained by ContentAddressedAssetStore
+ */
+@Repository
+public interface AssetBlobRepository extends JpaRepository<AssetBlob, String> {
+
+    /**
+     * Insert a blob with one reference unless its hash is already present.
+     * Returns 1 when inserted, 0 when another download stored the same content first.
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO asset_blobs (sha256, stored_path, file_size, mime_type, ref_count, created_at, last_referenced_at)
+        VALUES (:sha256, :storedPath, :fileSize, :mimeType, 1, :now, :now)
+        ON CONFLICT (sha256) DO NOTHING
+        """, nativeQuery = true)
+    int insertIfAbsent(@Param("sha256") String sha256,
+                       @Param("storedPath") String storedPath,
+                       @Param("fileSize") long fileSize,
+                       @Param("mimeType") String mimeType,
+                       @Param("now") LocalDateTime now);
+
+    /**
+     * Count one more reference to an existing blob. Returns 0 when the blob does not exist.
+     */
+    @Modifying
+    @Query("UPDATE AssetBlob b SET b.refCount = b.refCount + 1, b.lastReferencedAt = :now WHERE b.sha256 = :sha256")
+    int addReference(@Param("sha256") String sha256, @Param("now") LocalDateTime now);
+
+    /**
+     * Serializes reconcile runs across instances for the current transaction
+     */
+    @Query(value = "SELECT pg_try_advisory_xact_lock(:lockKey)", nativeQuery = true)
+    boolean tryLockForReconcile(@Param("lockKey") long lockKey);
+
+    /**
+     * Recompute every reference count from the asset and image rows pointing at the blob.
+     * Only rows whose count changed are written. Returns the number of corrected rows.
+     */
+    @Modifying
+    @Query(value = """
+        WITH counts AS (
+            SELECT c.sha256,
+                   (SELECT COUNT(*) FROM brand_assets a WHERE a.stored_path = c.stored_path)
+                 + (SELECT COUNT(*) FROM brand_images i WHERE i.stored_path = c.stored_path) AS refs
+            FROM asset_blobs c
+        )
+        UPDATE asset_blobs b SET ref_count = counts.refs
+        FROM counts
+        WHERE b.sha256 = counts.sha256 AND b.ref_count IS DISTINCT FROM counts.refs
+        """, nativeQuery = true)
+    int recomputeReferenceCounts();
+
+    /**
+     * Blobs without references that were last referenced before the cutoff
+     */
+    @Query("SELECT b FROM AssetBlob b WHERE b.refCount = 0 AND b.lastReferencedAt < :cutoff ORDER BY b.lastReferencedAt")
+    List<AssetBlob> findUnreferencedBefore(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    /**
+     * Delete a blob row if it is still unreferenced. Returns 0 when it gained a reference meanwhile.
+     */
+    @Modifying
+    @Query("DELETE FROM AssetBlob b WHERE b.sha256 = :sha256 AND b.refCount = 0 AND b.lastReferencedAt < :cutoff")
+    int deleteIfUnreferenced(@Param("sha256") String sha256, @Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,32 @@
+package com.example.jwtauthenticator.repository;
+
+import com.example.jwtauthenticator.entity.AssetSourceValidator;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Conditional GET validators per asset source URL (asset_source_validators)
+ */
+@Repository
+public interface AssetSourceValidatorRepository extends JpaRepository<AssetSourceValidator, String> {
+
+    /**
+     * Validators for the given URL hashes whose blob still exists
+     */
+    @Query("SELECT v FROM AssetSourceValidator v WHERE v.urlHash IN :urlHashes " +
+           "AND EXISTS (SELECT 1 FROM AssetBlob b WHERE b.sha256 = v.blobSha256)")
+    List<AssetSourceValidator> findUsableByUrlHashIn(@Param("urlHashes") Collection<String> urlHashes);
+
+    /**
+     * Drop validators whose blob no longer exists
+     */
+    @Modifying
+    @Query("DELETE FROM AssetSourceValidator v WHERE NOT EXISTS (SELECT 1 FROM AssetBlob b WHERE b.sha256 = v.blobSha256)")
+    int deleteOrphaned();
+}
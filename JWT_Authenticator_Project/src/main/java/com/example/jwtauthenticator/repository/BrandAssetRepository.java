@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,4 +27,7 @@ public interface BrandAssetRepository extends JpaRepository<BrandAsset, Long> {
     
     @Query("SELECT COUNT(ba) FROM BrandAsset ba WHERE ba.brand.id = :brandId AND ba.downloadStatus = 'COMPLETED'")
     Long countCompletedAssetsByBrandId(@Param("brandId") Long brandId);
+    
+    @Query("SELECT ba.id FROM BrandAsset ba WHERE ba.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 }
\ No newline at end of file
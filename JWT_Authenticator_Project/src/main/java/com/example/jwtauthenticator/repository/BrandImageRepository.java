@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,4 +25,7 @@ public interface BrandImageRepository extends JpaRepository<BrandImage, Long> {
     
     @Query("SELECT COUNT(bi) FROM BrandImage bi WHERE bi.brand.id = :brandId AND bi.downloadStatus = 'COMPLETED'")
     Long countCompletedImagesByBrandId(@Param("brandId") Long brandId);
+    
+    @Query("SELECT bi.id FROM BrandImage bi WHERE bi.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 }
\ No newline at end of file
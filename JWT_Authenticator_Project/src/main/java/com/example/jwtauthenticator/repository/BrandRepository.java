@@ -1,9 +1,12 @@
 package com.example.jwtauthenticator.repository;
 
 import com.example.jwtauthenticator.entity.Brand;
+import com.example.jwtauthenticator.util.BrandWebsiteUtil;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -25,15 +28,56 @@ public interface BrandRepository extends JpaRepository<Brand, Long> {
     @Query("SELECT b FROM Brand b WHERE b.website LIKE %:domain%")
     List<Brand> findByWebsiteContaining(@Param("domain") String domain);
     
-    @Query("SELECT b FROM Brand b WHERE " +
-           "LOWER(TRIM(TRAILING '/' FROM REPLACE(REPLACE(REPLACE(b.website, 'https://', ''), 'http://', ''), 'www.', ''))) " +
-           "LIKE LOWER(CONCAT('%', :domain, '%')) ORDER BY LENGTH(b.website) ASC")
-    Optional<Brand> findByDomainMatch(@Param("domain") String domain);
-    
-    @Query("SELECT b FROM Brand b WHERE " +
-           "LOWER(TRIM(TRAILING '/' FROM REPLACE(REPLACE(REPLACE(b.website, 'https://', ''), 'http://', ''), 'www.', ''))) = " +
-           "LOWER(TRIM(TRAILING '/' FROM REPLACE(REPLACE(REPLACE(:url, 'https://', ''), 'http://', ''), 'www.', '')))")
-    Optional<Brand> findByNormalizedWebsite(@Param("url") String url);
+    /**
+     * Brands whose host (see BrandWebsiteUtil) equals the given one, shortest website first
+     */
+    @Query("SELECT b FROM Brand b WHERE b.normalizedHost = :host ORDER BY LENGTH(b.website) ASC, b.id ASC")
+    List<Brand> findByNormalizedHost(@Param("host") String host, Pageable pageable);
+    
+    /**
+     * Brands whose registrable domain (see BrandWebsiteUtil) equals the given one, shortest website first
+     */
+    @Query("SELECT b FROM Brand b WHERE b.registrableDomain = :registrableDomain ORDER BY LENGTH(b.website) ASC, b.id ASC")
+    List<Brand> findByRegistrableDomain(@Param("registrableDomain") String registrableDomain, Pageable pageable);
+    
+    /**
+     * Brand for a domain: a brand on the same host first. Only an apex (or www.) domain falls
+     * back to any brand under it, so blog.example.com or x.github.io never resolve to the brand
+     * of example.com or github.io.
+     */
+    default Optional<Brand> findByDomainMatch(String domain) {
+        String host = BrandWebsiteUtil.host(domain);
+        if (host == null) {
+            return Optional.empty();
+        }
+        Optional<Brand> hostMatch = findByNormalizedHost(host, PageRequest.of(0, 1)).stream().findFirst();
+        if (hostMatch.isPresent() || !host.equals(BrandWebsiteUtil.registrableDomain(host))) {
+            return hostMatch;
+        }
+        return findByRegistrableDomain(host, PageRequest.of(0, 1)).stream().findFirst();
+    }
+    
+    Optional<Brand> findFirstByNormalizedWebsiteOrderByIdAsc(String normalizedWebsite);
+    
+    default Optional<Brand> findByNormalizedWebsite(String url) {
+        String normalizedWebsite = BrandWebsiteUtil.normalize(url);
+        if (normalizedWebsite == null || normalizedWebsite.isEmpty()) {
+            return Optional.empty();
+        }
+        return findFirstByNormalizedWebsiteOrderByIdAsc(normalizedWebsite);
+    }
+    
+    // Backfill of the derived website columns for rows written before they existed
+    @Query("SELECT b.id, b.website FROM Brand b WHERE b.normalizedHost IS NULL ORDER BY b.id ASC")
+    List<Object[]> findIdAndWebsiteWithoutWebsiteKeys(Pageable pageable);
+    
+    @Modifying
+    @Query("UPDATE Brand b SET b.normalizedWebsite = :normalizedWebsite, b.normalizedHost = :normalizedHost, " +
+           "b.registrableDomain = :registrableDomain WHERE b.id = :id")
+    int updateWebsiteKeys(@Param("id") Long id,
+                          @Param("normalizedWebsite") String normalizedWebsite,
+                          @Param("normalizedHost") String normalizedHost,
+                          @Param("registrableDomain") String registrableDomain);
     
     // For future automated updates
     @Query("SELECT b FROM Brand b WHERE b.needsUpdate = true ORDER BY b.freshnessScore ASC")
@@ -0,0 +1,77 @@
+package com.example.jwtauthenticator.repository;
+
+import com.example.jwtauthenticator.entity.RivoFetchErrorRollup;
+import com.example.jwtauthenticator.entity.RivoFetchRollup.Granularity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Error rollups for RivoFetch analytics (rivo_fetch_error_rollups), maintained with
+ * {@link RivoFetchRollupRepository} by RivoFetchRollupService.
+ */
+@Repository
+public interface RivoFetchErrorRollupRepository extends JpaRepository<RivoFetchErrorRollup, Long> {
+
+    @Modifying
+    @Query("DELETE FROM RivoFetchErrorRollup r WHERE r.granularity = :granularity AND r.bucketStart = :bucketStart")
+    int deleteBucket(@Param("granularity") Granularity granularity, @Param("bucketStart") LocalDateTime bucketStart);
+
+    /**
+     * Aggregate the failed requests of one hour into HOUR rows
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO rivo_fetch_error_rollups (granularity, bucket_start, user_id, api_key_id, response_status,
+            error_message, request_count)
+        SELECT 'HOUR', :hourStart, l.rivo_fetch_user_id, l.rivo_fetch_api_key_id, l.rivo_fetch_response_status,
+            LEFT(l.rivo_fetch_error_message, 500), COUNT(*)
+        FROM rivo_fetch_request_logs l
+        WHERE l.rivo_fetch_success = false
+        AND l.rivo_fetch_timestamp >= :hourStart AND l.rivo_fetch_timestamp < :hourEnd
+        GROUP BY l.rivo_fetch_user_id, l.rivo_fetch_api_key_id, l.rivo_fetch_response_status,
+            LEFT(l.rivo_fetch_error_message, 500)
+        """, nativeQuery = true)
+    int insertHourFromLogs(@Param("hourStart") LocalDateTime hourStart, @Param("hourEnd") LocalDateTime hourEnd);
+
+    /**
+     * Sum the HOUR rows of one day into DAY rows
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO rivo_fetch_error_rollups (granularity, bucket_start, user_id, api_key_id, response_status,
+            error_message, request_count)
+        SELECT 'DAY', :dayStart, r.user_id, r.api_key_id, r.response_status, r.error_message, SUM(r.request_count)
+        FROM rivo_fetch_error_rollups r
+        WHERE r.granularity = 'HOUR' AND r.bucket_start >= :dayStart AND r.bucket_start < :dayEnd
+        GROUP BY r.user_id, r.api_key_id, r.response_status, r.error_message
+        """, nativeQuery = true)
+    int insertDayFromHours(@Param("dayStart") LocalDateTime dayStart, @Param("dayEnd") LocalDateTime dayEnd);
+
+    @Modifying
+    @Query("DELETE FROM RivoFetchErrorRollup r WHERE r.granularity = :granularity AND r.bucketStart < :cutoff")
+    int deleteBucketsBefore(@Param("granularity") Granularity granularity, @Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * [responseStatus, errorMessage, requestCount], most frequent first
+     */
+    @Query("""
+        SELECT r.responseStatus, r.errorMessage, SUM(r.requestCount) as errorCount
+        FROM RivoFetchErrorRollup r
+        WHERE r.granularity = :granularity AND r.bucketStart >= :since
+        AND (:userId IS NULL OR r.userId = :userId)
+        AND (:apiKeyId IS NULL OR r.apiKeyId = :apiKeyId)
+        GROUP BY r.responseStatus, r.errorMessage
+        ORDER BY errorCount DESC
+        """)
+    List<Object[]> findErrorDistribution(@Param("granularity") Granularity granularity,
+                                         @Param("since") LocalDateTime since,
+                                         @Param("userId") String userId,
+                                         @Param("apiKeyId") UUID apiKeyId);
+}
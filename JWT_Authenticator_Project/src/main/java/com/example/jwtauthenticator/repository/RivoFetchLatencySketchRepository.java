@@ -0,0 +1,48 @@
+package com.example.jwtauthenticator.repository;
+
+import com.example.jwtauthenticator.entity.RivoFetchLatencySketch;
+import com.example.jwtauthenticator.entity.RivoFetchRollup.Granularity;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Latency sketches for RivoFetch analytics (rivo_fetch_latency_sketches), written by
+ * LatencySketchAccumulator and purged with the rollups.
+ */
+@Repository
+public interface RivoFetchLatencySketchRepository extends JpaRepository<RivoFetchLatencySketch, Long> {
+
+    /**
+     * Sketch row with pessimistic lock, for merging a delta into it
+     */
+    @Query("""
+        SELECT s FROM RivoFetchLatencySketch s
+        WHERE s.granularity = :granularity AND s.bucketStart = :bucketStart
+        AND s.apiKeyId = :apiKeyId AND s.cacheHitType = :cacheHitType
+        """)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<RivoFetchLatencySketch> findForUpdate(@Param("granularity") Granularity granularity,
+                                                   @Param("bucketStart") LocalDateTime bucketStart,
+                                                   @Param("apiKeyId") UUID apiKeyId,
+                                                   @Param("cacheHitType") String cacheHitType);
+
+    /**
+     * All sketches of an API key in a window, to be merged
+     */
+    List<RivoFetchLatencySketch> findByApiKeyIdAndGranularityAndBucketStartGreaterThanEqual(
+            UUID apiKeyId, Granularity granularity, LocalDateTime since);
+
+    @Modifying
+    @Query("DELETE FROM RivoFetchLatencySketch s WHERE s.granularity = :granularity AND s.bucketStart < :cutoff")
+    int deleteBucketsBefore(@Param("granularity") Granularity granularity, @Param("cutoff") LocalDateTime cutoff);
+}
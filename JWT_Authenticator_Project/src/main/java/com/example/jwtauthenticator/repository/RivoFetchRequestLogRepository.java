@@ -320,7 +320,13 @@ public interface RivoFetchRequestLogRepository extends JpaRepository<RivoFetchRe
      * Count logs older than cutoff time
      */
     long countByRivoFetchTimestampBefore(LocalDateTime cutoffTime);
-    
+
+    /**
+     * Timestamp of the oldest log (starting point for the analytics rollups)
+     */
+    @Query("SELECT MIN(r.rivoFetchTimestamp) FROM RivoFetchRequestLog r")
+    Optional<LocalDateTime> findEarliestTimestamp();
+
     // ==================== CUSTOM FINDER METHODS ====================
     
     /**
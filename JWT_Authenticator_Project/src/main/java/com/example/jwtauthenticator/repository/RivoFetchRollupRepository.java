@@ -0,0 +1,139 @@
+package com.example.jwtauthenticator.repository;
+
+import com.example.jwtauthenticator.entity.RivoFetchRollup;
+import com.example.jwtauthenticator.entity.RivoFetchRollup.Granularity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Rollup tables for RivoFetch analytics (rivo_fetch_rollups).
+ *
+ * Write side: idempotent per-bucket recomputation (delete + INSERT ... SELECT) used by
+ * RivoFetchRollupService. Read side: aggregates over a window of buckets, optionally
+ * restricted to one user and/or API key (null = no restriction).
+ */
+@Repository
+public interface RivoFetchRollupRepository extends JpaRepository<RivoFetchRollup, Long> {
+
+    // ==================== ROLLUP MAINTENANCE ====================
+
+    /**
+     * Serializes rollup runs across instances for the current transaction
+     */
+    @Query(value = "SELECT pg_try_advisory_xact_lock(:lockKey)", nativeQuery = true)
+    boolean tryLockForRollup(@Param("lockKey") long lockKey);
+
+    @Modifying
+    @Query("DELETE FROM RivoFetchRollup r WHERE r.granularity = :granularity AND r.bucketStart = :bucketStart")
+    int deleteBucket(@Param("granularity") Granularity granularity, @Param("bucketStart") LocalDateTime bucketStart);
+
+    /**
+     * Aggregate the raw logs of one hour into HOUR rows
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO rivo_fetch_rollups (granularity, bucket_start, user_id, api_key_id, url_domain, cache_hit_type,
+            status_class, success, request_count, duration_count, duration_sum_ms,
+            external_duration_count, external_duration_sum_ms)
+        SELECT 'HOUR', :hourStart, l.rivo_fetch_user_id, l.rivo_fetch_api_key_id, l.rivo_fetch_url_domain,
+            l.rivo_fetch_cache_hit_type,
+            CASE WHEN l.rivo_fetch_response_status BETWEEN 100 AND 599
+                 THEN CAST(l.rivo_fetch_response_status / 100 AS VARCHAR) || 'xx' ELSE 'UNKNOWN' END,
+            l.rivo_fetch_success,
+            COUNT(*),
+            COUNT(l.rivo_fetch_total_duration_ms), COALESCE(SUM(l.rivo_fetch_total_duration_ms), 0),
+            COUNT(l.rivo_fetch_external_api_duration_ms), COALESCE(SUM(l.rivo_fetch_external_api_duration_ms), 0)
+        FROM rivo_fetch_request_logs l
+        WHERE l.rivo_fetch_timestamp >= :hourStart AND l.rivo_fetch_timestamp < :hourEnd
+        GROUP BY l.rivo_fetch_user_id, l.rivo_fetch_api_key_id, l.rivo_fetch_url_domain, l.rivo_fetch_cache_hit_type,
+            CASE WHEN l.rivo_fetch_response_status BETWEEN 100 AND 599
+                 THEN CAST(l.rivo_fetch_response_status / 100 AS VARCHAR) || 'xx' ELSE 'UNKNOWN' END,
+            l.rivo_fetch_success
+        """, nativeQuery = true)
+    int insertHourFromLogs(@Param("hourStart") LocalDateTime hourStart, @Param("hourEnd") LocalDateTime hourEnd);
+
+    /**
+     * Sum the HOUR rows of one day into DAY rows
+     */
+    @Modifying
+    @Query(value = """
+        INSERT INTO rivo_fetch_rollups (granularity, bucket_start, user_id, api_key_id, url_domain, cache_hit_type,
+            status_class, success, request_count, duration_count, duration_sum_ms,
+            external_duration_count, external_duration_sum_ms)
+        SELECT 'DAY', :dayStart, r.user_id, r.api_key_id, r.url_domain, r.cache_hit_type, r.status_class, r.success,
+            SUM(r.request_count), SUM(r.duration_count), SUM(r.duration_sum_ms),
+            SUM(r.external_duration_count), SUM(r.external_duration_sum_ms)
+        FROM rivo_fetch_rollups r
+        WHERE r.granularity = 'HOUR' AND r.bucket_start >= :dayStart AND r.bucket_start < :dayEnd
+        GROUP BY r.user_id, r.api_key_id, r.url_domain, r.cache_hit_type, r.status_class, r.success
+        """, nativeQuery = true)
+    int insertDayFromHours(@Param("dayStart") LocalDateTime dayStart, @Param("dayEnd") LocalDateTime dayEnd);
+
+    @Query("SELECT MAX(r.bucketStart) FROM RivoFetchRollup r WHERE r.granularity = :granularity")
+    Optional<LocalDateTime> findLatestBucketStart(@Param("granularity") Granularity granularity);
+
+    @Modifying
+    @Query("DELETE FROM RivoFetchRollup r WHERE r.granularity = :granularity AND r.bucketStart < :cutoff")
+    int deleteBucketsBefore(@Param("granularity") Granularity granularity, @Param("cutoff") LocalDateTime cutoff);
+
+    // ==================== ANALYTICS READS ====================
+
+    /**
+     * Totals per cache hit type and success flag:
+     * [cacheHitType, success, requestCount, durationCount, durationSumMs, externalDurationCount, externalDurationSumMs]
+     */
+    @Query("""
+        SELECT r.cacheHitType, r.success, SUM(r.requestCount), SUM(r.durationCount), SUM(r.durationSumMs),
+            SUM(r.externalDurationCount), SUM(r.externalDurationSumMs)
+        FROM RivoFetchRollup r
+        WHERE r.granularity = :granularity AND r.bucketStart >= :since
+        AND (:userId IS NULL OR r.userId = :userId)
+        AND (:apiKeyId IS NULL OR r.apiKeyId = :apiKeyId)
+        GROUP BY r.cacheHitType, r.success
+        """)
+    List<Object[]> summarize(@Param("granularity") Granularity granularity,
+                             @Param("since") LocalDateTime since,
+                             @Param("userId") String userId,
+                             @Param("apiKeyId") UUID apiKeyId);
+
+    /**
+     * [urlDomain, requestCount], busiest first
+     */
+    @Query("""
+        SELECT r.urlDomain, SUM(r.requestCount) as requestCount
+        FROM RivoFetchRollup r
+        WHERE r.granularity = :granularity AND r.bucketStart >= :since
+        AND (:userId IS NULL OR r.userId = :userId)
+        AND (:apiKeyId IS NULL OR r.apiKeyId = :apiKeyId)
+        GROUP BY r.urlDomain
+        ORDER BY requestCount DESC
+        """)
+    List<Object[]> findTopDomains(@Param("granularity") Granularity granularity,
+                                  @Param("since") LocalDateTime since,
+                                  @Param("userId") String userId,
+                                  @Param("apiKeyId") UUID apiKeyId,
+                                  Pageable pageable);
+
+    /**
+     * [apiKeyId, requestCount], busiest first
+     */
+    @Query("""
+        SELECT r.apiKeyId, SUM(r.requestCount) as requestCount
+        FROM RivoFetchRollup r
+        WHERE r.granularity = :granularity AND r.bucketStart >= :since
+        GROUP BY r.apiKeyId
+        ORDER BY requestCount DESC
+        """)
+    List<Object[]> findMostActiveApiKeys(@Param("granularity") Granularity granularity,
+                                         @Param("since") LocalDateTime since,
+                                         Pageable pageable);
+}
@@ -12,30 +12,36 @@ import java.util.stream.Collectors;
 /**
  * Spring Security Authentication implementation for API key authentication.
  * This represents an authenticated API key with its associated scopes and permissions.
+ * Scopes are held as an ApiKeyScope bitmask, so scope checks are a single AND.
  */
 public class ApiKeyAuthentication implements Authentication {
     
     private final String apiKeyHash;
     private final String userId;
     private final String keyName;
-    private final ApiKeyScope[] scopes;
-    private final Collection<? extends GrantedAuthority> authorities;
+    private final long scopeMask;
+    private Collection<? extends GrantedAuthority> authorities;
     private boolean authenticated = true;
     
     public ApiKeyAuthentication(String apiKeyHash, String userId, String keyName, ApiKeyScope[] scopes) {
+        this(apiKeyHash, userId, keyName, ApiKeyScope.toMask(scopes));
+    }
+
+    public ApiKeyAuthentication(String apiKeyHash, String userId, String keyName, long scopeMask) {
         this.apiKeyHash = apiKeyHash;
         this.userId = userId;
         this.keyName = keyName;
-        this.scopes = scopes != null ? scopes : new ApiKeyScope[0];
-        
-        // Convert scopes to Spring Security authorities
-        this.authorities = Arrays.stream(this.scopes)
-            .map(scope -> new SimpleGrantedAuthority("SCOPE_" + scope.name()))
-            .collect(Collectors.toList());
+        this.scopeMask = scopeMask;
     }
     
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
+        // Built on first use: most requests are authorized through the scope mask only
+        if (authorities == null) {
+            authorities = Arrays.stream(ApiKeyScope.fromMask(scopeMask))
+                .map(scope -> new SimpleGrantedAuthority("SCOPE_" + scope.name()))
+                .collect(Collectors.toList());
+        }
         return authorities;
     }
     
@@ -46,7 +52,7 @@ public class ApiKeyAuthentication implements Authentication {
     
     @Override
     public Object getDetails() {
-        return new ApiKeyDetails(apiKeyHash, userId, keyName, scopes);
+        return new ApiKeyDetails(apiKeyHash, userId, keyName, ApiKeyScope.fromMask(scopeMask));
     }
     
     @Override
@@ -75,8 +81,7 @@ public class ApiKeyAuthentication implements Authentication {
      * @return true if this API key has the specified scope
      */
     public boolean hasScope(ApiKeyScope scope) {
-        return Arrays.asList(scopes).contains(scope) || 
-               Arrays.asList(scopes).contains(ApiKeyScope.FULL_ACCESS);
+        return hasScopes(scope.mask(), true);
     }
     
     /**
@@ -85,8 +90,7 @@ public class ApiKeyAuthentication implements Authentication {
      * @return true if this API key has at least one of the specified scopes
      */
     public boolean hasAnyScope(ApiKeyScope... requiredScopes) {
-        return Arrays.stream(requiredScopes)
-            .anyMatch(this::hasScope);
+        return hasScopes(ApiKeyScope.toMask(requiredScopes), false);
     }
     
     /**
@@ -95,8 +99,32 @@ public class ApiKeyAuthentication implements Authentication {
      * @return true if this API key has all of the specified scopes
      */
     public boolean hasAllScopes(ApiKeyScope... requiredScopes) {
-        return Arrays.stream(requiredScopes)
-            .allMatch(this::hasScope);
+        return hasScopes(ApiKeyScope.toMask(requiredScopes), true);
+    }
+
+    /**
+     * Check a precomputed scope mask (see ApiKeyScope.toMask). FULL_ACCESS grants every scope;
+     * an empty requirement is satisfied by requireAll and never by any-of, as with the array checks.
+     * @param requiredMask Mask of the required scopes
+     * @param requireAll true to require every scope in the mask, false for at least one
+     * @return true if this API key satisfies the requirement
+     */
+    public boolean hasScopes(long requiredMask, boolean requireAll) {
+        if (requiredMask == 0L) {
+            return requireAll;
+        }
+        if ((scopeMask & ApiKeyScope.FULL_ACCESS.mask()) != 0L) {
+            return true;
+        }
+        return requireAll ? (scopeMask & requiredMask) == requiredMask : (scopeMask & requiredMask) != 0L;
+    }
+
+    /**
+     * Get the scope bitmask of this API key.
+     * @return Mask of ApiKeyScope bits
+     */
+    public long getScopeMask() {
+        return scopeMask;
     }
     
     /**
@@ -120,7 +148,7 @@ public class ApiKeyAuthentication implements Authentication {
      * @return Array of scopes
      */
     public ApiKeyScope[] getScopes() {
-        return scopes.clone(); // Return defensive copy
+        return ApiKeyScope.fromMask(scopeMask); // New array on every call
     }
     
     /**
@@ -1,8 +1,9 @@
 package com.example.jwtauthenticator.security;
 
 import com.example.jwtauthenticator.entity.ApiKey;
-import com.example.jwtauthenticator.enums.ApiKeyScope;
 import com.example.jwtauthenticator.enums.RateLimitTier;
+import com.example.jwtauthenticator.service.ApiKeyResolutionCache;
+import com.example.jwtauthenticator.service.ApiKeyResolutionCache.ResolvedApiKey;
 import com.example.jwtauthenticator.service.ApiKeyService;
 import com.example.jwtauthenticator.service.RequestContextExtractorService;
 import com.example.jwtauthenticator.util.ApiKeyHashUtil;
@@ -43,9 +44,16 @@ public class ApiKeyAuthenticationFilter extends OncePerRequestFilter {
     private static final String RATE_LIMIT_HEADER = "X-RateLimit-Limit";
     private static final String RATE_LIMIT_REMAINING_HEADER = "X-RateLimit-Remaining";
     private static final String RATE_LIMIT_RESET_HEADER = "X-RateLimit-Reset";
+
+    private static final PublicPathMatcher PUBLIC_PATHS = PublicPathMatcher.builder()
+        .prefix("/auth/", "/v3/api-docs/", "/swagger-ui/", "/actuator/health",
+                "/api/brands/assets/", "/api/brands/images/")
+        .exact("/swagger-ui.html", "/api/category/hierarchy", "/api/brands/all")
+        .build();
     
     private final ApiKeyService apiKeyService;
     private final ApiKeyHashUtil apiKeyHashUtil;
+    private final ApiKeyResolutionCache apiKeyResolutionCache;
     private final RequestContextExtractorService requestContextExtractor; // PHASE 1 INTEGRATION
     
     // INTEGRATION: Add new services for comprehensive API key functionality
@@ -82,7 +90,7 @@ public class ApiKeyAuthenticationFilter extends OncePerRequestFilter {
         
         try {
             // Validate and authenticate the API key
-            Optional<ApiKey> validatedKey = validateApiKey(apiKey);
+            Optional<ResolvedApiKey> validatedKey = validateApiKey(apiKey);
             
             if (validatedKey.isEmpty()) {
                 log.warn("Invalid API key used for request: {} {} from IP: {}", 
@@ -95,16 +103,15 @@ public class ApiKeyAuthenticationFilter extends OncePerRequestFilter {
                 return;
             }
             
-            ApiKey apiKeyEntity = validatedKey.get();
-            apiKeyId = apiKeyEntity.getId().toString();
-            userFkId = apiKeyEntity.getUserFkId();
-            rateLimitTier = apiKeyEntity.getRateLimitTier() != null ? 
-                           apiKeyEntity.getRateLimitTier() : RateLimitTier.FREE_TIER;
+            ResolvedApiKey resolvedKey = validatedKey.get();
+            apiKeyId = resolvedKey.id().toString();
+            userFkId = resolvedKey.userFkId();
+            rateLimitTier = resolvedKey.effectiveRateLimitTier();
             
             // Check if key is active and not expired
-            if (!isKeyActive(apiKeyEntity)) {
+            if (!resolvedKey.isUsable(LocalDateTime.now())) {
                 log.warn("Inactive or expired API key used: {} from IP: {}", 
-                        apiKeyEntity.getName(), getClientIpAddress(request));
+                        resolvedKey.name(), getClientIpAddress(request));
                 
                 // INTEGRATION: Log inactive key usage attempt
                 logRequestAsync(apiKeyId, userFkId, request, response, false);
@@ -126,22 +133,19 @@ public class ApiKeyAuthenticationFilter extends OncePerRequestFilter {
             // - /forward uses appropriate rate limiting per auth method
             // - /api/external/** can use basic rate limiting if needed
             
-            // Parse scopes
-            ApiKeyScope[] scopes = parseScopes(apiKeyEntity.getScopes());
-            
-            // Create authentication object
+            // Create authentication object (scopes were parsed once into the cached snapshot)
             ApiKeyAuthentication authentication = new ApiKeyAuthentication(
-                apiKeyEntity.getKeyHash(),
-                apiKeyEntity.getUserFkId(),
-                apiKeyEntity.getName(),
-                scopes
+                resolvedKey.keyHash(),
+                resolvedKey.userFkId(),
+                resolvedKey.name(),
+                resolvedKey.scopeMask()
             );
             
             // Set authentication in security context
             SecurityContextHolder.getContext().setAuthentication(authentication);
             
             // Update last used timestamp (async to avoid blocking)
-            updateLastUsedAsync(apiKeyEntity);
+            updateLastUsedAsync(resolvedKey);
             
             // INTEGRATION: Record usage statistics (async)
             // Skip usage tracking for /api/secure/rivofetch as it handles its own tracking via ProfessionalRateLimitService
@@ -156,7 +160,7 @@ public class ApiKeyAuthenticationFilter extends OncePerRequestFilter {
             authenticationSuccessful = true;
             
             log.debug("API key authentication successful for key: {} (user: {})", 
-                     apiKeyEntity.getName(), apiKeyEntity.getUserFkId());
+                     resolvedKey.name(), resolvedKey.userFkId());
             
         } catch (Exception e) {
             log.error("Error processing API key authentication", e);
@@ -202,34 +206,15 @@ public class ApiKeyAuthenticationFilter extends OncePerRequestFilter {
     }
     
     /**
-     * Validate the API key against the database.
+     * Validate the API key against the resolution cache (database on a miss).
      */
-    private Optional<ApiKey> validateApiKey(String apiKey) {
+    private Optional<ResolvedApiKey> validateApiKey(String apiKey) {
         if (!apiKeyHashUtil.isValidApiKeyFormat(apiKey)) {
             return Optional.empty();
         }
         
         String keyHash = apiKeyHashUtil.hashApiKey(apiKey);
-        return apiKeyService.findByKeyHash(keyHash);
-    }
-    
-    /**
-     * Check if the API key is active and not expired.
-     */
-    private boolean isKeyActive(ApiKey apiKey) {
-        if (!apiKey.isActive()) {
-            return false;
-        }
-        
-        if (apiKey.getRevokedAt() != null) {
-            return false;
-        }
-        
-        if (apiKey.getExpiresAt() != null && apiKey.getExpiresAt().isBefore(LocalDateTime.now())) {
-            return false;
-        }
-        
-        return true;
+        return apiKeyResolutionCache.resolve(keyHash);
     }
     
     /**
@@ -306,22 +291,6 @@ public class ApiKeyAuthenticationFilter extends OncePerRequestFilter {
         return requestContextExtractor.extractClientIp(request);
     }
     
-    /**
-     * Parse scopes from comma-separated string.
-     */
-    private ApiKeyScope[] parseScopes(String scopesString) {
-        if (scopesString == null || scopesString.trim().isEmpty()) {
-            return new ApiKeyScope[0];
-        }
-        
-        try {
-            return ApiKeyScope.fromString(scopesString);
-        } catch (Exception e) {
-            log.warn("Invalid scopes in API key: {}", scopesString, e);
-            return new ApiKeyScope[0];
-        }
-    }
-    
     /**
      * Get rate limit tier from string.
      */
@@ -351,12 +320,12 @@ public class ApiKeyAuthenticationFilter extends OncePerRequestFilter {
     /**
      * Update last used timestamp asynchronously.
      */
-    private void updateLastUsedAsync(ApiKey apiKey) {
+    private void updateLastUsedAsync(ResolvedApiKey apiKey) {
         // This could be enhanced with @Async annotation for true async processing
         try {
-            apiKeyService.updateLastUsed(apiKey.getId());
+            apiKeyService.updateLastUsed(apiKey.id());
         } catch (Exception e) {
-            log.warn("Failed to update last used timestamp for API key: {}", apiKey.getName(), e);
+            log.warn("Failed to update last used timestamp for API key: {}", apiKey.name(), e);
         }
     }
     
@@ -449,16 +418,6 @@ public class ApiKeyAuthenticationFilter extends OncePerRequestFilter {
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) {
         // Skip filter for public endpoints
-        String path = request.getRequestURI();
-        
-        return path.startsWith("/auth/") ||
-               path.startsWith("/v3/api-docs/") ||
-               path.startsWith("/swagger-ui/") ||
-               path.equals("/swagger-ui.html") ||
-               path.startsWith("/actuator/health") ||
-               path.equals("/api/category/hierarchy") ||
-               path.equals("/api/brands/all") ||
-               path.startsWith("/api/brands/assets/") ||
-               path.startsWith("/api/brands/images/");
+        return PUBLIC_PATHS.matches(request.getRequestURI());
     }
 }
\ No newline at end of file
@@ -15,16 +15,24 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * AOP interceptor for handling @RequireApiKeyScope annotations.
  * This intercepts method calls and checks if the current authentication has the required scopes.
+ * The annotation lookup and required-scope mask are resolved once per method.
  */
 @Aspect
 @Component
 @Order(1) // Execute before other security aspects
 @Slf4j
 public class ApiKeyScopeMethodInterceptor {
+
+    // Methods without an annotation map to NONE
+    private static final ScopeRequirement NONE = new ScopeRequirement(null, 0L);
+
+    private final Map<Method, ScopeRequirement> requirements = new ConcurrentHashMap<>();
     
     @Around("@annotation(com.example.jwtauthenticator.annotation.RequireApiKeyScope) || " +
             "@within(com.example.jwtauthenticator.annotation.RequireApiKeyScope)")
@@ -33,11 +41,8 @@ public class ApiKeyScopeMethodInterceptor {
         // Get the method being called
         Method method = ((org.aspectj.lang.reflect.MethodSignature) joinPoint.getSignature()).getMethod();
         
-        // Check for method-level annotation first, then class-level
-        RequireApiKeyScope scopeAnnotation = method.getAnnotation(RequireApiKeyScope.class);
-        if (scopeAnnotation == null) {
-            scopeAnnotation = method.getDeclaringClass().getAnnotation(RequireApiKeyScope.class);
-        }
+        ScopeRequirement requirement = requirements.computeIfAbsent(method, ApiKeyScopeMethodInterceptor::resolveRequirement);
+        RequireApiKeyScope scopeAnnotation = requirement.annotation();
         
         if (scopeAnnotation == null) {
             // No scope annotation found, proceed normally
@@ -73,19 +78,13 @@ public class ApiKeyScopeMethodInterceptor {
         }
         
         ApiKeyAuthentication apiKeyAuth = (ApiKeyAuthentication) authentication;
-        ApiKeyScope[] requiredScopes = scopeAnnotation.value();
-        boolean requireAll = scopeAnnotation.requireAll();
         String customMessage = scopeAnnotation.message();
         
-        // Check scope permissions
-        boolean hasPermission;
-        if (requireAll) {
-            hasPermission = apiKeyAuth.hasAllScopes(requiredScopes);
-        } else {
-            hasPermission = apiKeyAuth.hasAnyScope(requiredScopes);
-        }
+        // Check scope permissions with one mask test
+        boolean hasPermission = apiKeyAuth.hasScopes(requirement.mask(), scopeAnnotation.requireAll());
         
         if (!hasPermission) {
+            ApiKeyScope[] requiredScopes = scopeAnnotation.value();
             log.warn("API key '{}' (user: {}) attempted to access method {}.{} without required scopes. " +
                     "Required: {}, Has: {}", 
                     apiKeyAuth.getName(), 
@@ -105,4 +104,21 @@ public class ApiKeyScopeMethodInterceptor {
         
         return joinPoint.proceed();
     }
-}
\ No newline at end of file
+
+    /**
+     * Check for method-level annotation first, then class-level.
+     */
+    private static ScopeRequirement resolveRequirement(Method method) {
+        RequireApiKeyScope scopeAnnotation = method.getAnnotation(RequireApiKeyScope.class);
+        if (scopeAnnotation == null) {
+            scopeAnnotation = method.getDeclaringClass().getAnnotation(RequireApiKeyScope.class);
+        }
+        if (scopeAnnotation == null) {
+            return NONE;
+        }
+        return new ScopeRequirement(scopeAnnotation, ApiKeyScope.toMask(scopeAnnotation.value()));
+    }
+
+    private record ScopeRequirement(RequireApiKeyScope annotation, long mask) {
+    }
+}
@@ -4,7 +4,10 @@ import com.example.jwtauthenticator.service.ApiKeyAuthenticationService;
 import com.example.jwtauthenticator.service.RequestContextExtractorService;
 import com.example.jwtauthenticator.util.JwtUtil;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Claims;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -22,7 +25,9 @@ import java.io.IOException;
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Filter that intercepts all requests to validate JWT tokens.
@@ -30,8 +35,42 @@ import java.util.Map;
  * for protected endpoints.
  */
 @Component
+@Slf4j
 public class JwtRequestFilter extends OncePerRequestFilter {
 
+    // Public endpoints match anywhere in the path at segment boundaries, optionally with ".html"
+    private static final PublicPathMatcher PUBLIC_ENDPOINTS = PublicPathMatcher.builder()
+            .endpoint(
+                "/auth/login", 
+                "/auth/token", 
+                "/auth/login/email",
+                "/auth/login/username",
+                "/auth/register", 
+                "/auth/forgot-password", 
+                "/auth/reset-password",
+                "/auth/refresh",
+                "/auth/forward",
+                "/auth/forgot-password-code", 
+                "/auth/verify-reset-code",
+                "/auth/check-email",
+                "/auth/set-new-password",
+                "/auth/google",
+                "/auth/verify-email",
+                "/auth/tfa",
+                "/test",
+                "/swagger-ui",
+                "/swagger-ui.html",
+                "/public-forward",
+                "/v3/api-docs",
+                "/api/id-generator/user-id/init-sequence",
+                "/actuator/health",
+                "/hello",
+                "/api/brands/all",
+                "/api/category/hierarchy")
+            .nested("/webjars")
+            .suffix("/", "/myapp")
+            .build();
+
     private final JwtUserDetailsService jwtUserDetailsService;
     private final JwtUtil jwtUtil;
     private final RequestContextExtractorService requestContextExtractor; // PHASE 1 INTEGRATION
@@ -40,6 +79,20 @@ public class JwtRequestFilter extends OncePerRequestFilter {
     @Autowired
     private ApiKeyAuthenticationService apiKeyAuthenticationService;
 
+    // Request trace: every request is timed, only sampled or slow ones are logged
+    @Value("${app.request-trace.enabled:true}")
+    private boolean traceEnabled;
+
+    @Value("${app.request-trace.sample-rate:0.0}")
+    private double traceSampleRate;
+
+    @Value("${app.request-trace.slow-threshold-ms:500}")
+    private long slowThresholdMillis;
+
+    // Trust the roles claim of access tokens instead of loading the user; role changes apply on the next token
+    @Value("${app.jwt.claims-authentication.enabled:false}")
+    private boolean claimsAuthenticationEnabled;
+
     public JwtRequestFilter(JwtUtil jwtUtil, JwtUserDetailsService jwtUserDetailsService, 
                            RequestContextExtractorService requestContextExtractor) {
         this.jwtUtil = jwtUtil;
@@ -55,23 +108,35 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         // No longer requiring X-Brand-Id header
         final String brandId = "default"; // Use a default brand ID
         final String requestPath = request.getRequestURI();
-        final String contextPath = request.getContextPath();
-        
-        // Log request details for debugging
-        System.out.println("Request URI: " + requestPath);
-        System.out.println("Context Path: " + contextPath);
-        System.out.println("Servlet Path: " + request.getServletPath());
-        
+        final RequestTrace trace = traceEnabled ? RequestTrace.begin(request) : null;
+        try {
+            doFilterTraced(request, response, chain, brandId, requestPath, trace);
+        } finally {
+            if (trace != null) {
+                emitTrace(trace);
+            }
+        }
+    }
+
+    private void doFilterTraced(HttpServletRequest request, HttpServletResponse response, FilterChain chain,
+                                String brandId, String requestPath, RequestTrace trace)
+            throws ServletException, IOException {
+
         // Skip authentication for public endpoints
-        if (isPublicEndpoint(requestPath)) {
-            System.out.println("Public endpoint detected, skipping authentication");
+        boolean publicEndpoint = isPublicEndpoint(requestPath);
+        mark(trace, RequestTrace.Stage.PUBLIC_CHECK);
+        if (publicEndpoint) {
+            outcome(trace, "PUBLIC");
             chain.doFilter(request, response);
+            mark(trace, RequestTrace.Stage.CHAIN);
             return;
         }
 
         // Try to authenticate using either JWT or API Key
         AuthenticationResult authResult = authenticateRequest(request);
+        mark(trace, RequestTrace.Stage.AUTHENTICATE);
         if (!authResult.isSuccess()) {
+            outcome(trace, "UNAUTHENTICATED");
             sendErrorResponse(request, response, HttpStatus.UNAUTHORIZED, 
                 authResult.getErrorMessage(), 
                 "Please provide either a valid Bearer token or API key");
@@ -79,19 +144,25 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         }
 
         String username = authResult.getUsername();
-        String userId = authResult.getUserId();
         String authMethod = authResult.getAuthMethod();
+        if (trace != null) {
+            trace.authMethod(authMethod);
+        }
 
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
             try {
-                UserDetails userDetails = this.jwtUserDetailsService.loadUserByUsernameAndBrandId(username, brandId);
+                UserDetails userDetails = userDetailsFromClaims(authResult);
+                if (userDetails == null) {
+                    userDetails = this.jwtUserDetailsService.loadUserByUsernameAndBrandId(username, brandId);
+                }
+                mark(trace, RequestTrace.Stage.LOAD_USER);
 
-                // For JWT authentication, validate the token
+                // For JWT authentication, validate the claims parsed in authenticateWithJWT
                 if ("JWT".equals(authMethod)) {
-                    String authHeader = request.getHeader("Authorization");
-                    String jwt = authHeader.substring(7);
-                    
-                    if (!jwtUtil.validateToken(jwt, userDetails)) {
+                    boolean valid = jwtUtil.validateToken(authResult.getClaims(), userDetails);
+                    mark(trace, RequestTrace.Stage.VALIDATE);
+                    if (!valid) {
+                        outcome(trace, "INVALID_TOKEN");
                         sendErrorResponse(request, response, HttpStatus.UNAUTHORIZED, 
                             "Invalid or expired JWT token", 
                             "The provided JWT token is invalid or has expired. Please obtain a new token.");
@@ -105,15 +176,14 @@ public class JwtRequestFilter extends OncePerRequestFilter {
                 authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(authToken);
                 
-                // Log successful authentication
-                System.out.println("Authentication successful - Method: " + authMethod + ", User: " + username + ", UserId: " + userId);
-                
             } catch (UsernameNotFoundException e) {
+                outcome(trace, "USER_NOT_FOUND");
                 sendErrorResponse(request, response, HttpStatus.UNAUTHORIZED, 
                     "User not found or not associated with this brand", 
                     "The user is not found or not associated with the provided brand ID.");
                 return;
             } catch (Exception e) {
+                outcome(trace, "ERROR");
                 sendErrorResponse(request, response, HttpStatus.INTERNAL_SERVER_ERROR, 
                     "Authentication error", 
                     "An error occurred during authentication: " + e.getMessage());
@@ -122,68 +192,54 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         }
         
         chain.doFilter(request, response);
+        mark(trace, RequestTrace.Stage.CHAIN);
+    }
+
+    private static void mark(RequestTrace trace, RequestTrace.Stage stage) {
+        if (trace != null) {
+            trace.mark(stage);
+        }
+    }
+
+    private static void outcome(RequestTrace trace, String outcome) {
+        if (trace != null) {
+            trace.outcome(outcome);
+        }
+    }
+
+    /**
+     * Log the trace when the request was sampled or slower than the threshold;
+     * nothing is formatted otherwise.
+     */
+    void emitTrace(RequestTrace trace) {
+        long elapsed = trace.elapsedNanos();
+        if (elapsed >= TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis)) {
+            log.warn("Slow request trace: {}", trace.format(elapsed));
+        } else if (RequestTrace.isSampled(traceSampleRate)) {
+            log.info("Request trace: {}", trace.format(elapsed));
+        }
     }
     
     /**
-     * Determines if the requested path is a public endpoint that doesn't require authentication
+     * UserDetails from the token's roles claim when claims authentication is enabled,
+     * or null when the user has to be loaded.
      */
-    private boolean isPublicEndpoint(String path) {
-        // Create a list of public endpoint patterns
-        String[] publicEndpoints = {
-            "/auth/login", 
-            "/auth/token", 
-            "/auth/login/email",
-            "/auth/login/username",
-            "/auth/register", 
-            "/auth/forgot-password", 
-            "/auth/reset-password",
-            "/auth/refresh",
-            "/auth/forward",
-            "/auth/forgot-password-code", 
-            "/auth/verify-reset-code",
-            "/auth/check-email",
-            "/auth/set-new-password",
-            "/auth/google",
-            "/auth/verify-email",
-            "/auth/tfa",
-            "/test",
-            "/swagger-ui",
-            "/swagger-ui.html",
-            "/public-forward",
-            "/v3/api-docs",
-            "/api/id-generator/user-id/init-sequence",
-            "/actuator/health",
-            "/hello",
-            "/api/brands/all",
-            "/api/category/hierarchy"
-        };
-        
-        // Log the incoming path for debugging
-        System.out.println("Checking path: " + path);
-        
-        // Check if the path ends with any of the public endpoints
-        for (String endpoint : publicEndpoints) {
-            // Check if the path ends with the endpoint or if it's a subpath
-            if (path.endsWith(endpoint) || 
-                path.contains(endpoint + "/") || 
-                path.matches(".*" + endpoint + "(\\.html)?$")) {
-                System.out.println("Matched public endpoint: " + endpoint);
-                return true;
-            }
+    private UserDetails userDetailsFromClaims(AuthenticationResult authResult) {
+        if (!claimsAuthenticationEnabled || authResult.getClaims() == null) {
+            return null;
         }
-        
-        // Additional checks for specific patterns
-        if (path.contains("/swagger-ui/") || 
-            path.contains("/v3/api-docs/") || 
-            path.contains("/webjars/") ||
-            path.endsWith("/") || 
-            path.endsWith("/myapp")) {
-            System.out.println("Matched special pattern");
-            return true;
+        List<String> roles = jwtUtil.extractRoles(authResult.getClaims());
+        if (roles == null || roles.isEmpty()) {
+            return null;
         }
-        
-        System.out.println("Not a public endpoint");
-        return false;
+        return jwtUserDetailsService.fromTokenClaims(authResult.getUsername(), roles);
+    }
+
+    /**
+     * Determines if the requested path is a public endpoint that doesn't require authentication
+     */
+    private boolean isPublicEndpoint(String path) {
+        return PUBLIC_ENDPOINTS.matches(path);
     }
     
     /**
@@ -200,10 +256,7 @@ public class JwtRequestFilter extends OncePerRequestFilter {
             requestPath = request.getRequestURI();
         }
         
-        // Log detailed information for debugging
-        System.out.println("Sending error response for path: " + requestPath);
-        System.out.println("Error: " + error);
-        System.out.println("Message: " + message);
+        log.debug("Authentication failed for {}: {} - {}", requestPath, error, message);
         
         Map<String, Object> errorDetails = new HashMap<>();
         errorDetails.put("timestamp", Instant.now().toString());
@@ -268,8 +321,10 @@ public class JwtRequestFilter extends OncePerRequestFilter {
     private AuthenticationResult authenticateWithJWT(String authHeader) {
         try {
             String token = authHeader.substring(7);
-            String username = jwtUtil.extractUsername(token);
-            String userId = jwtUtil.extractUserId(token);
+            // Parse and verify once; the claims are reused for validation below
+            Claims claims = jwtUtil.parseClaims(token);
+            String username = claims.getSubject();
+            String userId = claims.get("userId", String.class);
             
             if (username == null || username.trim().isEmpty()) {
                 return AuthenticationResult.failed("Invalid JWT token: missing username");
@@ -278,7 +333,7 @@ public class JwtRequestFilter extends OncePerRequestFilter {
                 return AuthenticationResult.failed("Invalid JWT token: missing user ID");
             }
             
-            return AuthenticationResult.success(username, userId, "JWT");
+            return AuthenticationResult.success(username, userId, "JWT", claims);
         } catch (Exception e) {
             return AuthenticationResult.failed("Invalid or expired JWT token");
         }
@@ -306,7 +361,7 @@ public class JwtRequestFilter extends OncePerRequestFilter {
             String username = authResult.getUser().getUsername();
             String userId = authResult.getUserId();
             
-            return AuthenticationResult.success(username, userId, "API_KEY");
+            return AuthenticationResult.success(username, userId, "API_KEY", null);
         } catch (Exception e) {
             return AuthenticationResult.failed("API key authentication failed");
         }
@@ -331,21 +386,24 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         private final String userId;
         private final String authMethod;
         private final String errorMessage;
+        private final Claims claims;
         
-        private AuthenticationResult(boolean success, String username, String userId, String authMethod, String errorMessage) {
+        private AuthenticationResult(boolean success, String username, String userId, String authMethod, String errorMessage,
+                                     Claims claims) {
             this.success = success;
             this.username = username;
             this.userId = userId;
             this.authMethod = authMethod;
             this.errorMessage = errorMessage;
+            this.claims = claims;
         }
         
-        public static AuthenticationResult success(String username, String userId, String authMethod) {
-            return new AuthenticationResult(true, username, userId, authMethod, null);
+        public static AuthenticationResult success(String username, String userId, String authMethod, Claims claims) {
+            return new AuthenticationResult(true, username, userId, authMethod, null, claims);
         }
         
         public static AuthenticationResult failed(String errorMessage) {
-            return new AuthenticationResult(false, null, null, null, errorMessage);
+            return new AuthenticationResult(false, null, null, null, errorMessage, null);
         }
         
         public boolean isSuccess() { return success; }
@@ -353,5 +411,6 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         public String getUserId() { return userId; }
         public String getAuthMethod() { return authMethod; }
         public String getErrorMessage() { return errorMessage; }
+        public Claims getClaims() { return claims; }
     }
 }
\ No newline at end of file
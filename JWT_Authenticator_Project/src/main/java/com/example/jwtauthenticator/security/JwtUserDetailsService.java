@@ -2,25 +2,51 @@ package com.example.jwtauthenticator.security;
 
 import com.example.jwtauthenticator.entity.User;
 import com.example.jwtauthenticator.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.util.Collections;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+/**
+ * Loads UserDetails for JWT authentication.
+ *
+ * Results of loadUserByUsernameAndBrandId are cached for a short time (app.user-details-cache.*)
+ * because JwtRequestFilter resolves the user on every request. Services that change a user's
+ * username, password, role or plan call {@link #evictUser(String)}; save() evicts by itself.
+ */
 @Service
 public class JwtUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder bcryptEncoder;
+    private final Cache<CacheKey, UserDetails> userDetailsCache;
 
-    public JwtUserDetailsService(UserRepository userRepository, PasswordEncoder bcryptEncoder) {
+    public JwtUserDetailsService(UserRepository userRepository, PasswordEncoder bcryptEncoder,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${app.user-details-cache.max-size:10000}") long maxSize,
+                                 @Value("${app.user-details-cache.ttl-seconds:60}") long ttlSeconds) {
         this.userRepository = userRepository;
         this.bcryptEncoder = bcryptEncoder;
+        this.userDetailsCache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, userDetailsCache, "userDetailsCache");
     }
 
     @Override
@@ -29,21 +55,23 @@ public class JwtUserDetailsService implements UserDetailsService {
     }
 
     public UserDetails loadUserByUsernameAndBrandId(String username, String brandId) throws UsernameNotFoundException {
-        // First try to find by username and brandId
-        Optional<User> userOptional = userRepository.findByUsername(username);
-        
-        // If not found and we're using the default brand, try just by username
-        if (!userOptional.isPresent() && "default".equals(brandId)) {
-            userOptional = userRepository.findByUsername(username);
+        CacheKey key = new CacheKey(username, brandId);
+        UserDetails cached = userDetailsCache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
         }
+
+        // Lookup is by username only; brandId is part of the cache key for when that changes
+        Optional<User> userOptional = userRepository.findByUsername(username);
         
         if (!userOptional.isPresent()) {
             throw new UsernameNotFoundException("User not found with username: " + username);
         }
         
         User user = userOptional.get();
-        return new org.springframework.security.core.userdetails.User(user.getUsername(), user.getPassword(),
-                Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + user.getRole().name())));
+        UserDetails userDetails = toUserDetails(user);
+        userDetailsCache.put(key, userDetails);
+        return userDetails;
     }
     public UserDetails loadUserByUsernameAndEmail(String username, String email) throws UsernameNotFoundException {
         // First try to find by username and brandId
@@ -54,13 +82,53 @@ public class JwtUserDetailsService implements UserDetailsService {
             throw new UsernameNotFoundException("User not found with username: " + username);
         }
         
-        User user = userOptional.get();
-        return new org.springframework.security.core.userdetails.User(user.getUsername(), user.getPassword(),
-                Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + user.getRole().name())));
+        return toUserDetails(userOptional.get());
+    }
+
+    /**
+     * UserDetails built from the roles claim of a verified access token, without a DB read.
+     * The password is empty: these are only used to populate the security context.
+     */
+    public UserDetails fromTokenClaims(String username, Collection<String> authorities) {
+        return new org.springframework.security.core.userdetails.User(username, "",
+                authorities.stream().map(SimpleGrantedAuthority::new).toList());
+    }
+
+    /**
+     * Drop cached UserDetails for the username, now and again after the current transaction
+     * commits so a concurrent request cannot re-cache the old row.
+     */
+    public void evictUser(String username) {
+        if (username == null) {
+            return;
+        }
+        evictNow(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(username);
+                }
+            });
+        }
+    }
+
+    private void evictNow(String username) {
+        userDetailsCache.asMap().keySet().removeIf(key -> key.username().equals(username));
     }
 
     public User save(User user) {
         user.setPassword(bcryptEncoder.encode(user.getPassword()));
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        evictUser(user.getUsername());
+        return saved;
+    }
+
+    private static UserDetails toUserDetails(User user) {
+        return new org.springframework.security.core.userdetails.User(user.getUsername(), user.getPassword(),
+                List.of(new SimpleGrantedAuthority("ROLE_" + user.getRole().name())));
+    }
+
+    private record CacheKey(String username, String brandId) {
     }
 }
@@ -0,0 +1,241 @@
+package com.example.jwtauthenticator.security;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Route classifier for the security filters, compiled once at startup.
+ *
+ * Supports the rule kinds the filters use:
+ * - exact: path equals the route
+ * - prefix: path starts with the route (character trie, one pass over the path)
+ * - suffix: path ends with the route
+ * - endpoint: the route's segments appear anywhere in the path at segment boundaries and either
+ *   end the path (optionally with ".html") or are followed by "/", i.e. the historical
+ *   {@code endsWith(e) || contains(e + "/") || matches(".*" + e + "(\\.html)?$")} test of
+ *   JwtRequestFilter (segment trie, no regex and no allocation per request)
+ * - nested: like endpoint, but only when followed by "/" (the old {@code contains(e + "/")})
+ */
+public final class PublicPathMatcher {
+
+    private static final String HTML_SUFFIX = ".html";
+
+    private final Set<String> exact;
+    private final CharNode prefixes;
+    private final String[] suffixes;
+    private final SegmentNode endpoints;
+
+    private PublicPathMatcher(Builder builder) {
+        this.exact = Set.copyOf(builder.exact);
+        this.prefixes = builder.prefixes;
+        this.suffixes = builder.suffixes.toArray(new String[0]);
+        this.endpoints = builder.endpoints;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public boolean matches(String path) {
+        if (path == null) {
+            return false;
+        }
+        if (exact.contains(path) || matchesPrefix(path)) {
+            return true;
+        }
+        for (String suffix : suffixes) {
+            if (path.endsWith(suffix)) {
+                return true;
+            }
+        }
+        return matchesEndpoint(path);
+    }
+
+    private boolean matchesPrefix(String path) {
+        CharNode node = prefixes;
+        if (node.terminal) {
+            return true;
+        }
+        for (int i = 0; i < path.length(); i++) {
+            node = node.child(path.charAt(i));
+            if (node == null) {
+                return false;
+            }
+            if (node.terminal) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean matchesEndpoint(String path) {
+        if (endpoints.children.length == 0) {
+            return false;
+        }
+        int length = path.length();
+        for (int start = path.indexOf('/'); start >= 0; start = path.indexOf('/', start + 1)) {
+            SegmentNode node = endpoints;
+            int slash = start;
+            while (true) {
+                int segmentStart = slash + 1;
+                int segmentEnd = path.indexOf('/', segmentStart);
+                boolean last = segmentEnd < 0;
+                if (last) {
+                    segmentEnd = length;
+                }
+                SegmentNode child = node.child(path, segmentStart, segmentEnd);
+                if (child == null) {
+                    // "/swagger-ui.html" style match of the endpoint's last segment
+                    if (last && path.endsWith(HTML_SUFFIX)) {
+                        SegmentNode html = node.child(path, segmentStart, segmentEnd - HTML_SUFFIX.length());
+                        if (html != null && html.endpoint) {
+                            return true;
+                        }
+                    }
+                    break;
+                }
+                if (last) {
+                    if (child.endpoint) {
+                        return true;
+                    }
+                    break;
+                }
+                if (child.endpoint || child.nested) {
+                    return true;
+                }
+                node = child;
+                slash = segmentEnd;
+            }
+        }
+        return false;
+    }
+
+    public static final class Builder {
+
+        private final Set<String> exact = new HashSet<>();
+        private final CharNode prefixes = new CharNode();
+        private final List<String> suffixes = new ArrayList<>();
+        private final SegmentNode endpoints = new SegmentNode(null);
+
+        private Builder() {
+        }
+
+        public Builder exact(String... paths) {
+            exact.addAll(Arrays.asList(paths));
+            return this;
+        }
+
+        public Builder prefix(String... paths) {
+            for (String path : paths) {
+                CharNode node = prefixes;
+                for (int i = 0; i < path.length(); i++) {
+                    node = node.childOrCreate(path.charAt(i));
+                }
+                node.terminal = true;
+            }
+            return this;
+        }
+
+        public Builder suffix(String... paths) {
+            suffixes.addAll(Arrays.asList(paths));
+            return this;
+        }
+
+        public Builder endpoint(String... paths) {
+            for (String path : paths) {
+                segmentNode(path).endpoint = true;
+            }
+            return this;
+        }
+
+        public Builder nested(String... paths) {
+            for (String path : paths) {
+                segmentNode(path).nested = true;
+            }
+            return this;
+        }
+
+        public PublicPathMatcher build() {
+            return new PublicPathMatcher(this);
+        }
+
+        private SegmentNode segmentNode(String path) {
+            if (!path.startsWith("/") || path.length() == 1) {
+                throw new IllegalArgumentException("Endpoint must start with '/' and name a segment: " + path);
+            }
+            SegmentNode node = endpoints;
+            for (String segment : path.substring(1).split("/", -1)) {
+                node = node.childOrCreate(segment);
+            }
+            return node;
+        }
+    }
+
+    private static final class CharNode {
+
+        private char[] keys = new char[0];
+        private CharNode[] children = new CharNode[0];
+        private boolean terminal;
+
+        CharNode child(char c) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        CharNode childOrCreate(char c) {
+            CharNode child = child(c);
+            if (child == null) {
+                child = new CharNode();
+                keys = Arrays.copyOf(keys, keys.length + 1);
+                children = Arrays.copyOf(children, children.length + 1);
+                keys[keys.length - 1] = c;
+                children[children.length - 1] = child;
+            }
+            return child;
+        }
+    }
+
+    private static final class SegmentNode {
+
+        private final String segment;
+        private SegmentNode[] children = new SegmentNode[0];
+        private boolean endpoint;
+        private boolean nested;
+
+        SegmentNode(String segment) {
+            this.segment = segment;
+        }
+
+        SegmentNode child(String path, int start, int end) {
+            int length = end - start;
+            if (length < 0) {
+                return null;
+            }
+            for (SegmentNode child : children) {
+                if (child.segment.length() == length && path.regionMatches(start, child.segment, 0, length)) {
+                    return child;
+                }
+            }
+            return null;
+        }
+
+        SegmentNode childOrCreate(String segment) {
+            for (SegmentNode child : children) {
+                if (child.segment.equals(segment)) {
+                    return child;
+                }
+            }
+            SegmentNode child = new SegmentNode(segment);
+            children = Arrays.copyOf(children, children.length + 1);
+            children[children.length - 1] = child;
+            return child;
+        }
+    }
+}
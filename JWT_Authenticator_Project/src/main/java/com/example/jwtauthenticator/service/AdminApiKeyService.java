@@ -32,6 +32,7 @@ public class AdminApiKeyService {
     private final ApiKeyRepository apiKeyRepository;
     private final UserRepository userRepository;
     private final ApiKeyHashUtil apiKeyHashUtil;
+    private final ApiKeyResolutionCache apiKeyResolutionCache;
     
     /**
      * Get all API keys in the system (admin only).
@@ -90,6 +91,7 @@ public class AdminApiKeyService {
             .build();
         
         ApiKey savedKey = apiKeyRepository.save(apiKey);
+        apiKeyResolutionCache.invalidate(savedKey);
         
         log.info("Admin created API key '{}' for user '{}'", savedKey.getName(), userId);
         
@@ -109,6 +111,7 @@ public class AdminApiKeyService {
             apiKey.setActive(false);
             apiKey.setRevokedAt(LocalDateTime.now());
             apiKeyRepository.save(apiKey);
+            apiKeyResolutionCache.invalidate(apiKey);
             log.info("Admin revoked API key '{}' (ID: {})", apiKey.getName(), keyId);
             return true;
         }).orElse(false);
@@ -121,6 +124,7 @@ public class AdminApiKeyService {
     public boolean deleteApiKey(UUID keyId) {
         if (apiKeyRepository.existsById(keyId)) {
             apiKeyRepository.deleteById(keyId);
+            apiKeyResolutionCache.invalidateById(keyId);
             log.info("Admin deleted API key with ID: {}", keyId);
             return true;
         }
@@ -237,6 +241,7 @@ public class AdminApiKeyService {
         return apiKeyRepository.findById(keyId).map(apiKey -> {
             apiKey.setScopes(newScopes);
             ApiKey savedKey = apiKeyRepository.save(apiKey);
+            apiKeyResolutionCache.invalidate(savedKey);
             log.info("Admin updated scopes for API key '{}' (ID: {}) to: {}", 
                     apiKey.getName(), keyId, newScopes);
             return ApiKeyResponseDTO.fromEntity(savedKey);
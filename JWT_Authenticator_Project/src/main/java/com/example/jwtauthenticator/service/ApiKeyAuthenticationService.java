@@ -2,7 +2,6 @@ package com.example.jwtauthenticator.service;
 
 import com.example.jwtauthenticator.entity.ApiKey;
 import com.example.jwtauthenticator.entity.User;
-import com.example.jwtauthenticator.repository.ApiKeyRepository;
 import com.example.jwtauthenticator.repository.UserRepository;
 import com.example.jwtauthenticator.util.ApiKeyHashUtil;
 import lombok.RequiredArgsConstructor;
@@ -22,9 +21,9 @@ import java.util.Optional;
 @Slf4j
 public class ApiKeyAuthenticationService {
 
-    private final ApiKeyRepository apiKeyRepository;
     private final UserRepository userRepository;
     private final ApiKeyHashUtil apiKeyHashUtil;
+    private final ApiKeyResolutionCache apiKeyResolutionCache;
 
     /**
      * Authenticate and validate an API key
@@ -42,15 +41,16 @@ public class ApiKeyAuthenticationService {
             // Hash the provided API key to compare with stored hash
             String keyHash = apiKeyHashUtil.hashApiKey(apiKeyValue.trim());
             
-            // Find the API key by hash
-            Optional<ApiKey> apiKeyOpt = apiKeyRepository.findByKeyHash(keyHash);
+            // Find the API key by hash (served from the resolution cache when warm)
+            Optional<ApiKeyResolutionCache.ResolvedApiKey> resolvedKey = apiKeyResolutionCache.resolve(keyHash);
             
-            if (apiKeyOpt.isEmpty()) {
+            if (resolvedKey.isEmpty()) {
                 log.debug("API key not found for hash: {}", keyHash.substring(0, 10) + "...");
                 return ApiKeyAuthResult.failed("Invalid API key");
             }
 
-            ApiKey apiKey = apiKeyOpt.get();
+            // Detached copy of the cached snapshot - callers only read from it
+            ApiKey apiKey = resolvedKey.get().toEntity();
 
             // Check if API key is active
             if (!apiKey.isActive()) {
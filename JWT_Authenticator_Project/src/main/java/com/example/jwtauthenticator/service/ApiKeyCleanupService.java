@@ -21,6 +21,7 @@ import java.util.List;
 public class ApiKeyCleanupService {
     
     private final ApiKeyRepository apiKeyRepository;
+    private final ApiKeyResolutionCache apiKeyResolutionCache;
     
     /**
      * Scheduled task to clean up expired API keys.
@@ -61,6 +62,7 @@ public class ApiKeyCleanupService {
                     key.setActive(false);
                     key.setUpdatedAt(now);
                     apiKeyRepository.save(key);
+                    apiKeyResolutionCache.invalidate(key);
                     
                     log.debug("Deactivated API key '{}' (ID: {}) - {}", 
                              key.getName(), key.getId(), reason);
@@ -137,6 +139,7 @@ public class ApiKeyCleanupService {
                     key.setActive(false);
                     key.setUpdatedAt(now);
                     apiKeyRepository.save(key);
+                    apiKeyResolutionCache.invalidate(key);
                     cleanedCount++;
                 }
             }
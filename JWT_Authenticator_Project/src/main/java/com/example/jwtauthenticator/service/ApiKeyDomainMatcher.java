@@ -0,0 +1,199 @@
+package com.example.jwtauthenticator.service;
+
+import com.example.jwtauthenticator.entity.ApiKey;
+import com.example.jwtauthenticator.enums.ApiKeyEnvironment;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+/**
+ * Domain rules of one API key, compiled once so request-time checks are hash lookups.
+ *
+ * - {@link #matchAllowed}: normalized registered and additional domains (DomainValidationService.validateDomain)
+ * - {@link #allowsKeyDomain}: the broader ApiKey.isValidDomain rules - main domain, exact and
+ *   wildcard subdomain patterns (reversed-label trie) and development domains for DEVELOPMENT keys
+ *
+ * A matcher remembers the fields it was built from; {@link #isCompiledFrom} tells a cache
+ * whether the key's domain settings changed since.
+ */
+public final class ApiKeyDomainMatcher {
+
+    public enum Match { PRIMARY, ADDITIONAL }
+
+    private final String registeredDomain;
+    private final String allowedDomains;
+    private final String mainDomain;
+    private final String subdomainPattern;
+    private final ApiKeyEnvironment environment;
+
+    private final Map<String, Match> allowed;
+    private final Set<String> keyDomains;
+    private final LabelNode wildcards;
+    private final boolean developmentKey;
+
+    private ApiKeyDomainMatcher(ApiKey apiKey, UnaryOperator<String> normalizer) {
+        this.registeredDomain = apiKey.getRegisteredDomain();
+        this.allowedDomains = apiKey.getAllowedDomains();
+        this.mainDomain = apiKey.getMainDomain();
+        this.subdomainPattern = apiKey.getSubdomainPattern();
+        this.environment = apiKey.getEnvironment();
+
+        List<String> additional = apiKey.getAllowedDomainsAsList();
+        Map<String, Match> allowedMap = new HashMap<>();
+        for (String domain : additional) {
+            putNormalized(allowedMap, normalizer, domain, Match.ADDITIONAL);
+        }
+        // Registered domain wins over an identical additional entry
+        putNormalized(allowedMap, normalizer, registeredDomain, Match.PRIMARY);
+        this.allowed = Map.copyOf(allowedMap);
+
+        Set<String> domains = new HashSet<>(additional);
+        if (registeredDomain != null) {
+            domains.add(registeredDomain.toLowerCase());
+        }
+        if (mainDomain != null) {
+            domains.add(mainDomain.toLowerCase());
+        }
+        LabelNode root = new LabelNode(null);
+        if (subdomainPattern != null && !subdomainPattern.trim().isEmpty()) {
+            String pattern = subdomainPattern.trim().toLowerCase();
+            if (pattern.startsWith("*.")) {
+                String base = pattern.substring(2);
+                domains.add(base);
+                root.insertReversed(base).wildcard = true;
+            } else {
+                domains.add(pattern);
+            }
+        }
+        this.keyDomains = Set.copyOf(domains);
+        this.wildcards = root;
+        this.developmentKey = environment == ApiKeyEnvironment.DEVELOPMENT;
+    }
+
+    /**
+     * Compile the key's domain settings; {@code normalizer} is applied to registered and additional domains.
+     */
+    public static ApiKeyDomainMatcher compile(ApiKey apiKey, UnaryOperator<String> normalizer) {
+        return new ApiKeyDomainMatcher(apiKey, normalizer);
+    }
+
+    private static void putNormalized(Map<String, Match> map, UnaryOperator<String> normalizer, String domain, Match match) {
+        if (domain == null || domain.trim().isEmpty()) {
+            return;
+        }
+        String normalized = normalizer.apply(domain);
+        if (normalized != null) {
+            map.put(normalized.toLowerCase(), match);
+        }
+    }
+
+    /**
+     * Whether the matcher still reflects the key's domain fields.
+     */
+    public boolean isCompiledFrom(ApiKey apiKey) {
+        return Objects.equals(registeredDomain, apiKey.getRegisteredDomain())
+                && Objects.equals(allowedDomains, apiKey.getAllowedDomains())
+                && Objects.equals(mainDomain, apiKey.getMainDomain())
+                && Objects.equals(subdomainPattern, apiKey.getSubdomainPattern())
+                && environment == apiKey.getEnvironment();
+    }
+
+    /**
+     * Registered / additional domain match for an already normalized, lower-case domain, or null.
+     */
+    public Match matchAllowed(String normalizedDomain) {
+        return normalizedDomain != null ? allowed.get(normalizedDomain) : null;
+    }
+
+    /**
+     * Same rules as ApiKey.isValidDomain.
+     */
+    public boolean allowsKeyDomain(String requestDomain) {
+        if (requestDomain == null || requestDomain.trim().isEmpty()) {
+            return false;
+        }
+        String domain = requestDomain.trim().toLowerCase();
+        if (keyDomains.contains(domain) || matchesWildcard(domain)) {
+            return true;
+        }
+        return developmentKey && isDevelopmentDomain(domain);
+    }
+
+    /**
+     * Walk the domain's labels right to left; a wildcard node with labels left over matches
+     * when the remaining prefix suits the key's environment.
+     */
+    private boolean matchesWildcard(String domain) {
+        LabelNode node = wildcards;
+        int end = domain.length();
+        while (end > 0) {
+            int dot = domain.lastIndexOf('.', end - 1);
+            node = node.child(domain, dot + 1, end);
+            if (node == null) {
+                return false;
+            }
+            if (dot < 0) {
+                return false;
+            }
+            if (node.wildcard) {
+                String prefix = domain.substring(0, dot);
+                if (environment == null || environment.isValidSubdomainPrefix(prefix)) {
+                    return true;
+                }
+            }
+            end = dot;
+        }
+        return false;
+    }
+
+    private static boolean isDevelopmentDomain(String domain) {
+        return domain.equals("localhost") ||
+               domain.startsWith("127.0.0.1") ||
+               domain.equals("::1") ||
+               domain.endsWith(".local") ||
+               domain.endsWith(".dev") ||
+               domain.contains("localhost");
+    }
+
+    private static final class LabelNode {
+
+        private final String label;
+        private LabelNode[] children = new LabelNode[0];
+        private boolean wildcard;
+
+        LabelNode(String label) {
+            this.label = label;
+        }
+
+        LabelNode child(String domain, int start, int end) {
+            int length = end - start;
+            for (LabelNode child : children) {
+                if (child.label.length() == length && domain.regionMatches(start, child.label, 0, length)) {
+                    return child;
+                }
+            }
+            return null;
+        }
+
+        LabelNode insertReversed(String domain) {
+            LabelNode node = this;
+            String[] labels = domain.split("\\.", -1);
+            for (int i = labels.length - 1; i >= 0; i--) {
+                LabelNode next = node.child(labels[i], 0, labels[i].length());
+                if (next == null) {
+                    next = new LabelNode(labels[i]);
+                    node.children = Arrays.copyOf(node.children, node.children.length + 1);
+                    node.children[node.children.length - 1] = next;
+                }
+                node = next;
+            }
+            return node;
+        }
+    }
+}
@@ -49,7 +49,7 @@ public class ApiKeyRequestLogService {
     /**
      * Log an API request asynchronously for analytics
      */
-    @Async
+    @Async("loggingExecutor")
     public CompletableFuture<Void> logRequestAsync(HttpServletRequest request, ApiKey apiKey,
                                                   Integer responseStatus, Long responseTimeMs) {
         log.info("logRequestAsync called - Logging enabled: {}, API Key ID: {}", requestLoggingEnabled, apiKey.getId());
@@ -0,0 +1,277 @@
+package com.example.jwtauthenticator.service;
+
+import com.example.jwtauthenticator.entity.ApiKey;
+import com.example.jwtauthenticator.enums.ApiKeyEnvironment;
+import com.example.jwtauthenticator.enums.ApiKeyScope;
+import com.example.jwtauthenticator.enums.RateLimitTier;
+import com.example.jwtauthenticator.repository.ApiKeyRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory resolution cache for API keys, keyed by the SHA-256 key hash.
+ *
+ * Holds an immutable snapshot of the fields needed on the request path so that
+ * X-API-KEY authentication does not hit the database on every call. Unknown
+ * hashes are cached for a short time as well to absorb repeated bad keys.
+ *
+ * Every code path that mutates an ApiKey must call {@link #invalidate(ApiKey)}
+ * (or {@link #invalidateById(UUID)}) so the next request reloads the row.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ApiKeyResolutionCache {
+
+    private final ApiKeyRepository apiKeyRepository;
+
+    @Value("${app.api-key.resolution-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.api-key.resolution-cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${app.api-key.resolution-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    @Value("${app.api-key.resolution-cache.negative-ttl-seconds:10}")
+    private long negativeTtlSeconds;
+
+    private Cache<String, ResolvedApiKey> resolvedKeys;
+    private Cache<String, Boolean> unknownKeys;
+
+    // Bumped on every invalidation so a load that raced with a mutation is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        resolvedKeys = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        unknownKeys = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(negativeTtlSeconds))
+                .build();
+        log.info("API key resolution cache initialized (enabled: {}, maxSize: {}, ttl: {}s, negativeTtl: {}s)",
+                enabled, maxSize, ttlSeconds, negativeTtlSeconds);
+    }
+
+    /**
+     * Resolve an API key snapshot by its hash, loading from the database on a miss.
+     * Inactive, revoked and expired keys are returned as well; callers decide how to treat them.
+     */
+    public Optional<ResolvedApiKey> resolve(String keyHash) {
+        if (keyHash == null) {
+            return Optional.empty();
+        }
+        if (!enabled) {
+            return apiKeyRepository.findByKeyHash(keyHash).map(ResolvedApiKey::from);
+        }
+
+        ResolvedApiKey cached = resolvedKeys.getIfPresent(keyHash);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        if (unknownKeys.getIfPresent(keyHash) != null) {
+            return Optional.empty();
+        }
+
+        long generationBeforeLoad = generation.get();
+        Optional<ApiKey> loaded = apiKeyRepository.findByKeyHash(keyHash);
+        boolean cacheable = generation.get() == generationBeforeLoad;
+
+        if (loaded.isEmpty()) {
+            if (cacheable) {
+                unknownKeys.put(keyHash, Boolean.TRUE);
+            }
+            return Optional.empty();
+        }
+
+        ResolvedApiKey snapshot = ResolvedApiKey.from(loaded.get());
+        if (cacheable) {
+            resolvedKeys.put(keyHash, snapshot);
+        }
+        return Optional.of(snapshot);
+    }
+
+    /**
+     * Drop any cached state for the given key. The key hash and id are both used so that
+     * a regenerated key (new hash, same id) also drops the entry for its previous hash.
+     * Invalidation is repeated after the surrounding transaction commits.
+     */
+    public void invalidate(ApiKey apiKey) {
+        if (apiKey == null) {
+            return;
+        }
+        String keyHash = apiKey.getKeyHash();
+        UUID keyId = apiKey.getId();
+        evict(keyHash, keyId);
+        afterCommit(() -> evict(keyHash, keyId));
+    }
+
+    /**
+     * Drop any cached state for the key with the given id (used when only the id is known, e.g. deletes).
+     */
+    public void invalidateById(UUID keyId) {
+        if (keyId == null) {
+            return;
+        }
+        evict(null, keyId);
+        afterCommit(() -> evict(null, keyId));
+    }
+
+    /**
+     * Drop every cached entry.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        resolvedKeys.invalidateAll();
+        unknownKeys.invalidateAll();
+    }
+
+    public long size() {
+        return resolvedKeys.estimatedSize();
+    }
+
+    public CacheStats stats() {
+        return resolvedKeys.stats();
+    }
+
+    private void evict(String keyHash, UUID keyId) {
+        generation.incrementAndGet();
+        if (keyHash != null) {
+            resolvedKeys.invalidate(keyHash);
+            unknownKeys.invalidate(keyHash);
+        }
+        if (keyId != null) {
+            resolvedKeys.asMap().values().removeIf(snapshot -> keyId.equals(snapshot.id()));
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        }
+    }
+
+    /**
+     * Immutable snapshot of the request-path fields of an ApiKey. The scopes string is
+     * also resolved once into {@code scopeMask} (see ApiKeyScope.toMask).
+     */
+    public record ResolvedApiKey(
+            UUID id,
+            String keyHash,
+            String userFkId,
+            String name,
+            String prefix,
+            String scopes,
+            RateLimitTier rateLimitTier,
+            String registeredDomain,
+            String mainDomain,
+            String subdomainPattern,
+            ApiKeyEnvironment environment,
+            String allowedDomains,
+            String allowedIps,
+            boolean active,
+            LocalDateTime expiresAt,
+            LocalDateTime revokedAt,
+            long scopeMask) {
+
+        public static ResolvedApiKey from(ApiKey apiKey) {
+            return new ResolvedApiKey(
+                    apiKey.getId(),
+                    apiKey.getKeyHash(),
+                    apiKey.getUserFkId(),
+                    apiKey.getName(),
+                    apiKey.getPrefix(),
+                    apiKey.getScopes(),
+                    apiKey.getRateLimitTier(),
+                    apiKey.getRegisteredDomain(),
+                    apiKey.getMainDomain(),
+                    apiKey.getSubdomainPattern(),
+                    apiKey.getEnvironment(),
+                    apiKey.getAllowedDomains(),
+                    apiKey.getAllowedIps(),
+                    apiKey.isActive(),
+                    apiKey.getExpiresAt(),
+                    apiKey.getRevokedAt(),
+                    parseScopeMask(apiKey.getScopes()));
+        }
+
+        /**
+         * Mask of the comma-separated scopes; an invalid scope name yields no scopes at all.
+         */
+        static long parseScopeMask(String scopes) {
+            if (scopes == null || scopes.isBlank()) {
+                return 0L;
+            }
+            try {
+                return ApiKeyScope.toMask(ApiKeyScope.fromString(scopes));
+            } catch (IllegalArgumentException e) {
+                log.warn("Invalid scopes in API key: {}", scopes, e);
+                return 0L;
+            }
+        }
+
+        public boolean isExpired(LocalDateTime now) {
+            return expiresAt != null && expiresAt.isBefore(now);
+        }
+
+        /**
+         * Active, not revoked and not expired.
+         */
+        public boolean isUsable(LocalDateTime now) {
+            return active && revokedAt == null && !isExpired(now);
+        }
+
+        public RateLimitTier effectiveRateLimitTier() {
+            return rateLimitTier != null ? rateLimitTier : RateLimitTier.FREE_TIER;
+        }
+
+        /**
+         * Build a detached ApiKey carrying the snapshot fields, for callers that still
+         * work with the entity type. The result must not be saved.
+         */
+        public ApiKey toEntity() {
+            return ApiKey.builder()
+                    .id(id)
+                    .keyHash(keyHash)
+                    .userFkId(userFkId)
+                    .name(name)
+                    .prefix(prefix)
+                    .scopes(scopes)
+                    .rateLimitTier(rateLimitTier)
+                    .registeredDomain(registeredDomain)
+                    .mainDomain(mainDomain)
+                    .subdomainPattern(subdomainPattern)
+                    .environment(environment)
+                    .allowedDomains(allowedDomains)
+                    .allowedIps(allowedIps)
+                    .isActive(active)
+                    .expiresAt(expiresAt)
+                    .revokedAt(revokedAt)
+                    .build();
+        }
+    }
+}
@@ -30,15 +30,21 @@ public class ApiKeyService {
     private final UserRepository userRepository; // Inject UserRepository to fetch User by String ID
     private final ApiKeyHashUtil apiKeyHashUtil;
     private final com.example.jwtauthenticator.util.DomainExtractionUtil domainExtractionUtil; // ✅ Use existing service
+    private final ApiKeyResolutionCache apiKeyResolutionCache;
+    private final InMemoryRateLimitEngine inMemoryRateLimitEngine;
 
     @Autowired
     public ApiKeyService(ApiKeyRepository apiKeyRepository, UserRepository userRepository, 
                         ApiKeyHashUtil apiKeyHashUtil, 
-                        com.example.jwtauthenticator.util.DomainExtractionUtil domainExtractionUtil) {
+                        com.example.jwtauthenticator.util.DomainExtractionUtil domainExtractionUtil,
+                        ApiKeyResolutionCache apiKeyResolutionCache,
+                        InMemoryRateLimitEngine inMemoryRateLimitEngine) {
         this.apiKeyRepository = apiKeyRepository;
         this.userRepository = userRepository; // Initialize UserRepository
         this.apiKeyHashUtil = apiKeyHashUtil;
         this.domainExtractionUtil = domainExtractionUtil; // ✅ Initialize existing service
+        this.apiKeyResolutionCache = apiKeyResolutionCache;
+        this.inMemoryRateLimitEngine = inMemoryRateLimitEngine;
     }
 
     private String generateSecureApiKey(String prefix) {
@@ -160,6 +166,7 @@ public class ApiKeyService {
 
         try {
             ApiKey savedKey = apiKeyRepository.save(apiKey);
+            apiKeyResolutionCache.invalidate(savedKey);
             
             log.info("API key '{}' created successfully for user '{}' with ID: {}", 
                     savedKey.getName(), userFkId, savedKey.getId());
@@ -213,8 +220,11 @@ public class ApiKeyService {
             }
             if (request.getRateLimitTier() != null) {
                 existingKey.setRateLimitTier(RateLimitTier.valueOf(request.getRateLimitTier()));
+                inMemoryRateLimitEngine.evict(existingKey.getId());
             }
-            return ApiKeyResponseDTO.fromEntity(apiKeyRepository.save(existingKey));
+            ApiKey savedKey = apiKeyRepository.save(existingKey);
+            apiKeyResolutionCache.invalidate(savedKey);
+            return ApiKeyResponseDTO.fromEntity(savedKey);
         });
     }
 
@@ -224,6 +234,7 @@ public class ApiKeyService {
             key.setActive(false);
             key.setRevokedAt(LocalDateTime.now());
             apiKeyRepository.save(key);
+            apiKeyResolutionCache.invalidate(key);
             return true;
         }).orElse(false);
     }
@@ -245,6 +256,7 @@ public class ApiKeyService {
             key.setActive(false);
             key.setRevokedAt(LocalDateTime.now());
             apiKeyRepository.save(key);
+            apiKeyResolutionCache.invalidate(key);
             
             return keyInfo;
         });
@@ -255,6 +267,7 @@ public class ApiKeyService {
         Optional<ApiKey> apiKey = apiKeyRepository.findByIdAndUserFkId(keyId, userFkId); // Use updated method
         if (apiKey.isPresent()) {
             apiKeyRepository.delete(apiKey.get());
+            apiKeyResolutionCache.invalidate(apiKey.get());
             return true;
         }
         return false;
@@ -278,6 +291,7 @@ public class ApiKeyService {
             
             // Now perform the deletion
             apiKeyRepository.delete(key);
+            apiKeyResolutionCache.invalidate(key);
             
             return Optional.of(keyInfo);
         }
@@ -8,10 +8,13 @@ import com.example.jwtauthenticator.enums.RateLimitTier;
 import com.example.jwtauthenticator.repository.ApiKeyUsageStatsRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -26,7 +29,12 @@ import java.util.stream.Collectors;
 @Slf4j
 public class ApiKeyStatisticsService {
 
+    private static final long TIER_DISTRIBUTION_TTL_MILLIS = 60_000L;
+
     private final ApiKeyUsageStatsRepository usageStatsRepository;
+    private final LiveUsageRegistry liveUsageRegistry;
+
+    private volatile TierDistribution tierDistribution;
 
     /**
      * Get comprehensive statistics for a specific API key
@@ -137,19 +145,16 @@ public class ApiKeyStatisticsService {
         Object[] rawStats = usageStatsRepository.getSystemWideStats(since);
         
         // Get tier distribution
-        Map<RateLimitTier, Long> tierDistribution = usageStatsRepository.findAll().stream()
-            .collect(Collectors.groupingBy(
-                ApiKeyUsageStats::getRateLimitTier,
-                Collectors.counting()
-            ));
+        Map<RateLimitTier, Long> tierDistribution = getTierDistribution();
 
         // Get currently rate-limited keys
-        List<ApiKeyUsageStats> rateLimitedKeys = 
-            usageStatsRepository.findCurrentlyRateLimitedKeys(LocalDateTime.now());
+        long rateLimitedKeys = liveUsageRegistry.isWarm()
+            ? liveUsageRegistry.rateLimitedKeys()
+            : usageStatsRepository.countCurrentlyRateLimitedKeys(LocalDateTime.now());
 
         // Get top API keys by usage
         List<ApiKeyUsageStats> topApiKeys = 
-            usageStatsRepository.getTopApiKeysByUsage(since);
+            usageStatsRepository.getTopApiKeysByUsage(since, PageRequest.of(0, 10));
 
         return SystemStatisticsDTO.builder()
             .periodHours(hours)
@@ -157,9 +162,9 @@ public class ApiKeyStatisticsService {
             .totalRequests(rawStats.length > 1 ? ((Number) rawStats[1]).longValue() : 0L)
             .totalBlockedRequests(rawStats.length > 2 ? ((Number) rawStats[2]).longValue() : 0L)
             .averageRequestsPerKey(rawStats.length > 3 ? ((Number) rawStats[3]).doubleValue() : 0.0)
-            .currentlyRateLimitedKeys(rateLimitedKeys.size())
+            .currentlyRateLimitedKeys((int) rateLimitedKeys)
             .tierDistribution(tierDistribution)
-            .topApiKeysByUsage(topApiKeys.stream().limit(10).collect(Collectors.toList()))
+            .topApiKeysByUsage(topApiKeys)
             .generatedAt(LocalDateTime.now())
             .build();
     }
@@ -171,20 +176,24 @@ public class ApiKeyStatisticsService {
         LocalDateTime now = LocalDateTime.now();
         LocalDateTime lastHour = now.minusHours(1);
         
-        // Current active requests
-        long activeRequests = usageStatsRepository.findAll().stream()
-            .filter(stats -> stats.getLastRequestAt() != null && 
-                           stats.getLastRequestAt().isAfter(now.minusMinutes(5)))
-            .count();
-
-        // Requests in last hour
-        long requestsLastHour = usageStatsRepository.findAll().stream()
-            .filter(stats -> stats.getWindowStart().isAfter(lastHour))
-            .mapToLong(stats -> stats.getRequestCount().longValue())
-            .sum();
+        long activeRequests;
+        long requestsLastHour;
+        long rateLimitedKeys;
+        if (liveUsageRegistry.isWarm()) {
+            // Live counters from the rate-limit path
+            activeRequests = liveUsageRegistry.activeKeys();
+            requestsLastHour = liveUsageRegistry.requestsLastHour();
+            rateLimitedKeys = liveUsageRegistry.rateLimitedKeys();
+        } else {
+            // Keys with a request in the last 5 minutes
+            activeRequests = usageStatsRepository.countKeysActiveSince(now.minusMinutes(5));
 
-        // Rate limited keys
-        long rateLimitedKeys = usageStatsRepository.findCurrentlyRateLimitedKeys(now).size();
+            // Requests in windows started during the last hour
+            requestsLastHour = usageStatsRepository.sumRequestsInWindowsStartedAfter(lastHour);
+
+            // Rate limited keys
+            rateLimitedKeys = usageStatsRepository.countCurrentlyRateLimitedKeys(now);
+        }
 
         return Map.of(
             "activeRequests", activeRequests,
@@ -194,6 +203,27 @@ public class ApiKeyStatisticsService {
         );
     }
 
+    /**
+     * Usage rows per tier, aggregated on the database and reused for {@link #TIER_DISTRIBUTION_TTL_MILLIS}
+     */
+    private Map<RateLimitTier, Long> getTierDistribution() {
+        TierDistribution cached = tierDistribution;
+        if (cached != null && System.currentTimeMillis() - cached.loadedAtMillis() < TIER_DISTRIBUTION_TTL_MILLIS) {
+            return cached.counts();
+        }
+        Map<RateLimitTier, Long> counts = new EnumMap<>(RateLimitTier.class);
+        for (Object[] row : usageStatsRepository.countByRateLimitTier()) {
+            if (row[0] != null) {
+                counts.put((RateLimitTier) row[0], ((Number) row[1]).longValue());
+            }
+        }
+        Map<RateLimitTier, Long> result = Collections.unmodifiableMap(counts);
+        tierDistribution = new TierDistribution(result, System.currentTimeMillis());
+        return result;
+    }
+
+    private record TierDistribution(Map<RateLimitTier, Long> counts, long loadedAtMillis) {}
+
     /**
      * Calculate simple linear trend from daily data
      */
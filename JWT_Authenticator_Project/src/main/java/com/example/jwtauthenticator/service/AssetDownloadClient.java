@@ -0,0 +1,335 @@
+package com.example.jwtauthenticator.service;
+
+import com.example.jwtauthenticator.config.AsyncExecutorConfig;
+import com.example.jwtauthenticator.util.AsyncSemaphore;
+import com.example.jwtauthenticator.util.MimeTypeSniffer;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Non-blocking HTTP fetches for brand assets and images, used by {@link FileStorageService}.
+ *
+ * Every fetch first takes a permit for its host (app.file-storage.download.per-host-concurrency)
+ * and then one of the global in-flight permits (app.file-storage.download.max-in-flight), so a
+ * slow CDN only queues its own downloads. Waiting parks the request in a queue rather than a
+ * thread. Blocking work on the body (storing the file) runs on the assetDownloadExecutor while
+ * the permits are still held.
+ *
+ * Bodies are streamed to a temp file under app.file-storage.download.temp-dir (by default next to
+ * the local store, so files can be moved into place atomically) and never held in memory. A
+ * download is aborted as soon as the declared Content-Length or the bytes received exceed
+ * app.file-storage.download.max-file-size, and its MIME type is sniffed from the first bytes.
+ *
+ * Metrics: asset.download.requests (by outcome), asset.download.bytes, asset.download.queued,
+ * asset.download.inflight and asset.download.latency per host (the first max-tagged-hosts
+ * hosts, the rest under "other").
+ */
+@Component
+@Slf4j
+public class AssetDownloadClient {
+
+    private static final String OTHER_HOST = "other";
+
+    /**
+     * Body of a successful download in a temp file, owned by the caller until deleted or moved,
+     * with its SHA-256 and the response's validators. For a 304 answer to a conditional GET
+     * there is no file ({@link #notModified()}).
+     */
+    public record DownloadedFile(Path path, long size, String sniffedMimeType, String sha256,
+                                 String eTag, String lastModified) {
+
+        static DownloadedFile notModifiedResponse() {
+            return new DownloadedFile(null, 0, null, null, null, null);
+        }
+
+        public boolean notModified() {
+            return path == null;
+        }
+    }
+
+    /**
+     * Raised when a download is larger than the configured maximum
+     */
+    public static class FileTooLargeException extends IOException {
+        public FileTooLargeException(long maxFileSize) {
+            super("File size exceeds maximum allowed size: " + maxFileSize);
+        }
+    }
+
+    private final WebClient webClient;
+    private final Scheduler storeScheduler;
+    private final MeterRegistry meterRegistry;
+    private final AsyncSemaphore inFlight;
+    private final int perHostConcurrency;
+    private final int maxTaggedHosts;
+    private final Duration timeout;
+    private final long maxFileSize;
+    private final Path tempDir;
+
+    // Host -> permits; idle hosts expire, a host in use is touched by every request
+    private final Cache<String, AsyncSemaphore> hostPermits = Caffeine.newBuilder()
+            .expireAfterAccess(Duration.ofMinutes(10))
+            .build();
+    private final ConcurrentHashMap<String, Timer> hostLatency = new ConcurrentHashMap<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Counter succeeded;
+    private final Counter failed;
+    private final Counter bytes;
+
+    public AssetDownloadClient(
+            WebClient.Builder webClientBuilder,
+            @Qualifier(AsyncExecutorConfig.ASSET_DOWNLOAD_EXECUTOR) AsyncTaskExecutor assetDownloadExecutor,
+            MeterRegistry meterRegistry,
+            @Value("${app.file-storage.download.max-in-flight:16}") int maxInFlight,
+            @Value("${app.file-storage.download.per-host-concurrency:4}") int perHostConcurrency,
+            @Value("${app.file-storage.download.max-tagged-hosts:100}") int maxTaggedHosts,
+            @Value("${app.file-storage.download.timeout-seconds:30}") int timeoutSeconds,
+            @Value("${app.file-storage.download.max-file-size:10485760}") long maxFileSize,
+            @Value("${app.file-storage.download.temp-dir:${app.file-storage.local.base-path:./Brand_Assets}/.downloads}") String tempDir) {
+        this.webClient = webClientBuilder.build();
+        this.storeScheduler = Schedulers.fromExecutor(assetDownloadExecutor);
+        this.meterRegistry = meterRegistry;
+        this.inFlight = new AsyncSemaphore(maxInFlight);
+        this.perHostConcurrency = perHostConcurrency;
+        this.maxTaggedHosts = maxTaggedHosts;
+        this.timeout = Duration.ofSeconds(timeoutSeconds);
+        this.maxFileSize = maxFileSize;
+        this.tempDir = Paths.get(tempDir);
+
+        this.succeeded = Counter.builder("asset.download.requests")
+                .tag("outcome", "success")
+                .description("Asset downloads by outcome")
+                .register(meterRegistry);
+        this.failed = Counter.builder("asset.download.requests")
+                .tag("outcome", "failure")
+                .description("Asset downloads by outcome")
+                .register(meterRegistry);
+        this.bytes = Counter.builder("asset.download.bytes")
+                .baseUnit("bytes")
+                .description("Bytes downloaded for brand assets")
+                .register(meterRegistry);
+        Gauge.builder("asset.download.queued", queued, AtomicInteger::get)
+                .description("Asset downloads waiting for a host or in-flight permit")
+                .register(meterRegistry);
+        Gauge.builder("asset.download.inflight", inFlight, permits -> permits.permits() - permits.availablePermits())
+                .description("Asset downloads holding an in-flight permit")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Download a URL to a temp file. Both permits are held for the HTTP exchange only; the
+     * caller must delete or move the file.
+     */
+    public Mono<DownloadedFile> fetchToFile(String url) {
+        return limited(url, null, null, Mono::just);
+    }
+
+    /**
+     * Download a URL to a temp file and pass it to {@code store} on the asset download
+     * executor. The permits are held until {@code store} returns; the temp file is deleted
+     * afterwards unless {@code store} moved it.
+     */
+    public <T> Mono<T> fetchAndStore(String url, Function<DownloadedFile, T> store) {
+        return fetchAndStore(url, null, null, store);
+    }
+
+    /**
+     * Conditional variant of {@link #fetchAndStore(String, Function)}: sends If-None-Match /
+     * If-Modified-Since when given, and passes a {@link DownloadedFile#notModified()} result to
+     * {@code store} when the server answers 304.
+     */
+    public <T> Mono<T> fetchAndStore(String url, String ifNoneMatch, String ifModifiedSince,
+                                     Function<DownloadedFile, T> store) {
+        return limited(url, ifNoneMatch, ifModifiedSince, file -> Mono.fromCallable(() -> {
+            try {
+                return store.apply(file);
+            } finally {
+                if (!file.notModified()) {
+                    deleteQuietly(file.path());
+                }
+            }
+        }).subscribeOn(storeScheduler));
+    }
+
+    /**
+     * Scheduler for blocking follow-up work (database writes) on the asset download executor
+     */
+    public Scheduler storeScheduler() {
+        return storeScheduler;
+    }
+
+    private <T> Mono<T> limited(String url, String ifNoneMatch, String ifModifiedSince,
+                                Function<DownloadedFile, Mono<T>> then) {
+        String host = hostOf(url);
+        return Mono.defer(() -> {
+            AtomicBoolean waiting = new AtomicBoolean(true);
+            queued.incrementAndGet();
+            Runnable started = () -> {
+                if (waiting.compareAndSet(true, false)) {
+                    queued.decrementAndGet();
+                }
+            };
+
+            AsyncSemaphore hostLimit = hostPermits.get(host, h -> new AsyncSemaphore(perHostConcurrency));
+            return hostLimit.withPermit(inFlight.withPermit(
+                            Mono.fromRunnable(started).then(download(url, host, ifNoneMatch, ifModifiedSince).flatMap(then))))
+                    .doFinally(signal -> started.run());
+        });
+    }
+
+    /**
+     * Stream a GET response into a new temp file while hashing it, timed per host. At most
+     * max-file-size + 1 bytes are read before the exchange is cancelled.
+     */
+    private Mono<DownloadedFile> download(String url, String host, String ifNoneMatch, String ifModifiedSince) {
+        return Mono.defer(() -> {
+            long startNanos = System.nanoTime();
+            Path file;
+            try {
+                Files.createDirectories(tempDir);
+                file = Files.createTempFile(tempDir, "download-", ".part");
+            } catch (IOException e) {
+                return Mono.error(e);
+            }
+
+            AtomicLong received = new AtomicLong();
+            byte[] head = new byte[MimeTypeSniffer.SNIFF_BYTES];
+            AtomicInteger headLength = new AtomicInteger();
+            MessageDigest digest = sha256();
+
+            return webClient.get()
+                    .uri(url)
+                    .headers(headers -> {
+                        if (ifNoneMatch != null) {
+                            headers.set(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+                        }
+                        if (ifModifiedSince != null) {
+                            headers.set(HttpHeaders.IF_MODIFIED_SINCE, ifModifiedSince);
+                        }
+                    })
+                    .exchangeToMono(response -> {
+                        if (response.statusCode().value() == HttpStatus.NOT_MODIFIED.value()) {
+                            deleteQuietly(file);
+                            return response.releaseBody().thenReturn(DownloadedFile.notModifiedResponse());
+                        }
+                        if (response.statusCode().isError()) {
+                            return response.createException().flatMap(Mono::<DownloadedFile>error);
+                        }
+                        if (response.headers().contentLength().orElse(-1) > maxFileSize) {
+                            return response.releaseBody().then(Mono.<DownloadedFile>error(new FileTooLargeException(maxFileSize)));
+                        }
+                        Flux<DataBuffer> body = DataBufferUtils
+                                .takeUntilByteCount(response.bodyToFlux(DataBuffer.class), maxFileSize + 1)
+                                .doOnNext(buffer -> {
+                                    received.addAndGet(buffer.readableByteCount());
+                                    copyHead(buffer, head, headLength);
+                                    try (DataBuffer.ByteBufferIterator chunks = buffer.readableByteBuffers()) {
+                                        chunks.forEachRemaining(digest::update);
+                                    }
+                                });
+                        HttpHeaders responseHeaders = response.headers().asHttpHeaders();
+                        return DataBufferUtils.write(body, file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)
+                                .then(Mono.defer(() -> received.get() > maxFileSize
+                                        ? Mono.<DownloadedFile>error(new FileTooLargeException(maxFileSize))
+                                        : Mono.just(new DownloadedFile(file, received.get(),
+                                                MimeTypeSniffer.sniff(head, headLength.get()),
+                                                HexFormat.of().formatHex(digest.digest()),
+                                                responseHeaders.getETag(),
+                                                responseHeaders.getFirst(HttpHeaders.LAST_MODIFIED)))));
+                    })
+                    .timeout(timeout)
+                    .doOnSuccess(downloaded -> {
+                        latencyTimer(host).record(Duration.ofNanos(System.nanoTime() - startNanos));
+                        succeeded.increment();
+                        bytes.increment(received.get());
+                    })
+                    .doOnError(e -> {
+                        failed.increment();
+                        deleteQuietly(file);
+                        log.debug("Asset download failed for {}: {}", url, e.getMessage());
+                    })
+                    .doOnCancel(() -> deleteQuietly(file));
+        });
+    }
+
+    private static void copyHead(DataBuffer buffer, byte[] head, AtomicInteger headLength) {
+        int offset = headLength.get();
+        int count = Math.min(head.length - offset, buffer.readableByteCount());
+        for (int i = 0; i < count; i++) {
+            head[offset + i] = buffer.getByte(buffer.readPosition() + i);
+        }
+        headLength.addAndGet(count);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete temp download {}: {}", file, e.getMessage());
+        }
+    }
+
+    private Timer latencyTimer(String host) {
+        Timer timer = hostLatency.get(host);
+        if (timer != null) {
+            return timer;
+        }
+        String tag = hostLatency.size() < maxTaggedHosts ? host : OTHER_HOST;
+        return hostLatency.computeIfAbsent(tag, h -> Timer.builder("asset.download.latency")
+                .tag("host", h)
+                .description("Asset download latency per source host")
+                .register(meterRegistry));
+    }
+
+    private static String hostOf(String url) {
+        try {
+            String host = URI.create(url.trim()).getHost();
+            return host == null ? OTHER_HOST : host.toLowerCase(Locale.ROOT);
+        } catch (RuntimeException e) {
+            return OTHER_HOST;
+        }
+    }
+}
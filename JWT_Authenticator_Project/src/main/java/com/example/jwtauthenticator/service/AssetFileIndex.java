@@ -0,0 +1,256 @@
+package com.example.jwtauthenticator.service;
+
+import com.example.jwtauthenticator.entity.BrandAsset;
+import com.example.jwtauthenticator.entity.BrandImage;
+import com.example.jwtauthenticator.repository.BrandAssetRepository;
+import com.example.jwtauthenticator.repository.BrandImageRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory index from brand asset/image id to the stored file served for it, so warm
+ * requests to /api/brands/assets/{id} and /api/brands/images/{id} do not touch the database.
+ *
+ * Entries hold the file's path, size, modification time, MIME type and a strong ETag of its
+ * content: the SHA-256 in the name of content-addressed blobs (see ContentAddressedAssetStore),
+ * otherwise a hash of the file computed when the entry is loaded. Each hit compares size and
+ * modification time with the file on disk and reloads the entry when they differ. Rows that
+ * are not downloaded yet are not cached, since their status is about to change.
+ *
+ * A deleted or re-pointed row can leave its file in place (blobs are kept for a grace period),
+ * so the file check does not catch it. Writers evict the ids they change once the rows are
+ * saved; other instances only see the change once the entry expires, which is why
+ * entries expire a fixed time after loading rather than after last access.
+ */
+@Component
+@Slf4j
+public class AssetFileIndex {
+
+    private static final Pattern BLOB_NAME = Pattern.compile("(?:^|/)blobs/[0-9a-f]{2}/([0-9a-f]{64})(?:\\.[A-Za-z0-9]+)?$");
+
+    private final BrandAssetRepository brandAssetRepository;
+    private final BrandImageRepository brandImageRepository;
+    private final Cache<Long, ServedFile> assets;
+    private final Cache<Long, ServedFile> images;
+
+    @Value("${app.file-storage.local.base-path:./Brand_Assets}")
+    private String localBasePath;
+
+    /**
+     * A stored file ready to be served
+     */
+    public record ServedFile(Path path, long size, long lastModifiedMillis, String mimeType,
+                             String fileName, String eTag) {
+    }
+
+    /**
+     * What to answer for an id: a file, or a redirect to the source URL when the file is not
+     * (or no longer) stored locally
+     */
+    public record Lookup(ServedFile file, String redirectUrl) {
+
+        static Lookup file(ServedFile file) {
+            return new Lookup(file, null);
+        }
+
+        static Lookup redirect(String url) {
+            return new Lookup(null, url);
+        }
+    }
+
+    public AssetFileIndex(BrandAssetRepository brandAssetRepository,
+                          BrandImageRepository brandImageRepository,
+                          @Value("${app.file-storage.serving.index-max-entries:10000}") long maxEntries,
+                          @Value("${app.file-storage.serving.index-expire-minutes:30}") long expireMinutes) {
+        this.brandAssetRepository = brandAssetRepository;
+        this.brandImageRepository = brandImageRepository;
+        this.assets = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMinutes(expireMinutes))
+                .build();
+        this.images = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMinutes(expireMinutes))
+                .build();
+    }
+
+    /**
+     * File for a brand asset; null when the asset does not exist
+     */
+    public Lookup asset(Long assetId) {
+        ServedFile cached = current(assets.getIfPresent(assetId));
+        if (cached != null) {
+            return Lookup.file(cached);
+        }
+        BrandAsset asset = brandAssetRepository.findById(assetId).orElse(null);
+        if (asset == null) {
+            assets.invalidate(assetId);
+            return null;
+        }
+        if (asset.getDownloadStatus() != BrandAsset.DownloadStatus.COMPLETED || asset.getStoredPath() == null) {
+            assets.invalidate(assetId);
+            return Lookup.redirect(asset.getOriginalUrl());
+        }
+        ServedFile file = load(asset.getStoredPath(), asset.getMimeType(), asset.getFileName());
+        if (file == null) {
+            assets.invalidate(assetId);
+            return Lookup.redirect(asset.getOriginalUrl());
+        }
+        assets.put(assetId, file);
+        return Lookup.file(file);
+    }
+
+    /**
+     * File for a brand image; null when the image does not exist
+     */
+    public Lookup image(Long imageId) {
+        ServedFile cached = current(images.getIfPresent(imageId));
+        if (cached != null) {
+            return Lookup.file(cached);
+        }
+        BrandImage image = brandImageRepository.findById(imageId).orElse(null);
+        if (image == null) {
+            images.invalidate(imageId);
+            return null;
+        }
+        if (image.getDownloadStatus() != BrandImage.DownloadStatus.COMPLETED || image.getStoredPath() == null) {
+            images.invalidate(imageId);
+            return Lookup.redirect(image.getSourceUrl());
+        }
+        ServedFile file = load(image.getStoredPath(), image.getMimeType(), image.getFileName());
+        if (file == null) {
+            images.invalidate(imageId);
+            return Lookup.redirect(image.getSourceUrl());
+        }
+        images.put(imageId, file);
+        return Lookup.file(file);
+    }
+
+    public void invalidateAsset(Long assetId) {
+        if (assetId != null) {
+            assets.invalidate(assetId);
+        }
+    }
+
+    public void invalidateImage(Long imageId) {
+        if (imageId != null) {
+            images.invalidate(imageId);
+        }
+    }
+
+    /**
+     * Evict asset and image rows that are being updated or deleted, now and again after the
+     * current transaction commits (if any), so a request racing with the write cannot re-cache
+     * the old row
+     */
+    public void invalidateOnCommit(Collection<Long> assetIds, Collection<Long> imageIds) {
+        evict(assetIds, imageIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(assetIds, imageIds);
+                }
+            });
+        }
+    }
+
+    private void evict(Collection<Long> assetIds, Collection<Long> imageIds) {
+        assetIds.forEach(this::invalidateAsset);
+        imageIds.forEach(this::invalidateImage);
+    }
+
+    /**
+     * The cached entry if the file on disk still has the same size and modification time
+     */
+    private static ServedFile current(ServedFile cached) {
+        if (cached == null) {
+            return null;
+        }
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(cached.path(), BasicFileAttributes.class);
+            if (attributes.size() == cached.size()
+                    && attributes.lastModifiedTime().toMillis() == cached.lastModifiedMillis()) {
+                return cached;
+            }
+        } catch (IOException e) {
+            // Deleted or unreadable: reload from the database
+        }
+        return null;
+    }
+
+    private ServedFile load(String storedPath, String mimeType, String fileName) {
+        Path base = Paths.get(localBasePath).toAbsolutePath().normalize();
+        Path path = base.resolve(storedPath).normalize();
+        if (!path.startsWith(base)) {
+            log.warn("Stored path outside the storage root, not serving it: {}", storedPath);
+            return null;
+        }
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                return null;
+            }
+            String sha256 = blobHash(storedPath);
+            if (sha256 == null) {
+                sha256 = hashFile(path);
+            }
+            if (fileName == null || fileName.isBlank()) {
+                fileName = path.getFileName().toString();
+            }
+            return new ServedFile(path, attributes.size(), attributes.lastModifiedTime().toMillis(),
+                    mimeType != null ? mimeType : "application/octet-stream", fileName, "\"" + sha256 + "\"");
+        } catch (NoSuchFileException e) {
+            log.warn("Stored file not found: {}", path);
+            return null;
+        } catch (IOException e) {
+            log.warn("Stored file not readable: {} ({})", path, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Content hash from a blob path (blobs/ab/<sha256>.<ext>); null for other paths
+     */
+    private static String blobHash(String storedPath) {
+        Matcher matcher = BLOB_NAME.matcher(storedPath);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    private static String hashFile(Path path) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(path)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
@@ -337,6 +337,7 @@ public class AuthService {
         user.setPlanStartedAt(LocalDateTime.now());
         
         User savedUser = userRepository.save(user);
+        userDetailsService.evictUser(savedUser.getUsername());
         log.info("✅ User account activated: {} - Email verified: {}, Plan: {}", 
             savedUser.getUsername(), savedUser.isEmailVerified(), savedUser.getPlan());
 
@@ -720,6 +721,7 @@ public class AuthService {
 
         user.setUpdatedAt(LocalDateTime.now());
         userRepository.save(user);
+        userDetailsService.evictUser(user.getUsername());
 
         return "Profile updated successfully";
     }
@@ -1,9 +1,5 @@
 package com.example.jwtauthenticator.service;
 
-import com.example.jwtauthenticator.entity.BrandCategory;
-import com.example.jwtauthenticator.entity.BrandSubCategory;
-import com.example.jwtauthenticator.repository.BrandCategoryRepository;
-import com.example.jwtauthenticator.repository.BrandSubCategoryRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -16,8 +12,7 @@ import java.util.Optional;
 @Slf4j
 public class BrandCategoryResolutionService {
 
-    private final BrandCategoryRepository brandCategoryRepository;
-    private final BrandSubCategoryRepository brandSubCategoryRepository;
+    private final CategoryService categoryService;
 
     /**
      * DTO to hold the resolved category and subcategory IDs
@@ -50,6 +45,9 @@ public class BrandCategoryResolutionService {
      * 4. If found, return both categoryId and subCategoryId
      * 5. If no match found in either table, return null for both
      * 
+     * Names are looked up in the in-memory index of CategoryService's hierarchy snapshot,
+     * so resolving a brand does not query the database.
+     * 
      * @param industry The brand's industry string
      * @return CategoryResolutionResult containing the resolved IDs
      */
@@ -64,25 +62,25 @@ public class BrandCategoryResolutionService {
         log.info("Resolving category IDs for industry: '{}'", cleanIndustry);
 
         try {
+            CategoryHierarchySnapshot snapshot = categoryService.getHierarchySnapshot();
+
             // Step 1: Check if industry matches any category name in brandcategories
-            Optional<BrandCategory> categoryMatch = brandCategoryRepository
-                    .findByCategoryNameIgnoreCaseAndIsActive(cleanIndustry, true);
+            Optional<Long> categoryMatch = snapshot.findActiveCategoryId(cleanIndustry);
 
             if (categoryMatch.isPresent()) {
-                BrandCategory category = categoryMatch.get();
-                log.info("Found matching category: '{}' with ID: {}", category.getCategoryName(), category.getId());
-                return new CategoryResolutionResult(category.getId(), null);
+                log.info("Found matching category for '{}' with ID: {}", cleanIndustry, categoryMatch.get());
+                return new CategoryResolutionResult(categoryMatch.get(), null);
             }
 
             // Step 2: Check if industry matches any subcategory name in brandsubcategories
-            Optional<BrandSubCategory> subCategoryMatch = brandSubCategoryRepository
-                    .findBySubCategoryNameIgnoreCaseAndIsActive(cleanIndustry, true);
+            Optional<CategoryHierarchySnapshot.SubCategoryRef> subCategoryMatch =
+                    snapshot.findActiveSubCategory(cleanIndustry);
 
             if (subCategoryMatch.isPresent()) {
-                BrandSubCategory subCategory = subCategoryMatch.get();
-                log.info("Found matching subcategory: '{}' with ID: {} and categoryId: {}", 
-                        subCategory.getSubCategoryName(), subCategory.getId(), subCategory.getCategoryId());
-                return new CategoryResolutionResult(subCategory.getCategoryId(), subCategory.getId());
+                CategoryHierarchySnapshot.SubCategoryRef subCategory = subCategoryMatch.get();
+                log.info("Found matching subcategory for '{}' with ID: {} and categoryId: {}", 
+                        cleanIndustry, subCategory.subCategoryId(), subCategory.categoryId());
+                return new CategoryResolutionResult(subCategory.categoryId(), subCategory.subCategoryId());
             }
 
             // Step 3: No match found in either table
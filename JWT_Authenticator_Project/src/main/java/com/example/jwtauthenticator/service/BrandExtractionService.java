@@ -27,6 +27,8 @@ public class BrandExtractionService {
     private final FileStorageService fileStorageService;
     private final ObjectMapper objectMapper;
     private final BrandCategoryResolutionService brandCategoryResolutionService;
+    private final BrandResponseSnapshotCache brandResponseSnapshotCache;
+    private final AssetFileIndex assetFileIndex;
     
     /**
      * Extract and store brand data from the API response
@@ -51,6 +53,9 @@ public class BrandExtractionService {
                 log.info("Created new brand: {} (ID: {})", brand.getName(), brand.getId());
             }
             
+            // Cached DATABASE_HIT response no longer matches the stored brand
+            brandResponseSnapshotCache.invalidate(brand.getId());
+            
             // Schedule asynchronous asset downloads after transaction commits
             scheduleAsyncDownload(brand);
             
@@ -633,6 +638,11 @@ public class BrandExtractionService {
             }
         });
         
+        // Removed rows must stop being served, although their files may stay around
+        assetFileIndex.invalidateOnCommit(
+                brand.getAssets().stream().map(BrandAsset::getId).toList(),
+                brand.getImages().stream().map(BrandImage::getId).toList());
+        
         // Now safely clear all collections
         brand.getAssets().clear();
         brand.getColors().clear();
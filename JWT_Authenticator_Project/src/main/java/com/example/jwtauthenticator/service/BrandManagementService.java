@@ -57,7 +57,7 @@ public class BrandManagementService {
     /**
      * Retry failed asset downloads
      */
-    @Async
+    @Async("assetDownloadExecutor")
     public CompletableFuture<Void> retryFailedDownloads() {
         log.info("Starting retry of failed asset downloads");
         
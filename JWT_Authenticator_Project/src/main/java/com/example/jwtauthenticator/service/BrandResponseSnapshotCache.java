@@ -0,0 +1,109 @@
+package com.example.jwtauthenticator.service;
+
+import com.example.jwtauthenticator.entity.Brand;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * Serialized DATABASE_HIT responses of {@link ForwardService}, keyed by brand id.
+ *
+ * A snapshot is only served while its updatedAt matches the brand row, so a hit costs
+ * the brand lookup and nothing else: no lazy collection loads and no Jackson pass.
+ * Writers evict explicitly as well (brand extraction, asset downloads) because child
+ * rows can change without touching brands.updated_at. Each eviction bumps a generation
+ * for the brand, and a snapshot serialized under an older generation is not stored, so a
+ * hit that read the children before the write committed cannot re-cache them afterwards.
+ */
+@Component
+@Slf4j
+public class BrandResponseSnapshotCache {
+
+    private static final int ENTRY_OVERHEAD_BYTES = 64;
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final Cache<Long, Snapshot> snapshots;
+    // Generation per brand id, striped so the array stays bounded; a brand sharing a stripe
+    // with an invalidated one only misses storing one snapshot
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    public BrandResponseSnapshotCache(
+            MeterRegistry meterRegistry,
+            @Value("${app.brand-snapshot-cache.max-bytes:33554432}") long maxBytes,
+            @Value("${app.brand-snapshot-cache.ttl-minutes:60}") long ttlMinutes) {
+        this.snapshots = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Long brandId, Snapshot snapshot) -> ENTRY_OVERHEAD_BYTES + snapshot.json().length())
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, snapshots, "brandSnapshotCache");
+    }
+
+    /**
+     * Serialized response for the brand, built with {@code serializer} when there is no
+     * snapshot for the brand's current updatedAt.
+     */
+    public String get(Brand brand, Function<Brand, String> serializer) {
+        if (brand.getId() == null) {
+            return serializer.apply(brand);
+        }
+        Snapshot snapshot = snapshots.getIfPresent(brand.getId());
+        if (snapshot != null && Objects.equals(snapshot.updatedAt(), brand.getUpdatedAt())) {
+            return snapshot.json();
+        }
+        int stripe = stripe(brand.getId());
+        long generation = generations.get(stripe);
+        String json = serializer.apply(brand);
+        Snapshot fresh = new Snapshot(brand.getUpdatedAt(), json);
+        // Checked inside compute: invalidate bumps the generation before removing the entry,
+        // so either this sees the new generation or its entry is removed afterwards
+        snapshots.asMap().compute(brand.getId(),
+                (id, current) -> generations.get(stripe) == generation ? fresh : current);
+        return json;
+    }
+
+    /**
+     * Drop the snapshot now and again after the current transaction commits, so a request
+     * racing with the write cannot re-cache the old state.
+     */
+    public void invalidate(Long brandId) {
+        if (brandId == null) {
+            return;
+        }
+        evict(brandId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(brandId);
+                }
+            });
+        }
+        log.debug("Invalidated brand response snapshot for brand {}", brandId);
+    }
+
+    private void evict(Long brandId) {
+        generations.incrementAndGet(stripe(brandId));
+        snapshots.invalidate(brandId);
+    }
+
+    private static int stripe(Long brandId) {
+        return (int) Math.floorMod(brandId, (long) GENERATION_STRIPES);
+    }
+
+    private record Snapshot(LocalDateTime updatedAt, String json) {
+    }
+}
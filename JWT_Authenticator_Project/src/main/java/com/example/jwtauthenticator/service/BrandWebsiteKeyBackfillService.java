@@ -0,0 +1,80 @@
+package com.example.jwtauthenticator.service;
+
+import com.example.jwtauthenticator.repository.BrandRepository;
+import com.example.jwtauthenticator.util.BrandWebsiteUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Fills Brand.normalizedWebsite / Brand.normalizedHost / Brand.registrableDomain for rows
+ * written before the columns existed. New and updated brands get them from the entity callbacks, so after
+ * the first run this finds nothing to do.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BrandWebsiteKeyBackfillService {
+
+    private final BrandRepository brandRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.brand.website-key-backfill.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.brand.website-key-backfill.batch-size:500}")
+    private int batchSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int updated = backfill();
+            if (updated > 0) {
+                log.info("Backfilled website lookup keys for {} brands", updated);
+            }
+        } catch (Exception e) {
+            log.error("Failed to backfill brand website lookup keys", e);
+        }
+    }
+
+    /**
+     * Update all brands without lookup keys, one transaction per batch.
+     *
+     * @return Number of brands updated
+     */
+    public int backfill() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        int total = 0;
+        while (true) {
+            Integer updated = transactionTemplate.execute(status -> {
+                List<Object[]> rows = brandRepository.findIdAndWebsiteWithoutWebsiteKeys(PageRequest.of(0, batchSize));
+                for (Object[] row : rows) {
+                    String website = (String) row[1];
+                    String host = BrandWebsiteUtil.host(website);
+                    // Never leave null behind, or the row would be selected again
+                    brandRepository.updateWebsiteKeys((Long) row[0], BrandWebsiteUtil.normalize(website),
+                            host != null ? host : "", BrandWebsiteUtil.registrableDomain(website));
+                }
+                return rows.size();
+            });
+            if (updated == null || updated == 0) {
+                return total;
+            }
+            total += updated;
+            if (updated < batchSize) {
+                return total;
+            }
+        }
+    }
+}
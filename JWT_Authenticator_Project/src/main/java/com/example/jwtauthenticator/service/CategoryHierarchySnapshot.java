@@ -0,0 +1,186 @@
+package com.example.jwtauthenticator.service;
+
+import com.example.jwtauthenticator.dto.CategoryDTO;
+import com.example.jwtauthenticator.dto.CountryDTO;
+import com.example.jwtauthenticator.dto.MasterDataHierarchyDTO;
+import com.example.jwtauthenticator.dto.RegionDTO;
+import com.example.jwtauthenticator.dto.SubCategoryDTO;
+import com.example.jwtauthenticator.entity.BrandCategory;
+import com.example.jwtauthenticator.entity.BrandSubCategory;
+import com.example.jwtauthenticator.entity.Country;
+import com.example.jwtauthenticator.entity.Region;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Immutable view of the category/region master data, built in one pass from the four
+ * reference tables.
+ *
+ * Holds the hierarchy served by /api/category/hierarchy, its JSON form with a strong ETag
+ * (so unchanged data is answered with 304 without serializing again) and case-insensitive
+ * name indexes of the active categories and sub-categories used to resolve a brand's industry.
+ */
+public final class CategoryHierarchySnapshot {
+
+    /**
+     * Active sub-category matched by name, with its parent category
+     */
+    public record SubCategoryRef(Long categoryId, Long subCategoryId) {
+    }
+
+    private final MasterDataHierarchyDTO hierarchy;
+    private final byte[] json;
+    private final String eTag;
+    private final Instant builtAt;
+    private final Map<String, Long> activeCategoryIdsByName;
+    private final Map<String, SubCategoryRef> activeSubCategoriesByName;
+
+    private CategoryHierarchySnapshot(MasterDataHierarchyDTO hierarchy, byte[] json,
+                                      Map<String, Long> activeCategoryIdsByName,
+                                      Map<String, SubCategoryRef> activeSubCategoriesByName) {
+        this.hierarchy = hierarchy;
+        this.json = json;
+        this.eTag = "\"" + sha256Hex(json) + "\"";
+        this.builtAt = Instant.now();
+        this.activeCategoryIdsByName = activeCategoryIdsByName;
+        this.activeSubCategoriesByName = activeSubCategoriesByName;
+    }
+
+    /**
+     * Build a snapshot from the full contents of the reference tables. Sub-categories and
+     * countries keep the order of the given lists within their parent.
+     */
+    public static CategoryHierarchySnapshot build(List<BrandCategory> categories,
+                                                  List<BrandSubCategory> subCategories,
+                                                  List<Region> regions,
+                                                  List<Country> countries,
+                                                  ObjectMapper objectMapper) throws JsonProcessingException {
+        Map<Long, List<SubCategoryDTO>> subCategoriesByCategory = new HashMap<>();
+        Map<String, SubCategoryRef> activeSubCategoriesByName = new HashMap<>();
+        for (BrandSubCategory sub : subCategories) {
+            subCategoriesByCategory.computeIfAbsent(sub.getCategoryId(), id -> new ArrayList<>())
+                    .add(new SubCategoryDTO(sub.getId(), sub.getSubCategoryName(),
+                            sub.getSubCategoryDescription(), sub.getIconURL()));
+            if (Boolean.TRUE.equals(sub.getIsActive()) && sub.getSubCategoryName() != null) {
+                activeSubCategoriesByName.putIfAbsent(normalize(sub.getSubCategoryName()),
+                        new SubCategoryRef(sub.getCategoryId(), sub.getId()));
+            }
+        }
+
+        List<CategoryDTO> categoryDTOs = new ArrayList<>(categories.size());
+        Map<String, Long> activeCategoryIdsByName = new HashMap<>();
+        for (BrandCategory category : categories) {
+            categoryDTOs.add(new CategoryDTO(category.getId(), category.getCategoryName(),
+                    category.getCategoryDescription(), category.getIconURL(),
+                    immutable(subCategoriesByCategory.get(category.getId()))));
+            if (Boolean.TRUE.equals(category.getIsActive()) && category.getCategoryName() != null) {
+                activeCategoryIdsByName.putIfAbsent(normalize(category.getCategoryName()), category.getId());
+            }
+        }
+
+        Map<Long, List<CountryDTO>> countriesByRegion = new HashMap<>();
+        for (Country country : countries) {
+            countriesByRegion.computeIfAbsent(country.getRegionId(), id -> new ArrayList<>())
+                    .add(new CountryDTO(country.getId(), country.getCountryName(),
+                            country.getCountryCode(), country.getFlagURL()));
+        }
+
+        List<RegionDTO> regionDTOs = new ArrayList<>(regions.size());
+        for (Region region : regions) {
+            regionDTOs.add(new RegionDTO(region.getId(), region.getRegionName(), region.getRegionCode(),
+                    region.getIconURL(), immutable(countriesByRegion.get(region.getId()))));
+        }
+
+        MasterDataHierarchyDTO hierarchy = new MasterDataHierarchyDTO(
+                Collections.unmodifiableList(categoryDTOs), Collections.unmodifiableList(regionDTOs));
+        return new CategoryHierarchySnapshot(hierarchy, objectMapper.writeValueAsBytes(hierarchy),
+                Map.copyOf(activeCategoryIdsByName), Map.copyOf(activeSubCategoriesByName));
+    }
+
+    /**
+     * The hierarchy as built; shared by all callers, so it must not be modified
+     */
+    public MasterDataHierarchyDTO getHierarchy() {
+        return hierarchy;
+    }
+
+    /**
+     * The hierarchy serialized to JSON. The array is shared and must not be modified.
+     */
+    public byte[] getJson() {
+        return json;
+    }
+
+    /**
+     * Strong ETag (quoted SHA-256 of the JSON)
+     */
+    public String getETag() {
+        return eTag;
+    }
+
+    public Instant getBuiltAt() {
+        return builtAt;
+    }
+
+    /**
+     * True when an If-None-Match header value names this snapshot's ETag (or is "*")
+     */
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                // If-None-Match uses weak comparison
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * ID of the active category with this name (case-insensitive)
+     */
+    public Optional<Long> findActiveCategoryId(String name) {
+        return name == null ? Optional.empty() : Optional.ofNullable(activeCategoryIdsByName.get(normalize(name)));
+    }
+
+    /**
+     * Active sub-category with this name (case-insensitive)
+     */
+    public Optional<SubCategoryRef> findActiveSubCategory(String name) {
+        return name == null ? Optional.empty() : Optional.ofNullable(activeSubCategoriesByName.get(normalize(name)));
+    }
+
+    private static String normalize(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static <T> List<T> immutable(List<T> list) {
+        return list == null ? List.of() : Collections.unmodifiableList(list);
+    }
+
+    private static String sha256Hex(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -1,23 +1,15 @@
 package com.example.jwtauthenticator.service;
 
-import java.util.List;
-import java.util.stream.Collectors;
-
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import com.example.jwtauthenticator.dto.CategoryDTO;
-import com.example.jwtauthenticator.dto.CountryDTO;
 import com.example.jwtauthenticator.dto.MasterDataHierarchyDTO;
-import com.example.jwtauthenticator.dto.RegionDTO;
-import com.example.jwtauthenticator.dto.SubCategoryDTO;
-import com.example.jwtauthenticator.entity.BrandCategory;
-import com.example.jwtauthenticator.entity.BrandSubCategory;
-import com.example.jwtauthenticator.entity.Country;
-import com.example.jwtauthenticator.entity.Region;
 import com.example.jwtauthenticator.repository.BrandCategoryRepository;
 import com.example.jwtauthenticator.repository.BrandSubCategoryRepository;
 import com.example.jwtauthenticator.repository.CountryRepository;
 import com.example.jwtauthenticator.repository.RegionRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -31,63 +23,62 @@ public class CategoryService {
 	 private final BrandSubCategoryRepository subCatRepo;
 	 private final RegionRepository regionRepo;
 	 private final CountryRepository countryRepo;
+	 private final ObjectMapper objectMapper;
+
+	 private volatile CategoryHierarchySnapshot snapshot;
 	 
+	 /**
+	  * Categories with their sub-categories and regions with their countries, served from the
+	  * current hierarchy snapshot. The returned DTO is shared and must not be modified.
+	  */
 	 public MasterDataHierarchyDTO getCategorizedHierarchyData() {
-	        // Fetch all data
-	        List<BrandCategory> allCategories = catRepo.findAll();
-	        List<BrandSubCategory> allSubCategories = subCatRepo.findAll();
-	        List<Region> allRegions = regionRepo.findAll();
-	        List<Country> allCountries = countryRepo.findAll();
+	        return getHierarchySnapshot().getHierarchy();
+	    }
 
-	        // Map Categories and their Subcategories
-	        List<CategoryDTO> categoryDTOs = allCategories.stream()
-	            .map(category -> {
-	                CategoryDTO categoryDTO = new CategoryDTO(
-	                    category.getId(),
-	                    category.getCategoryName(),
-	                    category.getCategoryDescription(),
-	                    category.getIconURL(),
-	                    null // Subcategories will be set next
-	                );
-	                List<SubCategoryDTO> subCategoryDTOs = allSubCategories.stream()
-	                    .filter(sub -> sub.getCategoryId().equals(category.getId()))
-	                    .map(sub -> new SubCategoryDTO(
-	                        sub.getId(),
-	                        sub.getSubCategoryName(),
-	                        sub.getSubCategoryDescription(),
-	                        sub.getIconURL()
-	                    ))
-	                    .collect(Collectors.toList());
-	                categoryDTO.setSubCategories(subCategoryDTOs);
-	                return categoryDTO;
-	            })
-	            .collect(Collectors.toList());
+	 /**
+	  * Current hierarchy snapshot, built on first use. The reference data changes rarely, so
+	  * it is rebuilt on a fixed interval and whenever a writer calls {@link #refreshHierarchy()}.
+	  */
+	 public CategoryHierarchySnapshot getHierarchySnapshot() {
+	        CategoryHierarchySnapshot current = snapshot;
+	        if (current == null) {
+	            synchronized (this) {
+	                current = snapshot;
+	                if (current == null) {
+	                    current = buildSnapshot();
+	                    snapshot = current;
+	                }
+	            }
+	        }
+	        return current;
+	    }
 
-	        // Map Regions and their Countries
-	        List<RegionDTO> regionDTOs = allRegions.stream()
-	            .map(region -> {
-	                RegionDTO regionDTO = new RegionDTO(
-	                    region.getId(),
-	                    region.getRegionName(),
-	                    region.getRegionCode(),
-	                    region.getIconURL(),
-	                    null // Countries will be set next
-	                );
-	                List<CountryDTO> countryDTOs = allCountries.stream()
-	                    .filter(country -> country.getRegionId().equals(region.getId()))
-	                    .map(country -> new CountryDTO(
-	                        country.getId(),
-	                        country.getCountryName(),
-	                        country.getCountryCode(),
-	                        country.getFlagURL()
-	                    ))
-	                    .collect(Collectors.toList());
-	                regionDTO.setCountries(countryDTOs);
-	                return regionDTO;
-	            })
-	            .collect(Collectors.toList());
+	 /**
+	  * Rebuild the snapshot from the database. Call after changing categories, sub-categories,
+	  * regions or countries; on failure the previous snapshot stays in place.
+	  */
+	 @Scheduled(fixedDelayString = "${app.category.hierarchy.refresh-interval-ms:600000}",
+	            initialDelayString = "${app.category.hierarchy.refresh-interval-ms:600000}")
+	 public void refreshHierarchy() {
+	        try {
+	            CategoryHierarchySnapshot rebuilt = buildSnapshot();
+	            CategoryHierarchySnapshot previous = snapshot;
+	            snapshot = rebuilt;
+	            if (previous == null || !previous.getETag().equals(rebuilt.getETag())) {
+	                log.info("Category hierarchy snapshot rebuilt (ETag {})", rebuilt.getETag());
+	            }
+	        } catch (Exception e) {
+	            log.error("Failed to rebuild category hierarchy snapshot, keeping the previous one", e);
+	        }
+	    }
 
-	        return new MasterDataHierarchyDTO(categoryDTOs, regionDTOs);
+	 private CategoryHierarchySnapshot buildSnapshot() {
+	        try {
+	            return CategoryHierarchySnapshot.build(catRepo.findAll(), subCatRepo.findAll(),
+	                    regionRepo.findAll(), countryRepo.findAll(), objectMapper);
+	        } catch (JsonProcessingException e) {
+	            throw new IllegalStateException("Failed to serialize category hierarchy", e);
+	        }
 	    }
 	 
 }
@@ -1,5 +1,6 @@
 package com.example.jwtauthenticator.service;
 
+import com.example.jwtauthenticator.config.ConnectionLimitingHikariDataSource;
 import com.zaxxer.hikari.HikariDataSource;
 import com.zaxxer.hikari.HikariPoolMXBean;
 import lombok.RequiredArgsConstructor;
@@ -80,6 +81,10 @@ public class ConnectionPoolHealthService implements HealthIndicator {
                 details.put("totalConnections", totalConnections);
                 details.put("threadsAwaitingConnection", threadsAwaitingConnection);
                 details.put("utilizationPercent", Math.round(utilization * 10.0) / 10.0);
+                if (hikariDataSource instanceof ConnectionLimitingHikariDataSource limited) {
+                    // Virtual-thread mode: borrowers queued in front of the pool
+                    details.put("threadsAwaitingPermit", limited.getThreadsAwaitingPermit());
+                }
                 
                 // Determine health status
                 if (utilization > 90 || threadsAwaitingConnection > 20) {
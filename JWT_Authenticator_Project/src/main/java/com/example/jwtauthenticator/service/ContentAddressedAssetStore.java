@@ -0,0 +1,306 @@
+package com.example.jwtauthenticator.service;
+
+import com.example.jwtauthenticator.entity.AssetBlob;
+import com.example.jwtauthenticator.entity.AssetSourceValidator;
+import com.example.jwtauthenticator.repository.AssetBlobRepository;
+import com.example.jwtauthenticator.repository.AssetSourceValidatorRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Stores downloaded brand assets and images once per content hash.
+ *
+ * A download is hashed while it streams (see {@link AssetDownloadClient}); if a blob with that
+ * SHA-256 already exists the row simply points at it, otherwise the file is written to
+ * {@code blobs/<first two hex chars>/<sha256>.<ext>} and recorded in asset_blobs. The ETag and
+ * Last-Modified of each source URL are kept in asset_source_validators so the next download of
+ * the URL can be a conditional GET, and a 304 reuses the blob without transferring the body.
+ *
+ * Reference counts are incremented as downloads resolve to a blob. Asset and image rows are
+ * also removed through orphanRemoval and bulk deletes that have no hook here, so the reconcile
+ * job recomputes the counts from brand_assets/brand_images and deletes blobs that have been
+ * unreferenced for longer than the grace period (which also covers rows not yet saved when the
+ * counts are recomputed). A Postgres advisory lock keeps instances from reconciling concurrently.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ContentAddressedAssetStore {
+
+    private static final String BLOB_DIRECTORY = "blobs";
+    private static final int RECONCILE_BATCH_SIZE = 100;
+
+    /**
+     * Advisory lock key shared by all instances ("ASSETBLB")
+     */
+    private static final long RECONCILE_LOCK_KEY = 0x4153534554424C42L;
+
+    private final AssetBlobRepository blobRepository;
+    private final AssetSourceValidatorRepository validatorRepository;
+    private final SftpFileStorageService sftpFileStorageService;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.file-storage.dedup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.file-storage.dedup.conditional-get.enabled:true}")
+    private boolean conditionalGetEnabled;
+
+    @Value("${app.file-storage.dedup.orphan-grace-hours:24}")
+    private long orphanGraceHours;
+
+    @Value("${app.file-storage.type:local}")
+    private String storageType;
+
+    @Value("${app.file-storage.local.base-path:./Brand_Assets}")
+    private String localBasePath;
+
+    /**
+     * Validators last seen for a source URL and the blob its content resolved to
+     */
+    public record SourceValidators(String eTag, String lastModified, String blobSha256) {
+    }
+
+    /**
+     * Writes a downloaded temp file to a path relative to the storage root and returns the
+     * stored path
+     */
+    @FunctionalInterface
+    public interface BlobWriter {
+        String write(Path source, long size, String targetPath) throws IOException;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Validators for the given source URLs that can be used for a conditional GET, keyed by
+     * URL. Empty when deduplication or conditional GETs are disabled.
+     */
+    public Map<String, SourceValidators> validatorsFor(Collection<String> urls) {
+        if (!enabled || !conditionalGetEnabled || urls.isEmpty()) {
+            return Map.of();
+        }
+        Map<String, String> urlsByHash = new HashMap<>();
+        for (String url : urls) {
+            if (url != null) {
+                urlsByHash.put(urlHash(url), url);
+            }
+        }
+        Map<String, SourceValidators> validators = new HashMap<>();
+        for (AssetSourceValidator validator : validatorRepository.findUsableByUrlHashIn(urlsByHash.keySet())) {
+            String url = urlsByHash.get(validator.getUrlHash());
+            if (url != null && (validator.getETag() != null || validator.getLastModified() != null)) {
+                validators.put(url, new SourceValidators(validator.getETag(), validator.getLastModified(),
+                        validator.getBlobSha256()));
+            }
+        }
+        return validators;
+    }
+
+    /**
+     * Resolve a downloaded file to a blob, writing it through {@code writer} only when no blob
+     * with the same content exists, and remember the response validators for the source URL.
+     * The returned blob has gained one reference.
+     */
+    public AssetBlob store(AssetDownloadClient.DownloadedFile file, String sourceUrl, String extension,
+                           String mimeType, BlobWriter writer) throws IOException {
+        TransactionTemplate transactionTemplate = newTransactionTemplate();
+        String sha256 = file.sha256();
+
+        AssetBlob blob = transactionTemplate.execute(status -> reference(sha256));
+        if (blob == null) {
+            String storedPath = writer.write(file.path(), file.size(), blobPath(sha256, extension));
+            blob = transactionTemplate.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                if (blobRepository.insertIfAbsent(sha256, storedPath, file.size(), mimeType, now) == 0) {
+                    // Stored concurrently by another download of the same content
+                    return reference(sha256);
+                }
+                return blobRepository.findById(sha256).orElse(null);
+            });
+            if (blob == null) {
+                throw new IOException("Blob " + sha256 + " disappeared while being stored");
+            }
+        } else {
+            log.debug("Reusing stored content {} for {}", blob.getStoredPath(), sourceUrl);
+        }
+
+        rememberValidators(sourceUrl, file.eTag(), file.lastModified(), sha256);
+        return blob;
+    }
+
+    /**
+     * Reuse the blob recorded for a source URL after the server answered a conditional GET
+     * with 304. Returns null (and forgets the validators) when the blob no longer exists.
+     */
+    public AssetBlob reuse(String sourceUrl, SourceValidators validators) {
+        AssetBlob blob = newTransactionTemplate().execute(status -> reference(validators.blobSha256()));
+        if (blob == null) {
+            validatorRepository.deleteById(urlHash(sourceUrl));
+            return null;
+        }
+        rememberValidators(sourceUrl, validators.eTag(), validators.lastModified(), blob.getSha256());
+        return blob;
+    }
+
+    /**
+     * Recompute reference counts and delete blobs unreferenced for longer than the grace period
+     */
+    @Scheduled(fixedDelayString = "${app.file-storage.dedup.reconcile-interval-ms:3600000}",
+               initialDelayString = "${app.file-storage.dedup.reconcile-interval-ms:3600000}")
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            TransactionTemplate transactionTemplate = newTransactionTemplate();
+            Integer corrected = transactionTemplate.execute(status -> blobRepository.tryLockForReconcile(RECONCILE_LOCK_KEY)
+                    ? blobRepository.recomputeReferenceCounts() : null);
+            if (corrected == null) {
+                log.debug("Asset blob reconcile lock held by another instance, skipping run");
+                return;
+            }
+
+            LocalDateTime cutoff = LocalDateTime.now().minusHours(orphanGraceHours);
+            int deleted = 0;
+            List<AssetBlob> unreferenced;
+            do {
+                unreferenced = blobRepository.findUnreferencedBefore(cutoff, PageRequest.of(0, RECONCILE_BATCH_SIZE));
+                int deletedInBatch = 0;
+                for (AssetBlob blob : unreferenced) {
+                    try {
+                        if (Boolean.TRUE.equals(transactionTemplate.execute(status -> deleteBlob(blob, cutoff)))) {
+                            deletedInBatch++;
+                        }
+                    } catch (Exception e) {
+                        log.warn("Could not delete unreferenced blob {}: {}", blob.getStoredPath(), e.getMessage());
+                    }
+                }
+                deleted += deletedInBatch;
+                if (deletedInBatch == 0) {
+                    break; // Nothing more can be deleted in this run
+                }
+            } while (unreferenced.size() == RECONCILE_BATCH_SIZE);
+
+            int validators = transactionTemplate.execute(status -> validatorRepository.deleteOrphaned());
+            if (corrected > 0 || deleted > 0 || validators > 0) {
+                log.info("Asset blob reconcile: corrected {} reference counts, deleted {} unreferenced blobs and {} stale validators",
+                        corrected, deleted, validators);
+            }
+        } catch (Exception e) {
+            log.warn("Asset blob reconcile failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Add a reference to an existing blob; null when there is none
+     */
+    private AssetBlob reference(String sha256) {
+        if (blobRepository.addReference(sha256, LocalDateTime.now()) == 0) {
+            return null;
+        }
+        return blobRepository.findById(sha256).orElse(null);
+    }
+
+    /**
+     * Delete the row and then the file within one transaction, so a concurrent download of the
+     * same content waits on the row lock and writes the file again instead of referencing it
+     */
+    private boolean deleteBlob(AssetBlob blob, LocalDateTime cutoff) {
+        if (blobRepository.deleteIfUnreferenced(blob.getSha256(), cutoff) == 0) {
+            return false; // Referenced again meanwhile
+        }
+        try {
+            deleteFile(blob.getStoredPath());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.debug("Deleted unreferenced blob {}", blob.getStoredPath());
+        return true;
+    }
+
+    private void deleteFile(String storedPath) throws IOException {
+        if ("sftp".equalsIgnoreCase(storageType)) {
+            sftpFileStorageService.deleteFile(storedPath);
+        }
+        // Local storage, and the local fallback of the remote backends. Files uploaded over
+        // HTTP cannot be deleted from here and are left on the server.
+        Files.deleteIfExists(Paths.get(localBasePath, storedPath));
+    }
+
+    private void rememberValidators(String sourceUrl, String eTag, String lastModified, String sha256) {
+        if (!conditionalGetEnabled || sourceUrl == null) {
+            return;
+        }
+        String urlHash = urlHash(sourceUrl);
+        try {
+            if (eTag == null && lastModified == null) {
+                // Nothing to revalidate with
+                if (validatorRepository.existsById(urlHash)) {
+                    validatorRepository.deleteById(urlHash);
+                }
+                return;
+            }
+            AssetSourceValidator validator = validatorRepository.findById(urlHash)
+                    .orElseGet(() -> AssetSourceValidator.builder().urlHash(urlHash).sourceUrl(sourceUrl).build());
+            if (Objects.equals(validator.getETag(), eTag) && Objects.equals(validator.getLastModified(), lastModified)
+                    && sha256.equals(validator.getBlobSha256())) {
+                return; // Unchanged
+            }
+            validator.setETag(eTag);
+            validator.setLastModified(lastModified);
+            validator.setBlobSha256(sha256);
+            validator.setCheckedAt(LocalDateTime.now());
+            validatorRepository.save(validator);
+        } catch (Exception e) {
+            // Only costs a full download next time
+            log.debug("Could not save validators for {}: {}", sourceUrl, e.getMessage());
+        }
+    }
+
+    private TransactionTemplate newTransactionTemplate() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return transactionTemplate;
+    }
+
+    private static String blobPath(String sha256, String extension) {
+        String path = BLOB_DIRECTORY + "/" + sha256.substring(0, 2) + "/" + sha256;
+        return extension == null ? path : path + "." + extension.toLowerCase(Locale.ROOT);
+    }
+
+    private static String urlHash(String url) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(url.trim().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
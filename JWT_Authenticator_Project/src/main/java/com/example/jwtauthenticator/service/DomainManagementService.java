@@ -33,6 +33,8 @@ public class DomainManagementService {
     private final ApiKeyRepository apiKeyRepository;
     private final DomainExtractionUtil domainExtractionUtil;
     private final PlanValidationService planValidationService;
+    private final ApiKeyResolutionCache apiKeyResolutionCache;
+    private final DomainValidationService domainValidationService;
     
     /**
      * Process domain for API key creation
@@ -191,6 +193,8 @@ public class DomainManagementService {
             apiKey.setSubdomainPattern("*." + mainDomain);
             apiKey.setMainDomain(mainDomain);
             apiKeyRepository.save(apiKey);
+            apiKeyResolutionCache.invalidate(apiKey);
+            domainValidationService.evictMatcher(apiKey.getId());
             log.info("Updated API key '{}' to support subdomains with pattern: '{}'", 
                     apiKey.getId(), apiKey.getSubdomainPattern());
         }
@@ -267,7 +271,7 @@ public class DomainManagementService {
         List<ApiKey> userKeys = apiKeyRepository.findByUserFkId(userId);
         
         return userKeys.stream()
-                .anyMatch(key -> key.isValidDomain(requestDomain));
+                .anyMatch(key -> domainValidationService.matcherFor(key).allowsKeyDomain(requestDomain));
     }
     
     /**
@@ -1,17 +1,19 @@
 package com.example.jwtauthenticator.service;
 
 import com.example.jwtauthenticator.entity.ApiKey;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import jakarta.servlet.http.HttpServletRequest;
 import java.net.IDN;
-import java.net.URL;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
+import java.util.UUID;
 import java.util.regex.Pattern;
 
 /**
@@ -24,6 +26,10 @@ import java.util.regex.Pattern;
  * - Exact domain matching (Phase 1)
  * - Future: Configurable subdomain matching per API key
  * - Comprehensive logging and error reporting
+ *
+ * Each key's domain settings are compiled once into an {@link ApiKeyDomainMatcher} (rebuilt when
+ * they change), and normalized request domains are cached, so validation is a few hash lookups.
+ * The domain extracted from a request's headers is memoized as a request attribute.
  */
 @Service
 @RequiredArgsConstructor
@@ -47,6 +53,36 @@ public class DomainValidationService {
         "cloud", "digital", "agency", "studio", "design", "blog"
     );
 
+    /**
+     * Request attribute holding the domain extracted by {@link #extractDomainFromRequest}.
+     */
+    public static final String REQUEST_DOMAIN_ATTRIBUTE = DomainValidationService.class.getName() + ".requestDomain";
+
+    private static final String[] DOMAIN_HEADERS = {
+        "Origin",           // CORS requests
+        "Referer",          // Standard referer header
+        "Host",             // Host header
+        "X-Forwarded-Host", // Proxy forwarded host
+        "X-Original-Host"   // Original host before proxy
+    };
+
+    private static final int CACHE_MAX_SIZE = 10_000;
+
+    // Marks request domains that failed normalization or format validation
+    private static final String INVALID_DOMAIN = "";
+
+    private final Cache<UUID, ApiKeyDomainMatcher> matchers = Caffeine.newBuilder()
+        .maximumSize(CACHE_MAX_SIZE)
+        .build();
+
+    private final Cache<String, String> normalizedRequestDomains = Caffeine.newBuilder()
+        .maximumSize(CACHE_MAX_SIZE)
+        .build();
+
+    private final Cache<String, String> normalizedHosts = Caffeine.newBuilder()
+        .maximumSize(CACHE_MAX_SIZE)
+        .build();
+
     /**
      * Validate domain against API key's allowed domains with fallback strategies
      */
@@ -58,46 +94,42 @@ public class DomainValidationService {
             return handleMissingDomainFallback(apiKey);
         }
 
-        // Normalize the request domain
-        String normalizedRequestDomain = normalizeDomain(requestDomain);
+        // Normalize the request domain (cached per raw header value)
+        String normalizedRequestDomain = normalizedRequestDomains.get(requestDomain, domain -> {
+            String normalized = normalizeDomain(domain);
+            return isValidDomainFormat(normalized) ? normalized : INVALID_DOMAIN;
+        });
         
-        if (!isValidDomainFormat(normalizedRequestDomain)) {
+        if (INVALID_DOMAIN.equals(normalizedRequestDomain)) {
             return DomainValidationResult.failure(
                 "Invalid domain format: " + requestDomain,
                 "INVALID_FORMAT"
             );
         }
 
-        // Check primary registered domain first
-        if (apiKey.getRegisteredDomain() != null) {
-            String normalizedRegisteredDomain = normalizeDomain(apiKey.getRegisteredDomain());
-            if (isExactDomainMatch(normalizedRequestDomain, normalizedRegisteredDomain)) {
-                log.info("Domain validation successful - Primary domain match: {} for API key {}", 
-                        normalizedRequestDomain, apiKey.getId());
-                return DomainValidationResult.success(
-                    "Primary registered domain match", 
-                    "PRIMARY_MATCH",
-                    normalizedRegisteredDomain
-                );
-            }
+        // Registered domain first, then additional allowed domains
+        ApiKeyDomainMatcher.Match match = matcherFor(apiKey).matchAllowed(normalizedRequestDomain);
+        if (match == ApiKeyDomainMatcher.Match.PRIMARY) {
+            log.info("Domain validation successful - Primary domain match: {} for API key {}", 
+                    normalizedRequestDomain, apiKey.getId());
+            return DomainValidationResult.success(
+                "Primary registered domain match", 
+                "PRIMARY_MATCH",
+                normalizedRequestDomain
+            );
         }
-
-        // Check additional allowed domains
-        List<String> allowedDomains = apiKey.getAllowedDomainsAsList();
-        for (String allowedDomain : allowedDomains) {
-            String normalizedAllowedDomain = normalizeDomain(allowedDomain);
-            if (isExactDomainMatch(normalizedRequestDomain, normalizedAllowedDomain)) {
-                log.info("Domain validation successful - Additional domain match: {} for API key {}", 
-                        normalizedRequestDomain, apiKey.getId());
-                return DomainValidationResult.success(
-                    "Additional allowed domain match", 
-                    "ADDITIONAL_MATCH",
-                    normalizedAllowedDomain
-                );
-            }
+        if (match == ApiKeyDomainMatcher.Match.ADDITIONAL) {
+            log.info("Domain validation successful - Additional domain match: {} for API key {}", 
+                    normalizedRequestDomain, apiKey.getId());
+            return DomainValidationResult.success(
+                "Additional allowed domain match", 
+                "ADDITIONAL_MATCH",
+                normalizedRequestDomain
+            );
         }
 
         // Domain not found in allowed list
+        List<String> allowedDomains = apiKey.getAllowedDomainsAsList();
         String errorMessage = String.format(
             "Domain '%s' not allowed. Registered: '%s', Additional: [%s]",
             normalizedRequestDomain,
@@ -109,22 +141,48 @@ public class DomainValidationService {
         return DomainValidationResult.failure(errorMessage, "DOMAIN_NOT_ALLOWED");
     }
 
+    /**
+     * Compiled domain matcher for the key, rebuilt when its domain fields changed since it was cached.
+     */
+    public ApiKeyDomainMatcher matcherFor(ApiKey apiKey) {
+        UUID keyId = apiKey.getId();
+        if (keyId == null) {
+            return ApiKeyDomainMatcher.compile(apiKey, this::normalizeDomain);
+        }
+        ApiKeyDomainMatcher matcher = matchers.getIfPresent(keyId);
+        if (matcher == null || !matcher.isCompiledFrom(apiKey)) {
+            matcher = ApiKeyDomainMatcher.compile(apiKey, this::normalizeDomain);
+            matchers.put(keyId, matcher);
+        }
+        return matcher;
+    }
+
+    /**
+     * Drop the compiled matcher of a key whose domain settings were changed.
+     */
+    public void evictMatcher(UUID keyId) {
+        if (keyId != null) {
+            matchers.invalidate(keyId);
+        }
+    }
+
     /**
      * Extract domain from HTTP request headers
      */
     public String extractDomainFromRequest(HttpServletRequest request) {
+        if (request.getAttribute(REQUEST_DOMAIN_ATTRIBUTE) instanceof String memoized) {
+            return memoized.isEmpty() ? null : memoized;
+        }
+        String domain = extractDomainFromHeaders(request);
+        request.setAttribute(REQUEST_DOMAIN_ATTRIBUTE, domain != null ? domain : INVALID_DOMAIN);
+        return domain;
+    }
+
+    private String extractDomainFromHeaders(HttpServletRequest request) {
         log.debug("Extracting domain from request headers");
 
         // Priority order for domain extraction
-        String[] headerNames = {
-            "Origin",           // CORS requests
-            "Referer",          // Standard referer header
-            "Host",             // Host header
-            "X-Forwarded-Host", // Proxy forwarded host
-            "X-Original-Host"   // Original host before proxy
-        };
-
-        for (String headerName : headerNames) {
+        for (String headerName : DOMAIN_HEADERS) {
             String headerValue = request.getHeader(headerName);
             log.debug("Checking header '{}': '{}'", headerName, headerValue);
             
@@ -290,62 +348,49 @@ public class DomainValidationService {
 
         String input = urlOrDomain.trim();
         
-        // Handle URL encoding first
-        try {
-            input = URLDecoder.decode(input, StandardCharsets.UTF_8);
-        } catch (Exception e) {
-            log.debug("URL decoding failed for '{}', using original", input);
-        }
-        
-        // Try robust URL parsing first
-        try {
-            if (input.startsWith("http://") || input.startsWith("https://")) {
-                URL url = new URL(input);
-                String host = url.getHost();
-                return host != null ? normalizeDomain(host) : null;
+        // Handle URL encoding first (a no-op without '%' or '+')
+        if (input.indexOf('%') >= 0 || input.indexOf('+') >= 0) {
+            try {
+                input = URLDecoder.decode(input, StandardCharsets.UTF_8);
+            } catch (Exception e) {
+                log.debug("URL decoding failed for '{}', using original", input);
             }
-        } catch (Exception e) {
-            log.debug("URL parsing failed for '{}', using fallback method", input);
         }
         
-        // Fallback to manual parsing for malformed URLs or domain-only input
-        return extractDomainManually(input);
+        String host = extractHost(input);
+        String normalized = normalizedHosts.get(host, h -> {
+            String domain = normalizeDomain(h);
+            return domain != null ? domain : INVALID_DOMAIN;
+        });
+        return normalized.isEmpty() ? null : normalized;
     }
     
     /**
-     * Manual domain extraction for malformed URLs or domain-only input
+     * Host part of a URL or domain-only input in a single pass: drops the http(s) scheme,
+     * user info, path, query, fragment and port. Bracketed IPv6 hosts keep their brackets.
      */
-    private String extractDomainManually(String input) {
-        String domain = input;
-
-        // Remove protocol if present
-        if (domain.startsWith("http://") || domain.startsWith("https://")) {
-            domain = domain.replaceFirst("^https?://", "");
-        }
-
-        // Remove path, query, and fragment
-        int pathIndex = domain.indexOf('/');
-        if (pathIndex != -1) {
-            domain = domain.substring(0, pathIndex);
-        }
-
-        int queryIndex = domain.indexOf('?');
-        if (queryIndex != -1) {
-            domain = domain.substring(0, queryIndex);
+    private static String extractHost(String input) {
+        boolean url = input.startsWith("http://") || input.startsWith("https://");
+        int start = url ? input.indexOf("://") + 3 : 0;
+        int end = input.length();
+        for (int i = start; i < end; i++) {
+            char c = input.charAt(i);
+            if (c == '/' || c == '?' || c == '#') {
+                end = i;
+                break;
+            }
         }
-
-        int fragmentIndex = domain.indexOf('#');
-        if (fragmentIndex != -1) {
-            domain = domain.substring(0, fragmentIndex);
+        if (url) {
+            int at = input.lastIndexOf('@', end - 1);
+            if (at >= start) {
+                start = at + 1;
+            }
         }
-
-        // Remove port if present
-        int portIndex = domain.lastIndexOf(':');
-        if (portIndex != -1 && portIndex > domain.lastIndexOf(']')) { // Handle IPv6
-            domain = domain.substring(0, portIndex);
+        int portIndex = input.lastIndexOf(':', end - 1);
+        if (portIndex >= start && portIndex > input.lastIndexOf(']', end - 1)) { // Handle IPv6
+            end = portIndex;
         }
-
-        return normalizeDomain(domain);
+        return input.substring(start, end);
     }
 
     /**
@@ -432,18 +477,6 @@ public class DomainValidationService {
                lowerDomain.contains("postman-echo");
     }
 
-    /**
-     * Check for exact domain match (Phase 1 implementation)
-     */
-    private boolean isExactDomainMatch(String requestDomain, String allowedDomain) {
-        if (allowedDomain == null || allowedDomain.trim().isEmpty()) {
-            return false;
-        }
-
-        String normalizedAllowed = normalizeDomain(allowedDomain);
-        return normalizedAllowed != null && normalizedAllowed.equalsIgnoreCase(requestDomain);
-    }
-
     /**
      * Check if domain is available for registration
      */
@@ -49,6 +49,8 @@ public class EnhancedApiKeyService {
     private final PlanValidationService planValidationService;
     private final MonthlyUsageTrackingService monthlyUsageService;
     private final DomainExtractionUtil domainExtractionUtil;
+    private final ApiKeyResolutionCache apiKeyResolutionCache;
+    private final InMemoryRateLimitEngine inMemoryRateLimitEngine;
     
     private static final SecureRandom secureRandom = new SecureRandom();
     private static final String API_KEY_PREFIX = "sk-";
@@ -191,6 +193,7 @@ public class EnhancedApiKeyService {
             .build();
             
         ApiKey savedKey = apiKeyRepository.save(apiKey);
+        apiKeyResolutionCache.invalidate(savedKey);
         
         log.info("Created API key '{}' for user '{}' with scopes: {} (encrypted: {})", 
                 savedKey.getName(), userId, savedKey.getScopes(), 
@@ -220,6 +223,7 @@ public class EnhancedApiKeyService {
             
             apiKey.setScopes(String.join(",", currentScopes));
             apiKeyRepository.save(apiKey);
+            apiKeyResolutionCache.invalidate(apiKey);
             
             log.info("Granted additional scopes to API key '{}' (ID: {}): {}", 
                     apiKey.getName(), keyId, additionalScopes);
@@ -243,6 +247,7 @@ public class EnhancedApiKeyService {
             
             apiKey.setScopes(String.join(",", currentScopes));
             apiKeyRepository.save(apiKey);
+            apiKeyResolutionCache.invalidate(apiKey);
             
             log.info("Revoked scopes from API key '{}' (ID: {}): {}", 
                     apiKey.getName(), keyId, scopesToRevoke);
@@ -260,6 +265,8 @@ public class EnhancedApiKeyService {
             RateLimitTier oldTier = apiKey.getRateLimitTier();
             apiKey.setRateLimitTier(newTier);
             apiKeyRepository.save(apiKey);
+            apiKeyResolutionCache.invalidate(apiKey);
+            inMemoryRateLimitEngine.evict(keyId);
             
             log.info("Upgraded rate limit tier for API key '{}' (ID: {}) from {} to {}", 
                     apiKey.getName(), keyId, oldTier, newTier);
@@ -276,6 +283,7 @@ public class EnhancedApiKeyService {
         return apiKeyRepository.findByIdAndUserFkId(keyId, userId).map(apiKey -> {
             apiKey.setAllowedIps(String.join(",", allowedIps));
             apiKeyRepository.save(apiKey);
+            apiKeyResolutionCache.invalidate(apiKey);
             
             log.info("Added IP restrictions to API key '{}' (ID: {}): {}", 
                     apiKey.getName(), keyId, allowedIps);
@@ -292,6 +300,7 @@ public class EnhancedApiKeyService {
         return apiKeyRepository.findByIdAndUserFkId(keyId, userId).map(apiKey -> {
             apiKey.setExpiresAt(expiresAt);
             apiKeyRepository.save(apiKey);
+            apiKeyResolutionCache.invalidate(apiKey);
             
             log.info("Set expiration for API key '{}' (ID: {}) to: {}", 
                     apiKey.getName(), keyId, expiresAt);
@@ -342,6 +351,7 @@ public class EnhancedApiKeyService {
             existingKey.setUpdatedAt(LocalDateTime.now());
             
             ApiKey savedKey = apiKeyRepository.save(existingKey);
+            apiKeyResolutionCache.invalidate(savedKey);
             
             log.info("Regenerated API key '{}' (ID: {}) for user: {}", name, keyId, userId);
             
@@ -421,6 +431,7 @@ public class EnhancedApiKeyService {
 
             // Step 7: Save API key
             ApiKey savedApiKey = apiKeyRepository.save(apiKey);
+            apiKeyResolutionCache.invalidate(savedApiKey);
 
             log.info("API key created successfully: {} for user: {} with domain: {}", 
                     savedApiKey.getId(), userId, normalizedDomain);
@@ -468,6 +479,7 @@ public class EnhancedApiKeyService {
             String oldDomain = apiKey.getRegisteredDomain();
             apiKey.setRegisteredDomain(normalizedDomain);
             ApiKey updatedApiKey = apiKeyRepository.save(apiKey);
+            apiKeyResolutionCache.invalidate(updatedApiKey);
 
             log.info("API key domain updated successfully: {} - Old: {}, New: {}", 
                     apiKeyId, oldDomain, normalizedDomain);
@@ -724,6 +736,7 @@ public class EnhancedApiKeyService {
             
             // Step 7: Save API key
             ApiKey savedApiKey = apiKeyRepository.save(apiKey);
+            apiKeyResolutionCache.invalidate(savedApiKey);
             
             // Step 8: Initialize monthly usage tracking
             monthlyUsageService.createMonthlyUsageRecord(
@@ -1,5 +1,6 @@
 package com.example.jwtauthenticator.service;
 
+import com.example.jwtauthenticator.entity.AssetBlob;
 import com.example.jwtauthenticator.entity.Brand;
 import com.example.jwtauthenticator.entity.BrandAsset;
 import com.example.jwtauthenticator.entity.BrandImage;
@@ -11,30 +12,43 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class FileStorageService {
     
-    private final WebClient.Builder webClientBuilder;
+    private final AssetDownloadClient assetDownloadClient;
     private final BrandRepository brandRepository;
     private final BrandAssetRepository brandAssetRepository;
     private final BrandImageRepository brandImageRepository;
     private final SftpFileStorageService sftpFileStorageService;
     private final HttpFileStorageService httpFileStorageService;
+    private final BrandResponseSnapshotCache brandResponseSnapshotCache;
+    private final ContentAddressedAssetStore contentAddressedAssetStore;
+    private final AssetFileIndex assetFileIndex;
     
     @Value("${app.file-storage.type:local}")
     private String storageType; // local, http, sftp, s3, gcs
@@ -45,44 +59,213 @@ public class FileStorageService {
     @Value("${app.file-storage.server.base-url:http://202.65.155.125:8080/images/Brand_Assets}")
     private String serverBaseUrl;
     
-    @Value("${app.file-storage.download.timeout-seconds:30}")
-    private int downloadTimeoutSeconds;
-    
     @Value("${app.file-storage.download.max-file-size:10485760}") // 10MB default
     private long maxFileSize;
     
     @Value("${app.file-storage.download.max-attempts:3}")
     private int maxDownloadAttempts;
     
+    @Value("${app.file-storage.download.status-batch-size:20}")
+    private int statusBatchSize;
+    
     /**
-     * Asynchronously download all brand assets and images
+     * Asynchronously download all pending brand assets and images.
+     *
+     * Pending rows are marked DOWNLOADING in one batch on the asset download executor, then
+     * fetched in parallel through {@link AssetDownloadClient} (which applies the per-host and
+     * global limits) and their final status is saved in batches of status-batch-size. URLs
+     * fetched before are revalidated with a conditional GET when their validators are known. The
+     * returned future completes once, after every download of the brand has finished; the
+     * brand's cached response is invalidated at that point.
      */
-    @Async
     public CompletableFuture<Void> downloadBrandAssetsAsync(Brand brand) {
         log.info("Starting async download of assets for brand: {} (ID: {})", brand.getName(), brand.getId());
         
-        try {
-            // Download brand assets (logos, icons, etc.)
-            for (BrandAsset asset : brand.getAssets()) {
-                if (asset.getDownloadStatus() == BrandAsset.DownloadStatus.PENDING) {
-                    downloadAsset(asset);
-                }
+        AtomicInteger downloaded = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        
+        return Mono.fromCallable(() -> prepareDownloads(brand))
+                .subscribeOn(assetDownloadClient.storeScheduler())
+                .flatMapMany(Flux::fromIterable)
+                .flatMap(pending -> runDownload(pending.entity(), pending.validators())
+                        .doOnNext(success -> (success ? downloaded : failed).incrementAndGet())
+                        .thenReturn(pending.entity()))
+                .bufferTimeout(Math.max(1, statusBatchSize), Duration.ofSeconds(1))
+                .concatMap(batch -> Mono.fromRunnable(() -> saveDownloadStatuses(batch))
+                        .subscribeOn(assetDownloadClient.storeScheduler()))
+                .then()
+                .doOnSuccess(ignored -> log.info(
+                        "Completed async download of assets for brand: {} (ID: {}) - {} downloaded, {} failed",
+                        brand.getName(), brand.getId(), downloaded.get(), failed.get()))
+                .onErrorResume(e -> {
+                    log.error("Error during async asset download for brand: {} (ID: {})", brand.getName(), brand.getId(), e);
+                    return Mono.empty();
+                })
+                // Asset rows changed without touching the brand row
+                .doFinally(signal -> brandResponseSnapshotCache.invalidate(brand.getId()))
+                .toFuture();
+    }
+    
+    /**
+     * Select the brand's pending assets and images that can still be downloaded and mark
+     * them DOWNLOADING (one save per table). Returns the saved rows with the validators known
+     * for their URLs.
+     */
+    private List<PendingDownload> prepareDownloads(Brand brand) {
+        if (brand.getId() == null || !brandRepository.existsById(brand.getId())) {
+            log.warn("Brand no longer exists, skipping asset downloads: {}", brand.getName());
+            return List.of();
+        }
+        
+        List<BrandAsset> assets = new ArrayList<>();
+        for (BrandAsset asset : brand.getAssets()) {
+            if (asset.getDownloadStatus() != BrandAsset.DownloadStatus.PENDING) {
+                continue;
             }
-            
-            // Download brand images
-            for (BrandImage image : brand.getImages()) {
-                if (image.getDownloadStatus() == BrandImage.DownloadStatus.PENDING) {
-                    downloadImage(image);
-                }
+            if (asset.getDownloadAttempts() >= maxDownloadAttempts) {
+                log.warn("Max download attempts reached for asset: {}", asset.getOriginalUrl());
+                continue;
+            }
+            assets.add(asset);
+        }
+        
+        List<BrandImage> images = new ArrayList<>();
+        for (BrandImage image : brand.getImages()) {
+            if (image.getDownloadStatus() != BrandImage.DownloadStatus.PENDING) {
+                continue;
+            }
+            if (image.getDownloadAttempts() >= maxDownloadAttempts) {
+                log.warn("Max download attempts reached for image: {}", image.getSourceUrl());
+                continue;
+            }
+            images.add(image);
+        }
+        
+        // Rows deleted since the brand was loaded (e.g. by a re-extraction) are skipped
+        List<Long> assetIds = assets.stream().map(BrandAsset::getId).filter(Objects::nonNull).toList();
+        Set<Long> existingAssetIds = assetIds.isEmpty() ? Set.of() : new HashSet<>(brandAssetRepository.findExistingIds(assetIds));
+        assets.removeIf(asset -> {
+            boolean gone = asset.getId() != null && !existingAssetIds.contains(asset.getId());
+            if (gone) {
+                log.warn("Asset no longer exists in database, skipping download: {}", asset.getOriginalUrl());
+            }
+            return gone;
+        });
+        List<Long> imageIds = images.stream().map(BrandImage::getId).filter(Objects::nonNull).toList();
+        Set<Long> existingImageIds = imageIds.isEmpty() ? Set.of() : new HashSet<>(brandImageRepository.findExistingIds(imageIds));
+        images.removeIf(image -> {
+            boolean gone = image.getId() != null && !existingImageIds.contains(image.getId());
+            if (gone) {
+                log.warn("Image no longer exists in database, skipping download: {}", image.getSourceUrl());
+            }
+            return gone;
+        });
+        
+        assets.forEach(asset -> {
+            asset.setDownloadStatus(BrandAsset.DownloadStatus.DOWNLOADING);
+            asset.setDownloadAttempts(asset.getDownloadAttempts() + 1);
+        });
+        images.forEach(image -> {
+            image.setDownloadStatus(BrandImage.DownloadStatus.DOWNLOADING);
+            image.setDownloadAttempts(image.getDownloadAttempts() + 1);
+        });
+        
+        List<Object> prepared = new ArrayList<>(assets.size() + images.size());
+        if (!assets.isEmpty()) {
+            prepared.addAll(brandAssetRepository.saveAll(assets));
+        }
+        if (!images.isEmpty()) {
+            prepared.addAll(brandImageRepository.saveAll(images));
+        }
+        
+        List<String> urls = new ArrayList<>(prepared.size());
+        prepared.forEach(entity -> urls.add(sourceUrlOf(entity)));
+        Map<String, ContentAddressedAssetStore.SourceValidators> validators = contentAddressedAssetStore.validatorsFor(urls);
+        
+        log.info("Queued {} assets and {} images for download for brand: {} (ID: {}), {} revalidated",
+                assets.size(), images.size(), brand.getName(), brand.getId(), validators.size());
+        return prepared.stream()
+                .map(entity -> new PendingDownload(entity, validators.get(sourceUrlOf(entity))))
+                .toList();
+    }
+    
+    private static String sourceUrlOf(Object entity) {
+        return entity instanceof BrandAsset asset ? asset.getOriginalUrl() : ((BrandImage) entity).getSourceUrl();
+    }
+    
+    /**
+     * Fetch and store one asset or image and apply the outcome to the entity (not saved here).
+     * Emits whether the download succeeded.
+     */
+    private Mono<Boolean> runDownload(Object entity, ContentAddressedAssetStore.SourceValidators validators) {
+        String url;
+        String targetPath;
+        try {
+            if (entity instanceof BrandAsset asset) {
+                url = asset.getOriginalUrl();
+                targetPath = generateAssetPath(asset);
+            } else {
+                BrandImage image = (BrandImage) entity;
+                url = image.getSourceUrl();
+                targetPath = generateImagePath(image);
             }
-            
-            log.info("Completed async download of assets for brand: {} (ID: {})", brand.getName(), brand.getId());
-            
         } catch (Exception e) {
-            log.error("Error during async asset download for brand: {} (ID: {})", brand.getName(), brand.getId(), e);
+            return Mono.fromSupplier(() -> applyDownloadResult(entity,
+                    DownloadResult.failure("Unexpected error: " + e.getMessage())));
         }
         
-        return CompletableFuture.completedFuture(null);
+        log.info("Downloading: {}", url);
+        Mono<DownloadResult> fetch = Mono.defer(() ->
+                assetDownloadClient.fetchAndStore(url, file -> storeDownloadedFile(url, targetPath, file)));
+        if (validators != null) {
+            // A 304 whose blob has gone meanwhile completes empty and is fetched again in full
+            fetch = assetDownloadClient.fetchAndStore(url, validators.eTag(), validators.lastModified(),
+                            file -> file.notModified()
+                                    ? reuseStoredContent(url, validators)
+                                    : storeDownloadedFile(url, targetPath, file))
+                    .switchIfEmpty(fetch);
+        }
+        return fetch
+                .defaultIfEmpty(DownloadResult.failure("Empty file content"))
+                .onErrorResume(e -> Mono.just(downloadFailure(e)))
+                .map(result -> applyDownloadResult(entity, result));
+    }
+    
+    private boolean applyDownloadResult(Object entity, DownloadResult result) {
+        if (entity instanceof BrandAsset asset) {
+            applyAssetResult(asset, result);
+        } else {
+            applyImageResult((BrandImage) entity, result);
+        }
+        return result.isSuccess();
+    }
+    
+    /**
+     * Save a batch of finished downloads (one saveAll per table)
+     */
+    private void saveDownloadStatuses(List<Object> batch) {
+        List<BrandAsset> assets = new ArrayList<>();
+        List<BrandImage> images = new ArrayList<>();
+        for (Object entity : batch) {
+            if (entity instanceof BrandAsset asset) {
+                assets.add(asset);
+            } else if (entity instanceof BrandImage image) {
+                images.add(image);
+            }
+        }
+        try {
+            if (!assets.isEmpty()) {
+                brandAssetRepository.saveAll(assets);
+            }
+            if (!images.isEmpty()) {
+                brandImageRepository.saveAll(images);
+            }
+            // Only now can a reload see the new rows; evicting earlier lets a request re-cache the old ones
+            assetFileIndex.invalidateOnCommit(assets.stream().map(BrandAsset::getId).toList(),
+                    images.stream().map(BrandImage::getId).toList());
+        } catch (Exception e) {
+            log.error("Failed to save download status for {} assets and {} images", assets.size(), images.size(), e);
+        }
     }
     
     /**
@@ -119,24 +302,7 @@ public class FileStorageService {
             
             // Download the file
             DownloadResult result = downloadFile(asset.getOriginalUrl(), generateAssetPath(asset));
-            
-            if (result.isSuccess()) {
-                asset.setStoredPath(result.getStoredPath());
-                asset.setFileSize(result.getFileSize());
-                asset.setMimeType(result.getMimeType());
-                asset.setDownloadStatus(BrandAsset.DownloadStatus.COMPLETED);
-                asset.setDownloadedAt(LocalDateTime.now());
-                asset.setDownloadError(null);
-                
-                String serverUrl = getFileUrl(result.getStoredPath());
-                log.info("Successfully downloaded asset: {} -> {} (Server URL: {})", 
-                        asset.getOriginalUrl(), result.getStoredPath(), serverUrl);
-            } else {
-                asset.setDownloadStatus(BrandAsset.DownloadStatus.FAILED);
-                asset.setDownloadError(result.getErrorMessage());
-                
-                log.error("Failed to download asset: {} - {}", asset.getOriginalUrl(), result.getErrorMessage());
-            }
+            applyAssetResult(asset, result);
             
         } catch (Exception e) {
             asset.setDownloadStatus(BrandAsset.DownloadStatus.FAILED);
@@ -144,6 +310,7 @@ public class FileStorageService {
             log.error("Unexpected error downloading asset: {}", asset.getOriginalUrl(), e);
         } finally {
             brandAssetRepository.save(asset);
+            assetFileIndex.invalidateOnCommit(List.of(asset.getId()), List.of());
         }
     }
     
@@ -181,24 +348,7 @@ public class FileStorageService {
             
             // Download the file
             DownloadResult result = downloadFile(image.getSourceUrl(), generateImagePath(image));
-            
-            if (result.isSuccess()) {
-                image.setStoredPath(result.getStoredPath());
-                image.setFileSize(result.getFileSize());
-                image.setMimeType(result.getMimeType());
-                image.setDownloadStatus(BrandImage.DownloadStatus.COMPLETED);
-                image.setDownloadedAt(LocalDateTime.now());
-                image.setDownloadError(null);
-                
-                String serverUrl = getFileUrl(result.getStoredPath());
-                log.info("Successfully downloaded image: {} -> {} (Server URL: {})", 
-                        image.getSourceUrl(), result.getStoredPath(), serverUrl);
-            } else {
-                image.setDownloadStatus(BrandImage.DownloadStatus.FAILED);
-                image.setDownloadError(result.getErrorMessage());
-                
-                log.error("Failed to download image: {} - {}", image.getSourceUrl(), result.getErrorMessage());
-            }
+            applyImageResult(image, result);
             
         } catch (Exception e) {
             image.setDownloadStatus(BrandImage.DownloadStatus.FAILED);
@@ -206,43 +356,155 @@ public class FileStorageService {
             log.error("Unexpected error downloading image: {}", image.getSourceUrl(), e);
         } finally {
             brandImageRepository.save(image);
+            assetFileIndex.invalidateOnCommit(List.of(), List.of(image.getId()));
+        }
+    }
+    
+    private void applyAssetResult(BrandAsset asset, DownloadResult result) {
+        if (result.isSuccess()) {
+            asset.setStoredPath(result.getStoredPath());
+            asset.setFileSize(result.getFileSize());
+            asset.setMimeType(result.getMimeType());
+            asset.setDownloadStatus(BrandAsset.DownloadStatus.COMPLETED);
+            asset.setDownloadedAt(LocalDateTime.now());
+            asset.setDownloadError(null);
+            
+            String serverUrl = getFileUrl(result.getStoredPath());
+            log.info("Successfully downloaded asset: {} -> {} (Server URL: {})", 
+                    asset.getOriginalUrl(), result.getStoredPath(), serverUrl);
+        } else {
+            asset.setDownloadStatus(BrandAsset.DownloadStatus.FAILED);
+            asset.setDownloadError(result.getErrorMessage());
+            
+            log.error("Failed to download asset: {} - {}", asset.getOriginalUrl(), result.getErrorMessage());
+        }
+    }
+    
+    private void applyImageResult(BrandImage image, DownloadResult result) {
+        if (result.isSuccess()) {
+            image.setStoredPath(result.getStoredPath());
+            image.setFileSize(result.getFileSize());
+            image.setMimeType(result.getMimeType());
+            image.setDownloadStatus(BrandImage.DownloadStatus.COMPLETED);
+            image.setDownloadedAt(LocalDateTime.now());
+            image.setDownloadError(null);
+            
+            String serverUrl = getFileUrl(result.getStoredPath());
+            log.info("Successfully downloaded image: {} -> {} (Server URL: {})", 
+                    image.getSourceUrl(), result.getStoredPath(), serverUrl);
+        } else {
+            image.setDownloadStatus(BrandImage.DownloadStatus.FAILED);
+            image.setDownloadError(result.getErrorMessage());
+            
+            log.error("Failed to download image: {} - {}", image.getSourceUrl(), result.getErrorMessage());
         }
     }
     
     /**
-     * Download file from URL and store it
+     * Download file from URL and store it (blocking; used for single retries)
      */
     private DownloadResult downloadFile(String url, String targetPath) {
+        AssetDownloadClient.DownloadedFile file;
         try {
-            WebClient webClient = webClientBuilder.build();
-            
-            // Download file content
-            byte[] fileContent = webClient.get()
-                    .uri(url)
-                    .retrieve()
-                    .bodyToMono(byte[].class)
-                    .timeout(java.time.Duration.ofSeconds(downloadTimeoutSeconds))
-                    .block();
-            
-            if (fileContent == null || fileContent.length == 0) {
+            file = assetDownloadClient.fetchToFile(url).block();
+        } catch (Exception e) {
+            return downloadFailure(e);
+        }
+        if (file == null) {
+            return DownloadResult.failure("Empty file content");
+        }
+        try {
+            return storeDownloadedFile(url, targetPath, file);
+        } finally {
+            try {
+                Files.deleteIfExists(file.path());
+            } catch (IOException e) {
+                log.warn("Could not delete temp download {}: {}", file.path(), e.getMessage());
+            }
+        }
+    }
+    
+    private DownloadResult downloadFailure(Throwable e) {
+        Throwable cause = Exceptions.unwrap(e);
+        if (cause instanceof AssetDownloadClient.FileTooLargeException) {
+            return DownloadResult.failure(cause.getMessage());
+        }
+        return DownloadResult.failure("Download failed: " + cause.getMessage());
+    }
+    
+    /**
+     * Validate a downloaded temp file and move or upload it to its final location. With
+     * deduplication enabled the file is stored once per content hash and content already
+     * stored is not written again.
+     */
+    private DownloadResult storeDownloadedFile(String url, String targetPath, AssetDownloadClient.DownloadedFile file) {
+        try {
+            if (file.size() == 0) {
                 return DownloadResult.failure("Empty file content");
             }
+            if ("text/html".equals(file.sniffedMimeType())) {
+                // An error or login page served in place of the asset; never store or serve it
+                return DownloadResult.failure("Source returned an HTML page instead of an asset");
+            }
             
-            if (fileContent.length > maxFileSize) {
-                return DownloadResult.failure("File size exceeds maximum allowed size: " + maxFileSize);
+            String mimeType = file.sniffedMimeType() != null ? file.sniffedMimeType() : detectMimeType(url, null);
+            
+            if (contentAddressedAssetStore.isEnabled()) {
+                AssetBlob blob = contentAddressedAssetStore.store(file, url, blobExtension(mimeType, targetPath),
+                        mimeType, this::storeFile);
+                return DownloadResult.success(blob.getStoredPath(), blob.getFileSize(), blob.getMimeType());
             }
             
             // Store file based on storage type
-            String storedPath = storeFile(fileContent, targetPath);
-            String mimeType = detectMimeType(url, fileContent);
+            String storedPath = storeFile(file.path(), file.size(), targetPath);
             
-            return DownloadResult.success(storedPath, fileContent.length, mimeType);
+            return DownloadResult.success(storedPath, file.size(), mimeType);
             
         } catch (Exception e) {
             return DownloadResult.failure("Download failed: " + e.getMessage());
         }
     }
     
+    /**
+     * Point a row at the content stored for its URL after a 304; null when that content is gone
+     */
+    private DownloadResult reuseStoredContent(String url, ContentAddressedAssetStore.SourceValidators validators) {
+        AssetBlob blob = contentAddressedAssetStore.reuse(url, validators);
+        if (blob == null) {
+            log.info("Stored content for {} is gone, downloading again", url);
+            return null;
+        }
+        log.info("Not modified since last download: {} -> {}", url, blob.getStoredPath());
+        return DownloadResult.success(blob.getStoredPath(), blob.getFileSize(), blob.getMimeType());
+    }
+    
+    /**
+     * File extension for stored content: from the detected MIME type, else from the target file name
+     */
+    private static String blobExtension(String mimeType, String targetPath) {
+        if (mimeType != null) {
+            switch (mimeType) {
+                case "image/png": return "png";
+                case "image/jpeg": return "jpg";
+                case "image/gif": return "gif";
+                case "image/svg+xml": return "svg";
+                case "image/webp": return "webp";
+                case "image/avif": return "avif";
+                case "image/x-icon": return "ico";
+                case "image/bmp": return "bmp";
+                case "application/pdf": return "pdf";
+                default: break;
+            }
+        }
+        String fileName = targetPath.substring(targetPath.lastIndexOf('/') + 1);
+        int dot = fileName.lastIndexOf('.');
+        if (dot < 0) {
+            return null;
+        }
+        String extension = fileName.substring(dot + 1);
+        return extension.matches("[A-Za-z0-9]{1,8}") ? extension : null;
+    }
+    
     /**
      * Store file based on configured storage type
      */
@@ -263,6 +525,83 @@ public class FileStorageService {
         }
     }
     
+    /**
+     * Store a downloaded temp file based on configured storage type. Local storage moves the
+     * file into place; remote backends stream it from disk.
+     */
+    private String storeFile(Path source, long size, String targetPath) throws IOException {
+        switch (storageType.toLowerCase()) {
+            case "local":
+                return moveFileLocally(source, size, targetPath);
+            case "http":
+                return storeFileViaHttp(source, size, targetPath);
+            case "sftp":
+                return storeFileViaSftp(source, size, targetPath);
+            case "s3":
+                return storeFileInS3(Files.readAllBytes(source), targetPath);
+            case "gcs":
+                return storeFileInGCS(Files.readAllBytes(source), targetPath);
+            default:
+                throw new IllegalArgumentException("Unsupported storage type: " + storageType);
+        }
+    }
+    
+    /**
+     * Move a temp file into the local store. The temp directory is on the same filesystem by
+     * default, so readers never see a partially written file.
+     */
+    private String moveFileLocally(Path source, long size, String targetPath) throws IOException {
+        Path fullPath = Paths.get(localBasePath, targetPath);
+        
+        // Create directories if they don't exist
+        Files.createDirectories(fullPath.getParent());
+        
+        if (Files.exists(fullPath)) {
+            log.info("File already exists, overwriting: {}", fullPath);
+        }
+        
+        try {
+            Files.move(source, fullPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            // Temp dir on another filesystem
+            Files.move(source, fullPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+        
+        log.info("Successfully stored file locally: {} (Size: {} bytes)", fullPath, size);
+        
+        // Return relative path for database storage
+        return targetPath;
+    }
+    
+    /**
+     * Upload a temp file to the remote server via HTTP
+     */
+    private String storeFileViaHttp(Path source, long size, String targetPath) throws IOException {
+        try {
+            String fileName = targetPath.substring(targetPath.lastIndexOf('/') + 1);
+            String storedPath = httpFileStorageService.uploadFile(source, fileName, targetPath);
+            log.info("Successfully stored file via HTTP: {} (Size: {} bytes)", targetPath, size);
+            return storedPath;
+        } catch (Exception e) {
+            log.error("Failed to store file via HTTP, falling back to local storage: {}", e.getMessage());
+            return moveFileLocally(source, size, targetPath);
+        }
+    }
+    
+    /**
+     * Upload a temp file to the remote server via SFTP
+     */
+    private String storeFileViaSftp(Path source, long size, String targetPath) throws IOException {
+        try {
+            String storedPath = sftpFileStorageService.uploadFile(source, targetPath);
+            log.info("Successfully stored file via SFTP: {} (Size: {} bytes)", targetPath, size);
+            return storedPath;
+        } catch (Exception e) {
+            log.error("Failed to store file via SFTP, falling back to local storage: {}", e.getMessage());
+            return moveFileLocally(source, size, targetPath);
+        }
+    }
+    
     /**
      * Store file in local filesystem
      */
@@ -624,6 +963,12 @@ public class FileStorageService {
     /**
      * Result class for download operations
      */
+    /**
+     * A row marked DOWNLOADING and the validators to revalidate its URL with (null if none)
+     */
+    private record PendingDownload(Object entity, ContentAddressedAssetStore.SourceValidators validators) {
+    }
+    
     private static class DownloadResult {
         private final boolean success;
         private final String storedPath;
@@ -0,0 +1,113 @@
+package com.example.jwtauthenticator.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight for external extraction calls made by {@link ForwardService}.
+ *
+ * The first miss for a URL (the leader) starts the call; concurrent misses for the same
+ * normalized URL wait on the leader's future instead of issuing their own request. The
+ * entry is removed once the call completes, after the leader has populated forwardCache,
+ * so later requests are served from the cache.
+ */
+@Component
+@Slf4j
+public class ForwardRequestCoalescer {
+
+    private final ConcurrentHashMap<String, CompletableFuture<ResponseEntity<String>>> inFlight = new ConcurrentHashMap<>();
+    private final Counter leaderCalls;
+    private final Counter coalescedCalls;
+
+    @Value("${app.forward.coalescing.enabled:true}")
+    private boolean enabled;
+
+    public ForwardRequestCoalescer(MeterRegistry meterRegistry) {
+        this.leaderCalls = Counter.builder("forward.external.calls")
+                .description("External extraction calls started")
+                .register(meterRegistry);
+        this.coalescedCalls = Counter.builder("forward.external.coalesced")
+                .description("Requests that joined an in-flight external call for the same URL")
+                .register(meterRegistry);
+        Gauge.builder("forward.external.inflight", inFlight, ConcurrentHashMap::size)
+                .description("External extraction calls currently in flight")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run {@code call} for the URL unless an identical call is already in flight, in which
+     * case its result is shared. Each caller gets its own dependent future, so cancelling
+     * or completing it does not affect the other waiters.
+     */
+    public CompletableFuture<ResponseEntity<String>> execute(String url,
+                                                             Supplier<CompletableFuture<ResponseEntity<String>>> call) {
+        if (!enabled) {
+            leaderCalls.increment();
+            return call.get();
+        }
+
+        String key = normalize(url);
+        CompletableFuture<ResponseEntity<String>> shared = new CompletableFuture<>();
+        CompletableFuture<ResponseEntity<String>> existing = inFlight.putIfAbsent(key, shared);
+        if (existing != null) {
+            coalescedCalls.increment();
+            log.info("Joining in-flight external API call for URL: {}", url);
+            return existing.copy();
+        }
+
+        leaderCalls.increment();
+        try {
+            call.get().whenComplete((response, error) -> {
+                inFlight.remove(key, shared);
+                if (error != null) {
+                    shared.completeExceptionally(error);
+                } else {
+                    shared.complete(response);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, shared);
+            shared.completeExceptionally(e);
+        }
+        return shared.copy();
+    }
+
+    public long getCoalescedCount() {
+        return (long) coalescedCalls.count();
+    }
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    /**
+     * Key for the in-flight map: trimmed, scheme and host lower-cased, trailing slash removed.
+     */
+    static String normalize(String url) {
+        String trimmed = url == null ? "" : url.trim();
+        while (trimmed.endsWith("/")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1);
+        }
+        try {
+            URI uri = URI.create(trimmed);
+            if (uri.getScheme() != null && uri.getRawAuthority() != null) {
+                String prefix = uri.getScheme() + "://" + uri.getRawAuthority();
+                return prefix.toLowerCase(Locale.ROOT) + trimmed.substring(prefix.length());
+            }
+        } catch (IllegalArgumentException e) {
+            // Not a parseable URI; fall back to the trimmed value
+        }
+        return trimmed.toLowerCase(Locale.ROOT);
+    }
+}
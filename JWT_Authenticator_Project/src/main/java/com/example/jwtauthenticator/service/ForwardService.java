@@ -9,6 +9,7 @@ import com.example.jwtauthenticator.entity.BrandFont;
 import com.example.jwtauthenticator.entity.BrandImage;
 import com.example.jwtauthenticator.entity.BrandSocialLink;
 import com.example.jwtauthenticator.repository.BrandRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.benmanes.caffeine.cache.Cache;
@@ -44,6 +45,8 @@ public class ForwardService {
     private final BrandRepository brandRepository;
     private final ObjectMapper objectMapper;
     private final RivoFetchLoggingService rivoFetchLoggingService; // PHASE 3 INTEGRATION
+    private final ForwardRequestCoalescer forwardRequestCoalescer;
+    private final BrandResponseSnapshotCache brandResponseSnapshotCache;
     
     @Value("${app.brand-extraction.enabled:true}")
     private boolean brandExtractionEnabled;
@@ -54,8 +57,7 @@ public class ForwardService {
         if (existingBrand.isPresent()) {
             log.info("Found cached brand data for URL: {}", url);
             try {
-                BrandExtractionResponse response = convertBrandToExtractionResponse(existingBrand.get());
-                String jsonResponse = objectMapper.writeValueAsString(response);
+                String jsonResponse = brandResponseSnapshotCache.get(existingBrand.get(), this::serializeBrandResponse);
                 return CompletableFuture.completedFuture(ResponseEntity.ok(jsonResponse));
             } catch (Exception e) {
                 log.error("Error converting brand data to response for URL: {}", url, e);
@@ -75,26 +77,7 @@ public class ForwardService {
         }
 
         // Make external API call only if not found in database or cache
-        log.info("Making external API call for URL: {}", url);
-        return forwardWebClient.post()
-                .uri(EXTERNAL_API)
-                .bodyValue(Collections.singletonMap("url", url))
-                .exchangeToMono(resp -> resp.bodyToMono(String.class)
-                        .map(body -> ResponseEntity.status(resp.statusCode()).body(body)))
-                .timeout(Duration.ofSeconds(forwardConfig.getTimeoutSeconds()))
-                .doOnError(e -> log.error("Forwarding error", e))
-                .toFuture()
-                .thenApply(response -> {
-                    if (response.getStatusCode().is2xxSuccessful()) {
-                        forwardCache.put(url, response.getBody());
-                        
-                        // Trigger brand data extraction for successful responses
-                        if (brandExtractionEnabled) {
-                            triggerBrandExtraction(url, response.getBody());
-                        }
-                    }
-                    return response;
-                });
+        return fetchFromExternalApi(url);
     }
     
     /**
@@ -122,8 +105,7 @@ public class ForwardService {
         if (existingBrand.isPresent()) {
             log.info("Found cached brand data for URL: {}", url);
             try {
-                BrandExtractionResponse brandResponse = convertBrandToExtractionResponse(existingBrand.get());
-                String jsonResponse = objectMapper.writeValueAsString(brandResponse);
+                String jsonResponse = brandResponseSnapshotCache.get(existingBrand.get(), this::serializeBrandResponse);
                 
                 // Log successful cached response (DATABASE_HIT) - SYNCHRONOUS to ensure logging
                 boolean logged = rivoFetchLoggingService.logSuccessfulRivoFetchSync(
@@ -168,41 +150,15 @@ public class ForwardService {
         }
 
         // Make external API call only if not found in database or cache
-        log.info("Making external API call for URL: {}", url);
-        return forwardWebClient.post()
-                .uri(EXTERNAL_API)
-                .bodyValue(Collections.singletonMap("url", url))
-                .exchangeToMono(resp -> resp.bodyToMono(String.class)
-                        .map(body -> ResponseEntity.status(resp.statusCode()).body(body)))
-                .timeout(Duration.ofSeconds(forwardConfig.getTimeoutSeconds()))
-                .doOnError(e -> {
-                    log.error("Forwarding error for URL: {}", url, e);
-                    
-                    // Log the error - SYNCHRONOUS to ensure logging
-                    boolean logged = rivoFetchLoggingService.logFailedRivoFetchSync(
-                            request, apiKey, startTime, 
-                            "External API error: " + e.getMessage(), 500, url);
-                    if (!logged) {
-                        log.warn("⚠️ Failed to log external API error for URL: {}", url);
-                    }
-                })
-                .toFuture()
+        return fetchFromExternalApi(url)
                 .thenApply(forwardResponse -> {
                     if (forwardResponse.getStatusCode().is2xxSuccessful()) {
-                        // Cache successful response
-                        forwardCache.put(url, forwardResponse.getBody());
-                        
                         // Log successful response (MISS - external API call) - SYNCHRONOUS to ensure logging
                         boolean logged = rivoFetchLoggingService.logSuccessfulRivoFetchSync(
                                 request, response, apiKey, startTime, forwardResponse.getBody(), "MISS", url);
                         if (!logged) {
                             log.warn("⚠️ Failed to log MISS for URL: {}", url);
                         }
-                        
-                        // Trigger brand data extraction for successful responses
-                        if (brandExtractionEnabled) {
-                            triggerBrandExtraction(url, forwardResponse.getBody());
-                        }
                     } else {
                         // Log failed response - SYNCHRONOUS to ensure logging
                         boolean logged = rivoFetchLoggingService.logFailedRivoFetchSync(
@@ -246,8 +202,7 @@ public class ForwardService {
         if (existingBrand.isPresent()) {
             log.info("Found cached brand data for URL: {}", url);
             try {
-                BrandExtractionResponse brandResponse = convertBrandToExtractionResponse(existingBrand.get());
-                String jsonResponse = objectMapper.writeValueAsString(brandResponse);
+                String jsonResponse = brandResponseSnapshotCache.get(existingBrand.get(), this::serializeBrandResponse);
                 
                 // Log successful cached response (DATABASE_HIT)
                 rivoFetchLoggingService.logSuccessfulPublicRivoFetchAsync(
@@ -283,35 +238,12 @@ public class ForwardService {
         }
 
         // Make external API call only if not found in database or cache
-        log.info("Making external API call for URL: {}", url);
-        return forwardWebClient.post()
-                .uri(EXTERNAL_API)
-                .bodyValue(Collections.singletonMap("url", url))
-                .exchangeToMono(resp -> resp.bodyToMono(String.class)
-                        .map(body -> ResponseEntity.status(resp.statusCode()).body(body)))
-                .timeout(Duration.ofSeconds(forwardConfig.getTimeoutSeconds()))
-                .doOnError(e -> {
-                    log.error("Forwarding error for URL: {}", url, e);
-                    
-                    // Log the error asynchronously
-                    rivoFetchLoggingService.logFailedPublicRivoFetchAsync(
-                            request, startTime, 
-                            "External API error: " + e.getMessage(), 500, url);
-                })
-                .toFuture()
+        return fetchFromExternalApi(url)
                 .thenApply(forwardResponse -> {
                     if (forwardResponse.getStatusCode().is2xxSuccessful()) {
-                        // Cache successful response
-                        forwardCache.put(url, forwardResponse.getBody());
-                        
                         // Log successful response (MISS - external API call)
                         rivoFetchLoggingService.logSuccessfulPublicRivoFetchAsync(
                                 request, response, startTime, forwardResponse.getBody(), "MISS", url);
-                        
-                        // Trigger brand data extraction for successful responses
-                        if (brandExtractionEnabled) {
-                            triggerBrandExtraction(url, forwardResponse.getBody());
-                        }
                     } else {
                         // Log failed response
                         rivoFetchLoggingService.logFailedPublicRivoFetchAsync(
@@ -334,6 +266,36 @@ public class ForwardService {
                 });
     }
     
+    /**
+     * Call the external extraction API, sharing one call between concurrent misses for the
+     * same URL. Caching and brand extraction run once, on the call that actually went out;
+     * request logging stays with each caller.
+     */
+    private CompletableFuture<ResponseEntity<String>> fetchFromExternalApi(String url) {
+        return forwardRequestCoalescer.execute(url, () -> {
+            log.info("Making external API call for URL: {}", url);
+            return forwardWebClient.post()
+                    .uri(EXTERNAL_API)
+                    .bodyValue(Collections.singletonMap("url", url))
+                    .exchangeToMono(resp -> resp.bodyToMono(String.class)
+                            .map(body -> ResponseEntity.status(resp.statusCode()).body(body)))
+                    .timeout(Duration.ofSeconds(forwardConfig.getTimeoutSeconds()))
+                    .doOnError(e -> log.error("Forwarding error for URL: {}", url, e))
+                    .toFuture()
+                    .thenApply(response -> {
+                        if (response.getStatusCode().is2xxSuccessful()) {
+                            forwardCache.put(url, response.getBody());
+
+                            // Trigger brand data extraction for successful responses
+                            if (brandExtractionEnabled) {
+                                triggerBrandExtraction(url, response.getBody());
+                            }
+                        }
+                        return response;
+                    });
+        });
+    }
+
     /**
      * Trigger brand data extraction asynchronously
      */
@@ -348,6 +310,17 @@ public class ForwardService {
         }
     }
 
+    /**
+     * Serialize a stored brand as an extraction response (snapshot cache miss path)
+     */
+    private String serializeBrandResponse(Brand brand) {
+        try {
+            return objectMapper.writeValueAsString(convertBrandToExtractionResponse(brand));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize brand " + brand.getId(), e);
+        }
+    }
+
     /**
      * Convert Brand entity data to BrandExtractionResponse format
      */
@@ -491,25 +464,17 @@ public class ForwardService {
             return exactMatch;
         }
         
-        // Try normalized URL matching using database query
+        // Try normalized URL matching (indexed normalized_website column)
         Optional<Brand> normalizedMatch = brandRepository.findByNormalizedWebsite(url);
         if (normalizedMatch.isPresent()) {
             return normalizedMatch;
         }
         
-        // Try domain-based matching for better URL variations handling
+        // Try domain-based matching (indexed normalized_host / registrable_domain columns).
+        // No LIKE fallback: it scans brands on every miss and can match another host.
         String domain = extractDomainFromUrl(url);
         if (domain != null) {
-            Optional<Brand> domainMatch = brandRepository.findByDomainMatch(domain);
-            if (domainMatch.isPresent()) {
-                return domainMatch;
-            }
-            
-            // Fallback to contains search
-            List<Brand> containsMatches = brandRepository.findByWebsiteContaining(domain);
-            if (!containsMatches.isEmpty()) {
-                return Optional.of(containsMatches.get(0)); // Return the first match
-            }
+            return brandRepository.findByDomainMatch(domain);
         }
         
         return Optional.empty();
@@ -4,6 +4,8 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.client.MultipartBodyBuilder;
@@ -13,9 +15,11 @@ import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.time.Duration;
 
 /**
@@ -50,14 +54,32 @@ public class HttpFileStorageService {
      * @throws IOException If an I/O error occurs
      */
     public String uploadFile(byte[] fileContent, String fileName, String targetPath) throws IOException {
-        log.info("Uploading file to remote server via HTTP: {}, size: {} bytes", targetPath, fileContent.length);
+        return upload(new ByteArrayResource(fileContent), fileContent.length, fileName, targetPath);
+    }
+    
+    /**
+     * Upload a file from disk to the remote server using HTTP multipart upload. The request
+     * body is streamed from the file.
+     * 
+     * @param source The local file to upload
+     * @param fileName The file name
+     * @param targetPath The target path on the remote server
+     * @return The path where the file was stored
+     * @throws IOException If an I/O error occurs
+     */
+    public String uploadFile(Path source, String fileName, String targetPath) throws IOException {
+        return upload(new FileSystemResource(source), Files.size(source), fileName, targetPath);
+    }
+    
+    private String upload(Resource content, long size, String fileName, String targetPath) throws IOException {
+        log.info("Uploading file to remote server via HTTP: {}, size: {} bytes", targetPath, size);
         
         try {
             // Create multipart request
             MultipartBodyBuilder bodyBuilder = new MultipartBodyBuilder();
             
             // Add file part
-            bodyBuilder.part("file", new ByteArrayResource(fileContent))
+            bodyBuilder.part("file", content)
                 .filename(fileName)
                 .header("Content-Disposition", "form-data; name=\"file\"; filename=\"" + fileName + "\"");
             
@@ -91,20 +113,20 @@ public class HttpFileStorageService {
             
             // Fall back to local storage
             log.info("Falling back to local storage for file: {}", targetPath);
-            return storeFileLocally(fileContent, targetPath);
+            return storeFileLocally(content, size, targetPath);
         } catch (Exception e) {
             log.error("Error uploading file to remote server: {}", e.getMessage());
             
             // Fall back to local storage
             log.info("Falling back to local storage for file: {}", targetPath);
-            return storeFileLocally(fileContent, targetPath);
+            return storeFileLocally(content, size, targetPath);
         }
     }
     
     /**
      * Store file in local filesystem as fallback
      */
-    private String storeFileLocally(byte[] content, String targetPath) throws IOException {
+    private String storeFileLocally(Resource content, long size, String targetPath) throws IOException {
         Path fullPath = Paths.get(localBasePath, targetPath);
         
         // Create directories if they don't exist
@@ -117,9 +139,11 @@ public class HttpFileStorageService {
         }
         
         // Write file (this will overwrite if it exists)
-        Files.write(fullPath, content);
+        try (InputStream inputStream = content.getInputStream()) {
+            Files.copy(inputStream, fullPath, StandardCopyOption.REPLACE_EXISTING);
+        }
         
-        log.info("Successfully stored file locally: {} (Size: {} bytes)", fullPath, content.length);
+        log.info("Successfully stored file locally: {} (Size: {} bytes)", fullPath, size);
         
         // Return relative path for database storage
         return targetPath;
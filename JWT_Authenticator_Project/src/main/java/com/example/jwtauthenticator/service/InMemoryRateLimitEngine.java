@@ -0,0 +1,428 @@
+package com.example.jwtauthenticator.service;
+
+import com.example.jwtauthenticator.entity.ApiKey;
+import com.example.jwtauthenticator.entity.ApiKeyUsageStats;
+import com.example.jwtauthenticator.enums.RateLimitTier;
+import com.example.jwtauthenticator.repository.ApiKeyAddOnRepository;
+import com.example.jwtauthenticator.repository.ApiKeyRepository;
+import com.example.jwtauthenticator.repository.ApiKeyUsageStatsRepository;
+import com.example.jwtauthenticator.util.RateLimitWindowUtil;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process rate limit engine keyed by API key id.
+ *
+ * Allow/deny decisions are made against an atomic per-key window counter; the
+ * window boundaries come from {@link RateLimitWindowUtil}. Request and blocked
+ * counts are accumulated as deltas and written to ApiKeyUsageStats in the
+ * background, so the request thread never touches the usage row.
+ *
+ * On first use (including after a restart) a counter is seeded from the persisted
+ * row for the current window. Every flush re-reads the row, so counts from other
+ * instances are picked up as well. Up to {@code tolerance} requests per key may be
+ * unflushed at any time; crossing that threshold hands the key to the task scheduler for an
+ * early flush.
+ *
+ * Counters replaced by a window roll, evicted or dropped stay on a retired queue until a
+ * scheduled flush finds them with nothing pending, so increments from requests that still
+ * hold the old counter are persisted too.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class InMemoryRateLimitEngine {
+
+    private final ApiKeyRepository apiKeyRepository;
+    private final ApiKeyUsageStatsRepository usageStatsRepository;
+    private final ApiKeyAddOnRepository addOnRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final TaskScheduler taskScheduler;
+
+    @Value("${app.rate-limit.in-memory.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.rate-limit.in-memory.tolerance:50}")
+    private int tolerance;
+
+    @Value("${app.rate-limit.in-memory.idle-evict-minutes:30}")
+    private long idleEvictMinutes;
+
+    private final ConcurrentHashMap<UUID, WindowCounter> counters = new ConcurrentHashMap<>();
+
+    // Counters replaced by a window roll, eviction or drop that may still receive or hold unflushed deltas
+    private final Queue<WindowCounter> retired = new ConcurrentLinkedQueue<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Count one request against the key's current window.
+     * Unlimited tiers are always allowed; the request is still counted for statistics.
+     */
+    public Decision tryAcquire(UUID apiKeyId) {
+        LocalDateTime now = LocalDateTime.now();
+        WindowCounter counter = currentCounter(apiKeyId, now);
+        if (counter == null) {
+            return Decision.notFound();
+        }
+
+        counter.touch();
+        if (counter.tier.isUnlimited()) {
+            counter.used.incrementAndGet();
+            counter.pendingRequests.incrementAndGet();
+            flushIfOverTolerance(counter);
+            return counter.decision(Decision.Status.UNLIMITED, now);
+        }
+
+        int used;
+        do {
+            used = counter.used.get();
+            if (used >= counter.limit) {
+                return counter.decision(Decision.Status.EXHAUSTED, now);
+            }
+        } while (!counter.used.compareAndSet(used, used + 1));
+
+        counter.pendingRequests.incrementAndGet();
+        flushIfOverTolerance(counter);
+        return counter.decision(Decision.Status.ALLOWED, now);
+    }
+
+    /**
+     * Record a request that was rejected after the base limit and add-ons were exhausted.
+     */
+    public void recordBlocked(UUID apiKeyId) {
+        WindowCounter counter = counters.get(apiKeyId);
+        if (counter != null) {
+            counter.pendingBlocked.incrementAndGet();
+        }
+    }
+
+    /**
+     * Update the cached add-on balance after it was changed on the database.
+     */
+    public void updateAdditionalAvailable(UUID apiKeyId, int additionalAvailable) {
+        WindowCounter counter = counters.get(apiKeyId);
+        if (counter != null) {
+            counter.additionalAvailable = additionalAvailable;
+        }
+    }
+
+    /**
+     * Flush and drop the counter for a key so that the next request re-reads the API key
+     * (tier) and the persisted usage row. Call this whenever the tier or usage row of a key
+     * is changed outside the engine; the counter is dropped again after the surrounding
+     * transaction commits.
+     */
+    public void evict(UUID apiKeyId) {
+        if (apiKeyId == null) {
+            return;
+        }
+        drop(apiKeyId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    drop(apiKeyId);
+                }
+            });
+        }
+    }
+
+    private void drop(UUID apiKeyId) {
+        WindowCounter counter = counters.remove(apiKeyId);
+        if (counter != null) {
+            flush(counter, false);
+            // Requests still holding the counter may add to it; the scheduled flush drains them
+            retire(counter);
+        }
+    }
+    
+    private void retire(WindowCounter counter) {
+        if (counter.retired.compareAndSet(false, true)) {
+            retired.add(counter);
+        }
+    }
+
+    /**
+     * Write accumulated deltas for every key and reconcile counters with the database.
+     */
+    @Scheduled(fixedDelayString = "${app.rate-limit.in-memory.flush-interval-ms:5000}")
+    public void flushAll() {
+        if (!enabled) {
+            return;
+        }
+
+        // Drain a snapshot: a counter is let go after two runs in a row found nothing pending,
+        // which leaves requests that picked it up just before it was replaced time to finish
+        List<WindowCounter> draining = new ArrayList<>();
+        WindowCounter old;
+        while ((old = retired.poll()) != null) {
+            draining.add(old);
+        }
+        for (WindowCounter counter : draining) {
+            if (counter.hasPending()) {
+                counter.quietDrains = 0;
+                flush(counter, false);
+                retired.add(counter);
+            } else if (++counter.quietDrains < 2) {
+                retired.add(counter);
+            }
+        }
+
+        long idleCutoff = System.currentTimeMillis() - idleEvictMinutes * 60_000L;
+        for (WindowCounter counter : counters.values()) {
+            flush(counter, true);
+            if (counter.lastTouchedMillis < idleCutoff && counters.remove(counter.apiKeyId, counter)) {
+                // A request may have raced with the removal; its delta is flushed on the next run
+                retire(counter);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        log.info("Flushing in-memory rate limit counters for {} API keys", counters.size());
+        flushAll();
+    }
+
+    public int size() {
+        return counters.size();
+    }
+
+    private WindowCounter currentCounter(UUID apiKeyId, LocalDateTime now) {
+        WindowCounter counter = counters.get(apiKeyId);
+        if (counter != null && counter.covers(now)) {
+            return counter;
+        }
+
+        // Load outside the map lock; a concurrent duplicate load is harmless
+        WindowCounter loaded = load(apiKeyId, now);
+        if (loaded == null) {
+            return null;
+        }
+
+        WindowCounter winner = counters.compute(apiKeyId, (id, existing) -> {
+            if (existing != null && existing.covers(now)) {
+                return existing;
+            }
+            if (existing != null) {
+                retire(existing);
+            }
+            return loaded;
+        });
+        return winner;
+    }
+
+    private WindowCounter load(UUID apiKeyId, LocalDateTime now) {
+        Optional<ApiKey> apiKeyOpt = apiKeyRepository.findById(apiKeyId);
+        if (apiKeyOpt.isEmpty()) {
+            return null;
+        }
+        ApiKey apiKey = apiKeyOpt.get();
+        RateLimitTier tier = apiKey.getRateLimitTier() != null ? apiKey.getRateLimitTier() : RateLimitTier.FREE_TIER;
+        LocalDateTime windowStart = RateLimitWindowUtil.getWindowStart(now, tier);
+        LocalDateTime windowEnd = RateLimitWindowUtil.getWindowEnd(windowStart, tier);
+
+        int persistedCount = usageStatsRepository.findByApiKeyIdAndWindowStart(apiKeyId, windowStart)
+                .map(ApiKeyUsageStats::getRequestCount)
+                .orElse(0);
+
+        WindowCounter counter = new WindowCounter(apiKeyId, apiKey.getUserFkId(), tier, windowStart, windowEnd);
+        counter.used.set(persistedCount);
+        counter.persistedBaseline = persistedCount;
+        counter.additionalAvailable = tier.isUnlimited() ? 0 : additionalAvailable(apiKeyId, now);
+
+        log.debug("Loaded rate limit counter for API key {}: {}/{} in window starting {}",
+                apiKeyId, persistedCount, counter.limit, windowStart);
+        return counter;
+    }
+
+    /**
+     * Queue an early flush on the task scheduler; the request thread never writes the usage row
+     */
+    private void flushIfOverTolerance(WindowCounter counter) {
+        if (counter.pendingRequests.get() >= tolerance && counter.flushQueued.compareAndSet(false, true)) {
+            try {
+                taskScheduler.schedule(() -> {
+                    counter.flushQueued.set(false);
+                    flush(counter, true);
+                }, Instant.now());
+            } catch (RuntimeException e) {
+                // Scheduler shutting down or saturated: the periodic flush picks the key up
+                counter.flushQueued.set(false);
+                log.debug("Could not queue rate limit flush for API key {}: {}", counter.apiKeyId, e.getMessage());
+            }
+        }
+    }
+
+    private void flush(WindowCounter counter, boolean reconcile) {
+        if (!counter.flushing.compareAndSet(false, true)) {
+            return;
+        }
+        int requests = counter.pendingRequests.getAndSet(0);
+        int blocked = counter.pendingBlocked.getAndSet(0);
+        try {
+            if (requests == 0 && blocked == 0) {
+                return;
+            }
+
+            // Own transaction: flushes also run from afterCommit callbacks of a finished transaction
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            transactionTemplate.setTimeout(30);
+            Integer persistedCount = transactionTemplate.execute(status -> persistDelta(counter, requests, blocked));
+
+            // Whatever the row gained beyond our own flushed requests was counted by other instances
+            int expected = counter.persistedBaseline + requests;
+            if (reconcile && persistedCount != null) {
+                if (!counter.tier.isUnlimited()) {
+                    // Added rather than set, so concurrent local increments are kept
+                    counter.used.addAndGet(persistedCount - expected);
+                    counter.additionalAvailable = additionalAvailable(counter.apiKeyId, LocalDateTime.now());
+                }
+                counter.persistedBaseline = persistedCount;
+            } else {
+                counter.persistedBaseline = expected;
+            }
+        } catch (Exception e) {
+            counter.pendingRequests.addAndGet(requests);
+            counter.pendingBlocked.addAndGet(blocked);
+            log.warn("Failed to flush rate limit counter for API key {} ({} requests, {} blocked pending): {}",
+                    counter.apiKeyId, requests, blocked, e.getMessage());
+        } finally {
+            counter.flushing.set(false);
+        }
+    }
+
+    private Integer persistDelta(WindowCounter counter, int requests, int blocked) {
+        LocalDateTime now = LocalDateTime.now();
+        int updated = usageStatsRepository.applyUsageDelta(
+                counter.apiKeyId, counter.windowStart, requests, blocked, now);
+
+        if (updated == 0) {
+            ApiKeyUsageStats stats = ApiKeyUsageStats.builder()
+                    .apiKeyId(counter.apiKeyId)
+                    .userFkId(counter.userFkId)
+                    .rateLimitTier(counter.tier)
+                    .windowStart(counter.windowStart)
+                    .windowEnd(counter.windowEnd)
+                    .requestCount(requests)
+                    .requestLimit(counter.limit)
+                    .remainingRequests(Math.max(0, counter.limit - requests))
+                    .totalRequestsLifetime((long) requests)
+                    .blockedRequests(blocked)
+                    .isRateLimited(!counter.tier.isUnlimited() && requests >= counter.limit)
+                    .firstRequestAt(now)
+                    .lastRequestAt(now)
+                    .build();
+            usageStatsRepository.save(stats);
+            return requests;
+        }
+
+        return usageStatsRepository.findByApiKeyIdAndWindowStart(counter.apiKeyId, counter.windowStart)
+                .map(ApiKeyUsageStats::getRequestCount)
+                .orElse(null);
+    }
+
+    private int additionalAvailable(UUID apiKeyId, LocalDateTime now) {
+        Integer total = addOnRepository.getTotalAdditionalRequestsAvailable(apiKeyId.toString(), now);
+        return total != null ? total : 0;
+    }
+
+    /**
+     * Mutable per-key window state. Only the atomics are written on the request path.
+     */
+    private static final class WindowCounter {
+        final UUID apiKeyId;
+        final String userFkId;
+        final RateLimitTier tier;
+        final int limit;
+        final LocalDateTime windowStart;
+        final LocalDateTime windowEnd;
+
+        final AtomicInteger used = new AtomicInteger();
+        final AtomicInteger pendingRequests = new AtomicInteger();
+        final AtomicInteger pendingBlocked = new AtomicInteger();
+        final AtomicBoolean flushing = new AtomicBoolean();
+        final AtomicBoolean flushQueued = new AtomicBoolean();
+        final AtomicBoolean retired = new AtomicBoolean();
+        // Usage row count as of the last flush; only written by the thread holding flushing
+        volatile int persistedBaseline;
+        // Consecutive retired-queue drains with nothing pending; only used by flushAll
+        int quietDrains;
+        volatile int additionalAvailable;
+        volatile long lastTouchedMillis = System.currentTimeMillis();
+
+        WindowCounter(UUID apiKeyId, String userFkId, RateLimitTier tier,
+                      LocalDateTime windowStart, LocalDateTime windowEnd) {
+            this.apiKeyId = apiKeyId;
+            this.userFkId = userFkId;
+            this.tier = tier;
+            this.limit = tier.isUnlimited() ? Integer.MAX_VALUE : tier.getRequestLimit();
+            this.windowStart = windowStart;
+            this.windowEnd = windowEnd;
+        }
+
+        boolean covers(LocalDateTime now) {
+            return windowStart.equals(RateLimitWindowUtil.getWindowStart(now, tier));
+        }
+
+        void touch() {
+            lastTouchedMillis = System.currentTimeMillis();
+        }
+
+        boolean hasPending() {
+            return pendingRequests.get() > 0 || pendingBlocked.get() > 0 || flushing.get();
+        }
+
+        Decision decision(Decision.Status status, LocalDateTime now) {
+            int count = used.get();
+            return new Decision(status, tier, userFkId, count, Math.max(0, limit - count),
+                    Math.max(0, ChronoUnit.SECONDS.between(now, windowEnd)), additionalAvailable);
+        }
+    }
+
+    /**
+     * Outcome of {@link #tryAcquire(UUID)}.
+     */
+    public record Decision(
+            Status status,
+            RateLimitTier tier,
+            String userFkId,
+            int requestCount,
+            int remainingRequests,
+            long resetInSeconds,
+            int additionalAvailable) {
+
+        public enum Status { ALLOWED, UNLIMITED, EXHAUSTED, NOT_FOUND }
+
+        static Decision notFound() {
+            return new Decision(Status.NOT_FOUND, null, null, 0, 0, 0, 0);
+        }
+    }
+}
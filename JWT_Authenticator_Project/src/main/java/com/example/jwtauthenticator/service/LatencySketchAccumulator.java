@@ -0,0 +1,169 @@
+package com.example.jwtauthenticator.service;
+
+import com.example.jwtauthenticator.entity.RivoFetchLatencySketch;
+import com.example.jwtauthenticator.entity.RivoFetchRequestLog;
+import com.example.jwtauthenticator.entity.RivoFetchRollup.Granularity;
+import com.example.jwtauthenticator.repository.RivoFetchLatencySketchRepository;
+import com.example.jwtauthenticator.util.LatencySketch;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records RivoFetch response times into {@link LatencySketch}es as requests complete.
+ *
+ * Sketches are kept in memory per (API key, cache hit type, hour) and merged into the
+ * matching HOUR and DAY rows of rivo_fetch_latency_sketches on every flush. Percentiles
+ * for a window are then the quantiles of the merged sketches, see {@link #percentiles}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LatencySketchAccumulator {
+
+    private static final String UNKNOWN_CACHE_HIT_TYPE = "UNKNOWN";
+
+    private final RivoFetchLatencySketchRepository sketchRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.analytics.latency-sketch.enabled:true}")
+    private boolean enabled;
+
+    private final ConcurrentHashMap<SketchKey, LatencySketch> pending = new ConcurrentHashMap<>();
+
+    /**
+     * Count the total duration of a completed request. Requests without an API key or duration are ignored.
+     */
+    public void record(RivoFetchRequestLog logEntry) {
+        if (!enabled || logEntry == null || logEntry.getRivoFetchApiKeyId() == null
+                || logEntry.getRivoFetchTotalDurationMs() == null) {
+            return;
+        }
+        LocalDateTime timestamp = logEntry.getRivoFetchTimestamp() != null
+                ? logEntry.getRivoFetchTimestamp() : LocalDateTime.now();
+        String cacheHitType = logEntry.getRivoFetchCacheHitType() != null
+                ? logEntry.getRivoFetchCacheHitType() : UNKNOWN_CACHE_HIT_TYPE;
+        SketchKey key = new SketchKey(logEntry.getRivoFetchApiKeyId(), cacheHitType,
+                timestamp.truncatedTo(ChronoUnit.HOURS));
+        long durationMs = logEntry.getRivoFetchTotalDurationMs();
+
+        // compute() runs under the bin lock, so recording never races with the flush removing the sketch
+        pending.compute(key, (k, sketch) -> {
+            LatencySketch s = sketch != null ? sketch : new LatencySketch();
+            s.record(durationMs);
+            return s;
+        });
+    }
+
+    /**
+     * p50/p90/p95/p99 over the window, overall and per cache hit type. Empty maps when nothing was recorded.
+     */
+    public Percentiles percentiles(UUID apiKeyId, Granularity granularity, LocalDateTime since) {
+        LatencySketch overall = new LatencySketch();
+        Map<String, LatencySketch> byCacheType = new TreeMap<>();
+        for (RivoFetchLatencySketch row : sketchRepository
+                .findByApiKeyIdAndGranularityAndBucketStartGreaterThanEqual(apiKeyId, granularity, since)) {
+            LatencySketch sketch = LatencySketch.fromBytes(row.getSketch());
+            overall.merge(sketch);
+            byCacheType.computeIfAbsent(row.getCacheHitType(), k -> new LatencySketch()).merge(sketch);
+        }
+
+        Map<String, Map<String, Object>> perType = new LinkedHashMap<>();
+        byCacheType.forEach((type, sketch) -> perType.put(type, summarize(sketch)));
+        return new Percentiles(summarize(overall), perType);
+    }
+
+    @Scheduled(fixedDelayString = "${app.analytics.latency-sketch.flush-interval-ms:10000}")
+    public void flushAll() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transactionTemplate.setTimeout(30);
+
+        for (SketchKey key : new ArrayList<>(pending.keySet())) {
+            LatencySketch delta = pending.remove(key);
+            if (delta == null || delta.isEmpty()) {
+                continue;
+            }
+            try {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> mergeInto(key, delta));
+                } catch (DataIntegrityViolationException e) {
+                    // Another instance created one of the rows first; it exists now, so the merge will find it
+                    transactionTemplate.executeWithoutResult(status -> mergeInto(key, delta));
+                }
+            } catch (Exception e) {
+                // Keep the counts for the next flush
+                pending.merge(key, delta, (current, failed) -> {
+                    current.merge(failed);
+                    return current;
+                });
+                log.warn("Failed to flush latency sketch for API key {} ({} {}): {}",
+                        key.apiKeyId(), key.cacheHitType(), key.hourStart(), e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        log.info("Flushing {} pending latency sketches", pending.size());
+        flushAll();
+    }
+
+    private void mergeInto(SketchKey key, LatencySketch delta) {
+        mergeInto(Granularity.HOUR, key.hourStart(), key, delta);
+        mergeInto(Granularity.DAY, key.hourStart().truncatedTo(ChronoUnit.DAYS), key, delta);
+    }
+
+    private void mergeInto(Granularity granularity, LocalDateTime bucketStart, SketchKey key, LatencySketch delta) {
+        Optional<RivoFetchLatencySketch> existing = sketchRepository.findForUpdate(
+                granularity, bucketStart, key.apiKeyId(), key.cacheHitType());
+        LatencySketch merged = existing.map(row -> LatencySketch.fromBytes(row.getSketch()))
+                .orElseGet(LatencySketch::new);
+        merged.merge(delta);
+
+        RivoFetchLatencySketch row = existing.orElseGet(() -> RivoFetchLatencySketch.builder()
+                .granularity(granularity)
+                .bucketStart(bucketStart)
+                .apiKeyId(key.apiKeyId())
+                .cacheHitType(key.cacheHitType())
+                .build());
+        row.setSketch(merged.toBytes());
+        row.setSampleCount(merged.count());
+        row.setUpdatedAt(LocalDateTime.now());
+        sketchRepository.saveAndFlush(row);
+    }
+
+    private static Map<String, Object> summarize(LatencySketch sketch) {
+        Map<String, Object> percentiles = new LinkedHashMap<>();
+        if (!sketch.isEmpty()) {
+            percentiles.put("p50", sketch.quantile(0.50));
+            percentiles.put("p90", sketch.quantile(0.90));
+            percentiles.put("p95", sketch.quantile(0.95));
+            percentiles.put("p99", sketch.quantile(0.99));
+            percentiles.put("sampleCount", sketch.count());
+        }
+        return percentiles;
+    }
+
+    /**
+     * Percentiles over all cache hit types and per cache hit type
+     */
+    public record Percentiles(Map<String, Object> overall, Map<String, Map<String, Object>> byCacheHitType) {}
+
+    private record SketchKey(UUID apiKeyId, String cacheHitType, LocalDateTime hourStart) {}
+}
@@ -0,0 +1,132 @@
+package com.example.jwtauthenticator.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live API key usage counters for the real-time statistics endpoints, fed from the
+ * rate-limit path (ProfessionalRateLimitService).
+ *
+ * Allowed requests are counted in a ring of 60 one-minute {@link LongAdder}s. Active and
+ * rate-limited keys are kept in maps that a sweep trims every few seconds, so every read
+ * is constant time. The counts cover this instance only and are complete once it has been
+ * up for an hour; until then (or when disabled) {@link #isWarm()} is false and callers
+ * fall back to aggregate queries on api_key_usage_stats.
+ */
+@Component
+@Slf4j
+public class LiveUsageRegistry {
+
+    private static final int MINUTES_PER_HOUR = 60;
+    private static final long ACTIVE_WINDOW_MILLIS = 5 * 60_000L;
+
+    @Value("${app.statistics.live.enabled:true}")
+    private boolean enabled;
+
+    private final long startedAtMillis = System.currentTimeMillis();
+
+    private final LongAdder[] requestsPerMinute = new LongAdder[MINUTES_PER_HOUR];
+    private final AtomicLongArray slotMinute = new AtomicLongArray(MINUTES_PER_HOUR);
+
+    // API key -> last request (millis)
+    private final ConcurrentHashMap<String, Long> lastRequestAt = new ConcurrentHashMap<>();
+
+    // API key -> end of the rate limit window it is blocked in (millis)
+    private final ConcurrentHashMap<String, Long> rateLimitedUntil = new ConcurrentHashMap<>();
+
+    public LiveUsageRegistry() {
+        for (int i = 0; i < MINUTES_PER_HOUR; i++) {
+            requestsPerMinute[i] = new LongAdder();
+            slotMinute.set(i, -1);
+        }
+    }
+
+    /**
+     * Count an allowed request
+     */
+    public void recordAllowed(String apiKeyId) {
+        if (!enabled || apiKeyId == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        minuteSlot(now / 60_000L).increment();
+        lastRequestAt.put(apiKeyId, now);
+        rateLimitedUntil.remove(apiKeyId);
+    }
+
+    /**
+     * Mark a key as rate limited until its window resets
+     */
+    public void recordBlocked(String apiKeyId, long resetInSeconds) {
+        if (!enabled || apiKeyId == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        lastRequestAt.put(apiKeyId, now);
+        rateLimitedUntil.put(apiKeyId, now + Math.max(0, resetInSeconds) * 1000L);
+    }
+
+    /**
+     * True when the counters cover a full hour and can replace the database queries
+     */
+    public boolean isWarm() {
+        return enabled && System.currentTimeMillis() - startedAtMillis >= MINUTES_PER_HOUR * 60_000L;
+    }
+
+    /**
+     * Allowed requests in the last 60 minutes
+     */
+    public long requestsLastHour() {
+        long currentMinute = System.currentTimeMillis() / 60_000L;
+        long total = 0;
+        for (int i = 0; i < MINUTES_PER_HOUR; i++) {
+            if (slotMinute.get(i) > currentMinute - MINUTES_PER_HOUR) {
+                total += requestsPerMinute[i].sum();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Keys with a request in the last 5 minutes (as of the last sweep)
+     */
+    public long activeKeys() {
+        return lastRequestAt.size();
+    }
+
+    /**
+     * Keys currently blocked by their rate limit (as of the last sweep)
+     */
+    public long rateLimitedKeys() {
+        return rateLimitedUntil.size();
+    }
+
+    @Scheduled(fixedDelayString = "${app.statistics.live.sweep-interval-ms:5000}")
+    public void sweep() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        lastRequestAt.values().removeIf(at -> at < now - ACTIVE_WINDOW_MILLIS);
+        rateLimitedUntil.values().removeIf(until -> until <= now);
+    }
+
+    /**
+     * Adder for the given minute, reset when its slot last held an older minute. An increment
+     * racing with the reset at a minute boundary may be lost.
+     */
+    private LongAdder minuteSlot(long minute) {
+        int index = (int) (minute % MINUTES_PER_HOUR);
+        long seen = slotMinute.get(index);
+        if (seen != minute && slotMinute.compareAndSet(index, seen, minute)) {
+            requestsPerMinute[index].reset();
+        }
+        return requestsPerMinute[index];
+    }
+}
@@ -0,0 +1,299 @@
+package com.example.jwtauthenticator.service;
+
+import com.example.jwtauthenticator.entity.ApiKey;
+import com.example.jwtauthenticator.entity.ApiKeyMonthlyUsage;
+import com.example.jwtauthenticator.enums.RateLimitTier;
+import com.example.jwtauthenticator.repository.ApiKeyMonthlyUsageRepository;
+import com.example.jwtauthenticator.repository.ApiKeyRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coalesces monthly quota counters (ApiKeyMonthlyUsage) in memory.
+ *
+ * Calls are counted in striped {@link LongAdder}s per (apiKeyId, monthYear) and written
+ * as one additive UPDATE per key per flush interval, instead of a locked read-modify-write
+ * of the same row for every call. Quota checks combine the persisted row (cached for
+ * {@code base-ttl-seconds}) with the not yet flushed counts, see {@link #view(UUID, String)}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class MonthlyUsageAccumulator {
+
+    private final ApiKeyMonthlyUsageRepository usageRepository;
+    private final ApiKeyRepository apiKeyRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.quota.accumulator.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.quota.accumulator.base-ttl-seconds:30}")
+    private long baseTtlSeconds;
+
+    private final ConcurrentHashMap<UsageKey, Counters> counters = new ConcurrentHashMap<>();
+
+    public enum Outcome { SUCCESS, FAILURE, QUOTA_EXCEEDED }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Count one call for the current month. Returns immediately; the row is updated on the next flush.
+     */
+    public void record(UUID apiKeyId, String userId, Outcome outcome) {
+        if (apiKeyId == null) {
+            return;
+        }
+        UsageKey key = new UsageKey(apiKeyId, ApiKeyMonthlyUsage.getCurrentMonthYear());
+        Counters c = counters.computeIfAbsent(key, k -> new Counters(userId));
+        switch (outcome) {
+            case SUCCESS -> c.successful.increment();
+            case FAILURE -> c.failed.increment();
+            case QUOTA_EXCEEDED -> c.quotaExceeded.increment();
+        }
+        c.lastCallAt = LocalDateTime.now();
+    }
+
+    /**
+     * Current usage as persisted base plus unflushed calls. Empty when the base row is not
+     * cached (or older than the base TTL); callers then read the row and call {@link #seed}.
+     */
+    public Optional<QuotaView> view(UUID apiKeyId, String monthYear) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Counters c = counters.get(new UsageKey(apiKeyId, monthYear));
+        if (c == null) {
+            return Optional.empty();
+        }
+        Base base = c.base;
+        if (base == null || System.currentTimeMillis() - base.loadedAtMillis > baseTtlSeconds * 1000L) {
+            return Optional.empty();
+        }
+        return Optional.of(new QuotaView(base.totalCalls + c.pendingTotal(), base.quotaLimit, base.graceLimit));
+    }
+
+    /**
+     * Cache the persisted row as the base for {@link #view(UUID, String)}.
+     */
+    public void seed(ApiKeyMonthlyUsage usage) {
+        if (!enabled || usage == null || usage.getApiKeyId() == null) {
+            return;
+        }
+        Counters c = counters.computeIfAbsent(new UsageKey(usage.getApiKeyId(), usage.getMonthYear()),
+                k -> new Counters(usage.getUserId()));
+        c.base = Base.of(usage);
+    }
+
+    /**
+     * Number of calls counted but not yet written for the key and month.
+     */
+    public long pendingCalls(UUID apiKeyId, String monthYear) {
+        Counters c = counters.get(new UsageKey(apiKeyId, monthYear));
+        return c != null ? c.pendingTotal() : 0L;
+    }
+
+    /**
+     * Drop the cached base for a key after its row was changed elsewhere (limits, reset).
+     * Unflushed counts are kept.
+     */
+    public void invalidateBase(UUID apiKeyId) {
+        counters.forEach((key, c) -> {
+            if (key.apiKeyId().equals(apiKeyId)) {
+                c.base = null;
+            }
+        });
+    }
+
+    /**
+     * Write the accumulated deltas, one additive UPDATE per key.
+     */
+    @Scheduled(fixedDelayString = "${app.quota.accumulator.flush-interval-ms:2000}")
+    public void flushAll() {
+        String currentMonth = ApiKeyMonthlyUsage.getCurrentMonthYear();
+        counters.forEach((key, c) -> {
+            flush(key, c);
+            // Previous months are dropped once everything has been written
+            if (!key.monthYear().equals(currentMonth) && c.pendingTotal() == 0) {
+                counters.remove(key, c);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        log.info("Flushing monthly usage counters for {} keys", counters.size());
+        flushAll();
+    }
+
+    private void flush(UsageKey key, Counters c) {
+        if (!c.flushing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            // Adders only grow; the delta is everything counted since the last successful flush
+            long successful = c.successful.sum() - c.flushedSuccessful;
+            long failed = c.failed.sum() - c.flushedFailed;
+            long quotaExceeded = c.quotaExceeded.sum() - c.flushedQuotaExceeded;
+            if (successful == 0 && failed == 0 && quotaExceeded == 0) {
+                return;
+            }
+
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            transactionTemplate.setTimeout(30);
+
+            LocalDateTime lastCallAt = c.lastCallAt != null ? c.lastCallAt : LocalDateTime.now();
+            Optional<ApiKeyMonthlyUsage> persisted;
+            try {
+                persisted = transactionTemplate.execute(status ->
+                        applyDelta(key, c, (int) successful, (int) failed, (int) quotaExceeded, lastCallAt));
+            } catch (DataIntegrityViolationException e) {
+                // Another instance created the row first; it exists now, so the update will match
+                persisted = transactionTemplate.execute(status ->
+                        applyDelta(key, c, (int) successful, (int) failed, (int) quotaExceeded, lastCallAt));
+            }
+
+            // Base first: a concurrent view may briefly over-count, never under-count
+            if (persisted != null && persisted.isPresent()) {
+                c.base = Base.of(persisted.get());
+            }
+            c.flushedSuccessful += successful;
+            c.flushedFailed += failed;
+            c.flushedQuotaExceeded += quotaExceeded;
+
+            if (persisted != null && persisted.isPresent()) {
+                logQuotaWarningsIfNeeded(key.apiKeyId(), persisted.get());
+            }
+        } catch (Exception e) {
+            log.warn("Failed to flush monthly usage for API key {} ({}): {}",
+                    key.apiKeyId(), key.monthYear(), e.getMessage());
+        } finally {
+            c.flushing.set(false);
+        }
+    }
+
+    private Optional<ApiKeyMonthlyUsage> applyDelta(UsageKey key, Counters c, int successful, int failed,
+                                                    int quotaExceeded, LocalDateTime lastCallAt) {
+        int updated = usageRepository.addToCounters(
+                key.apiKeyId(), key.monthYear(), successful, failed, quotaExceeded, lastCallAt);
+        if (updated == 0) {
+            ApiKeyMonthlyUsage usage = createMonthlyUsage(key.apiKeyId(), c.userId, key.monthYear());
+            usage.setSuccessfulCalls(successful);
+            usage.setFailedCalls(failed);
+            usage.setQuotaExceededCalls(quotaExceeded);
+            usage.setTotalCalls(successful + failed + quotaExceeded);
+            usage.setFirstCallAt(lastCallAt);
+            usage.setLastCallAt(lastCallAt);
+            usageRepository.saveAndFlush(usage);
+            return Optional.of(usage);
+        }
+        return usageRepository.findByApiKeyIdAndMonthYear(key.apiKeyId(), key.monthYear());
+    }
+
+    /**
+     * New monthly usage row with quota limits taken from the API key's rate limit tier
+     */
+    private ApiKeyMonthlyUsage createMonthlyUsage(UUID apiKeyId, String userId, String monthYear) {
+        RateLimitTier tier = apiKeyRepository.findById(apiKeyId)
+                .map(ApiKey::getRateLimitTier)
+                .orElse(RateLimitTier.FREE_TIER);
+        if (tier == null) {
+            tier = RateLimitTier.FREE_TIER;
+        }
+
+        int quotaLimit = tier.getRequestsPerMonth();
+        int graceLimit = quotaLimit + (int) Math.ceil(quotaLimit * 0.1); // 10% grace
+        if (tier == RateLimitTier.BUSINESS_TIER) {
+            quotaLimit = -1; // Unlimited
+            graceLimit = -1;
+        }
+
+        ApiKeyMonthlyUsage usage = ApiKeyMonthlyUsage.createForCurrentMonth(apiKeyId, userId, quotaLimit, graceLimit);
+        usage.setMonthYear(monthYear);
+        return usage;
+    }
+
+    private void logQuotaWarningsIfNeeded(UUID apiKeyId, ApiKeyMonthlyUsage usage) {
+        if (usage.getQuotaLimit() == null || usage.getQuotaLimit() <= 0) {
+            return;
+        }
+        double usagePercentage = usage.getQuotaUsagePercentage();
+        if (usagePercentage >= 90.0) {
+            log.warn("⚠️ High quota usage: {}% for apiKey={} ({}/{})",
+                    String.format("%.1f", usagePercentage), apiKeyId, usage.getTotalCalls(), usage.getQuotaLimit());
+        } else if (usagePercentage >= 80.0) {
+            log.info("📊 Quota usage at {}% for apiKey={} ({}/{})",
+                    String.format("%.1f", usagePercentage), apiKeyId, usage.getTotalCalls(), usage.getQuotaLimit());
+        }
+    }
+
+    private record UsageKey(UUID apiKeyId, String monthYear) {
+    }
+
+    private record Base(int totalCalls, Integer quotaLimit, Integer graceLimit, long loadedAtMillis) {
+        static Base of(ApiKeyMonthlyUsage usage) {
+            return new Base(usage.getTotalCalls() != null ? usage.getTotalCalls() : 0,
+                    usage.getQuotaLimit(), usage.getGraceLimit(), System.currentTimeMillis());
+        }
+    }
+
+    private static final class Counters {
+        final String userId;
+        final LongAdder successful = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder quotaExceeded = new LongAdder();
+        final AtomicBoolean flushing = new AtomicBoolean();
+
+        // Written only by the thread holding 'flushing'
+        volatile long flushedSuccessful;
+        volatile long flushedFailed;
+        volatile long flushedQuotaExceeded;
+
+        volatile Base base;
+        volatile LocalDateTime lastCallAt;
+
+        Counters(String userId) {
+            this.userId = userId;
+        }
+
+        long pendingTotal() {
+            return (successful.sum() - flushedSuccessful)
+                    + (failed.sum() - flushedFailed)
+                    + (quotaExceeded.sum() - flushedQuotaExceeded);
+        }
+    }
+
+    /**
+     * Usage as seen by quota checks: persisted total plus unflushed calls.
+     */
+    public record QuotaView(long totalCalls, Integer quotaLimit, Integer graceLimit) {
+
+        public boolean isQuotaExceeded() {
+            if (quotaLimit == null || quotaLimit == -1) return false; // Unlimited
+            return totalCalls >= quotaLimit;
+        }
+
+        public boolean isGraceExceeded() {
+            if (graceLimit == null || graceLimit == -1) return false; // Unlimited
+            return totalCalls >= graceLimit;
+        }
+    }
+}
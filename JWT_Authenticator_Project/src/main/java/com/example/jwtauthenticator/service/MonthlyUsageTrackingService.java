@@ -29,12 +29,19 @@ public class MonthlyUsageTrackingService {
     
     private final ApiKeyMonthlyUsageRepository usageRepository;
     private final UserRepository userRepository;
+    private final MonthlyUsageAccumulator usageAccumulator;
     
     /**
      * Record an API call for the given API key
      */
     @Transactional
     public void recordApiCall(UUID apiKeyId, String userId, boolean successful) {
+        if (usageAccumulator.isEnabled()) {
+            // Coalesced: written to the row on the next accumulator flush
+            usageAccumulator.record(apiKeyId, userId,
+                    successful ? MonthlyUsageAccumulator.Outcome.SUCCESS : MonthlyUsageAccumulator.Outcome.FAILURE);
+            return;
+        }
         log.info("Recording API call for key: {}, user: {}, successful: {}", apiKeyId, userId, successful);
         try {
             String currentMonth = ApiKeyMonthlyUsage.getCurrentMonthYear();
@@ -67,6 +74,10 @@ public class MonthlyUsageTrackingService {
      */
     @Transactional
     public void recordQuotaExceededCall(UUID apiKeyId, String userId) {
+        if (usageAccumulator.isEnabled()) {
+            usageAccumulator.record(apiKeyId, userId, MonthlyUsageAccumulator.Outcome.QUOTA_EXCEEDED);
+            return;
+        }
         try {
             String currentMonth = ApiKeyMonthlyUsage.getCurrentMonthYear();
             
@@ -90,6 +101,12 @@ public class MonthlyUsageTrackingService {
         try {
             String currentMonth = ApiKeyMonthlyUsage.getCurrentMonthYear();
             
+            // Persisted base plus unflushed calls, when the accumulator has the row cached
+            Optional<MonthlyUsageAccumulator.QuotaView> view = usageAccumulator.view(apiKeyId, currentMonth);
+            if (view.isPresent()) {
+                return view.get().isQuotaExceeded();
+            }
+            
             Optional<ApiKeyMonthlyUsage> usageOpt = usageRepository.findByApiKeyIdAndMonthYear(apiKeyId, currentMonth);
             
             if (usageOpt.isEmpty()) {
@@ -106,7 +123,10 @@ public class MonthlyUsageTrackingService {
                 return false;
             }
             
-            boolean exceeded = usage.isQuotaExceeded();
+            usageAccumulator.seed(usage);
+            boolean exceeded = usageAccumulator.view(apiKeyId, currentMonth)
+                    .map(MonthlyUsageAccumulator.QuotaView::isQuotaExceeded)
+                    .orElse(usage.isQuotaExceeded());
             
             if (exceeded) {
                 log.info("Quota exceeded for API key '{}': {}/{} calls used", 
@@ -128,6 +148,11 @@ public class MonthlyUsageTrackingService {
         try {
             String currentMonth = ApiKeyMonthlyUsage.getCurrentMonthYear();
             
+            Optional<MonthlyUsageAccumulator.QuotaView> view = usageAccumulator.view(apiKeyId, currentMonth);
+            if (view.isPresent()) {
+                return view.get().isGraceExceeded();
+            }
+            
             Optional<ApiKeyMonthlyUsage> usageOpt = usageRepository.findByApiKeyIdAndMonthYear(apiKeyId, currentMonth);
             
             if (usageOpt.isEmpty()) {
@@ -142,7 +167,10 @@ public class MonthlyUsageTrackingService {
                 return false;
             }
             
-            boolean graceExceeded = usage.isGraceExceeded();
+            usageAccumulator.seed(usage);
+            boolean graceExceeded = usageAccumulator.view(apiKeyId, currentMonth)
+                    .map(MonthlyUsageAccumulator.QuotaView::isGraceExceeded)
+                    .orElse(usage.isGraceExceeded());
             
             if (graceExceeded) {
                 log.warn("Grace period exceeded for API key '{}': {}/{} calls used (including grace)", 
@@ -200,6 +228,7 @@ public class MonthlyUsageTrackingService {
         
         usage.resetForNewMonth(resetDate, newQuotaLimit, newGraceLimit);
         usageRepository.save(usage);
+        usageAccumulator.invalidateBase(usage.getApiKeyId());
         
         log.info("Reset monthly usage for API key '{}' to new limits: quota={}, grace={}", 
                 usage.getApiKeyId(), newQuotaLimit, newGraceLimit);
@@ -253,6 +282,7 @@ public class MonthlyUsageTrackingService {
                     usage.setGraceLimit(newGraceLimit);
                     
                     usageRepository.save(usage);
+                    usageAccumulator.invalidateBase(usage.getApiKeyId());
                     
                     log.info("Updated quota limits for API key '{}' due to plan upgrade: quota={}, grace={}", 
                             usage.getApiKeyId(), newQuotaLimit, newGraceLimit);
@@ -262,7 +292,7 @@ public class MonthlyUsageTrackingService {
     /**
      * Async method to clean up old usage records
      */
-    @Async
+    @Async("quotaExecutor")
     public CompletableFuture<Void> cleanupOldUsageRecords(int monthsToKeep) {
         try {
             LocalDate cutoffDate = LocalDate.now().minusMonths(monthsToKeep);
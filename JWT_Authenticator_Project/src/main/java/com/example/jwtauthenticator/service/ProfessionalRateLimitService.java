@@ -11,7 +11,10 @@ import com.example.jwtauthenticator.util.RateLimitWindowUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
@@ -32,6 +35,9 @@ public class ProfessionalRateLimitService {
     private final ApiKeyRepository apiKeyRepository;
     private final ApiKeyAddOnRepository addOnRepository;
     private final MonthlyUsageTrackingService monthlyUsageService;
+    private final InMemoryRateLimitEngine inMemoryRateLimitEngine;
+    private final LiveUsageRegistry liveUsageRegistry;
+    private final PlatformTransactionManager transactionManager;
 
     /**
      * Check if request is allowed and update usage statistics
@@ -39,8 +45,97 @@ public class ProfessionalRateLimitService {
      * @param apiKeyId The API key ID
      * @return RateLimitResult containing decision and metadata
      */
-    @Transactional
     public RateLimitResult checkRateLimit(String apiKeyId) {
+        RateLimitResult result = inMemoryRateLimitEngine.isEnabled()
+                ? checkRateLimitInMemory(apiKeyId)
+                : newTransactionTemplate().execute(status -> checkRateLimitInDatabase(apiKeyId));
+        recordLiveUsage(apiKeyId, result);
+        return result;
+    }
+
+    /**
+     * Feed the real-time statistics; denials without a tier (unknown key, errors) are not usage
+     */
+    private void recordLiveUsage(String apiKeyId, RateLimitResult result) {
+        if (result == null) {
+            return;
+        }
+        if (result.isAllowed()) {
+            liveUsageRegistry.recordAllowed(apiKeyId);
+        } else if (result.getTier() != null) {
+            liveUsageRegistry.recordBlocked(apiKeyId,
+                    result.getResetInSeconds() != null ? result.getResetInSeconds() : 0L);
+        }
+    }
+
+    /**
+     * Decide in memory via {@link InMemoryRateLimitEngine}; the database is only touched
+     * when the base limit is exhausted and add-on requests are available.
+     */
+    private RateLimitResult checkRateLimitInMemory(String apiKeyId) {
+        try {
+            UUID keyId = UUID.fromString(apiKeyId);
+            InMemoryRateLimitEngine.Decision decision = inMemoryRateLimitEngine.tryAcquire(keyId);
+
+            switch (decision.status()) {
+                case NOT_FOUND:
+                    return RateLimitResult.denied("API key not found");
+
+                case UNLIMITED:
+                    monthlyUsageService.recordApiCall(keyId, decision.userFkId(), true);
+                    return RateLimitResult.allowed(decision.tier(), Integer.MAX_VALUE, Integer.MAX_VALUE, 0);
+
+                case ALLOWED:
+                    log.debug("Rate limit check passed for API key {}: {}/{} requests used",
+                             apiKeyId, decision.requestCount(), decision.tier().getRequestLimit());
+                    return RateLimitResult.allowed(
+                        decision.tier(),
+                        decision.requestCount(),
+                        decision.remainingRequests(),
+                        decision.additionalAvailable()
+                    );
+
+                default:
+                    break;
+            }
+
+            // Base limit exhausted - only go to the database if add-ons are known to be available
+            if (decision.additionalAvailable() > 0) {
+                Boolean addOnUsed = newTransactionTemplate()
+                        .execute(status -> useAddOnRequest(apiKeyId, LocalDateTime.now()));
+                int additionalRemaining = getTotalAdditionalRequestsRemaining(keyId, LocalDateTime.now());
+                inMemoryRateLimitEngine.updateAdditionalAvailable(keyId, additionalRemaining);
+
+                if (Boolean.TRUE.equals(addOnUsed)) {
+                    return RateLimitResult.allowedWithAddOn(
+                        decision.tier(),
+                        decision.requestCount(),
+                        decision.remainingRequests(),
+                        additionalRemaining
+                    );
+                }
+            }
+
+            inMemoryRateLimitEngine.recordBlocked(keyId);
+            return RateLimitResult.denied(
+                "Rate limit exceeded. Consider purchasing add-on requests.",
+                decision.tier(),
+                decision.requestCount(),
+                decision.remainingRequests(),
+                decision.resetInSeconds(),
+                0
+            );
+
+        } catch (Exception e) {
+            log.error("Error checking rate limit for API key {}", apiKeyId, e);
+            return RateLimitResult.denied("Rate limit check failed");
+        }
+    }
+
+    /**
+     * Per-request database implementation, used when the in-memory engine is disabled.
+     */
+    private RateLimitResult checkRateLimitInDatabase(String apiKeyId) {
         try {
             // Get API key details
             Optional<ApiKey> apiKeyOpt = apiKeyRepository.findById(java.util.UUID.fromString(apiKeyId));
@@ -65,18 +160,7 @@ public class ProfessionalRateLimitService {
             // Check if base rate limit is exceeded
             if (usageStats.isRateLimitExceeded()) {
                 // Try to use add-on requests
-                List<ApiKeyAddOn> activeAddOns = addOnRepository.findActiveAddOnsForApiKey(apiKeyId, now);
-                
-                boolean addOnUsed = false;
-                for (ApiKeyAddOn addOn : activeAddOns) {
-                    if (addOn.useRequests(1)) {
-                        addOnRepository.save(addOn);
-                        addOnUsed = true;
-                        log.info("Used add-on request for API key {}: {} remaining in add-on {}", 
-                                apiKeyId, addOn.getRequestsRemaining(), addOn.getId());
-                        break;
-                    }
-                }
+                boolean addOnUsed = useAddOnRequest(apiKeyId, now);
                 
                 if (!addOnUsed) {
                     usageStats.incrementBlockedRequests();
@@ -128,6 +212,29 @@ public class ProfessionalRateLimitService {
         }
     }
 
+    /**
+     * Consume one request from the first active add-on that still has requests left
+     */
+    private boolean useAddOnRequest(String apiKeyId, LocalDateTime now) {
+        List<ApiKeyAddOn> activeAddOns = addOnRepository.findActiveAddOnsForApiKey(apiKeyId, now);
+        for (ApiKeyAddOn addOn : activeAddOns) {
+            if (addOn.useRequests(1)) {
+                addOnRepository.save(addOn);
+                log.info("Used add-on request for API key {}: {} remaining in add-on {}", 
+                        apiKeyId, addOn.getRequestsRemaining(), addOn.getId());
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private TransactionTemplate newTransactionTemplate() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        transactionTemplate.setTimeout(30);
+        return transactionTemplate;
+    }
+
     /**
      * Get current usage stats for the API key, creating new window if needed
      */
@@ -208,6 +315,9 @@ public class ProfessionalRateLimitService {
      */
     @Transactional
     public void resetRateLimit(UUID apiKeyId) {
+        // Flush pending in-memory counts first and reload the counter once the reset is committed
+        inMemoryRateLimitEngine.evict(apiKeyId);
+
         LocalDateTime now = LocalDateTime.now();
         Optional<ApiKeyUsageStats> currentStatsOpt = 
             usageStatsRepository.findCurrentUsageStats(apiKeyId, now);
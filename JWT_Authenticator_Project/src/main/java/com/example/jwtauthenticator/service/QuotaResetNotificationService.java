@@ -64,7 +64,7 @@ public class QuotaResetNotificationService {
     /**
      * Send quota reset notification to all users
      */
-    @Async
+    @Async("quotaExecutor")
     public CompletableFuture<Void> sendUserNotifications(QuotaResetResult result, QuotaResetAudit audit) {
         log.info("📧 Sending quota reset notifications to users for month: {}", result.getMonthYear());
         
@@ -92,7 +92,7 @@ public class QuotaResetNotificationService {
     /**
      * Send admin notification about quota reset completion
      */
-    @Async
+    @Async("quotaExecutor")
     public CompletableFuture<Void> sendAdminNotification(QuotaResetResult result, QuotaResetAudit audit) {
         log.info("📧 Sending admin notification for quota reset: {}", result.getMonthYear());
         
@@ -2,6 +2,7 @@ package com.example.jwtauthenticator.service;
 
 import com.example.jwtauthenticator.entity.User;
 import com.example.jwtauthenticator.repository.UserRepository;
+import com.example.jwtauthenticator.util.IpAddressUtil;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -13,8 +14,6 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
-import java.net.InetAddress;
-import java.net.UnknownHostException;
 import java.util.Optional;
 
 
@@ -32,6 +31,10 @@ import java.util.Optional;
  * - Thread-safe operations with virtual thread support
  * - Performance optimized with minimal allocations
  * 
+ * Client IP, domain and the full context are memoized as request attributes, so the filters,
+ * the domain guard and the loggers share one extraction per request. IP headers are parsed
+ * with {@link IpAddressUtil} (no DNS lookups, no splitting of X-Forwarded-For chains).
+ * 
  * @since Java 21
  */
 @Service
@@ -39,25 +42,46 @@ import java.util.Optional;
 @Slf4j
 public class RequestContextExtractorService {
     
+    private static final String CLIENT_IP_ATTRIBUTE = RequestContextExtractorService.class.getName() + ".clientIp";
+    private static final String DOMAIN_ATTRIBUTE = RequestContextExtractorService.class.getName() + ".domain";
+    private static final String CONTEXT_ATTRIBUTE = RequestContextExtractorService.class.getName() + ".context";
+    
+    private static final String UNKNOWN_CONTROLLER = "UnknownController";
+    
+    // Comprehensive proxy header list (ordered by priority)
+    private static final String[] CLIENT_IP_HEADERS = {
+        "X-Forwarded-For",      // Most common proxy header
+        "X-Real-IP",            // Nginx proxy
+        "X-Client-IP",          // General purpose
+        "CF-Connecting-IP",     // Cloudflare
+        "True-Client-IP",       // Akamai CDN
+        "X-Cluster-Client-IP",  // Load balancer
+        "X-Original-IP",        // Custom proxy setups
+        "Proxy-Client-IP",      // Proxy servers
+        "WL-Proxy-Client-IP",   // WebLogic proxy
+        "HTTP_X_FORWARDED_FOR", // Alternative header format
+        "HTTP_CLIENT_IP"        // HTTP client IP
+    };
+    
     private final DomainValidationService domainValidationService;
     private final UserRepository userRepository;
     
-    // Thread-local cache for request context (Java 21 optimized)
-    private static final ThreadLocal<RequestContext> REQUEST_CONTEXT_CACHE = 
-        ThreadLocal.withInitial(() -> null);
-    
     /**
      * 🎯 Main method to extract complete request context
+     * 
+     * Memoized per request for the current authentication once the handling controller has been
+     * identified; contexts built before that (e.g. from a filter) are not reused.
      */
     public RequestContext extractRequestContext() {
-        // Check thread-local cache first (performance optimization)
-        RequestContext cachedContext = REQUEST_CONTEXT_CACHE.get();
-        if (cachedContext != null) {
-            return cachedContext;
-        }
-        
         try {
             HttpServletRequest request = getCurrentRequest();
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            if (request != null
+                    && request.getAttribute(CONTEXT_ATTRIBUTE) instanceof MemoizedContext memoized
+                    && memoized.authentication() == authentication) {
+                return memoized.context();
+            }
+            
             ControllerContext controllerContext = extractControllerContext();
             AuthenticationContext authenticationContext = extractAuthenticationContext();
             
@@ -73,8 +97,9 @@ public class RequestContextExtractorService {
                 .queryString(request != null ? request.getQueryString() : null)
                 .build();
                 
-            // Cache for current thread (performance optimization)
-            REQUEST_CONTEXT_CACHE.set(context);
+            if (request != null && !UNKNOWN_CONTROLLER.equals(context.controllerName())) {
+                request.setAttribute(CONTEXT_ATTRIBUTE, new MemoizedContext(authentication, context));
+            }
             
             log.debug("🎯 Extracted request context: controller={}, method={}, ip={}, domain={}", 
                 context.controllerName(), context.methodName(), context.clientIp(), context.domain());
@@ -84,9 +109,6 @@ public class RequestContextExtractorService {
         } catch (Exception e) {
             log.warn("Failed to extract complete request context, returning minimal context", e);
             return createFallbackContext();
-        } finally {
-            // Clear cache after processing (prevent memory leaks)
-            REQUEST_CONTEXT_CACHE.remove();
         }
     }
     
@@ -100,34 +122,28 @@ public class RequestContextExtractorService {
             return "127.0.0.1";
         }
         
+        if (request.getAttribute(CLIENT_IP_ATTRIBUTE) instanceof String memoized) {
+            return memoized;
+        }
+        String clientIp = resolveClientIp(request);
+        request.setAttribute(CLIENT_IP_ATTRIBUTE, clientIp);
+        return clientIp;
+    }
+    
+    private String resolveClientIp(HttpServletRequest request) {
         log.debug("🔍 Extracting client IP from request");
         
-        // Comprehensive proxy header list (ordered by priority)
-        String[] headerNames = {
-            "X-Forwarded-For",      // Most common proxy header
-            "X-Real-IP",            // Nginx proxy
-            "X-Client-IP",          // General purpose
-            "CF-Connecting-IP",     // Cloudflare
-            "True-Client-IP",       // Akamai CDN
-            "X-Cluster-Client-IP",  // Load balancer
-            "X-Original-IP",        // Custom proxy setups
-            "Proxy-Client-IP",      // Proxy servers
-            "WL-Proxy-Client-IP",   // WebLogic proxy
-            "HTTP_X_FORWARDED_FOR", // Alternative header format
-            "HTTP_CLIENT_IP"        // HTTP client IP
-        };
-
-        // Check proxy headers first (performance optimized with Java 21 features)
-        for (String headerName : headerNames) {
+        // Check proxy headers first
+        for (String headerName : CLIENT_IP_HEADERS) {
             String ip = request.getHeader(headerName);
             log.debug("🔍 Checking header {}: {}", headerName, ip);
             
             if (ip != null && !ip.isBlank() && !"unknown".equalsIgnoreCase(ip)) {
                 // Special handling for CDN-specific headers
                 String processedIp = processCdnSpecificHeader(headerName, ip);
-                String bestIp = extractBestIpFromChain(processedIp);
+                String bestIp = IpAddressUtil.bestAddressFromChain(processedIp);
                 
-                if (bestIp != null && isValidIpAddress(bestIp)) {
+                if (IpAddressUtil.isIpAddress(bestIp)) {
                     log.info("✅ Found valid IP from header {}: {}", headerName, bestIp);
                     return bestIp;
                 }
@@ -144,15 +160,18 @@ public class RequestContextExtractorService {
             return "127.0.0.1";
         }
         
-        // Accept local/private IPs for development
-        if (isLocalOrPrivateIp(remoteAddr)) {
-            log.info("🏠 Local/private IP detected: {}", remoteAddr);
-            return remoteAddr;
-        }
-        
-        if (isValidIpAddress(remoteAddr)) {
-            log.info("✅ Using remote address as client IP: {}", remoteAddr);
-            return remoteAddr;
+        switch (IpAddressUtil.scope(remoteAddr)) {
+            case LOOPBACK, PRIVATE -> {
+                // Accept local/private IPs for development
+                log.info("🏠 Local/private IP detected: {}", remoteAddr);
+                return remoteAddr;
+            }
+            case PUBLIC -> {
+                log.info("✅ Using remote address as client IP: {}", remoteAddr);
+                return remoteAddr;
+            }
+            case INVALID -> {
+            }
         }
         
         log.warn("⚠️ Could not extract valid client IP, using fallback");
@@ -169,6 +188,15 @@ public class RequestContextExtractorService {
             return "localhost";
         }
         
+        if (request.getAttribute(DOMAIN_ATTRIBUTE) instanceof String memoized) {
+            return memoized;
+        }
+        String domain = resolveDomain(request);
+        request.setAttribute(DOMAIN_ATTRIBUTE, domain);
+        return domain;
+    }
+    
+    private String resolveDomain(HttpServletRequest request) {
         log.debug("🌍 Extracting domain from request headers");
         
         // Use the robust domain extraction from DomainValidationService
@@ -183,8 +211,9 @@ public class RequestContextExtractorService {
         String host = request.getHeader("Host");
         if (host != null && !host.isBlank()) {
             // Remove port if present
-            if (host.contains(":")) {
-                host = host.split(":")[0];
+            int portIndex = host.indexOf(':');
+            if (portIndex >= 0) {
+                host = host.substring(0, portIndex);
             }
             String domain = host.toLowerCase().strip();
             log.info("🔄 Fallback domain extraction successful: {}", domain);
@@ -234,7 +263,7 @@ public class RequestContextExtractorService {
                     })
                     .orElseGet(() -> {
                         log.debug("⚠️ No controller detected in stack, using fallback");
-                        return new ControllerContext("UnknownController", "unknownMethod");
+                        return new ControllerContext(UNKNOWN_CONTROLLER, "unknownMethod");
                     })
                 );
         } catch (Exception e) {
@@ -335,119 +364,6 @@ public class RequestContextExtractorService {
     
     // ================== PRIVATE HELPER METHODS ==================
     
-    /**
-     * Enhanced IP address validation (IPv4 and IPv6 support)
-     */
-    private boolean isValidIpAddress(String ip) {
-        if (ip == null || ip.isBlank()) {
-            return false;
-        }
-
-        try {
-            // Use Java's built-in IP validation for both IPv4 and IPv6
-            InetAddress.getByName(ip);
-            return true;
-        } catch (UnknownHostException e) {
-            log.debug("Invalid IP address format: {}", ip);
-            return false;
-        }
-    }
-    
-    /**
-     * Enhanced check for local or private IP ranges using InetAddress
-     */
-    private boolean isLocalOrPrivateIp(String ip) {
-        if (ip == null) return false;
-        
-        try {
-            InetAddress addr = InetAddress.getByName(ip);
-            // Use Java's built-in methods for accurate detection
-            return addr.isLoopbackAddress() || addr.isSiteLocalAddress() || addr.isLinkLocalAddress();
-        } catch (UnknownHostException e) {
-            // Fallback to string-based check for edge cases
-            return "127.0.0.1".equals(ip) || 
-                   ip.startsWith("192.168.") || 
-                   ip.startsWith("10.") || 
-                   (ip.startsWith("172.") && isInRange172(ip));
-        }
-    }
-    
-    /**
-     * Helper method for 172.16.0.0/12 range validation (fallback only)
-     */
-    private boolean isInRange172(String ip) {
-        try {
-            String[] parts = ip.split("\\.");
-            if (parts.length != 4) return false;
-            int secondOctet = Integer.parseInt(parts[1]);
-            return secondOctet >= 16 && secondOctet <= 31;
-        } catch (NumberFormatException e) {
-            return false;
-        }
-    }
-    
-    /**
-     * Extract best IP from comma-separated chain (Priority: Public > Private > Localhost)
-     */
-    private String extractBestIpFromChain(String ipChain) {
-        if (!ipChain.contains(",")) {
-            return ipChain.strip();
-        }
-        
-        String[] ips = ipChain.split(",");
-        log.debug("🔗 Analyzing IP chain with {} addresses", ips.length);
-        
-        String publicIp = null;
-        String privateIp = null;
-        String localhostIp = null;
-        
-        for (String ip : ips) {
-            ip = ip.strip();
-            if (!isValidIpAddress(ip)) continue;
-            
-            if (isPublicIp(ip)) {
-                publicIp = ip;
-                log.debug("🌍 Found public IP in chain: {}", ip);
-                break; // Public IP has highest priority
-            } else if (isLocalOrPrivateIp(ip)) {
-                if (isLocalhostIp(ip) && localhostIp == null) {
-                    localhostIp = ip;
-                } else if (privateIp == null) {
-                    privateIp = ip;
-                }
-            }
-        }
-        
-        String selectedIp = publicIp != null ? publicIp : 
-                           privateIp != null ? privateIp : 
-                           localhostIp != null ? localhostIp : 
-                           ips[0].strip(); // Fallback to first IP
-        
-        log.debug("🎯 Selected IP from chain: {}", selectedIp);
-        return selectedIp;
-    }
-    
-    /**
-     * Check if IP is public (not private/localhost)
-     */
-    private boolean isPublicIp(String ip) {
-        return isValidIpAddress(ip) && !isLocalOrPrivateIp(ip);
-    }
-    
-    /**
-     * Check if IP is localhost
-     */
-    private boolean isLocalhostIp(String ip) {
-        if (ip == null) return false;
-        
-        try {
-            InetAddress addr = InetAddress.getByName(ip);
-            return addr.isLoopbackAddress();
-        } catch (UnknownHostException e) {
-            return "127.0.0.1".equals(ip) || "::1".equals(ip);
-        }
-    }
-    
     /**
      * Process CDN-specific header formats
      */
@@ -473,7 +389,7 @@ public class RequestContextExtractorService {
             .clientIp("127.0.0.1")
             .domain("localhost")
             .userAgent("Unknown")
-            .controllerName("UnknownController")
+            .controllerName(UNKNOWN_CONTROLLER)
             .methodName("unknownMethod")
             .userId(null)
             .apiKeyId(null)
@@ -494,6 +410,11 @@ public class RequestContextExtractorService {
      */
     public record AuthenticationContext(String userId, String apiKeyId) {}
     
+    /**
+     * Request context memoized for the authentication it was built with
+     */
+    private record MemoizedContext(Authentication authentication, RequestContext context) {}
+    
     /**
      * 📋 Complete request context
      */
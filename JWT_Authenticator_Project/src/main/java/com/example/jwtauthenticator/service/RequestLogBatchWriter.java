@@ -0,0 +1,313 @@
+package com.example.jwtauthenticator.service;
+
+import com.example.jwtauthenticator.entity.ApiKeyRequestLog;
+import com.example.jwtauthenticator.entity.RivoFetchRequestLog;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Write-behind pipeline for request log rows (ApiKeyRequestLog, RivoFetchRequestLog).
+ *
+ * Callers enqueue finished log entities into a bounded buffer; a dedicated writer
+ * thread per buffer persists them in one transaction per batch, so Hibernate can
+ * send them as JDBC batch inserts (hibernate.jdbc.batch_size). A batch is written
+ * when it reaches {@code batch-size} entries or {@code flush-interval-ms} after its
+ * first entry, whichever comes first.
+ *
+ * Backpressure: when a buffer is full the caller waits up to {@code offer-timeout-ms}
+ * for space, after which the entry is dropped and counted. Buffers are drained on
+ * shutdown. Counters are exposed through the actuator health endpoint.
+ *
+ * RivoFetch rows are counted in the {@link LatencySketchAccumulator} once they are
+ * inserted, so dropped or failed rows do not show up in the percentiles.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RequestLogBatchWriter implements HealthIndicator {
+
+    private final PlatformTransactionManager transactionManager;
+    private final LatencySketchAccumulator latencySketches;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.request-log.write-behind.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.request-log.write-behind.capacity:10000}")
+    private int capacity;
+
+    @Value("${app.request-log.write-behind.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.request-log.write-behind.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    @Value("${app.request-log.write-behind.offer-timeout-ms:50}")
+    private long offerTimeoutMs;
+
+    @Value("${app.request-log.write-behind.shutdown-timeout-ms:10000}")
+    private long shutdownTimeoutMs;
+
+    private LogBuffer<ApiKeyRequestLog> auditLogs;
+    private LogBuffer<RivoFetchRequestLog> rivoFetchLogs;
+
+    @PostConstruct
+    public void init() {
+        auditLogs = new LogBuffer<>("api-key-request-log", entry -> { });
+        rivoFetchLogs = new LogBuffer<>("rivo-fetch-request-log", latencySketches::record);
+        if (enabled) {
+            auditLogs.start();
+            rivoFetchLogs.start();
+        }
+        log.info("Request log write-behind initialized (enabled: {}, capacity: {}, batchSize: {}, flushInterval: {}ms)",
+                enabled, capacity, batchSize, flushIntervalMs);
+    }
+
+    /**
+     * Queue an ApiKeyRequestLog row for insertion.
+     *
+     * @return false if the entry was dropped because the buffer stayed full
+     */
+    public boolean enqueue(ApiKeyRequestLog logEntry) {
+        return auditLogs.offer(logEntry);
+    }
+
+    /**
+     * Queue a RivoFetchRequestLog row for insertion.
+     *
+     * @return false if the entry was dropped because the buffer stayed full
+     */
+    public boolean enqueue(RivoFetchRequestLog logEntry) {
+        return rivoFetchLogs.offer(logEntry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        auditLogs.stop();
+        rivoFetchLogs.stop();
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("capacity", capacity);
+        stats.put("batchSize", batchSize);
+        stats.put(auditLogs.name, auditLogs.stats());
+        stats.put(rivoFetchLogs.name, rivoFetchLogs.stats());
+        return stats;
+    }
+
+    @Override
+    public Health health() {
+        return Health.up().withDetails(getStats()).build();
+    }
+
+    /**
+     * Persist a batch in a single transaction; if that fails, fall back to one
+     * transaction per row so a single bad row does not lose the whole batch.
+     *
+     * @return the rows that were inserted
+     */
+    private <T> List<T> persist(List<T> batch) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transactionTemplate.setTimeout(30);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Object entity : batch) {
+                    entityManager.persist(entity);
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+            return batch;
+        } catch (Exception e) {
+            log.warn("Batch insert of {} log rows failed, retrying row by row: {}", batch.size(), e.getMessage());
+        }
+
+        // merge, not persist: generated ids were already assigned by the failed attempt
+        List<T> inserted = new ArrayList<>(batch.size());
+        for (T entity : batch) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> entityManager.merge(entity));
+                inserted.add(entity);
+            } catch (Exception e) {
+                log.error("Failed to insert log row {}: {}", entity.getClass().getSimpleName(), e.getMessage());
+            }
+        }
+        return inserted;
+    }
+
+    /**
+     * Bounded buffer plus its writer thread.
+     */
+    private final class LogBuffer<T> {
+        private final String name;
+        private final Consumer<T> onInserted;
+        private final BlockingQueue<T> queue;
+        private final AtomicLong enqueued = new AtomicLong();
+        private final AtomicLong written = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong batches = new AtomicLong();
+        private volatile boolean running;
+        private Thread writer;
+
+        LogBuffer(String name, Consumer<T> onInserted) {
+            this.name = name;
+            this.onInserted = onInserted;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        void start() {
+            running = true;
+            writer = new Thread(this::run, "log-writer-" + name);
+            writer.setDaemon(false);
+            writer.start();
+        }
+
+        boolean offer(T entry) {
+            if (entry == null) {
+                return false;
+            }
+            if (!running) {
+                // Write-behind disabled or shutting down: write through on the caller thread
+                writeBatch(List.of(entry));
+                return true;
+            }
+            try {
+                if (queue.offer(entry) || queue.offer(entry, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    enqueued.incrementAndGet();
+                    return true;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            long droppedCount = dropped.incrementAndGet();
+            if (droppedCount == 1 || droppedCount % 1000 == 0) {
+                log.warn("Log buffer '{}' is full ({} entries), {} entries dropped so far",
+                        name, capacity, droppedCount);
+            }
+            return false;
+        }
+
+        private void run() {
+            List<T> batch = new ArrayList<>(batchSize);
+            while (running || !queue.isEmpty()) {
+                try {
+                    T first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                    while (batch.size() < batchSize) {
+                        queue.drainTo(batch, batchSize - batch.size());
+                        long remaining = deadline - System.nanoTime();
+                        if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                            break;
+                        }
+                        T next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                        if (next == null) {
+                            break;
+                        }
+                        batch.add(next);
+                    }
+                } catch (InterruptedException e) {
+                    // Blocking polls would now fail at once: drain without blocking, then exit.
+                    // The flag stays cleared until then so the JDBC writes are not interrupted.
+                    running = false;
+                    drainRemaining(batch);
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (!batch.isEmpty()) {
+                    writeBatch(batch);
+                    batch.clear();
+                }
+            }
+        }
+
+        private void drainRemaining(List<T> batch) {
+            do {
+                queue.drainTo(batch, batchSize - batch.size());
+                if (!batch.isEmpty()) {
+                    writeBatch(batch);
+                    batch.clear();
+                }
+            } while (!queue.isEmpty());
+        }
+
+        private void writeBatch(List<T> batch) {
+            List<T> inserted = persist(batch);
+            batches.incrementAndGet();
+            written.addAndGet(inserted.size());
+            failed.addAndGet(batch.size() - inserted.size());
+            try {
+                inserted.forEach(onInserted);
+            } catch (Exception e) {
+                log.warn("Post-insert hook of log buffer '{}' failed: {}", name, e.getMessage());
+            }
+        }
+
+        void stop() {
+            if (!running) {
+                return;
+            }
+            // The writer notices within one flush interval and drains the queue before exiting
+            running = false;
+            try {
+                writer.join(shutdownTimeoutMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (!writer.isAlive() && !queue.isEmpty()) {
+                // Entries that raced with the writer exiting
+                List<T> rest = new ArrayList<>();
+                queue.drainTo(rest);
+                writeBatch(rest);
+            }
+            if (writer.isAlive() || !queue.isEmpty()) {
+                log.warn("Log buffer '{}' did not drain within {}ms, {} entries left",
+                        name, shutdownTimeoutMs, queue.size());
+            } else {
+                log.info("Log buffer '{}' drained: {} written, {} dropped, {} failed",
+                        name, written.get(), dropped.get(), failed.get());
+            }
+        }
+
+        Map<String, Object> stats() {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("queued", queue.size());
+            stats.put("enqueued", enqueued.get());
+            stats.put("written", written.get());
+            stats.put("batches", batches.get());
+            stats.put("dropped", dropped.get());
+            stats.put("failed", failed.get());
+            return stats;
+        }
+    }
+}
@@ -31,7 +31,7 @@ public class RequestLoggingService {
     /**
      * Log an API key request asynchronously to avoid blocking the request.
      */
-    @Async
+    @Async("loggingExecutor")
     @Transactional
     public void logApiKeyRequest(String apiKeyId, String userFkId, HttpServletRequest request, 
                                 HttpServletResponse response, boolean success) {
@@ -64,7 +64,7 @@ public class RequestLoggingService {
     /**
      * Log an API key request with additional details.
      */
-    @Async
+    @Async("loggingExecutor")
     @Transactional
     public void logApiKeyRequest(String apiKeyId, String userFkId, String method, String path,
                                 String clientIp, String domain, String userAgent, 
@@ -1,10 +1,11 @@
 package com.example.jwtauthenticator.service;
 
-import com.example.jwtauthenticator.entity.RivoFetchRequestLog;
-import com.example.jwtauthenticator.repository.RivoFetchRequestLogRepository;
+import com.example.jwtauthenticator.entity.RivoFetchRollup.Granularity;
+import com.example.jwtauthenticator.repository.RivoFetchErrorRollupRepository;
+import com.example.jwtauthenticator.repository.RivoFetchRollupRepository;
+import com.example.jwtauthenticator.service.RivoFetchRollupService.RollupWindow;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
@@ -14,11 +15,15 @@ import java.util.stream.Collectors;
 
 /**
  * 📊 RivoFetch Analytics Service
- * 
+ *
  * Provides comprehensive analytics and statistics for RivoFetch API usage.
- * This service aggregates data from RivoFetchRequestLog to provide insights
- * into user behavior, API performance, and system health.
- * 
+ * Counts, rates, averages and breakdowns are read from the hourly/daily rollups
+ * maintained by {@link RivoFetchRollupService} (at most one rollup interval behind
+ * rivo_fetch_request_logs) and response time percentiles from the latency sketches
+ * of {@link LatencySketchAccumulator}, so the cost of a query depends on the window
+ * length, not on the traffic in it. Windows start at the hour (or day) boundary, which is
+ * reported as {@code timeRange.since} together with the granularity used.
+ *
  * Features:
  * - User-specific request statistics
  * - API key performance metrics
@@ -26,7 +31,7 @@ import java.util.stream.Collectors;
  * - Cache performance analytics
  * - Error distribution analysis
  * - Performance percentile calculations
- * 
+ *
  * @author BrandSnap API Team
  * @version 1.0
  * @since Java 21
@@ -35,658 +40,485 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 @Slf4j
 public class RivoFetchAnalyticsService {
-    
-    private final RivoFetchRequestLogRepository rivoFetchRepository;
-    
+
+    /**
+     * Start of the all-time window used by the application-wide statistics (daily rows)
+     */
+    private static final RollupWindow ALL_TIME = new RollupWindow(Granularity.DAY, LocalDateTime.of(1970, 1, 1, 0, 0));
+
+    private final RivoFetchRollupRepository rollupRepository;
+    private final RivoFetchErrorRollupRepository errorRollupRepository;
+    private final RivoFetchRollupService rollupService;
+    private final LatencySketchAccumulator latencySketches;
+
     // ==================== USER STATISTICS ====================
-    
+
     /**
      * 🔢 Get total request count for a user (High Performance)
      */
     public Map<String, Object> getUserTotalRequests(String userId, int hours) {
-        LocalDateTime since = LocalDateTime.now().minusHours(hours);
-        
+        RollupWindow window = rollupService.window(hours);
+
         log.info("🔢 Getting total request count for user: {} (last {} hours)", userId, hours);
-        
-        // High-performance database count query
-        long totalRequests = rivoFetchRepository.countByRivoFetchUserIdAndRivoFetchTimestampAfter(userId, since);
-        
+
+        RollupTotals totals = totals(window, userId, null);
+
         return Map.of(
             "userId", userId,
-            "timeRange", Map.of(
-                "hours", hours,
-                "since", since,
-                "until", LocalDateTime.now()
-            ),
-            "totalRequests", totalRequests
+            "timeRange", timeRange(hours, window),
+            "totalRequests", totals.total
         );
     }
-    
+
     /**
      * ✅ Get successful request count for a user (High Performance)
      */
     public Map<String, Object> getUserSuccessfulRequests(String userId, int hours) {
-        LocalDateTime since = LocalDateTime.now().minusHours(hours);
-        
+        RollupWindow window = rollupService.window(hours);
+
         log.info("✅ Getting successful request count for user: {} (last {} hours)", userId, hours);
-        
-        // High-performance database count queries
-        long totalRequests = rivoFetchRepository.countByRivoFetchUserIdAndRivoFetchTimestampAfter(userId, since);
-        long successfulRequests = rivoFetchRepository.countByRivoFetchUserIdAndRivoFetchSuccessAndRivoFetchTimestampAfter(
-            userId, true, since);
-        
-        double successRate = totalRequests > 0 ? (successfulRequests * 100.0 / totalRequests) : 0.0;
-        
+
+        RollupTotals totals = totals(window, userId, null);
+
         return Map.of(
             "userId", userId,
-            "timeRange", Map.of(
-                "hours", hours,
-                "since", since,
-                "until", LocalDateTime.now()
-            ),
-            "totalRequests", totalRequests,
-            "successfulRequests", successfulRequests,
-            "successRate", Math.round(successRate * 100.0) / 100.0
+            "timeRange", timeRange(hours, window),
+            "totalRequests", totals.total,
+            "successfulRequests", totals.successful,
+            "successRate", round2(totals.successRate())
         );
     }
-    
+
     /**
      * ❌ Get failed request count for a user (High Performance)
      */
     public Map<String, Object> getUserFailedRequests(String userId, int hours) {
-        LocalDateTime since = LocalDateTime.now().minusHours(hours);
-        
+        RollupWindow window = rollupService.window(hours);
+
         log.info("❌ Getting failed request count for user: {} (last {} hours)", userId, hours);
-        
-        // High-performance database count queries
-        long totalRequests = rivoFetchRepository.countByRivoFetchUserIdAndRivoFetchTimestampAfter(userId, since);
-        long failedRequests = rivoFetchRepository.countByRivoFetchUserIdAndRivoFetchSuccessAndRivoFetchTimestampAfter(
-            userId, false, since);
-        
-        double failureRate = totalRequests > 0 ? (failedRequests * 100.0 / totalRequests) : 0.0;
-        
+
+        RollupTotals totals = totals(window, userId, null);
+
         return Map.of(
             "userId", userId,
-            "timeRange", Map.of(
-                "hours", hours,
-                "since", since,
-                "until", LocalDateTime.now()
-            ),
-            "totalRequests", totalRequests,
-            "failedRequests", failedRequests,
-            "failureRate", Math.round(failureRate * 100.0) / 100.0
+            "timeRange", timeRange(hours, window),
+            "totalRequests", totals.total,
+            "failedRequests", totals.failed,
+            "failureRate", round2(totals.failureRate())
         );
     }
-    
+
     /**
      * 📈 Get comprehensive statistics for a user
      */
     public Map<String, Object> getUserStatistics(String userId, int hours) {
-        LocalDateTime since = LocalDateTime.now().minusHours(hours);
-        
+        RollupWindow window = rollupService.window(hours);
+
         log.info("📊 Getting RivoFetch statistics for user: {} (last {} hours)", userId, hours);
-        
-        // Get user's logs
-        Page<RivoFetchRequestLog> userLogs = rivoFetchRepository
-            .findByRivoFetchUserIdOrderByRivoFetchTimestampDesc(userId, PageRequest.of(0, 1000));
-        
-        List<RivoFetchRequestLog> recentLogs = userLogs.getContent().stream()
-            .filter(log -> log.getRivoFetchTimestamp().isAfter(since))
-            .collect(Collectors.toList());
-        
-        // Calculate statistics
-        long totalRequests = recentLogs.size();
-        long successfulRequests = recentLogs.stream()
-            .mapToLong(log -> log.getRivoFetchSuccess() ? 1 : 0)
-            .sum();
-        long failedRequests = totalRequests - successfulRequests;
-        
-        double successRate = totalRequests > 0 ? (successfulRequests * 100.0 / totalRequests) : 0.0;
-        double failureRate = totalRequests > 0 ? (failedRequests * 100.0 / totalRequests) : 0.0;
-        
-        // Cache performance
-        Map<String, Long> cacheStats = recentLogs.stream()
-            .collect(Collectors.groupingBy(
-                log -> log.getRivoFetchCacheHitType() != null ? log.getRivoFetchCacheHitType() : "UNKNOWN",
-                Collectors.counting()
-            ));
-        
-        // Average response time
-        double avgResponseTime = recentLogs.stream()
-            .filter(log -> log.getRivoFetchTotalDurationMs() != null)
-            .mapToDouble(log -> log.getRivoFetchTotalDurationMs())
-            .average()
-            .orElse(0.0);
-        
-        // Top domains
-        List<Map<String, Object>> topDomains = recentLogs.stream()
-            .filter(log -> log.getRivoFetchUrlDomain() != null)
-            .collect(Collectors.groupingBy(
-                RivoFetchRequestLog::getRivoFetchUrlDomain,
-                Collectors.counting()
-            ))
-            .entrySet().stream()
-            .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+
+        RollupTotals totals = totals(window, userId, null);
+
+        // Top domains (one extra row in case the unknown domain is among them)
+        List<Map<String, Object>> topDomains = rollupRepository
+            .findTopDomains(window.granularity(), window.since(), userId, null, PageRequest.of(0, 11))
+            .stream()
+            .filter(row -> row[0] != null)
             .limit(10)
-            .map(entry -> {
+            .map(row -> {
                 Map<String, Object> domainMap = new HashMap<>();
-                domainMap.put("domain", entry.getKey());
-                domainMap.put("requestCount", entry.getValue());
+                domainMap.put("domain", row[0]);
+                domainMap.put("requestCount", row[1]);
                 return domainMap;
             })
             .collect(Collectors.toList());
-        
+
         return Map.of(
             "userId", userId,
-            "timeRange", Map.of(
-                "hours", hours,
-                "since", since,
-                "until", LocalDateTime.now()
-            ),
+            "timeRange", timeRange(hours, window),
             "requestCounts", Map.of(
-                "total", totalRequests,
-                "successful", successfulRequests,
-                "failed", failedRequests
+                "total", totals.total,
+                "successful", totals.successful,
+                "failed", totals.failed
             ),
             "rates", Map.of(
-                "successRate", Math.round(successRate * 100.0) / 100.0,
-                "failureRate", Math.round(failureRate * 100.0) / 100.0
+                "successRate", round2(totals.successRate()),
+                "failureRate", round2(totals.failureRate())
             ),
             "performance", Map.of(
-                "averageResponseTimeMs", Math.round(avgResponseTime * 100.0) / 100.0
+                "averageResponseTimeMs", round2(totals.averageDurationMs())
             ),
-            "cachePerformance", cacheStats,
+            "cachePerformance", totals.cacheBreakdown(),
             "topDomains", topDomains
         );
     }
-    
+
     /**
      * 📊 Get success rate for a user
      */
     public Map<String, Object> getUserSuccessRate(String userId, int hours) {
-        LocalDateTime since = LocalDateTime.now().minusHours(hours);
-        
-        Page<RivoFetchRequestLog> userLogs = rivoFetchRepository
-            .findByRivoFetchUserIdOrderByRivoFetchTimestampDesc(userId, PageRequest.of(0, 1000));
-        
-        List<RivoFetchRequestLog> recentLogs = userLogs.getContent().stream()
-            .filter(log -> log.getRivoFetchTimestamp().isAfter(since))
-            .collect(Collectors.toList());
-        
-        long totalRequests = recentLogs.size();
-        long successfulRequests = recentLogs.stream()
-            .mapToLong(log -> log.getRivoFetchSuccess() ? 1 : 0)
-            .sum();
-        
-        double successRate = totalRequests > 0 ? (successfulRequests * 100.0 / totalRequests) : 0.0;
-        
+        RollupWindow window = rollupService.window(hours);
+
+        RollupTotals totals = totals(window, userId, null);
+
         return Map.of(
             "userId", userId,
-            "timeRange", Map.of("hours", hours, "since", since),
-            "totalRequests", totalRequests,
-            "successfulRequests", successfulRequests,
-            "successRate", Math.round(successRate * 100.0) / 100.0
+            "timeRange", timeRange(hours, window),
+            "totalRequests", totals.total,
+            "successfulRequests", totals.successful,
+            "successRate", round2(totals.successRate())
         );
     }
-    
+
     /**
      * 📉 Get failure rate for a user
      */
     public Map<String, Object> getUserFailureRate(String userId, int hours) {
-        LocalDateTime since = LocalDateTime.now().minusHours(hours);
-        
-        Page<RivoFetchRequestLog> userLogs = rivoFetchRepository
-            .findByRivoFetchUserIdOrderByRivoFetchTimestampDesc(userId, PageRequest.of(0, 1000));
-        
-        List<RivoFetchRequestLog> recentLogs = userLogs.getContent().stream()
-            .filter(log -> log.getRivoFetchTimestamp().isAfter(since))
-            .collect(Collectors.toList());
-        
-        long totalRequests = recentLogs.size();
-        long failedRequests = recentLogs.stream()
-            .mapToLong(log -> !log.getRivoFetchSuccess() ? 1 : 0)
-            .sum();
-        
-        double failureRate = totalRequests > 0 ? (failedRequests * 100.0 / totalRequests) : 0.0;
-        
-        // Get error breakdown
-        Map<String, Long> errorBreakdown = recentLogs.stream()
-            .filter(log -> !log.getRivoFetchSuccess())
-            .collect(Collectors.groupingBy(
-                log -> log.getRivoFetchErrorMessage() != null ? log.getRivoFetchErrorMessage() : "Unknown Error",
-                Collectors.counting()
-            ));
-        
+        RollupWindow window = rollupService.window(hours);
+
+        RollupTotals totals = totals(window, userId, null);
+
+        // Get error breakdown (error messages are rolled up by their first 500 characters)
+        Map<String, Long> errorBreakdown = new HashMap<>();
+        for (Object[] row : errorRollupRepository.findErrorDistribution(
+                window.granularity(), window.since(), userId, null)) {
+            String message = row[1] != null ? (String) row[1] : "Unknown Error";
+            errorBreakdown.merge(message, toLong(row[2]), Long::sum);
+        }
+
         return Map.of(
             "userId", userId,
-            "timeRange", Map.of("hours", hours, "since", since),
-            "totalRequests", totalRequests,
-            "failedRequests", failedRequests,
-            "failureRate", Math.round(failureRate * 100.0) / 100.0,
+            "timeRange", timeRange(hours, window),
+            "totalRequests", totals.total,
+            "failedRequests", totals.failed,
+            "failureRate", round2(totals.failureRate()),
             "errorBreakdown", errorBreakdown
         );
     }
-    
+
     // ==================== API KEY STATISTICS ====================
-    
+
     /**
      * 🔢 Get total request count for an API key (High Performance)
      */
     public Map<String, Object> getApiKeyTotalRequests(UUID apiKeyId, int hours) {
-        LocalDateTime since = LocalDateTime.now().minusHours(hours);
-        
+        RollupWindow window = rollupService.window(hours);
+
         log.info("🔢 Getting total request count for API key: {} (last {} hours)", apiKeyId, hours);
-        
-        // High-performance database count query
-        long totalRequests = rivoFetchRepository.countByRivoFetchApiKeyIdAndRivoFetchTimestampAfter(apiKeyId, since);
-        
+
+        RollupTotals totals = totals(window, null, apiKeyId);
+
         return Map.of(
             "apiKeyId", apiKeyId,
-            "timeRange", Map.of(
-                "hours", hours,
-                "since", since,
-                "until", LocalDateTime.now()
-            ),
-            "totalRequests", totalRequests
+            "timeRange", timeRange(hours, window),
+            "totalRequests", totals.total
         );
     }
-    
+
     /**
      * ✅ Get successful request count for an API key (High Performance)
      */
     public Map<String, Object> getApiKeySuccessfulRequests(UUID apiKeyId, int hours) {
-        LocalDateTime since = LocalDateTime.now().minusHours(hours);
-        
+        RollupWindow window = rollupService.window(hours);
+
         log.info("✅ Getting successful request count for API key: {} (last {} hours)", apiKeyId, hours);
-        
-        // High-performance database count queries
-        long totalRequests = rivoFetchRepository.countByRivoFetchApiKeyIdAndRivoFetchTimestampAfter(apiKeyId, since);
-        long successfulRequests = rivoFetchRepository.countByRivoFetchApiKeyIdAndRivoFetchSuccessAndRivoFetchTimestampAfter(
-            apiKeyId, true, since);
-        
-        double successRate = totalRequests > 0 ? (successfulRequests * 100.0 / totalRequests) : 0.0;
-        
+
+        RollupTotals totals = totals(window, null, apiKeyId);
+
         return Map.of(
             "apiKeyId", apiKeyId,
-            "timeRange", Map.of(
-                "hours", hours,
-                "since", since,
-                "until", LocalDateTime.now()
-            ),
-            "totalRequests", totalRequests,
-            "successfulRequests", successfulRequests,
-            "successRate", Math.round(successRate * 100.0) / 100.0
+            "timeRange", timeRange(hours, window),
+            "totalRequests", totals.total,
+            "successfulRequests", totals.successful,
+            "successRate", round2(totals.successRate())
         );
     }
-    
+
     /**
      * ❌ Get failed request count for an API key (High Performance)
      */
     public Map<String, Object> getApiKeyFailedRequests(UUID apiKeyId, int hours) {
-        LocalDateTime since = LocalDateTime.now().minusHours(hours);
-        
+        RollupWindow window = rollupService.window(hours);
+
         log.info("❌ Getting failed request count for API key: {} (last {} hours)", apiKeyId, hours);
-        
-        // High-performance database count queries
-        long totalRequests = rivoFetchRepository.countByRivoFetchApiKeyIdAndRivoFetchTimestampAfter(apiKeyId, since);
-        long failedRequests = rivoFetchRepository.countByRivoFetchApiKeyIdAndRivoFetchSuccessAndRivoFetchTimestampAfter(
-            apiKeyId, false, since);
-        
-        double failureRate = totalRequests > 0 ? (failedRequests * 100.0 / totalRequests) : 0.0;
-        
+
+        RollupTotals totals = totals(window, null, apiKeyId);
+
         return Map.of(
             "apiKeyId", apiKeyId,
-            "timeRange", Map.of(
-                "hours", hours,
-                "since", since,
-                "until", LocalDateTime.now()
-            ),
-            "totalRequests", totalRequests,
-            "failedRequests", failedRequests,
-            "failureRate", Math.round(failureRate * 100.0) / 100.0
+            "timeRange", timeRange(hours, window),
+            "totalRequests", totals.total,
+            "failedRequests", totals.failed,
+            "failureRate", round2(totals.failureRate())
         );
     }
-    
+
     /**
      * 📈 Get comprehensive statistics for an API key
      */
     public Map<String, Object> getApiKeyStatistics(UUID apiKeyId, int hours) {
-        LocalDateTime since = LocalDateTime.now().minusHours(hours);
-        
+        RollupWindow window = rollupService.window(hours);
+
         log.info("📊 Getting RivoFetch statistics for API key: {} (last {} hours)", apiKeyId, hours);
-        
-        // Use repository methods for better performance
-        long totalRequests = rivoFetchRepository.countByRivoFetchApiKeyIdAndRivoFetchTimestampAfter(apiKeyId, since);
-        long successfulRequests = rivoFetchRepository.countByRivoFetchApiKeyIdAndRivoFetchSuccessAndRivoFetchTimestampAfter(
-            apiKeyId, true, since);
-        long failedRequests = rivoFetchRepository.countByRivoFetchApiKeyIdAndRivoFetchSuccessAndRivoFetchTimestampAfter(
-            apiKeyId, false, since);
-        
-        double successRate = totalRequests > 0 ? (successfulRequests * 100.0 / totalRequests) : 0.0;
-        double failureRate = totalRequests > 0 ? (failedRequests * 100.0 / totalRequests) : 0.0;
-        
-        // Get cache hit rate
-        Optional<Double> cacheHitRate = rivoFetchRepository.getCacheHitRateByApiKey(apiKeyId, since);
-        
-        // Get average response time
-        Optional<Double> avgResponseTime = rivoFetchRepository.getAverageResponseTimeByApiKey(apiKeyId, since);
-        
+
+        RollupTotals totals = totals(window, null, apiKeyId);
+
         return Map.of(
             "apiKeyId", apiKeyId,
-            "timeRange", Map.of(
-                "hours", hours,
-                "since", since,
-                "until", LocalDateTime.now()
-            ),
+            "timeRange", timeRange(hours, window),
             "requestCounts", Map.of(
-                "total", totalRequests,
-                "successful", successfulRequests,
-                "failed", failedRequests
+                "total", totals.total,
+                "successful", totals.successful,
+                "failed", totals.failed
             ),
             "rates", Map.of(
-                "successRate", Math.round(successRate * 100.0) / 100.0,
-                "failureRate", Math.round(failureRate * 100.0) / 100.0,
-                "cacheHitRate", cacheHitRate.map(rate -> Math.round(rate * 100.0) / 100.0).orElse(0.0)
+                "successRate", round2(totals.successRate()),
+                "failureRate", round2(totals.failureRate()),
+                "cacheHitRate", round2(totals.cacheHitRate())
             ),
             "performance", Map.of(
-                "averageResponseTimeMs", avgResponseTime.map(time -> Math.round(time * 100.0) / 100.0).orElse(0.0)
+                "averageResponseTimeMs", round2(totals.averageDurationMs())
             )
         );
     }
-    
+
     /**
      * 🚀 Get performance metrics for an API key
      */
     public Map<String, Object> getApiKeyPerformance(UUID apiKeyId, int hours) {
-        LocalDateTime since = LocalDateTime.now().minusHours(hours);
-        
-        // Get recent logs for detailed analysis
-        List<RivoFetchRequestLog> recentLogs = rivoFetchRepository
-            .findByRivoFetchApiKeyIdAndRivoFetchTimestampAfterOrderByRivoFetchTimestampDesc(apiKeyId, since);
-        
-        // Performance percentiles
-        List<Long> responseTimes = recentLogs.stream()
-            .filter(log -> log.getRivoFetchTotalDurationMs() != null)
-            .map(RivoFetchRequestLog::getRivoFetchTotalDurationMs)
-            .sorted()
-            .collect(Collectors.toList());
-        
-        Map<String, Object> percentiles = new HashMap<>();
-        if (!responseTimes.isEmpty()) {
-            percentiles.put("p50", getPercentile(responseTimes, 0.50));
-            percentiles.put("p90", getPercentile(responseTimes, 0.90));
-            percentiles.put("p95", getPercentile(responseTimes, 0.95));
-            percentiles.put("p99", getPercentile(responseTimes, 0.99));
-        }
-        
-        // Cache performance breakdown
-        Map<String, Long> cacheBreakdown = recentLogs.stream()
-            .collect(Collectors.groupingBy(
-                log -> log.getRivoFetchCacheHitType() != null ? log.getRivoFetchCacheHitType() : "UNKNOWN",
-                Collectors.counting()
-            ));
-        
+        RollupWindow window = rollupService.window(hours);
+
+        RollupTotals totals = totals(window, null, apiKeyId);
+
+        // Percentiles from the merged latency sketches of the window
+        LatencySketchAccumulator.Percentiles percentiles =
+            latencySketches.percentiles(apiKeyId, window.granularity(), window.since());
+
         return Map.of(
             "apiKeyId", apiKeyId,
-            "timeRange", Map.of("hours", hours, "since", since),
-            "totalRequests", recentLogs.size(),
-            "responseTimePercentiles", percentiles,
-            "cachePerformance", cacheBreakdown
+            "timeRange", timeRange(hours, window),
+            "totalRequests", totals.total,
+            "responseTimePercentiles", percentiles.overall(),
+            "responseTimePercentilesByCacheType", percentiles.byCacheHitType(),
+            "cachePerformance", totals.cacheBreakdown()
         );
     }
-    
+
     // ==================== APPLICATION-WIDE STATISTICS (NO AUTH) ====================
-    
+
     /**
      * 🔢 Get ALL application request count from RivoFetch logs (High Performance - No Auth Required)
      */
     public Map<String, Object> getAllApplicationTotalRequests() {
         log.info("🔢 Getting ALL application total request count from RivoFetch logs");
-        
-        // Count ALL records in rivo_fetch_request_logs table
-        long totalRequests = rivoFetchRepository.count();
-        
+
+        // Sum of the daily rollups of rivo_fetch_request_logs
+        RollupTotals totals = totals(ALL_TIME, null, null);
+
         return Map.of(
             "scope", "all_application_requests",
-            "source", "rivo_fetch_request_logs",
-            "totalRequests", totalRequests,
+            "source", "rivo_fetch_rollups",
+            "totalRequests", totals.total,
             "retrievedAt", LocalDateTime.now()
         );
     }
-    
+
     /**
      * ✅ Get ALL application successful request count from RivoFetch logs (High Performance - No Auth Required)
      */
     public Map<String, Object> getAllApplicationSuccessfulRequests() {
         log.info("✅ Getting ALL application successful request count from RivoFetch logs");
-        
-        // Count ALL records and successful records in rivo_fetch_request_logs table
-        long totalRequests = rivoFetchRepository.count();
-        long successfulRequests = rivoFetchRepository.countByRivoFetchSuccess(true);
-        
-        double successRate = totalRequests > 0 ? (successfulRequests * 100.0 / totalRequests) : 0.0;
-        
+
+        RollupTotals totals = totals(ALL_TIME, null, null);
+
         return Map.of(
             "scope", "all_application_requests",
-            "source", "rivo_fetch_request_logs",
-            "totalRequests", totalRequests,
-            "successfulRequests", successfulRequests,
-            "successRate", Math.round(successRate * 100.0) / 100.0,
+            "source", "rivo_fetch_rollups",
+            "totalRequests", totals.total,
+            "successfulRequests", totals.successful,
+            "successRate", round2(totals.successRate()),
             "retrievedAt", LocalDateTime.now()
         );
     }
-    
+
     /**
      * ❌ Get ALL application failed request count from RivoFetch logs (High Performance - No Auth Required)
      */
     public Map<String, Object> getAllApplicationFailedRequests() {
         log.info("❌ Getting ALL application failed request count from RivoFetch logs");
-        
-        // Count ALL records and failed records in rivo_fetch_request_logs table
-        long totalRequests = rivoFetchRepository.count();
-        long failedRequests = rivoFetchRepository.countByRivoFetchSuccess(false);
-        
-        double failureRate = totalRequests > 0 ? (failedRequests * 100.0 / totalRequests) : 0.0;
-        
+
+        RollupTotals totals = totals(ALL_TIME, null, null);
+
         return Map.of(
             "scope", "all_application_requests",
-            "source", "rivo_fetch_request_logs",
-            "totalRequests", totalRequests,
-            "failedRequests", failedRequests,
-            "failureRate", Math.round(failureRate * 100.0) / 100.0,
+            "source", "rivo_fetch_rollups",
+            "totalRequests", totals.total,
+            "failedRequests", totals.failed,
+            "failureRate", round2(totals.failureRate()),
             "retrievedAt", LocalDateTime.now()
         );
     }
-    
+
     /**
      * 📊 Get ALL application statistics (Combined - High Performance - No Auth Required)
      * This method combines total, successful, and failed request counts in a single response
      */
     public Map<String, Object> getAllApplicationStatistics() {
         log.info("📊 Getting ALL application statistics from RivoFetch logs - COMBINED");
-        
-        // Single database queries for maximum performance
-        long totalRequests = rivoFetchRepository.count();
-        long successfulRequests = rivoFetchRepository.countByRivoFetchSuccess(true);
-        long failedRequests = rivoFetchRepository.countByRivoFetchSuccess(false);
-        
-        // Calculate rates
-        double successRate = totalRequests > 0 ? (successfulRequests * 100.0 / totalRequests) : 0.0;
-        double failureRate = totalRequests > 0 ? (failedRequests * 100.0 / totalRequests) : 0.0;
-        
+
+        // Single rollup query for all counts
+        RollupTotals totals = totals(ALL_TIME, null, null);
+
         // Flat structure response
         return Map.of(
             "scope", "all_application_requests",
-            "source", "rivo_fetch_request_logs",
-            "totalRequests", totalRequests,
-            "successfulRequests", successfulRequests,
-            "failedRequests", failedRequests,
-            "successRate", Math.round(successRate * 100.0) / 100.0,
-            "failureRate", Math.round(failureRate * 100.0) / 100.0,
+            "source", "rivo_fetch_rollups",
+            "totalRequests", totals.total,
+            "successfulRequests", totals.successful,
+            "failedRequests", totals.failed,
+            "successRate", round2(totals.successRate()),
+            "failureRate", round2(totals.failureRate()),
             "retrievedAt", LocalDateTime.now()
         );
     }
-    
+
     // ==================== SYSTEM STATISTICS ====================
-    
+
     /**
      * 🔢 Get system-wide total request count (High Performance - No Auth Required)
      */
     public Map<String, Object> getSystemTotalRequests(int hours) {
-        LocalDateTime since = LocalDateTime.now().minusHours(hours);
-        
+        RollupWindow window = rollupService.window(hours);
+
         log.info("🔢 Getting system-wide total request count (last {} hours)", hours);
-        
-        // High-performance database count query
-        long totalRequests = rivoFetchRepository.countByRivoFetchTimestampAfter(since);
-        
+
+        RollupTotals totals = totals(window, null, null);
+
         return Map.of(
-            "timeRange", Map.of(
-                "hours", hours,
-                "since", since,
-                "until", LocalDateTime.now()
-            ),
-            "totalRequests", totalRequests
+            "timeRange", timeRange(hours, window),
+            "totalRequests", totals.total
         );
     }
-    
+
     /**
      * ✅ Get system-wide successful request count (High Performance - No Auth Required)
      */
     public Map<String, Object> getSystemSuccessfulRequests(int hours) {
-        LocalDateTime since = LocalDateTime.now().minusHours(hours);
-        
+        RollupWindow window = rollupService.window(hours);
+
         log.info("✅ Getting system-wide successful request count (last {} hours)", hours);
-        
-        // High-performance database count queries
-        long totalRequests = rivoFetchRepository.countByRivoFetchTimestampAfter(since);
-        long successfulRequests = rivoFetchRepository.countByRivoFetchSuccessAndRivoFetchTimestampAfter(true, since);
-        
-        double successRate = totalRequests > 0 ? (successfulRequests * 100.0 / totalRequests) : 0.0;
-        
+
+        RollupTotals totals = totals(window, null, null);
+
         return Map.of(
-            "timeRange", Map.of(
-                "hours", hours,
-                "since", since,
-                "until", LocalDateTime.now()
-            ),
-            "totalRequests", totalRequests,
-            "successfulRequests", successfulRequests,
-            "successRate", Math.round(successRate * 100.0) / 100.0
+            "timeRange", timeRange(hours, window),
+            "totalRequests", totals.total,
+            "successfulRequests", totals.successful,
+            "successRate", round2(totals.successRate())
         );
     }
-    
+
     /**
      * ❌ Get system-wide failed request count (High Performance - No Auth Required)
      */
     public Map<String, Object> getSystemFailedRequests(int hours) {
-        LocalDateTime since = LocalDateTime.now().minusHours(hours);
-        
+        RollupWindow window = rollupService.window(hours);
+
         log.info("❌ Getting system-wide failed request count (last {} hours)", hours);
-        
-        // High-performance database count queries
-        long totalRequests = rivoFetchRepository.countByRivoFetchTimestampAfter(since);
-        long failedRequests = rivoFetchRepository.countByRivoFetchSuccessAndRivoFetchTimestampAfter(false, since);
-        
-        double failureRate = totalRequests > 0 ? (failedRequests * 100.0 / totalRequests) : 0.0;
-        
+
+        RollupTotals totals = totals(window, null, null);
+
         return Map.of(
-            "timeRange", Map.of(
-                "hours", hours,
-                "since", since,
-                "until", LocalDateTime.now()
-            ),
-            "totalRequests", totalRequests,
-            "failedRequests", failedRequests,
-            "failureRate", Math.round(failureRate * 100.0) / 100.0
+            "timeRange", timeRange(hours, window),
+            "totalRequests", totals.total,
+            "failedRequests", totals.failed,
+            "failureRate", round2(totals.failureRate())
         );
     }
-    
+
     /**
      * 🌐 Get system-wide overview
      */
     public Map<String, Object> getSystemOverview(int hours) {
-        LocalDateTime since = LocalDateTime.now().minusHours(hours);
-        
+        RollupWindow window = rollupService.window(hours);
+
         log.info("📊 Getting system-wide RivoFetch overview (last {} hours)", hours);
-        
-        long totalRequests = rivoFetchRepository.countByRivoFetchTimestampAfter(since);
-        long successfulRequests = rivoFetchRepository.countByRivoFetchSuccessAndRivoFetchTimestampAfter(true, since);
-        long failedRequests = rivoFetchRepository.countByRivoFetchSuccessAndRivoFetchTimestampAfter(false, since);
-        
-        double successRate = totalRequests > 0 ? (successfulRequests * 100.0 / totalRequests) : 0.0;
-        
-        // Get performance metrics
-        List<Object[]> performanceMetrics = rivoFetchRepository.getPerformanceMetricsByCacheType(since);
-        
+
+        RollupTotals totals = totals(window, null, null);
+
         // Get top domains
-        List<Object[]> topDomains = rivoFetchRepository.getTopDomainsByRequestCount(since, PageRequest.of(0, 10));
-        
+        List<Object[]> topDomains = rollupRepository.findTopDomains(
+            window.granularity(), window.since(), null, null, PageRequest.of(0, 10));
+
         // Get most active API keys
-        List<Object[]> activeApiKeys = rivoFetchRepository.getMostActiveApiKeys(since, PageRequest.of(0, 10));
-        
+        List<Object[]> activeApiKeys = rollupRepository.findMostActiveApiKeys(
+            window.granularity(), window.since(), PageRequest.of(0, 10));
+
         return Map.of(
-            "timeRange", Map.of("hours", hours, "since", since),
+            "timeRange", timeRange(hours, window),
             "overview", Map.of(
-                "totalRequests", totalRequests,
-                "successfulRequests", successfulRequests,
-                "failedRequests", failedRequests,
-                "successRate", Math.round(successRate * 100.0) / 100.0
+                "totalRequests", totals.total,
+                "successfulRequests", totals.successful,
+                "failedRequests", totals.failed,
+                "successRate", round2(totals.successRate())
             ),
-            "performanceMetrics", formatPerformanceMetrics(performanceMetrics),
+            "performanceMetrics", totals.performanceMetrics(),
             "topDomains", formatTopDomains(topDomains),
             "mostActiveApiKeys", formatActiveApiKeys(activeApiKeys)
         );
     }
-    
+
     /**
      * 🚀 Get cache performance analysis
      */
     public Map<String, Object> getCachePerformance(int hours) {
-        LocalDateTime since = LocalDateTime.now().minusHours(hours);
-        
-        List<Object[]> performanceMetrics = rivoFetchRepository.getPerformanceMetricsByCacheType(since);
-        
+        RollupWindow window = rollupService.window(hours);
+
+        RollupTotals totals = totals(window, null, null);
+
         return Map.of(
-            "timeRange", Map.of("hours", hours, "since", since),
-            "cachePerformance", formatPerformanceMetrics(performanceMetrics)
+            "timeRange", timeRange(hours, window),
+            "cachePerformance", totals.performanceMetrics()
         );
     }
-    
+
     /**
      * 🔍 Get error analysis
      */
     public Map<String, Object> getErrorAnalysis(int hours) {
-        LocalDateTime since = LocalDateTime.now().minusHours(hours);
-        
-        List<Object[]> errorDistribution = rivoFetchRepository.getErrorDistribution(since);
-        
+        RollupWindow window = rollupService.window(hours);
+
+        List<Object[]> errorDistribution = errorRollupRepository.findErrorDistribution(
+            window.granularity(), window.since(), null, null);
+
         return Map.of(
-            "timeRange", Map.of("hours", hours, "since", since),
+            "timeRange", timeRange(hours, window),
             "errorDistribution", formatErrorDistribution(errorDistribution)
         );
     }
-    
+
     // ==================== HELPER METHODS ====================
-    
-    private long getPercentile(List<Long> sortedValues, double percentile) {
-        if (sortedValues.isEmpty()) return 0;
-        int index = (int) Math.ceil(percentile * sortedValues.size()) - 1;
-        return sortedValues.get(Math.max(0, Math.min(index, sortedValues.size() - 1)));
+
+    private RollupTotals totals(RollupWindow window, String userId, UUID apiKeyId) {
+        return RollupTotals.of(rollupRepository.summarize(window.granularity(), window.since(), userId, apiKeyId));
     }
-    
-    private List<Map<String, Object>> formatPerformanceMetrics(List<Object[]> metrics) {
-        return metrics.stream()
-            .map(row -> Map.of(
-                "cacheHitType", row[0] != null ? row[0] : "UNKNOWN",
-                "requestCount", row[1] != null ? row[1] : 0,
-                "avgTotalDuration", row[2] != null ? Math.round(((Number) row[2]).doubleValue() * 100.0) / 100.0 : 0.0,
-                "avgExternalApiDuration", row[3] != null ? Math.round(((Number) row[3]).doubleValue() * 100.0) / 100.0 : 0.0,
-                "successRate", row[4] != null ? row[4] : 0.0
-            ))
-            .collect(Collectors.toList());
+
+    private Map<String, Object> timeRange(int hours, RollupWindow window) {
+        return Map.of(
+            "hours", hours,
+            "since", window.since(),
+            "until", LocalDateTime.now(),
+            "granularity", window.granularity()
+        );
+    }
+
+    private static double round2(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+
+    private static long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
     }
-    
+
     private List<Map<String, Object>> formatTopDomains(List<Object[]> domains) {
         return domains.stream()
             .map(row -> Map.of(
@@ -695,7 +527,7 @@ public class RivoFetchAnalyticsService {
             ))
             .collect(Collectors.toList());
     }
-    
+
     private List<Map<String, Object>> formatActiveApiKeys(List<Object[]> apiKeys) {
         return apiKeys.stream()
             .map(row -> Map.of(
@@ -704,14 +536,113 @@ public class RivoFetchAnalyticsService {
             ))
             .collect(Collectors.toList());
     }
-    
+
     private List<Map<String, Object>> formatErrorDistribution(List<Object[]> errors) {
         return errors.stream()
             .map(row -> Map.of(
                 "statusCode", row[0] != null ? row[0] : "Unknown",
-                "errorCount", row[1] != null ? row[1] : 0,
-                "errorMessage", row[2] != null ? row[2] : "Unknown Error"
+                "errorCount", row[2] != null ? row[2] : 0,
+                "errorMessage", row[1] != null ? row[1] : "Unknown Error"
             ))
             .collect(Collectors.toList());
     }
-}
\ No newline at end of file
+
+    /**
+     * Totals of the summarize() rows (one per cache hit type and success flag)
+     */
+    static final class RollupTotals {
+
+        long total;
+        long successful;
+        long failed;
+        long durationCount;
+        long durationSumMs;
+        final Map<String, CacheTypeTotals> byCacheType = new LinkedHashMap<>();
+
+        static RollupTotals of(List<Object[]> rows) {
+            RollupTotals totals = new RollupTotals();
+            for (Object[] row : rows) {
+                String cacheHitType = (String) row[0];
+                Boolean success = (Boolean) row[1];
+                long requests = toLong(row[2]);
+
+                totals.total += requests;
+                if (Boolean.TRUE.equals(success)) {
+                    totals.successful += requests;
+                } else if (Boolean.FALSE.equals(success)) {
+                    totals.failed += requests;
+                }
+                totals.durationCount += toLong(row[3]);
+                totals.durationSumMs += toLong(row[4]);
+
+                CacheTypeTotals type = totals.byCacheType.computeIfAbsent(
+                    cacheHitType != null ? cacheHitType : "UNKNOWN", k -> new CacheTypeTotals());
+                type.requests += requests;
+                type.successful += Boolean.TRUE.equals(success) ? requests : 0;
+                type.durationCount += toLong(row[3]);
+                type.durationSumMs += toLong(row[4]);
+                type.externalDurationCount += toLong(row[5]);
+                type.externalDurationSumMs += toLong(row[6]);
+            }
+            return totals;
+        }
+
+        double successRate() {
+            return total > 0 ? successful * 100.0 / total : 0.0;
+        }
+
+        double failureRate() {
+            return total > 0 ? failed * 100.0 / total : 0.0;
+        }
+
+        double averageDurationMs() {
+            return durationCount > 0 ? (double) durationSumMs / durationCount : 0.0;
+        }
+
+        /**
+         * Share of requests served from a cache (any known type other than MISS)
+         */
+        double cacheHitRate() {
+            if (total == 0) {
+                return 0.0;
+            }
+            long hits = byCacheType.entrySet().stream()
+                .filter(e -> !"MISS".equals(e.getKey()) && !"UNKNOWN".equals(e.getKey()))
+                .mapToLong(e -> e.getValue().requests)
+                .sum();
+            return hits * 100.0 / total;
+        }
+
+        Map<String, Long> cacheBreakdown() {
+            Map<String, Long> breakdown = new HashMap<>();
+            byCacheType.forEach((type, t) -> breakdown.put(type, t.requests));
+            return breakdown;
+        }
+
+        List<Map<String, Object>> performanceMetrics() {
+            return byCacheType.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, CacheTypeTotals> e) -> e.getValue().requests).reversed())
+                .map(e -> {
+                    CacheTypeTotals t = e.getValue();
+                    return Map.<String, Object>of(
+                        "cacheHitType", e.getKey(),
+                        "requestCount", t.requests,
+                        "avgTotalDuration", round2(t.durationCount > 0 ? (double) t.durationSumMs / t.durationCount : 0.0),
+                        "avgExternalApiDuration", round2(t.externalDurationCount > 0
+                            ? (double) t.externalDurationSumMs / t.externalDurationCount : 0.0),
+                        "successRate", round2(t.requests > 0 ? t.successful * 100.0 / t.requests : 0.0)
+                    );
+                })
+                .collect(Collectors.toList());
+        }
+    }
+
+    private static final class CacheTypeTotals {
+        long requests;
+        long successful;
+        long durationCount;
+        long durationSumMs;
+        long externalDurationCount;
+        long externalDurationSumMs;
+    }
+}
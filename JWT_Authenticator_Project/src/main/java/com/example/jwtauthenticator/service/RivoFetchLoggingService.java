@@ -100,11 +100,13 @@ public class RivoFetchLoggingService {
     private final RivoFetchRequestLogRepository rivoFetchRepository;
     private final RequestContextExtractorService requestContextExtractor; // Phase 1 integration
     private final RivoFetchIdGeneratorService idGeneratorService; // RIVO9 ID generation
+    private final RequestLogBatchWriter requestLogBatchWriter; // Write-behind batching for log rows, records latencies once inserted
+    private final LatencySketchAccumulator latencySketches; // Response time percentiles
     
     /**
      * 🚀 Log successful RivoFetch request with cache hit type (FIXED - extracts data immediately)
      */
-    @Async("transactionalAsyncExecutor")
+    @Async("loggingExecutor")
     public CompletableFuture<Void> logSuccessfulRivoFetchAsync(
             HttpServletRequest request,
             HttpServletResponse response,
@@ -174,7 +176,7 @@ public class RivoFetchLoggingService {
     /**
      * 🚀 Log successful RivoFetch request with explicit target URL (FIXED - Java 21 optimized)
      */
-    @Async("transactionalAsyncExecutor")
+    @Async("loggingExecutor")
     public CompletableFuture<Void> logSuccessfulRivoFetchAsync(
             HttpServletRequest request,
             HttpServletResponse response,
@@ -211,7 +213,7 @@ public class RivoFetchLoggingService {
     /**
      * 🚀 Log successful RivoFetch request (backward compatibility)
      */
-    @Async("transactionalAsyncExecutor")
+    @Async("loggingExecutor")
     public CompletableFuture<Void> logSuccessfulRivoFetchAsync(
             HttpServletRequest request,
             HttpServletResponse response,
@@ -225,7 +227,7 @@ public class RivoFetchLoggingService {
     /**
      * 🚀 Log successful public RivoFetch request (no API key)
      */
-    @Async("transactionalAsyncExecutor")
+    @Async("loggingExecutor")
     public CompletableFuture<Void> logSuccessfulPublicRivoFetchAsync(
             HttpServletRequest request,
             HttpServletResponse response,
@@ -260,7 +262,7 @@ public class RivoFetchLoggingService {
     /**
      * 🚀 Log successful public RivoFetch request with explicit target URL
      */
-    @Async("transactionalAsyncExecutor")
+    @Async("loggingExecutor")
     public CompletableFuture<Void> logSuccessfulPublicRivoFetchAsync(
             HttpServletRequest request,
             HttpServletResponse response,
@@ -297,7 +299,7 @@ public class RivoFetchLoggingService {
     /**
      * 🚀 Log failed RivoFetch request with explicit target URL
      */
-    @Async("transactionalAsyncExecutor")
+    @Async("loggingExecutor")
     public CompletableFuture<Void> logFailedRivoFetchAsync(
             HttpServletRequest request,
             ApiKey apiKey,
@@ -329,7 +331,7 @@ public class RivoFetchLoggingService {
     /**
      * 🚀 Log failed public RivoFetch request (no API key)
      */
-    @Async("transactionalAsyncExecutor")
+    @Async("loggingExecutor")
     public CompletableFuture<Void> logFailedPublicRivoFetchAsync(
             HttpServletRequest request,
             long startTime,
@@ -360,7 +362,7 @@ public class RivoFetchLoggingService {
     /**
      * 🚀 Log failed public RivoFetch request with explicit target URL
      */
-    @Async("transactionalAsyncExecutor")
+    @Async("loggingExecutor")
     public CompletableFuture<Void> logFailedPublicRivoFetchAsync(
             HttpServletRequest request,
             long startTime,
@@ -530,20 +532,16 @@ public class RivoFetchLoggingService {
     }
     
     /**
-     * 💾 Save log entry to database using dedicated database service
+     * 💾 Queue log entry for batched insertion (see RequestLogBatchWriter)
      * 
      * @param logEntry Log entry to save
      */
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
     protected void saveLogEntry(RivoFetchRequestLog logEntry) {
         try {
-            // Direct repository save with proper error handling
-            RivoFetchRequestLog saved = rivoFetchRepository.save(logEntry);
-            
-            if (saved != null && saved.getRivoFetchLogId() != null) {
-                log.info("💾 ✅ Successfully saved RivoFetch log entry: {}", saved.getRivoFetchLogId());
+            if (requestLogBatchWriter.enqueue(logEntry)) {
+                log.debug("💾 Queued RivoFetch log entry: {}", logEntry.getRivoFetchLogId());
             } else {
-                log.error("❌ 🚨 FAILED: Could not save RivoFetch log entry: {}", 
+                log.warn("❌ Dropped RivoFetch log entry (log buffer full): {}", 
                          logEntry != null ? logEntry.getRivoFetchLogId() : "null");
             }
             
@@ -614,7 +612,7 @@ public class RivoFetchLoggingService {
      * @param logEntries List of log entries to save
      * @return CompletableFuture for async processing
      */
-    @Async("transactionalAsyncExecutor")
+    @Async("loggingExecutor")
     public CompletableFuture<Void> logRivoFetchBatchAsync(
             java.util.List<RivoFetchRequestLog> logEntries) {
         
@@ -624,6 +622,7 @@ public class RivoFetchLoggingService {
             }
             
             rivoFetchRepository.saveAll(logEntries);
+            logEntries.forEach(latencySketches::record);
             
             log.debug("✅ Batch logged {} RivoFetch requests", logEntries.size());
             
@@ -676,6 +675,7 @@ public class RivoFetchLoggingService {
             RivoFetchRequestLog saved = rivoFetchRepository.save(logEntry);
             
             if (saved != null && saved.getRivoFetchLogId() != null) {
+                latencySketches.record(saved);
                 log.info("💾 ✅ SYNC: Successfully saved RivoFetch log entry: {}", saved.getRivoFetchLogId());
                 return true;
             } else {
@@ -723,6 +723,7 @@ public class RivoFetchLoggingService {
             RivoFetchRequestLog saved = rivoFetchRepository.save(logEntry);
             
             if (saved != null && saved.getRivoFetchLogId() != null) {
+                latencySketches.record(saved);
                 log.info("💾 ✅ SYNC: Successfully saved failed RivoFetch log entry: {}", saved.getRivoFetchLogId());
                 return true;
             } else {
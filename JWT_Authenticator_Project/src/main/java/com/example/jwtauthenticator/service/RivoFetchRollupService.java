@@ -0,0 +1,204 @@
+package com.example.jwtauthenticator.service;
+
+import com.example.jwtauthenticator.entity.RivoFetchRollup.Granularity;
+import com.example.jwtauthenticator.repository.RivoFetchErrorRollupRepository;
+import com.example.jwtauthenticator.repository.RivoFetchLatencySketchRepository;
+import com.example.jwtauthenticator.repository.RivoFetchRequestLogRepository;
+import com.example.jwtauthenticator.repository.RivoFetchRollupRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Maintains the RivoFetch analytics rollups (rivo_fetch_rollups / rivo_fetch_error_rollups).
+ *
+ * Each run recomputes every hour from the watermark (the last hour rolled up) to the current
+ * hour, plus any hour still within {@code late-arrival-minutes}, since request logs are written
+ * behind and may land after their timestamp. An hour is recomputed as delete + INSERT ... SELECT
+ * in its own transaction, so runs are idempotent; daily rows are then re-summed from the hours
+ * of every day touched. A Postgres advisory lock keeps instances from rolling up concurrently.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RivoFetchRollupService {
+
+    /**
+     * Advisory lock key shared by all instances ("RIVFROLL")
+     */
+    private static final long ROLLUP_LOCK_KEY = 0x52495646524F4C4CL;
+
+    private final RivoFetchRollupRepository rollupRepository;
+    private final RivoFetchErrorRollupRepository errorRollupRepository;
+    private final RivoFetchRequestLogRepository requestLogRepository;
+    private final RivoFetchLatencySketchRepository latencySketchRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.analytics.rollup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.analytics.rollup.late-arrival-minutes:10}")
+    private long lateArrivalMinutes;
+
+    @Value("${app.analytics.rollup.max-hours-per-run:48}")
+    private int maxHoursPerRun;
+
+    @Value("${app.analytics.rollup.hourly-retention-days:90}")
+    private int hourlyRetentionDays;
+
+    @Value("${app.analytics.rollup.daily-retention-days:0}")
+    private int dailyRetentionDays;
+
+    /**
+     * Last hour rolled up by this instance; null until the first run
+     */
+    private volatile LocalDateTime watermark;
+
+    private volatile LocalDateTime lastPurgeAt;
+
+    /**
+     * Rollup granularity and aligned start for an analytics window of the last {@code hours}
+     */
+    public record RollupWindow(Granularity granularity, LocalDateTime since) {}
+
+    /**
+     * Windows that fit in the hourly retention read hourly rows (start rounded down to the hour),
+     * longer ones read daily rows (start rounded down to the day).
+     */
+    public RollupWindow window(int hours) {
+        LocalDateTime since = LocalDateTime.now().minusHours(hours);
+        if (hours <= (long) hourlyRetentionDays * 24) {
+            return new RollupWindow(Granularity.HOUR, since.truncatedTo(ChronoUnit.HOURS));
+        }
+        return new RollupWindow(Granularity.DAY, since.truncatedTo(ChronoUnit.DAYS));
+    }
+
+    @Scheduled(fixedDelayString = "${app.analytics.rollup.interval-ms:60000}",
+               initialDelayString = "${app.analytics.rollup.initial-delay-ms:30000}")
+    public void rollUp() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            rollUp(LocalDateTime.now());
+        } catch (Exception e) {
+            log.warn("RivoFetch analytics rollup failed: {}", e.getMessage());
+        }
+    }
+
+    void rollUp(LocalDateTime now) {
+        LocalDateTime currentHour = now.truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime hour = firstHourToRecompute(now);
+        if (hour == null) {
+            return; // Nothing logged yet
+        }
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        transactionTemplate.setTimeout(120);
+
+        Set<LocalDateTime> touchedDays = new TreeSet<>();
+        int processed = 0;
+        while (!hour.isAfter(currentHour) && processed < maxHoursPerRun) {
+            LocalDateTime hourStart = hour;
+            Boolean done = transactionTemplate.execute(status -> recomputeHour(hourStart));
+            if (!Boolean.TRUE.equals(done)) {
+                log.debug("RivoFetch rollup lock held by another instance, skipping run");
+                break;
+            }
+            touchedDays.add(hourStart.truncatedTo(ChronoUnit.DAYS));
+            watermark = hourStart;
+            hour = hour.plusHours(1);
+            processed++;
+        }
+
+        for (LocalDateTime day : touchedDays) {
+            transactionTemplate.execute(status -> recomputeDay(day));
+        }
+
+        if (processed > 1) {
+            log.info("RivoFetch rollup: recomputed {} hours up to {}", processed, watermark);
+        }
+
+        purgeIfDue(now, transactionTemplate);
+    }
+
+    /**
+     * The watermark or the oldest hour that may still receive late logs, whichever is earlier.
+     * On the first run the watermark is restored from the newest hourly row, or from the oldest log.
+     */
+    private LocalDateTime firstHourToRecompute(LocalDateTime now) {
+        LocalDateTime from = watermark;
+        if (from == null) {
+            from = rollupRepository.findLatestBucketStart(Granularity.HOUR)
+                    .or(requestLogRepository::findEarliestTimestamp)
+                    .map(t -> t.truncatedTo(ChronoUnit.HOURS))
+                    .orElse(null);
+            if (from == null) {
+                return null;
+            }
+        }
+        LocalDateTime lateHour = now.minusMinutes(lateArrivalMinutes).truncatedTo(ChronoUnit.HOURS);
+        return lateHour.isBefore(from) ? lateHour : from;
+    }
+
+    private Boolean recomputeHour(LocalDateTime hourStart) {
+        if (!rollupRepository.tryLockForRollup(ROLLUP_LOCK_KEY)) {
+            return false;
+        }
+        LocalDateTime hourEnd = hourStart.plusHours(1);
+        rollupRepository.deleteBucket(Granularity.HOUR, hourStart);
+        rollupRepository.insertHourFromLogs(hourStart, hourEnd);
+        errorRollupRepository.deleteBucket(Granularity.HOUR, hourStart);
+        errorRollupRepository.insertHourFromLogs(hourStart, hourEnd);
+        return true;
+    }
+
+    private Boolean recomputeDay(LocalDateTime dayStart) {
+        if (!rollupRepository.tryLockForRollup(ROLLUP_LOCK_KEY)) {
+            return false;
+        }
+        LocalDateTime dayEnd = dayStart.plusDays(1);
+        rollupRepository.deleteBucket(Granularity.DAY, dayStart);
+        rollupRepository.insertDayFromHours(dayStart, dayEnd);
+        errorRollupRepository.deleteBucket(Granularity.DAY, dayStart);
+        errorRollupRepository.insertDayFromHours(dayStart, dayEnd);
+        return true;
+    }
+
+    /**
+     * Drop expired rows at most once an hour. Hourly rows of the day still being rolled up are
+     * kept, since its daily row is re-summed from them.
+     */
+    private void purgeIfDue(LocalDateTime now, TransactionTemplate transactionTemplate) {
+        if (watermark == null || (lastPurgeAt != null && lastPurgeAt.isAfter(now.minusHours(1)))) {
+            return;
+        }
+        lastPurgeAt = now;
+
+        LocalDateTime hourlyCutoff = now.minusDays(hourlyRetentionDays).truncatedTo(ChronoUnit.DAYS);
+        LocalDateTime watermarkDay = watermark.truncatedTo(ChronoUnit.DAYS);
+        LocalDateTime cutoff = watermarkDay.isBefore(hourlyCutoff) ? watermarkDay : hourlyCutoff;
+        transactionTemplate.executeWithoutResult(status -> {
+            rollupRepository.deleteBucketsBefore(Granularity.HOUR, cutoff);
+            errorRollupRepository.deleteBucketsBefore(Granularity.HOUR, cutoff);
+            latencySketchRepository.deleteBucketsBefore(Granularity.HOUR, hourlyCutoff);
+            if (dailyRetentionDays > 0) {
+                LocalDateTime dailyCutoff = now.minusDays(dailyRetentionDays).truncatedTo(ChronoUnit.DAYS);
+                rollupRepository.deleteBucketsBefore(Granularity.DAY, dailyCutoff);
+                errorRollupRepository.deleteBucketsBefore(Granularity.DAY, dailyCutoff);
+                latencySketchRepository.deleteBucketsBefore(Granularity.DAY, dailyCutoff);
+            }
+        });
+    }
+}
@@ -1,9 +1,12 @@
 package com.example.jwtauthenticator.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.jcraft.jsch.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayInputStream;
@@ -12,9 +15,13 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 
 /**
- * Service for storing files on a remote server using SFTP
+ * Service for storing files on a remote server using SFTP.
+ *
+ * Remote directories known to exist are cached, so an upload into a known directory is a
+ * single put; a missing directory is created with one mkdir per missing path segment.
  */
 @Service
 @RequiredArgsConstructor
@@ -23,6 +30,13 @@ public class SftpFileStorageService {
 
     private final SftpSessionPool sessionPool;
     
+    /**
+     * Remote directories created or found to exist by this instance
+     */
+    private final Cache<String, Boolean> knownDirectories = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .build();
+    
     @Value("${app.file-storage.remote.base-path:/home/ubuntu/images/Brand_Assets}")
     private String remoteBasePath;
     
@@ -38,79 +52,161 @@ public class SftpFileStorageService {
      * @throws IOException If an I/O error occurs
      */
     public String uploadFile(byte[] fileContent, String targetPath) throws IOException {
-        SftpSessionPool.PooledSession pooledSession = null;
+        return upload(() -> new ByteArrayInputStream(fileContent), fileContent.length, targetPath);
+    }
+    
+    /**
+     * Upload a file from disk to the remote server using SFTP, streaming it without loading
+     * it into memory
+     * 
+     * @param source The local file to upload
+     * @param targetPath The target path on the remote server
+     * @return The path where the file was stored
+     * @throws IOException If an I/O error occurs
+     */
+    public String uploadFile(Path source, String targetPath) throws IOException {
+        return upload(() -> Files.newInputStream(source), Files.size(source), targetPath);
+    }
+    
+    private String upload(InputStreamSource content, long size, String targetPath) throws IOException {
+        SftpSessionPool.PooledChannel pooledChannel = null;
+        boolean channelHealthy = false;
         
         try {
-            log.info("Uploading file to remote server via SFTP: {}, size: {} bytes", targetPath, fileContent.length);
+            log.info("Uploading file to remote server via SFTP: {}, size: {} bytes", targetPath, size);
             
-            // Get a session from the pool
-            pooledSession = sessionPool.getSession();
-            ChannelSftp channelSftp = pooledSession.getSftpChannel();
+            // Borrow a channel from the pool
+            pooledChannel = sessionPool.borrow();
+            ChannelSftp channelSftp = pooledChannel.getSftpChannel();
             
             // Create full remote path
             String fullRemotePath = remoteBasePath + "/" + targetPath;
-            log.info("Full remote path: {}", fullRemotePath);
+            String directory = parentOf(fullRemotePath);
+            log.debug("Full remote path: {}", fullRemotePath);
             
-            // Create parent directories if they don't exist
+            ensureRemoteDirectory(channelSftp, directory);
             try {
-                createRemoteDirectories(channelSftp, fullRemotePath);
-            } catch (Exception e) {
-                log.error("Error creating remote directories: {}", e.getMessage(), e);
-                throw e;
-            }
-            
-            // Upload file
-            try (InputStream inputStream = new ByteArrayInputStream(fileContent)) {
-                channelSftp.put(inputStream, fullRemotePath);
+                put(channelSftp, content, fullRemotePath);
+            } catch (SftpException e) {
+                if (e.id != ChannelSftp.SSH_FX_NO_SUCH_FILE || knownDirectories.getIfPresent(directory) == null) {
+                    throw e;
+                }
+                // Cached directory was removed on the server
+                log.info("Remote directory {} no longer exists, recreating it", directory);
+                knownDirectories.invalidate(directory);
+                ensureRemoteDirectory(channelSftp, directory);
+                put(channelSftp, content, fullRemotePath);
             }
+            channelHealthy = true;
             
             log.info("Successfully uploaded file to remote server: {}", fullRemotePath);
             return targetPath;
             
         } catch (JSchException | SftpException e) {
+            // A status reply from the server leaves the channel usable
+            channelHealthy = e instanceof SftpException && e.getCause() == null;
             log.error("Error uploading file to remote server: {}", e.getMessage(), e);
             
             // Fall back to local storage if remote upload fails
             log.info("Falling back to local storage for file: {}", targetPath);
-            return storeFileLocally(fileContent, targetPath);
+            return storeFileLocally(content, size, targetPath);
         } finally {
-            // Return the session to the pool
-            if (pooledSession != null) {
-                sessionPool.returnSession(pooledSession);
+            // Return the channel to the pool
+            if (pooledChannel != null) {
+                if (channelHealthy) {
+                    sessionPool.release(pooledChannel);
+                } else {
+                    sessionPool.invalidate(pooledChannel);
+                }
             }
         }
     }
     
+    private static void put(ChannelSftp channelSftp, InputStreamSource content, String fullRemotePath)
+            throws IOException, SftpException {
+        try (InputStream inputStream = content.getInputStream()) {
+            channelSftp.put(inputStream, fullRemotePath);
+        }
+    }
+    
     /**
-     * Create parent directories on the remote server
+     * Delete a file from the remote server. A missing file is not an error.
+     * 
+     * @param targetPath The path relative to the remote base path
+     * @throws IOException If the file could not be deleted
      */
-    private void createRemoteDirectories(ChannelSftp channelSftp, String fullPath) throws SftpException {
-        // Get parent directory path
-        String parentPath = fullPath.substring(0, fullPath.lastIndexOf('/'));
-        
-        // Try to change to the directory to check if it exists
+    public void deleteFile(String targetPath) throws IOException {
+        SftpSessionPool.PooledChannel pooledChannel = null;
+        boolean channelHealthy = false;
+        String fullRemotePath = remoteBasePath + "/" + targetPath;
         try {
-            channelSftp.cd(parentPath);
-            return; // Directory exists, nothing to do
+            pooledChannel = sessionPool.borrow();
+            pooledChannel.getSftpChannel().rm(fullRemotePath);
+            channelHealthy = true;
+            log.info("Deleted remote file: {}", fullRemotePath);
+        } catch (SftpException e) {
+            channelHealthy = e.getCause() == null;
+            if (e.id != ChannelSftp.SSH_FX_NO_SUCH_FILE) {
+                throw new IOException("Failed to delete remote file " + fullRemotePath + ": " + e.getMessage(), e);
+            }
+        } catch (JSchException e) {
+            throw new IOException("Failed to delete remote file " + fullRemotePath + ": " + e.getMessage(), e);
+        } finally {
+            if (pooledChannel != null) {
+                if (channelHealthy) {
+                    sessionPool.release(pooledChannel);
+                } else {
+                    sessionPool.invalidate(pooledChannel);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Make sure a remote directory exists, creating missing ancestors. Directories in the
+     * cache cost no round trip; otherwise mkdir is tried first and its parent only on failure.
+     */
+    private void ensureRemoteDirectory(ChannelSftp channelSftp, String directory) throws SftpException {
+        if (directory.isEmpty() || knownDirectories.getIfPresent(directory) != null) {
+            return;
+        }
+        try {
+            mkdirIfAbsent(channelSftp, directory);
+        } catch (SftpException e) {
+            if (e.id != ChannelSftp.SSH_FX_NO_SUCH_FILE) {
+                throw e;
+            }
+            // Parent is missing too
+            ensureRemoteDirectory(channelSftp, parentOf(directory));
+            mkdirIfAbsent(channelSftp, directory);
+        }
+        knownDirectories.put(directory, Boolean.TRUE);
+    }
+    
+    private static void mkdirIfAbsent(ChannelSftp channelSftp, String directory) throws SftpException {
+        try {
+            channelSftp.mkdir(directory);
+            log.debug("Created remote directory: {}", directory);
         } catch (SftpException e) {
-            // Directory doesn't exist, create it
             if (e.id == ChannelSftp.SSH_FX_NO_SUCH_FILE) {
-                // Create parent directories recursively
-                createRemoteDirectories(channelSftp, parentPath);
-                
-                // Create this directory
-                log.debug("Creating remote directory: {}", parentPath);
-                channelSftp.mkdir(parentPath);
-            } else {
-                throw e; // Other error, rethrow
+                throw e;
+            }
+            // Servers report an existing directory as a generic failure
+            if (!channelSftp.stat(directory).isDir()) {
+                throw e;
             }
         }
     }
     
+    private static String parentOf(String path) {
+        int slash = path.lastIndexOf('/');
+        return slash <= 0 ? "" : path.substring(0, slash);
+    }
+    
     /**
      * Store file in local filesystem as fallback
      */
-    private String storeFileLocally(byte[] content, String targetPath) throws IOException {
+    private String storeFileLocally(InputStreamSource content, long size, String targetPath) throws IOException {
         Path fullPath = Paths.get(localBasePath, targetPath);
         
         // Create directories if they don't exist
@@ -123,9 +219,11 @@ public class SftpFileStorageService {
         }
         
         // Write file (this will overwrite if it exists)
-        Files.write(fullPath, content);
+        try (InputStream inputStream = content.getInputStream()) {
+            Files.copy(inputStream, fullPath, StandardCopyOption.REPLACE_EXISTING);
+        }
         
-        log.info("Successfully stored file locally: {} (Size: {} bytes)", fullPath, content.length);
+        log.info("Successfully stored file locally: {} (Size: {} bytes)", fullPath, size);
         
         // Return relative path for database storage
         return targetPath;
@@ -1,17 +1,37 @@
 package com.example.jwtauthenticator.service;
 
 import com.jcraft.jsch.*;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * Pool of SFTP sessions to avoid creating a new connection for each file upload
+ * Pool of SFTP channels multiplexed over a small set of SSH sessions, so uploads neither
+ * open a connection each nor serialize on one.
+ *
+ * Each session carries up to {@code channels-per-session} SFTP channels, and a fair semaphore
+ * with max-size x channels-per-session permits hands them out in arrival order; a borrower
+ * that cannot get one within {@code borrow-timeout-ms} fails instead of waiting forever.
+ * Channels are kept open between uploads. Borrowing only checks local connection flags:
+ * keepalives, removal of dead sessions and channels, closing of idle sessions above
+ * min-size and topping the pool back up to min-size run in the background.
  */
 @Component
 @Slf4j
@@ -38,10 +58,71 @@ public class SftpSessionPool {
     @Value("${app.file-storage.remote.pool.max-size:5}")
     private int maxPoolSize;
     
-    private final ConcurrentLinkedQueue<PooledSession> sessionPool = new ConcurrentLinkedQueue<>();
-    private final AtomicInteger activeSessionCount = new AtomicInteger(0);
+    /**
+     * Concurrent SFTP channels per SSH session (OpenSSH allows 10 by default, MaxSessions)
+     */
+    @Value("${app.file-storage.remote.pool.channels-per-session:4}")
+    private int channelsPerSession;
+    
+    @Value("${app.file-storage.remote.pool.borrow-timeout-ms:30000}")
+    private long borrowTimeoutMs;
+    
+    /**
+     * Sessions above min-size with no channel in use for this long are closed
+     */
+    @Value("${app.file-storage.remote.pool.idle-timeout-ms:300000}")
+    private long idleTimeoutMs;
+    
+    /**
+     * Outstanding write requests per upload; JSch pipelines this many packets before waiting for acks
+     */
+    @Value("${app.file-storage.remote.pool.bulk-requests:32}")
+    private int bulkRequests;
+    
+    // A j.u.c lock rather than a monitor, so waiting borrowers do not pin virtual threads
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition capacityChanged = lock.newCondition(); // a session connected or a slot freed
+    private final List<PooledSession> sessions = new ArrayList<>(); // guarded by lock
+    private final Deque<PooledChannel> idleChannels = new ArrayDeque<>(); // guarded by lock, most recently used first
+    private int borrowedChannels; // guarded by lock
+    private int connectingSessions; // guarded by lock
+    private volatile Semaphore permits;
     private volatile boolean shuttingDown = false;
     
+    private final Timer borrowWait;
+    private final Counter borrowTimeouts;
+    private final Counter sessionsOpened;
+    private final Counter sessionsBroken;
+    
+    public SftpSessionPool(MeterRegistry meterRegistry) {
+        this.borrowWait = Timer.builder("sftp.pool.borrow.wait")
+                .description("Time spent waiting for an SFTP channel")
+                .register(meterRegistry);
+        this.borrowTimeouts = Counter.builder("sftp.pool.borrow.timeouts")
+                .description("SFTP channel borrows that timed out")
+                .register(meterRegistry);
+        this.sessionsOpened = Counter.builder("sftp.pool.sessions.opened")
+                .description("SSH sessions opened by the SFTP pool")
+                .register(meterRegistry);
+        this.sessionsBroken = Counter.builder("sftp.pool.sessions.broken")
+                .description("SSH sessions dropped after a failed keepalive or disconnect")
+                .register(meterRegistry);
+        Gauge.builder("sftp.pool.sessions", this, SftpSessionPool::sessionCount)
+                .description("Open SSH sessions in the SFTP pool")
+                .register(meterRegistry);
+        Gauge.builder("sftp.pool.channels", this, SftpSessionPool::activeChannelCount)
+                .tag("state", "active")
+                .description("SFTP channels by state")
+                .register(meterRegistry);
+        Gauge.builder("sftp.pool.channels", this, SftpSessionPool::idleChannelCount)
+                .tag("state", "idle")
+                .description("SFTP channels by state")
+                .register(meterRegistry);
+        Gauge.builder("sftp.pool.pending", this, SftpSessionPool::pendingBorrowCount)
+                .description("Threads waiting for an SFTP channel")
+                .register(meterRegistry);
+    }
+    
     @PostConstruct
     public void init() {
         // Initialize JSch logger only if it hasn't been set already
@@ -77,24 +158,13 @@ public class SftpSessionPool {
             log.warn("Failed to set JSch logger: {}", e.getMessage());
         }
         
+        minPoolSize = Math.max(0, Math.min(minPoolSize, maxPoolSize));
+        permits = new Semaphore(Math.max(1, maxPoolSize) * Math.max(1, channelsPerSession), true);
+        
         // Initialize pool with minimum number of sessions
-        try {
-            int successfulConnections = 0;
-            for (int i = 0; i < minPoolSize; i++) {
-                try {
-                    PooledSession session = createSession();
-                    if (session != null) {
-                        sessionPool.offer(session);
-                        successfulConnections++;
-                    }
-                } catch (Exception e) {
-                    log.warn("Failed to create initial SFTP session {}: {}", i + 1, e.getMessage());
-                }
-            }
-            log.info("SFTP session pool initialized with {}/{} connections", successfulConnections, minPoolSize);
-        } catch (Exception e) {
-            log.error("Failed to initialize SFTP session pool: {}", e.getMessage(), e);
-        }
+        int successfulConnections = topUp();
+        log.info("SFTP session pool initialized with {}/{} connections ({} channels per session)",
+                successfulConnections, minPoolSize, channelsPerSession);
     }
     
     @PreDestroy
@@ -102,11 +172,25 @@ public class SftpSessionPool {
         shuttingDown = true;
         log.info("Shutting down SFTP session pool...");
         
-        // Close all sessions in the pool
-        PooledSession session;
-        while ((session = sessionPool.poll()) != null) {
-            closeSession(session);
+        // Close idle channels and every session without a borrowed channel; the rest are
+        // closed as their channels are released
+        List<PooledSession> toClose = new ArrayList<>();
+        lock.lock();
+        try {
+            PooledChannel channel;
+            while ((channel = idleChannels.poll()) != null) {
+                discardLocked(channel, toClose);
+            }
+            for (PooledSession session : sessions) {
+                if (session.channels == 0) {
+                    toClose.add(session);
+                }
+            }
+            sessions.removeAll(toClose);
+        } finally {
+            lock.unlock();
         }
+        toClose.forEach(PooledSession::disconnect);
         
         log.info("SFTP session pool shutdown complete");
     }
@@ -115,124 +199,395 @@ public class SftpSessionPool {
      * Get current pool status for monitoring
      */
     public String getPoolStatus() {
-        return String.format("SFTP Pool - Available: %d, Active: %d, Total: %d (Min: %d, Max: %d)", 
-                sessionPool.size(), 
-                activeSessionCount.get(),
-                sessionPool.size() + activeSessionCount.get(),
-                minPoolSize, 
-                maxPoolSize);
+        lock.lock();
+        try {
+            return String.format("SFTP Pool - Sessions: %d (Min: %d, Max: %d), Channels active: %d, idle: %d, Waiting: %d",
+                    sessions.size(), minPoolSize, maxPoolSize, borrowedChannels, idleChannels.size(),
+                    pendingBorrowCount());
+        } finally {
+            lock.unlock();
+        }
     }
     
     /**
-     * Get a session from the pool or create a new one if needed
+     * Borrow an SFTP channel, waiting in arrival order for up to borrow-timeout-ms when all
+     * channels are in use. Must be given back with {@link #release} or {@link #invalidate}.
      */
-    public PooledSession getSession() throws JSchException {
+    public PooledChannel borrow() throws JSchException {
         if (shuttingDown) {
             throw new IllegalStateException("SFTP session pool is shutting down");
         }
         
-        // Try to get a session from the pool
-        PooledSession session = sessionPool.poll();
+        long startNanos = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JSchException("Interrupted while waiting for SFTP channel");
+        }
+        borrowWait.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        if (!acquired) {
+            borrowTimeouts.increment();
+            throw new JSchException("Timed out after " + borrowTimeoutMs + " ms waiting for SFTP channel (" + getPoolStatus() + ")");
+        }
+        
+        try {
+            return takeOrOpenChannel();
+        } catch (JSchException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+    
+    /**
+     * Give a channel back for reuse; a channel that is no longer connected is closed instead
+     */
+    public void release(PooledChannel channel) {
+        giveBack(channel, false);
+    }
+    
+    /**
+     * Give back a channel whose state is unknown after a failed transfer; it is closed
+     */
+    public void invalidate(PooledChannel channel) {
+        giveBack(channel, true);
+    }
+    
+    /**
+     * Background health check: keepalive on every session, drop dead sessions and channels,
+     * close sessions idle for longer than idle-timeout-ms above min-size, then top up to min-size
+     */
+    @Scheduled(fixedDelayString = "${app.file-storage.remote.pool.keepalive-interval-ms:30000}",
+               initialDelayString = "${app.file-storage.remote.pool.keepalive-interval-ms:30000}")
+    public void maintain() {
+        if (shuttingDown || permits == null) {
+            return;
+        }
+        
+        List<PooledSession> snapshot;
+        lock.lock();
+        try {
+            snapshot = new ArrayList<>(sessions);
+        } finally {
+            lock.unlock();
+        }
+        for (PooledSession session : snapshot) {
+            if (!session.isConnected()) {
+                dropSession(session);
+                continue;
+            }
+            try {
+                session.session.sendKeepAliveMsg();
+            } catch (Exception e) {
+                log.info("SFTP session failed keepalive, dropping it: {}", e.getMessage());
+                dropSession(session);
+            }
+        }
         
-        // If no session is available, create a new one if below max size
-        if (session == null) {
-            int currentCount = activeSessionCount.get();
-            if (currentCount < maxPoolSize) {
-                session = createSession();
-                if (session != null) {
-                    activeSessionCount.incrementAndGet();
-                    log.debug("Created new SFTP session, active count: {}", activeSessionCount.get());
-                } else {
-                    throw new JSchException("Failed to create SFTP session");
+        long idleCutoff = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(idleTimeoutMs);
+        List<PooledSession> toClose = new ArrayList<>();
+        lock.lock();
+        try {
+            idleChannels.removeIf(channel -> {
+                if (channel.isUsable()) {
+                    return false;
                 }
-            } else {
-                log.warn("Maximum SFTP session pool size reached ({}), waiting for available session", maxPoolSize);
-                // Wait for a session to become available
-                try {
-                    Thread.sleep(500);
-                    return getSession(); // Recursive call, but with delay
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    throw new JSchException("Interrupted while waiting for SFTP session");
+                discardLocked(channel, toClose);
+                return true;
+            });
+            Iterator<PooledSession> it = sessions.iterator();
+            while (it.hasNext() && sessions.size() > minPoolSize) {
+                PooledSession session = it.next();
+                if (session.borrowed == 0 && session.lastUsedNanos - idleCutoff < 0) {
+                    idleChannels.removeIf(channel -> {
+                        if (channel.owner != session) {
+                            return false;
+                        }
+                        channel.disconnect();
+                        session.channels--;
+                        return true;
+                    });
+                    it.remove();
+                    toClose.add(session);
                 }
             }
-        } else {
-            // Check if the session is still valid
+        } finally {
+            lock.unlock();
+        }
+        toClose.forEach(PooledSession::disconnect);
+        if (!toClose.isEmpty()) {
+            log.debug("Closed {} idle SFTP sessions", toClose.size());
+        }
+        
+        topUp();
+    }
+    
+    /**
+     * Reuse the most recently returned idle channel, else open a channel on the least loaded
+     * session with room, connecting a new session when all are full. The caller holds a permit,
+     * so there is room unless the last slots belong to sessions still connecting; those are
+     * waited for.
+     */
+    private PooledChannel takeOrOpenChannel() throws JSchException {
+        PooledSession target = null;
+        boolean newSession = false;
+        List<PooledSession> toClose = new ArrayList<>();
+        try {
+            lock.lock();
             try {
-                if (!session.isValid() || !session.session.isConnected()) {
-                    log.info("Reconnecting stale SFTP session");
-                    closeSession(session);
-                    session = createSession();
-                    if (session == null) {
-                        throw new JSchException("Failed to recreate SFTP session");
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+                while (true) {
+                    PooledChannel idle;
+                    while ((idle = idleChannels.pollFirst()) != null) {
+                        if (idle.isUsable()) {
+                            idle.owner.borrowed++;
+                            borrowedChannels++;
+                            return idle;
+                        }
+                        discardLocked(idle, toClose);
                     }
-                } else {
-                    log.debug("Reusing existing SFTP session from pool");
-                }
-            } catch (Exception e) {
-                log.warn("Error checking session state, creating new session: {}", e.getMessage());
-                closeSession(session);
-                session = createSession();
-                if (session == null) {
-                    throw new JSchException("Failed to recreate SFTP session after error");
+                    for (Iterator<PooledSession> it = sessions.iterator(); it.hasNext(); ) {
+                        PooledSession session = it.next();
+                        boolean connected = session.isConnected();
+                        if (!connected && session.channels == 0) {
+                            // Dead with nothing to give back: free its slot for a new session
+                            it.remove();
+                            sessionsBroken.increment();
+                            toClose.add(session);
+                        } else if (connected && session.channels < channelsPerSession
+                                && (target == null || session.channels < target.channels)) {
+                            target = session;
+                        }
+                    }
+                    if (target != null) {
+                        target.channels++;
+                        target.borrowed++;
+                        borrowedChannels++;
+                        break;
+                    }
+                    if (sessions.size() + connectingSessions < maxPoolSize) {
+                        connectingSessions++;
+                        newSession = true;
+                        break;
+                    }
+                    long remainingNanos = deadline - System.nanoTime();
+                    if (connectingSessions == 0 || remainingNanos <= 0) {
+                        throw new JSchException("No SFTP session capacity available (" + getPoolStatus() + ")");
+                    }
+                    capacityChanged.awaitNanos(remainingNanos);
                 }
+            } finally {
+                lock.unlock();
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JSchException("Interrupted while waiting for SFTP session");
+        } finally {
+            toClose.forEach(PooledSession::disconnect);
         }
         
-        return session;
+        if (newSession) {
+            target = connectSession(true);
+        }
+        
+        try {
+            ChannelSftp channel = (ChannelSftp) target.session.openChannel("sftp");
+            channel.connect(timeoutSeconds * 1000);
+            try {
+                channel.setBulkRequests(Math.max(1, bulkRequests));
+            } catch (JSchException e) {
+                log.debug("Could not set SFTP bulk requests: {}", e.getMessage());
+            }
+            return new PooledChannel(target, channel);
+        } catch (JSchException | RuntimeException e) {
+            lock.lock();
+            try {
+                target.channels--;
+                target.borrowed--;
+                borrowedChannels--;
+                if (!target.isConnected() && sessions.remove(target)) {
+                    sessionsBroken.increment();
+                }
+                capacityChanged.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            throw e;
+        }
     }
     
     /**
-     * Return a session to the pool
+     * Connect a session whose slot was reserved through connectingSessions and add it to the
+     * pool, optionally with one borrowed channel already counted against it
      */
-    public void returnSession(PooledSession session) {
-        if (session == null) {
-            return;
+    private PooledSession connectSession(boolean withBorrowedChannel) throws JSchException {
+        Session session;
+        try {
+            session = createSession();
+        } catch (JSchException | RuntimeException e) {
+            lock.lock();
+            try {
+                connectingSessions--;
+                capacityChanged.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            throw e;
         }
-        
-        if (shuttingDown) {
-            closeSession(session);
-            activeSessionCount.decrementAndGet();
+        sessionsOpened.increment();
+        PooledSession pooled = new PooledSession(session);
+        lock.lock();
+        try {
+            connectingSessions--;
+            if (withBorrowedChannel) {
+                pooled.channels = 1;
+                pooled.borrowed = 1;
+                borrowedChannels++;
+            }
+            sessions.add(pooled);
+            capacityChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        return pooled;
+    }
+    
+    /**
+     * Connect sessions until the pool holds min-size; returns how many were opened
+     */
+    private int topUp() {
+        int opened = 0;
+        while (!shuttingDown) {
+            lock.lock();
+            try {
+                if (sessions.size() + connectingSessions >= minPoolSize) {
+                    break;
+                }
+                connectingSessions++;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                connectSession(false);
+                opened++;
+            } catch (Exception e) {
+                log.warn("Failed to create SFTP session for the pool: {}", e.getMessage());
+                break;
+            }
+        }
+        return opened;
+    }
+    
+    private void giveBack(PooledChannel channel, boolean broken) {
+        if (channel == null) {
             return;
         }
-        
+        List<PooledSession> toClose = new ArrayList<>();
+        lock.lock();
         try {
-            // Check if session is still valid
-            if (session.isValid() && session.session.isConnected()) {
-                // Close the SFTP channel but keep the session alive for reuse
-                session.closeChannel();
-                sessionPool.offer(session);
-                log.debug("Returned SFTP session to pool, pool size: {}", sessionPool.size());
+            channel.owner.borrowed--;
+            borrowedChannels--;
+            channel.owner.lastUsedNanos = System.nanoTime();
+            if (!broken && !shuttingDown && channel.isUsable() && sessions.contains(channel.owner)) {
+                idleChannels.offerFirst(channel);
             } else {
-                log.info("Discarding disconnected SFTP session");
-                closeSession(session);
-                activeSessionCount.decrementAndGet();
-                
-                // Create a replacement session if below min size
-                int totalSessions = sessionPool.size() + activeSessionCount.get();
-                if (totalSessions < minPoolSize) {
-                    try {
-                        PooledSession newSession = createSession();
-                        if (newSession != null) {
-                            sessionPool.offer(newSession);
-                            log.debug("Created replacement SFTP session, pool size: {}", sessionPool.size());
-                        }
-                    } catch (Exception e) {
-                        log.error("Failed to create replacement SFTP session: {}", e.getMessage());
-                    }
+                discardLocked(channel, toClose);
+            }
+            capacityChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        toClose.forEach(PooledSession::disconnect);
+        permits.release();
+    }
+    
+    /**
+     * Close a channel that is no longer in the idle list or borrowed. Its session is queued
+     * for closing when it has no channels left and is dead, dropped or shutting down.
+     */
+    private void discardLocked(PooledChannel channel, List<PooledSession> toClose) {
+        channel.disconnect();
+        PooledSession owner = channel.owner;
+        owner.channels--;
+        boolean retired = !sessions.contains(owner);
+        if (owner.channels == 0 && (retired || shuttingDown || !owner.isConnected())) {
+            if (!retired) {
+                sessions.remove(owner);
+                if (!shuttingDown) {
+                    sessionsBroken.increment();
                 }
             }
-        } catch (Exception e) {
-            log.warn("Error returning session to pool: {}", e.getMessage());
-            closeSession(session);
-            activeSessionCount.decrementAndGet();
+            toClose.add(owner);
         }
     }
     
     /**
-     * Create a new SFTP session
+     * Remove a dead session from the pool: its idle channels are closed now, borrowed ones
+     * when they are given back
      */
-    private PooledSession createSession() throws JSchException {
+    private void dropSession(PooledSession session) {
+        boolean closeNow;
+        lock.lock();
+        try {
+            if (!sessions.remove(session)) {
+                return;
+            }
+            sessionsBroken.increment();
+            idleChannels.removeIf(channel -> {
+                if (channel.owner != session) {
+                    return false;
+                }
+                channel.disconnect();
+                session.channels--;
+                return true;
+            });
+            closeNow = session.channels == 0;
+            capacityChanged.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (closeNow) {
+            session.disconnect();
+        }
+    }
+    
+    private int sessionCount() {
+        lock.lock();
+        try {
+            return sessions.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private int activeChannelCount() {
+        lock.lock();
+        try {
+            return borrowedChannels;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private int idleChannelCount() {
+        lock.lock();
+        try {
+            return idleChannels.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private int pendingBorrowCount() {
+        Semaphore current = permits;
+        return current == null ? 0 : current.getQueueLength();
+    }
+    
+    /**
+     * Create and connect a new SFTP session (package-private so tests can stub it)
+     */
+    Session createSession() throws JSchException {
         try {
             log.debug("Creating new SFTP session to {}:{}", remoteHost, remotePort);
             
@@ -258,8 +613,7 @@ public class SftpSessionPool {
             session.connect();
             log.debug("SFTP session connected to {}:{}", remoteHost, remotePort);
             
-            // Create and return pooled session
-            return new PooledSession(session);
+            return session;
         } catch (JSchException e) {
             log.error("Failed to create SFTP session: {}", e.getMessage(), e);
             throw e;
@@ -267,89 +621,66 @@ public class SftpSessionPool {
     }
     
     /**
-     * Close a session
+     * An SSH session of the pool. Counters are guarded by the pool lock.
      */
-    private void closeSession(PooledSession pooledSession) {
-        if (pooledSession == null) {
-            return;
+    private static final class PooledSession {
+        private final Session session;
+        private int channels; // open channels, idle or borrowed
+        private int borrowed;
+        private volatile long lastUsedNanos = System.nanoTime();
+        
+        private PooledSession(Session session) {
+            this.session = session;
         }
         
-        try {
-            // Close the channel first
-            pooledSession.closeChannel();
-            
-            // Then close the session
-            if (pooledSession.session != null && pooledSession.session.isConnected()) {
-                pooledSession.session.disconnect();
+        private boolean isConnected() {
+            try {
+                return session.isConnected();
+            } catch (Exception e) {
+                return false;
+            }
+        }
+        
+        private void disconnect() {
+            try {
+                if (session.isConnected()) {
+                    session.disconnect();
+                }
+            } catch (Exception e) {
+                log.warn("Error closing SFTP session: {}", e.getMessage());
             }
-        } catch (Exception e) {
-            log.warn("Error closing SFTP session: {}", e.getMessage());
         }
     }
     
     /**
-     * Wrapper class for a pooled SFTP session
+     * An SFTP channel borrowed from the pool. Paths should be absolute: the channel's working
+     * directory is shared with whoever borrows it next.
      */
-    public static class PooledSession {
-        public final Session session; // Made public for access in pool
-        private Channel channel;
-        private ChannelSftp channelSftp;
+    public static final class PooledChannel {
+        private final PooledSession owner;
+        private final ChannelSftp channel;
         
-        public PooledSession(Session session) {
-            this.session = session;
+        private PooledChannel(PooledSession owner, ChannelSftp channel) {
+            this.owner = owner;
+            this.channel = channel;
         }
         
-        /**
-         * Get the SFTP channel, creating it if needed
-         */
-        public ChannelSftp getSftpChannel() throws JSchException {
-            if (channelSftp == null || !channelSftp.isConnected()) {
-                // Close existing channel if it exists but is not connected
-                if (channel != null && channel.isConnected()) {
-                    channel.disconnect();
-                }
-                
-                // Ensure session is still connected
-                if (!session.isConnected()) {
-                    throw new JSchException("Session is not connected");
-                }
-                
-                // Open new SFTP channel
-                channel = session.openChannel("sftp");
-                channel.connect();
-                channelSftp = (ChannelSftp) channel;
-            }
-            
-            return channelSftp;
+        public ChannelSftp getSftpChannel() {
+            return channel;
         }
         
-        /**
-         * Check if this pooled session is valid and connected
-         */
-        public boolean isValid() {
-            try {
-                return session != null && session.isConnected();
-            } catch (Exception e) {
-                return false;
-            }
+        private boolean isUsable() {
+            return channel.isConnected() && !channel.isClosed() && owner.isConnected();
         }
         
-        /**
-         * Close the SFTP channel but keep the session alive for reuse
-         */
-        public void closeChannel() {
+        private void disconnect() {
             try {
-                if (channelSftp != null && channelSftp.isConnected()) {
-                    channelSftp.disconnect();
-                }
-                if (channel != null && channel.isConnected()) {
+                if (channel.isConnected()) {
                     channel.disconnect();
                 }
-                channelSftp = null;
-                channel = null;
             } catch (Exception e) {
                 // Ignore errors during cleanup
             }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,143 @@
+package com.example.jwtauthenticator.service;
+
+import com.example.jwtauthenticator.config.AsyncExecutorConfig;
+import com.example.jwtauthenticator.config.BoundedVirtualThreadExecutor;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Monitors the async executors defined in AsyncExecutorConfig.
+ *
+ * Registers executor.* Micrometer metrics (queued, active, pool size, completed) per pool,
+ * for both the platform pools and their virtual-thread counterparts,
+ * and, driven by app.monitoring.thread-pool.*, logs a warning when a pool's queue or
+ * active threads pass the configured percentage of capacity.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ThreadPoolHealthService implements HealthIndicator {
+
+    private final Map<String, AsyncTaskExecutor> taskExecutors;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, AsyncTaskExecutor> executors = new LinkedHashMap<>();
+
+    @Value("${app.monitoring.thread-pool.enabled:true}")
+    private boolean monitoringEnabled;
+
+    @Value("${app.monitoring.thread-pool.queue-warning-threshold:80}")
+    private int queueWarningThreshold;
+
+    @Value("${app.monitoring.thread-pool.active-thread-warning-threshold:90}")
+    private int activeThreadWarningThreshold;
+
+    @PostConstruct
+    public void registerMetrics() {
+        for (String name : AsyncExecutorConfig.EXECUTOR_NAMES) {
+            AsyncTaskExecutor executor = taskExecutors.get(name);
+            if (executor == null) {
+                continue;
+            }
+            executors.put(name, executor);
+            if (executor instanceof ThreadPoolTaskExecutor pool) {
+                ExecutorServiceMetrics.monitor(meterRegistry, pool.getThreadPoolExecutor(), name, List.of());
+            } else if (executor instanceof BoundedVirtualThreadExecutor virtual) {
+                // Same meter names as ExecutorServiceMetrics so dashboards work in both modes
+                Gauge.builder("executor.active", virtual, BoundedVirtualThreadExecutor::getActiveCount)
+                        .tag("name", name).register(meterRegistry);
+                Gauge.builder("executor.queued", virtual, BoundedVirtualThreadExecutor::getQueueSize)
+                        .tag("name", name).register(meterRegistry);
+                Gauge.builder("executor.pool.max", virtual, BoundedVirtualThreadExecutor::getMaxConcurrency)
+                        .tag("name", name).register(meterRegistry);
+                FunctionCounter.builder("executor.completed", virtual, BoundedVirtualThreadExecutor::getCompletedTaskCount)
+                        .tag("name", name).register(meterRegistry);
+            }
+        }
+        log.info("Thread pool monitoring registered for executors: {}", executors.keySet());
+    }
+
+    @Scheduled(fixedDelayString = "#{${app.monitoring.thread-pool.check-interval-seconds:60} * 1000}")
+    public void monitorThreadPools() {
+        if (!monitoringEnabled) {
+            return;
+        }
+        executors.forEach((name, executor) -> {
+            PoolState state = PoolState.of(executor);
+            if (state.queuePercent() >= queueWarningThreshold || state.activePercent() >= activeThreadWarningThreshold) {
+                log.warn("🚨 Thread pool '{}' under stress: active={}/{}, queued={}/{} ({}% queue, {}% active)",
+                        name, state.active(), state.maxSize(), state.queued(), state.queueCapacity(),
+                        state.queuePercent(), state.activePercent());
+            } else {
+                log.debug("✅ Thread pool '{}' healthy: active={}/{}, queued={}/{}",
+                        name, state.active(), state.maxSize(), state.queued(), state.queueCapacity());
+            }
+        });
+    }
+
+    /**
+     * Health check for Spring Boot Actuator. A stressed pool stays UP with stressed=true:
+     * a custom status is not in the aggregator's default order and would be ignored.
+     */
+    @Override
+    public Health health() {
+        Map<String, Object> details = new LinkedHashMap<>();
+        boolean stressed = false;
+        for (Map.Entry<String, AsyncTaskExecutor> entry : executors.entrySet()) {
+            PoolState state = PoolState.of(entry.getValue());
+            details.put(entry.getKey(), state.toMap());
+            stressed |= state.queuePercent() >= queueWarningThreshold;
+        }
+        return Health.up().withDetail("stressed", stressed).withDetails(details).build();
+    }
+
+    private record PoolState(int active, int poolSize, int maxSize, int queued, int queueCapacity, long completed) {
+
+        static PoolState of(AsyncTaskExecutor executor) {
+            if (executor instanceof BoundedVirtualThreadExecutor virtual) {
+                return new PoolState(virtual.getActiveCount(), virtual.getActiveCount(), virtual.getMaxConcurrency(),
+                        virtual.getQueueSize(), virtual.getQueueCapacity(), virtual.getCompletedTaskCount());
+            }
+            ThreadPoolTaskExecutor taskExecutor = (ThreadPoolTaskExecutor) executor;
+            ThreadPoolExecutor pool = taskExecutor.getThreadPoolExecutor();
+            return new PoolState(pool.getActiveCount(), pool.getPoolSize(), pool.getMaximumPoolSize(),
+                    pool.getQueue().size(), taskExecutor.getQueueCapacity(), pool.getCompletedTaskCount());
+        }
+
+        int queuePercent() {
+            return queueCapacity > 0 ? (int) (queued * 100L / queueCapacity) : 0;
+        }
+
+        int activePercent() {
+            return maxSize > 0 ? (int) (active * 100L / maxSize) : 0;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("active", active);
+            map.put("poolSize", poolSize);
+            map.put("maxPoolSize", maxSize);
+            map.put("queued", queued);
+            map.put("queueCapacity", queueCapacity);
+            map.put("completed", completed);
+            return map;
+        }
+    }
+}
@@ -42,20 +42,20 @@ public class UnifiedDashboardService {
     private final StreamlinedUsageTracker usageTracker;
     private final EnhancedApiKeyService enhancedApiKeyService;
     
-    // Use Spring's managed thread pool for database operations
-    private final Executor transactionalAsyncExecutor;
+    // Dedicated bounded pool for parallel dashboard queries (AsyncExecutorConfig)
+    private final Executor dashboardExecutor;
     
     public UnifiedDashboardService(
             ApiKeyRepository apiKeyRepository,
             UserRepository userRepository,
             StreamlinedUsageTracker usageTracker,
             EnhancedApiKeyService enhancedApiKeyService,
-            @Qualifier("transactionalAsyncExecutor") Executor transactionalAsyncExecutor) {
+            @Qualifier("dashboardExecutor") Executor dashboardExecutor) {
         this.apiKeyRepository = apiKeyRepository;
         this.userRepository = userRepository;
         this.usageTracker = usageTracker;
         this.enhancedApiKeyService = enhancedApiKeyService;
-        this.transactionalAsyncExecutor = transactionalAsyncExecutor;
+        this.dashboardExecutor = dashboardExecutor;
     }
     
     /**
@@ -92,13 +92,13 @@ public class UnifiedDashboardService {
             
             // 🚀 PARALLEL PROCESSING - All queries run simultaneously using Spring's managed executor
             CompletableFuture<DashboardMetrics> metricsFuture = CompletableFuture
-                .supplyAsync(() -> calculateUserMetrics(userId, currentMonth, lastMonth), transactionalAsyncExecutor);
+                .supplyAsync(() -> calculateUserMetrics(userId, currentMonth, lastMonth), dashboardExecutor);
             
             CompletableFuture<QuotaInfo> quotaFuture = CompletableFuture
-                .supplyAsync(() -> calculateQuotaInfo(user), transactionalAsyncExecutor);
+                .supplyAsync(() -> calculateQuotaInfo(user), dashboardExecutor);
             
             CompletableFuture<DomainInfo> domainFuture = CompletableFuture
-                .supplyAsync(() -> calculateDomainInfo(userId), transactionalAsyncExecutor);
+                .supplyAsync(() -> calculateDomainInfo(userId), dashboardExecutor);
             
             // Wait for all parallel operations to complete
             CompletableFuture<Void> allFutures = CompletableFuture.allOf(
@@ -155,13 +155,13 @@ public class UnifiedDashboardService {
             
             // 🎯 CORRECTED: Use the ACTUAL usage stats table for real data
             CompletableFuture<ApiKeyMetrics> metricsFuture = CompletableFuture
-                .supplyAsync(() -> calculateApiKeyMetrics(apiKeyId, currentMonth), transactionalAsyncExecutor);
+                .supplyAsync(() -> calculateApiKeyMetrics(apiKeyId, currentMonth), dashboardExecutor);
             
             CompletableFuture<ApiKeyQuotaInfo> quotaFuture = CompletableFuture
-                .supplyAsync(() -> calculateApiKeyQuota(apiKey), transactionalAsyncExecutor);
+                .supplyAsync(() -> calculateApiKeyQuota(apiKey), dashboardExecutor);
             
             CompletableFuture<ApiKeyUsageInfo> usageFuture = CompletableFuture
-                .supplyAsync(() -> calculateApiKeyUsage(apiKeyId), transactionalAsyncExecutor);
+                .supplyAsync(() -> calculateApiKeyUsage(apiKeyId), dashboardExecutor);
             
             // Wait for completion
             CompletableFuture.allOf(metricsFuture, quotaFuture, usageFuture).join();
@@ -32,7 +32,7 @@ public class UsageStatsService {
     /**
      * Record API key usage asynchronously to avoid blocking requests.
      */
-    @Async
+    @Async("quotaExecutor")
     @Transactional
     public void recordApiKeyUsage(UUID apiKeyId, String userFkId, String endpoint, 
                                  String method, String clientIp, RateLimitTier tier) {
@@ -33,18 +33,18 @@ public class UserDashboardService {
     private final ApiKeyMonthlyUsageRepository monthlyUsageRepository;
     private final ApiKeyRepository apiKeyRepository;
     private final UserRepository userRepository;
-    private final Executor transactionalAsyncExecutor;
+    private final Executor dashboardExecutor;
 
     public UserDashboardService(ApiKeyRequestLogRepository requestLogRepository,
                                 ApiKeyMonthlyUsageRepository monthlyUsageRepository,
                                 ApiKeyRepository apiKeyRepository,
                                 UserRepository userRepository,
-                                @Qualifier("transactionalAsyncExecutor") Executor transactionalAsyncExecutor) {
+                                @Qualifier("dashboardExecutor") Executor dashboardExecutor) {
         this.requestLogRepository = requestLogRepository;
         this.monthlyUsageRepository = monthlyUsageRepository;
         this.apiKeyRepository = apiKeyRepository;
         this.userRepository = userRepository;
-        this.transactionalAsyncExecutor = transactionalAsyncExecutor;
+        this.dashboardExecutor = dashboardExecutor;
     }
 
     /**
@@ -84,34 +84,34 @@ public class UserDashboardService {
         // Use a bounded shared executor to control DB concurrency and reduce pool contention
         // Parallel computation using CompletableFuture with bounded executor
         var currentCallsTask = CompletableFuture.supplyAsync(() -> 
-            requestLogRepository.countByUserFkIdAndRequestTimestampBetween(userId, thirtyDaysAgo, now), transactionalAsyncExecutor);
+            requestLogRepository.countByUserFkIdAndRequestTimestampBetween(userId, thirtyDaysAgo, now), dashboardExecutor);
             
         var previousCallsTask = CompletableFuture.supplyAsync(() -> 
-            requestLogRepository.countByUserFkIdAndRequestTimestampBetween(userId, sixtyDaysAgo, thirtyDaysAgo), transactionalAsyncExecutor);
+            requestLogRepository.countByUserFkIdAndRequestTimestampBetween(userId, sixtyDaysAgo, thirtyDaysAgo), dashboardExecutor);
             
         var activeDomainsTask = CompletableFuture.supplyAsync(() -> 
-            requestLogRepository.countDistinctDomainsByUserAndTimeRange(userId, thirtyDaysAgo, now), transactionalAsyncExecutor);
+            requestLogRepository.countDistinctDomainsByUserAndTimeRange(userId, thirtyDaysAgo, now), dashboardExecutor);
             
         var previousActiveDomainsTask = CompletableFuture.supplyAsync(() -> 
-            requestLogRepository.countDistinctDomainsByUserAndTimeRange(userId, sixtyDaysAgo, thirtyDaysAgo), transactionalAsyncExecutor);
+            requestLogRepository.countDistinctDomainsByUserAndTimeRange(userId, sixtyDaysAgo, thirtyDaysAgo), dashboardExecutor);
             
         var domainsAddedThisMonthTask = CompletableFuture.supplyAsync(() -> 
-            requestLogRepository.countNewDomainsForUserInMonth(userId, currentMonth), transactionalAsyncExecutor);
+            requestLogRepository.countNewDomainsForUserInMonth(userId, currentMonth), dashboardExecutor);
             
         var domainsAddedPreviousMonthTask = CompletableFuture.supplyAsync(() -> 
-            requestLogRepository.countNewDomainsForUserInMonth(userId, previousMonth), transactionalAsyncExecutor);
+            requestLogRepository.countNewDomainsForUserInMonth(userId, previousMonth), dashboardExecutor);
             
         var remainingQuotaTask = CompletableFuture.supplyAsync(() -> 
-            calculateRemainingQuotaForUser(userId, currentMonth), transactionalAsyncExecutor);
+            calculateRemainingQuotaForUser(userId, currentMonth), dashboardExecutor);
             
         var previousRemainingQuotaTask = CompletableFuture.supplyAsync(() -> 
-            calculateRemainingQuotaForUser(userId, previousMonth), transactionalAsyncExecutor);
+            calculateRemainingQuotaForUser(userId, previousMonth), dashboardExecutor);
             
         var successRateTask = CompletableFuture.supplyAsync(() -> 
-            calculateSuccessRateForUser(userId, thirtyDaysAgo, now), transactionalAsyncExecutor);
+            calculateSuccessRateForUser(userId, thirtyDaysAgo, now), dashboardExecutor);
             
         var totalApiKeysTask = CompletableFuture.supplyAsync(() -> 
-            apiKeyRepository.countByUserFkId(userId), transactionalAsyncExecutor);
+            apiKeyRepository.countByUserFkId(userId), dashboardExecutor);
         
         // Wait for all tasks to complete and build dashboard
         var currentCalls = currentCallsTask.join();
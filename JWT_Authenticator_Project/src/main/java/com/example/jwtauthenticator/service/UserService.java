@@ -4,6 +4,7 @@ import com.example.jwtauthenticator.dto.UserProfileUpdateRequestDTO;
 import com.example.jwtauthenticator.dto.UserResponseDTO;
 import com.example.jwtauthenticator.entity.User;
 import com.example.jwtauthenticator.repository.UserRepository;
+import com.example.jwtauthenticator.security.JwtUserDetailsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -25,6 +26,9 @@ public class UserService {
     @Autowired
     private FileStorageService fileStorageService;
 
+    @Autowired
+    private JwtUserDetailsService jwtUserDetailsService;
+
     public Optional<UserResponseDTO> getUserInfoByUserId(String userId) {
         Optional<User> userOptional = userRepository.findById(userId);
         return userOptional.map(UserResponseDTO::fromEntity);
@@ -104,6 +108,8 @@ public class UserService {
             // (Note: @PreUpdate in User entity will still handle `updatedAt = LocalDateTime.now();` automatically)
             // if (updateRequest.getUpdatedAt() != null) { user.setUpdatedAt(updateRequest.getUpdatedAt()); }
             
+            // Cached UserDetails are keyed by the username before this update
+            String previousUsername = user.getUsername();
             if (updateRequest.getUsername() != null) {
                 // IMPORTANT: If username is unique, you might still need to handle conflicts
                 // if (!user.getUsername().equals(updateRequest.getUsername()) && userRepository.existsByUsername(updateRequest.getUsername())) {
@@ -118,6 +124,7 @@ public class UserService {
 
             // Save the updated user (this will trigger @PreUpdate for updatedAt)
             User updatedUser = userRepository.save(user);
+            jwtUserDetailsService.evictUser(previousUsername);
             return Optional.of(UserResponseDTO.fromEntity(updatedUser));
         }
         return Optional.empty(); // User not found
@@ -0,0 +1,99 @@
+package com.example.jwtauthenticator.util;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.ArrayDeque;
+
+/**
+ * Counting semaphore for reactive pipelines: waiting for a permit parks a subscriber in a
+ * FIFO queue instead of blocking a thread. Permits are handed to waiters in arrival order.
+ */
+public final class AsyncSemaphore {
+
+    private final int permits;
+    private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+    private int available;
+
+    public AsyncSemaphore(int permits) {
+        if (permits < 1) {
+            throw new IllegalArgumentException("permits must be at least 1: " + permits);
+        }
+        this.permits = permits;
+        this.available = permits;
+    }
+
+    /**
+     * Run {@code work} while holding a permit. The permit is returned when the work
+     * completes, fails or is cancelled.
+     */
+    public <T> Mono<T> withPermit(Mono<T> work) {
+        return Mono.usingWhen(acquire(), permit -> work, permit -> Mono.fromRunnable(this::release));
+    }
+
+    public synchronized int availablePermits() {
+        return available;
+    }
+
+    public synchronized int queueLength() {
+        return waiters.size();
+    }
+
+    public int permits() {
+        return permits;
+    }
+
+    private Mono<AsyncSemaphore> acquire() {
+        return Mono.create(sink -> {
+            Waiter waiter = new Waiter(sink);
+            sink.onCancel(() -> {
+                synchronized (this) {
+                    waiter.cancelled = true;
+                    if (!waiter.granted) {
+                        waiters.remove(waiter);
+                        return;
+                    }
+                }
+                // Granted but not (or no longer) used by the subscriber: give the permit back
+                release();
+            });
+            synchronized (this) {
+                if (waiter.cancelled) {
+                    return;
+                }
+                if (available > 0) {
+                    available--;
+                    waiter.granted = true;
+                } else {
+                    waiters.addLast(waiter);
+                }
+            }
+            if (waiter.granted) {
+                sink.success(this);
+            }
+        });
+    }
+
+    private void release() {
+        Waiter next;
+        synchronized (this) {
+            next = waiters.pollFirst();
+            if (next == null) {
+                available++;
+                return;
+            }
+            next.granted = true;
+        }
+        next.sink.success(this);
+    }
+
+    private static final class Waiter {
+        private final MonoSink<AsyncSemaphore> sink;
+        private boolean granted;
+        private boolean cancelled;
+
+        private Waiter(MonoSink<AsyncSemaphore> sink) {
+            this.sink = sink;
+        }
+    }
+}
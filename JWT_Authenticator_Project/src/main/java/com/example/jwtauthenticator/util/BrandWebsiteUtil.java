@@ -0,0 +1,112 @@
+package com.example.jwtauthenticator.util;
+
+import com.google.common.net.InetAddresses;
+import com.google.common.net.InternetDomainName;
+
+import java.util.Locale;
+
+/**
+ * Utility class for the lookup keys stored alongside Brand.website.
+ * The keys are computed on write so brand lookups can use plain equality on indexed columns.
+ */
+public class BrandWebsiteUtil {
+
+    private BrandWebsiteUtil() {
+    }
+
+    /**
+     * Normalize a website for matching: lower-cased, without protocol, leading "www."
+     * and trailing slashes.
+     * Examples:
+     * - https://www.Example.com/ -> example.com
+     * - http://example.com/about -> example.com/about
+     *
+     * @param website The website or URL as entered or stored
+     * @return The normalized form, or null for a null input
+     */
+    public static String normalize(String website) {
+        if (website == null) {
+            return null;
+        }
+
+        String normalized = website.trim().toLowerCase(Locale.ROOT);
+        if (normalized.startsWith("https://")) {
+            normalized = normalized.substring(8);
+        } else if (normalized.startsWith("http://")) {
+            normalized = normalized.substring(7);
+        }
+        if (normalized.startsWith("www.")) {
+            normalized = normalized.substring(4);
+        }
+        int end = normalized.length();
+        while (end > 0 && normalized.charAt(end - 1) == '/') {
+            end--;
+        }
+        return normalized.substring(0, end);
+    }
+
+    /**
+     * Host of a website as matched against other brands: normalized (see {@link #normalize}),
+     * without path, query or port.
+     * Examples:
+     * - https://www.Blog.Example.com/post -> blog.example.com
+     * - http://localhost:8080/ -> localhost
+     *
+     * @param website The website or URL as entered or stored
+     * @return The host, or null if the website has none
+     */
+    public static String host(String website) {
+        String host = normalize(website);
+        if (host == null) {
+            return null;
+        }
+        int cut = indexOfAny(host, '/', '?', '#');
+        if (cut >= 0) {
+            host = host.substring(0, cut);
+        }
+        int port = host.lastIndexOf(':');
+        if (port >= 0) {
+            host = host.substring(0, port);
+        }
+        return host.isEmpty() ? null : host;
+    }
+
+    /**
+     * Registrable domain of a website: the host reduced to one label below its public suffix,
+     * using the Public Suffix List bundled with Guava.
+     * Examples:
+     * - https://blog.example.com/post -> example.com
+     * - shop.example.co.uk -> example.co.uk
+     * - x.github.io -> x.github.io (github.io is a suffix where anyone can register)
+     * - github.io -> github.io (a public suffix itself, or an unknown suffix, is kept as is)
+     *
+     * @param website The website or URL as entered or stored
+     * @return The registrable domain, or null if the website has no host
+     */
+    public static String registrableDomain(String website) {
+        String host = host(website);
+        if (host == null) {
+            return null;
+        }
+        if (host.indexOf('.') < 0 || InetAddresses.isInetAddress(host)) {
+            return host; // Single label or IP address
+        }
+        try {
+            InternetDomainName domainName = InternetDomainName.from(host);
+            return domainName.isUnderPublicSuffix() ? domainName.topPrivateDomain().toString() : host;
+        } catch (IllegalArgumentException e) {
+            return host; // Not a valid domain name, e.g. contains underscores
+        }
+    }
+
+    private static int indexOfAny(String value, char... chars) {
+        for (int i = 0; i < value.length(); i++) {
+            for (char c : chars) {
+                if (value.charAt(i) == c) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+}
@@ -33,6 +33,22 @@ public class DomainExtractionUtil {
         "[a-zA-Z0-9](?:[a-zA-Z0-9-]{0,61}[a-zA-Z0-9])?$"
     );
 
+    // IPv4 pattern
+    private static final Pattern IPV4_PATTERN = Pattern.compile(
+        "^(?:(?:25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?)\\.){3}" +
+        "(?:25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?)$"
+    );
+
+    // IPv6 pattern (simplified)
+    private static final Pattern IPV6_PATTERN = Pattern.compile(
+        "^(?:[0-9a-fA-F]{1,4}:){7}[0-9a-fA-F]{1,4}$|^::1$"
+    );
+
+    // Subdomain prefixes accepted per environment
+    private static final Pattern DEVELOPMENT_SUBDOMAIN = Pattern.compile("(dev|development|local|localhost).*");
+    private static final Pattern TESTING_SUBDOMAIN = Pattern.compile("(test|testing|qa|stage|staging).*");
+    private static final Pattern PRODUCTION_SUBDOMAIN = Pattern.compile("(prod|production|api|www|app)?.*");
+
     /**
      * Extract main domain from any domain (including subdomains)
      * Examples:
@@ -153,19 +169,8 @@ public class DomainExtractionUtil {
     public boolean isIpAddress(String domain) {
         if (domain == null) return false;
         
-        // IPv4 pattern
-        Pattern ipv4Pattern = Pattern.compile(
-            "^(?:(?:25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?)\\.){3}" +
-            "(?:25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?)$"
-        );
-        
-        // IPv6 pattern (simplified)
-        Pattern ipv6Pattern = Pattern.compile(
-            "^(?:[0-9a-fA-F]{1,4}:){7}[0-9a-fA-F]{1,4}$|^::1$"
-        );
-        
-        return ipv4Pattern.matcher(domain).matches() || 
-               ipv6Pattern.matcher(domain).matches();
+        return IPV4_PATTERN.matcher(domain).matches() || 
+               IPV6_PATTERN.matcher(domain).matches();
     }
 
     /**
@@ -194,9 +199,9 @@ public class DomainExtractionUtil {
         String env = environment.toLowerCase();
 
         return switch (env) {
-            case "development" -> subdomainPrefix.matches("(dev|development|local|localhost).*");
-            case "testing" -> subdomainPrefix.matches("(test|testing|qa|stage|staging).*");
-            case "production" -> subdomainPrefix.matches("(prod|production|api|www|app)?.*");
+            case "development" -> DEVELOPMENT_SUBDOMAIN.matcher(subdomainPrefix).matches();
+            case "testing" -> TESTING_SUBDOMAIN.matcher(subdomainPrefix).matches();
+            case "production" -> PRODUCTION_SUBDOMAIN.matcher(subdomainPrefix).matches();
             default -> true; // Allow any subdomain for unknown environments
         };
     }
@@ -0,0 +1,270 @@
+package com.example.jwtauthenticator.util;
+
+/**
+ * IP literal parsing and classification for proxy headers, without regex, DNS or string splitting.
+ *
+ * Replaces InetAddress.getByName on the request path, which resolves anything that is not an
+ * IP literal through DNS. Classification follows InetAddress: loopback (127/8, ::1), site-local
+ * (10/8, 172.16/12, 192.168/16, fec0::/10) and link-local (169.254/16, fe80::/10) addresses are
+ * {@link Scope#PRIVATE} or {@link Scope#LOOPBACK}; IPv4-mapped IPv6 addresses are classified as IPv4.
+ * Bracketed IPv6 literals and IPv6 zone ids are accepted.
+ */
+public final class IpAddressUtil {
+
+    public enum Scope { INVALID, LOOPBACK, PRIVATE, PUBLIC }
+
+    private IpAddressUtil() {
+    }
+
+    /**
+     * Whether the value is an IPv4 or IPv6 literal.
+     */
+    public static boolean isIpAddress(String value) {
+        return scope(value) != Scope.INVALID;
+    }
+
+    /**
+     * Whether the value is a dotted-quad IPv4 literal.
+     */
+    public static boolean isIpv4Address(String value) {
+        return value != null && parseIpv4(value, 0, value.length()) >= 0;
+    }
+
+    public static Scope scope(String value) {
+        return value != null ? scope(value, 0, value.length()) : Scope.INVALID;
+    }
+
+    /**
+     * Classify the literal in {@code value[from, to)}.
+     */
+    public static Scope scope(CharSequence value, int from, int to) {
+        if (to - from >= 2 && value.charAt(from) == '[' && value.charAt(to - 1) == ']') {
+            from++;
+            to--;
+        }
+        if (from >= to) {
+            return Scope.INVALID;
+        }
+        for (int i = from; i < to; i++) {
+            if (value.charAt(i) == ':') {
+                return ipv6Scope(value, from, to);
+            }
+        }
+        long ipv4 = parseIpv4(value, from, to);
+        return ipv4 >= 0 ? ipv4Scope(ipv4) : Scope.INVALID;
+    }
+
+    /**
+     * Best client address from a comma-separated proxy chain such as X-Forwarded-For, in one pass:
+     * the first public address, else the first private one, else the first loopback one, else the
+     * first entry as given. Entries are trimmed; only the returned entry is copied into a String.
+     */
+    public static String bestAddressFromChain(String chain) {
+        int firstStart = -1;
+        int firstEnd = -1;
+        int privateStart = -1;
+        int privateEnd = -1;
+        int loopbackStart = -1;
+        int loopbackEnd = -1;
+
+        int start = 0;
+        int length = chain.length();
+        while (true) {
+            int comma = chain.indexOf(',', start);
+            int end = comma < 0 ? length : comma;
+            while (start < end && Character.isWhitespace(chain.charAt(start))) {
+                start++;
+            }
+            while (end > start && Character.isWhitespace(chain.charAt(end - 1))) {
+                end--;
+            }
+            if (firstStart < 0) {
+                firstStart = start;
+                firstEnd = end;
+            }
+            switch (scope(chain, start, end)) {
+                case PUBLIC -> {
+                    return chain.substring(start, end);
+                }
+                case PRIVATE -> {
+                    if (privateStart < 0) {
+                        privateStart = start;
+                        privateEnd = end;
+                    }
+                }
+                case LOOPBACK -> {
+                    if (loopbackStart < 0) {
+                        loopbackStart = start;
+                        loopbackEnd = end;
+                    }
+                }
+                case INVALID -> {
+                }
+            }
+            if (comma < 0) {
+                break;
+            }
+            start = comma + 1;
+        }
+
+        if (privateStart >= 0) {
+            return chain.substring(privateStart, privateEnd);
+        }
+        if (loopbackStart >= 0) {
+            return chain.substring(loopbackStart, loopbackEnd);
+        }
+        return chain.substring(firstStart, firstEnd);
+    }
+
+    /**
+     * Dotted-quad IPv4 literal as an unsigned 32-bit value, or -1.
+     */
+    private static long parseIpv4(CharSequence value, int from, int to) {
+        long address = 0;
+        int i = from;
+        for (int octet = 0; octet < 4; octet++) {
+            if (octet > 0) {
+                if (i >= to || value.charAt(i) != '.') {
+                    return -1;
+                }
+                i++;
+            }
+            int start = i;
+            int octetValue = 0;
+            while (i < to && i - start < 3) {
+                char c = value.charAt(i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                octetValue = octetValue * 10 + (c - '0');
+                i++;
+            }
+            if (i == start || octetValue > 255) {
+                return -1;
+            }
+            address = address << 8 | octetValue;
+        }
+        return i == to ? address : -1;
+    }
+
+    private static Scope ipv4Scope(long address) {
+        int first = (int) (address >>> 24);
+        int second = (int) (address >>> 16) & 0xff;
+        if (first == 127) {
+            return Scope.LOOPBACK;
+        }
+        if (first == 10
+                || (first == 172 && (second & 0xf0) == 16)
+                || (first == 192 && second == 168)
+                || (first == 169 && second == 254)) {
+            return Scope.PRIVATE;
+        }
+        return Scope.PUBLIC;
+    }
+
+    private static Scope ipv6Scope(CharSequence value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (value.charAt(i) == '%') {
+                to = i; // zone id
+                break;
+            }
+        }
+
+        int[] groups = new int[8];
+        int count = 0;
+        int gap = -1;
+        int i = from;
+        if (to - from >= 2 && value.charAt(from) == ':' && value.charAt(from + 1) == ':') {
+            gap = 0;
+            i = from + 2;
+        } else if (i < to && value.charAt(i) == ':') {
+            return Scope.INVALID;
+        }
+
+        while (i < to) {
+            if (count == 8) {
+                return Scope.INVALID;
+            }
+            int start = i;
+            int group = 0;
+            while (i < to && i - start < 4) {
+                int digit = hexDigit(value.charAt(i));
+                if (digit < 0) {
+                    break;
+                }
+                group = group << 4 | digit;
+                i++;
+            }
+            if (i < to && value.charAt(i) == '.') {
+                // Embedded IPv4 tail, e.g. ::ffff:192.0.2.1
+                long ipv4 = count <= 6 ? parseIpv4(value, start, to) : -1;
+                if (ipv4 < 0) {
+                    return Scope.INVALID;
+                }
+                groups[count++] = (int) (ipv4 >>> 16);
+                groups[count++] = (int) (ipv4 & 0xffff);
+                break;
+            }
+            if (i == start) {
+                return Scope.INVALID;
+            }
+            groups[count++] = group;
+            if (i == to) {
+                break;
+            }
+            if (value.charAt(i) != ':') {
+                return Scope.INVALID;
+            }
+            i++;
+            if (i < to && value.charAt(i) == ':') {
+                if (gap >= 0) {
+                    return Scope.INVALID;
+                }
+                gap = count;
+                i++;
+            } else if (i == to) {
+                return Scope.INVALID;
+            }
+        }
+
+        if (gap < 0 ? count != 8 : count == 8) {
+            return Scope.INVALID;
+        }
+        if (gap >= 0) {
+            int tail = count - gap;
+            System.arraycopy(groups, gap, groups, 8 - tail, tail);
+            for (int j = gap; j < 8 - tail; j++) {
+                groups[j] = 0;
+            }
+        }
+
+        boolean zeroPrefix = true;
+        for (int j = 0; j < 5; j++) {
+            zeroPrefix &= groups[j] == 0;
+        }
+        if (zeroPrefix && groups[5] == 0xffff) {
+            return ipv4Scope((long) groups[6] << 16 | groups[7]);
+        }
+        if (zeroPrefix && groups[5] == 0 && groups[6] == 0 && groups[7] == 1) {
+            return Scope.LOOPBACK;
+        }
+        int prefix = groups[0] & 0xffc0;
+        if (prefix == 0xfe80 || prefix == 0xfec0) {
+            return Scope.PRIVATE;
+        }
+        return Scope.PUBLIC;
+    }
+
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+}
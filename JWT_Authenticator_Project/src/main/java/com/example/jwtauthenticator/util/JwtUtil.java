@@ -1,28 +1,70 @@
 package com.example.jwtauthenticator.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
+/**
+ * Issues and verifies JWTs.
+ *
+ * Verified claims are cached by the token's signature segment until the token expires
+ * (at most app.jwt.claims-cache.max-ttl-seconds), so repeated requests with the same
+ * token skip the HMAC check and the Base64/JSON parsing. Expired or invalid tokens are
+ * never cached. The signing key is derived once per secret.
+ */
 @Component
 public class JwtUtil {
 
+    // Authorities of the user at issue time, lets JwtRequestFilter authenticate without a DB read
+    public static final String ROLES_CLAIM = "roles";
+
     @Value("${jwt.secret:secret}")
     private String secretString;
-    
+
+    @Value("${app.jwt.claims-cache.max-size:10000}")
+    private long claimsCacheMaxSize = 10_000;
+
+    @Value("${app.jwt.claims-cache.max-ttl-seconds:300}")
+    private long claimsCacheMaxTtlSeconds = 300;
+
+    // Built on first use so the secret can be set after construction (tests)
+    private volatile SigningState signingState;
+
     private SecretKey getSecretKey() {
-        return Keys.hmacShaKeyFor(secretString.getBytes(StandardCharsets.UTF_8));
+        return signingState().key();
+    }
+
+    private SigningState signingState() {
+        SigningState state = signingState;
+        if (state == null || !state.secret().equals(secretString)) {
+            synchronized (this) {
+                state = signingState;
+                if (state == null || !state.secret().equals(secretString)) {
+                    state = new SigningState(secretString,
+                            Keys.hmacShaKeyFor(secretString.getBytes(StandardCharsets.UTF_8)),
+                            newClaimsCache());
+                    signingState = state;
+                }
+            }
+        }
+        return state;
     }
 
     public String extractUsername(String token) {
@@ -40,17 +82,89 @@ public class JwtUtil {
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
+        final Claims claims = parseClaims(token);
         return claimsResolver.apply(claims);
     }
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser().verifyWith(getSecretKey()).build().parseSignedClaims(token).getPayload();
+
+    /**
+     * Verified claims of the token, from the cache when the same token was seen before.
+     * Throws the usual JwtException subclasses for invalid or expired tokens.
+     */
+    public Claims parseClaims(String token) {
+        SigningState state = signingState();
+        String signature = signatureSegment(token);
+        if (signature != null) {
+            VerifiedToken cached = state.claimsCache().getIfPresent(signature);
+            // Compare the whole token: the cached claims belong to the header and payload that were verified
+            if (cached != null && cached.token().equals(token)) {
+                return cached.claims();
+            }
+        }
+        Claims claims = Jwts.parser().verifyWith(state.key()).build().parseSignedClaims(token).getPayload();
+        if (signature != null && claims.getExpiration() != null) {
+            state.claimsCache().put(signature, new VerifiedToken(token, claims));
+        }
+        return claims;
+    }
+
+    private static String signatureSegment(String token) {
+        if (token == null) {
+            return null;
+        }
+        int lastDot = token.lastIndexOf('.');
+        return lastDot > 0 && lastDot < token.length() - 1 ? token.substring(lastDot + 1) : null;
+    }
+
+    private Cache<String, VerifiedToken> newClaimsCache() {
+        long maxTtlNanos = TimeUnit.SECONDS.toNanos(claimsCacheMaxTtlSeconds);
+        return Caffeine.newBuilder()
+                .maximumSize(claimsCacheMaxSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+                        long untilExpiry = TimeUnit.MILLISECONDS.toNanos(
+                                value.claims().getExpiration().getTime() - System.currentTimeMillis());
+                        return Math.max(0, Math.min(maxTtlNanos, untilExpiry));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    private record SigningState(String secret, SecretKey key, Cache<String, VerifiedToken> claimsCache) {
+    }
+
+    private record VerifiedToken(String token, Claims claims) {
     }
 
     public Boolean isTokenExpired(String token) {
         return extractExpiration(token).before(new Date());
     }
 
+    /**
+     * Authorities from the roles claim, or null for tokens issued without it.
+     */
+    public List<String> extractRoles(Claims claims) {
+        Object roles = claims.get(ROLES_CLAIM);
+        if (!(roles instanceof List<?> list)) {
+            return null;
+        }
+        return list.stream().map(String::valueOf).toList();
+    }
+
+    private static boolean isExpired(Claims claims) {
+        return claims.getExpiration() != null && claims.getExpiration().before(new Date());
+    }
+
     // Token expiration times in milliseconds
     private static final long ACCESS_TOKEN_EXPIRATION = 1000 * 60 * 60 * 10; // 10 hours
     private static final long REFRESH_TOKEN_EXPIRATION = 1000 * 60 * 60 * 24 * 7; // 7 days
@@ -58,6 +172,7 @@ public class JwtUtil {
     public String generateToken(UserDetails userDetails, String userId) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("userId", userId);
+        claims.put(ROLES_CLAIM, userDetails.getAuthorities().stream().map(GrantedAuthority::getAuthority).toList());
         return createToken(claims, userDetails.getUsername(), ACCESS_TOKEN_EXPIRATION);
     }
 
@@ -84,10 +199,17 @@ public class JwtUtil {
 
     public Boolean validateToken(String token, UserDetails userDetails) {
         try {
-            final String username = extractUsername(token);
-            return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+            return validateToken(parseClaims(token), userDetails);
         } catch (io.jsonwebtoken.ExpiredJwtException | io.jsonwebtoken.SignatureException | io.jsonwebtoken.MalformedJwtException | io.jsonwebtoken.UnsupportedJwtException | IllegalArgumentException e) {
             return false;
         }
     }
+
+    /**
+     * Same as {@link #validateToken(String, UserDetails)} for claims already parsed in this request.
+     */
+    public boolean validateToken(Claims claims, UserDetails userDetails) {
+        final String username = claims.getSubject();
+        return username != null && username.equals(userDetails.getUsername()) && !isExpired(claims);
+    }
 }
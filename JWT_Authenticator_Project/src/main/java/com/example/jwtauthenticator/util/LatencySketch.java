@@ -0,0 +1,182 @@
+package com.example.jwtauthenticator.util;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Mergeable quantile sketch for durations in milliseconds.
+ *
+ * Values are counted in logarithmic buckets with 1% relative width, so any quantile is
+ * within 1% of the exact value and two sketches merge by adding bucket counts (exactly
+ * what the same values recorded into one sketch would give). Typical request latencies
+ * occupy a few hundred buckets at most; {@link #toBytes()} stores only the non-empty ones.
+ *
+ * Not thread-safe; callers guard concurrent recording.
+ */
+public final class LatencySketch {
+
+    /**
+     * Maximum relative error of a reported quantile
+     */
+    public static final double RELATIVE_ACCURACY = 0.01;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final byte FORMAT_VERSION = 1;
+
+    /**
+     * Values of 0 ms (and negative values, which are clamped)
+     */
+    private long zeroCount;
+
+    /**
+     * counts[i] = values v with GAMMA^(i-1) < v <= GAMMA^i
+     */
+    private long[] counts = new long[0];
+
+    private long count;
+
+    public void record(long valueMs) {
+        if (valueMs <= 0) {
+            zeroCount++;
+        } else {
+            int index = indexOf(valueMs);
+            ensureCapacity(index + 1);
+            counts[index]++;
+        }
+        count++;
+    }
+
+    public void merge(LatencySketch other) {
+        if (other == null || other.count == 0) {
+            return;
+        }
+        ensureCapacity(other.counts.length);
+        for (int i = 0; i < other.counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        zeroCount += other.zeroCount;
+        count += other.count;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Value at quantile {@code q} (0..1), or 0 for an empty sketch
+     */
+    public long quantile(double q) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.floor(Math.max(0.0, Math.min(1.0, q)) * (count - 1));
+        long seen = zeroCount;
+        if (seen > rank) {
+            return 0;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen > rank) {
+                return valueOf(i);
+            }
+        }
+        return valueOf(counts.length - 1);
+    }
+
+    // ==================== SERIALIZATION ====================
+
+    /**
+     * Version, zero count, then (index delta, count) per non-empty bucket, all as varints
+     */
+    public byte[] toBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + counts.length / 4);
+        out.write(FORMAT_VERSION);
+        writeVarLong(out, zeroCount);
+        int nonEmpty = 0;
+        for (long c : counts) {
+            if (c != 0) {
+                nonEmpty++;
+            }
+        }
+        writeVarLong(out, nonEmpty);
+        int previous = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                writeVarLong(out, i - previous);
+                writeVarLong(out, counts[i]);
+                previous = i;
+            }
+        }
+        return out.toByteArray();
+    }
+
+    public static LatencySketch fromBytes(byte[] bytes) {
+        LatencySketch sketch = new LatencySketch();
+        if (bytes == null || bytes.length == 0) {
+            return sketch;
+        }
+        if (bytes[0] != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported latency sketch format: " + bytes[0]);
+        }
+        int[] pos = {1};
+        sketch.zeroCount = readVarLong(bytes, pos);
+        sketch.count = sketch.zeroCount;
+        long nonEmpty = readVarLong(bytes, pos);
+        int index = 0;
+        for (long n = 0; n < nonEmpty; n++) {
+            index += (int) readVarLong(bytes, pos);
+            long c = readVarLong(bytes, pos);
+            sketch.ensureCapacity(index + 1);
+            sketch.counts[index] += c;
+            sketch.count += c;
+        }
+        return sketch;
+    }
+
+    // ==================== HELPERS ====================
+
+    private static int indexOf(long valueMs) {
+        return (int) Math.ceil(Math.log(valueMs) / LOG_GAMMA);
+    }
+
+    /**
+     * Midpoint of the bucket, which keeps the relative error of every value in it within the accuracy
+     */
+    private static long valueOf(int index) {
+        return Math.round(2 * Math.pow(GAMMA, index) / (GAMMA + 1));
+    }
+
+    private void ensureCapacity(int size) {
+        if (counts.length < size) {
+            counts = Arrays.copyOf(counts, Math.max(size, counts.length + (counts.length >> 1)));
+        }
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(byte[] bytes, int[] pos) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (pos[0] >= bytes.length) {
+                throw new IllegalArgumentException("Truncated latency sketch");
+            }
+            byte b = bytes[pos[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed latency sketch");
+    }
+}
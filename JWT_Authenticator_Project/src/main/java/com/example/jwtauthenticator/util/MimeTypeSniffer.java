@@ -0,0 +1,79 @@
+package com.example.jwtauthenticator.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Detects the image types brand assets come in from the first bytes of a file, so the
+ * stored MIME type does not depend on the URL having a meaningful extension.
+ */
+public final class MimeTypeSniffer {
+
+    /**
+     * Number of leading bytes needed by {@link #sniff(byte[], int)}
+     */
+    public static final int SNIFF_BYTES = 256;
+
+    private MimeTypeSniffer() {
+    }
+
+    /**
+     * MIME type for the leading bytes of a file, or null when not recognised
+     */
+    public static String sniff(byte[] head, int length) {
+        int n = Math.min(length, head.length);
+        if (startsWith(head, n, 0x89, 'P', 'N', 'G')) {
+            return "image/png";
+        }
+        if (startsWith(head, n, 0xFF, 0xD8, 0xFF)) {
+            return "image/jpeg";
+        }
+        if (startsWith(head, n, 'G', 'I', 'F', '8')) {
+            return "image/gif";
+        }
+        if (n >= 12 && startsWith(head, n, 'R', 'I', 'F', 'F') && head[8] == 'W' && head[9] == 'E'
+                && head[10] == 'B' && head[11] == 'P') {
+            return "image/webp";
+        }
+        if (n >= 12 && head[4] == 'f' && head[5] == 't' && head[6] == 'y' && head[7] == 'p'
+                && head[8] == 'a' && head[9] == 'v' && head[10] == 'i' && (head[11] == 'f' || head[11] == 's')) {
+            return "image/avif";
+        }
+        if (startsWith(head, n, 0x00, 0x00, 0x01, 0x00)) {
+            return "image/x-icon";
+        }
+        if (startsWith(head, n, 'B', 'M')) {
+            return "image/bmp";
+        }
+        if (startsWith(head, n, '%', 'P', 'D', 'F')) {
+            return "application/pdf";
+        }
+
+        // Text formats: skip a BOM and leading whitespace
+        String text = new String(head, 0, n, StandardCharsets.UTF_8).toLowerCase(Locale.ROOT);
+        if (text.startsWith("\uFEFF")) {
+            text = text.substring(1);
+        }
+        text = text.stripLeading();
+        if (text.startsWith("<svg")
+                || ((text.startsWith("<?xml") || text.startsWith("<!doctype svg")) && text.contains("<svg"))) {
+            return "image/svg+xml";
+        }
+        if (text.startsWith("<!doctype html") || text.startsWith("<html")) {
+            return "text/html";
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] head, int length, int... prefix) {
+        if (length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if ((head[i] & 0xFF) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
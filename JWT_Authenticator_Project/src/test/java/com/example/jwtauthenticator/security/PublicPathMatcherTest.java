@@ -0,0 +1,58 @@
+package com.example.jwtauthenticator.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PublicPathMatcherTest {
+
+    private final PublicPathMatcher endpoints = PublicPathMatcher.builder()
+            .endpoint("/auth/login", "/test", "/swagger-ui", "/swagger-ui.html", "/v3/api-docs")
+            .nested("/webjars")
+            .suffix("/", "/myapp")
+            .build();
+
+    private final PublicPathMatcher prefixes = PublicPathMatcher.builder()
+            .prefix("/auth/", "/actuator/health")
+            .exact("/api/brands/all")
+            .build();
+
+    @Test
+    void endpoint_shouldMatchAtSegmentBoundariesAnywhereInPath() {
+        assertTrue(endpoints.matches("/auth/login"));
+        assertTrue(endpoints.matches("/myapp/auth/login"));
+        assertTrue(endpoints.matches("/auth/login/extra"));
+        assertTrue(endpoints.matches("/swagger-ui/index.html"));
+        assertTrue(endpoints.matches("/v3/api-docs"));
+        assertTrue(endpoints.matches("/test.html"));
+
+        assertFalse(endpoints.matches("/auth/loginx"));
+        assertFalse(endpoints.matches("/latest"));
+        assertFalse(endpoints.matches("/api/secure/rivofetch"));
+    }
+
+    @Test
+    void nested_shouldRequireTrailingSegment() {
+        assertTrue(endpoints.matches("/webjars/app.js"));
+        assertFalse(endpoints.matches("/webjars"));
+    }
+
+    @Test
+    void suffix_shouldMatchPathEnd() {
+        assertTrue(endpoints.matches("/api/brands/"));
+        assertTrue(endpoints.matches("/context/myapp"));
+    }
+
+    @Test
+    void prefixAndExact_shouldMatchLikeStartsWithAndEquals() {
+        assertTrue(prefixes.matches("/auth/register"));
+        assertTrue(prefixes.matches("/actuator/health/liveness"));
+        assertTrue(prefixes.matches("/api/brands/all"));
+
+        assertFalse(prefixes.matches("/auth"));
+        assertFalse(prefixes.matches("/api/brands/all/1"));
+        assertFalse(prefixes.matches("/api/secure/rivofetch"));
+        assertFalse(prefixes.matches(null));
+    }
+}
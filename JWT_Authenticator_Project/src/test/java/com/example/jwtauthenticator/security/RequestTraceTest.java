@@ -0,0 +1,97 @@
+package com.example.jwtauthenticator.security;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.example.jwtauthenticator.service.RequestContextExtractorService;
+import com.example.jwtauthenticator.util.JwtUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+@DisplayName("RequestTrace Tests")
+class RequestTraceTest {
+
+    private JwtRequestFilter filter;
+    private ListAppender<ILoggingEvent> appender;
+    private Logger filterLogger;
+
+    @BeforeEach
+    void setUp() {
+        filter = new JwtRequestFilter(mock(JwtUtil.class), mock(JwtUserDetailsService.class),
+                mock(RequestContextExtractorService.class));
+        filterLogger = (Logger) LoggerFactory.getLogger(JwtRequestFilter.class);
+        appender = new ListAppender<>();
+        appender.start();
+        filterLogger.addAppender(appender);
+    }
+
+    @AfterEach
+    void tearDown() {
+        filterLogger.detachAppender(appender);
+    }
+
+    @Test
+    @DisplayName("Should create a new trace per request and attach it as a request attribute")
+    void begin_ShouldAttachTraceToRequest() {
+        MockHttpServletRequest first = new MockHttpServletRequest("GET", "/api/first");
+        MockHttpServletRequest second = new MockHttpServletRequest("GET", "/api/second");
+
+        RequestTrace firstTrace = RequestTrace.begin(first);
+        RequestTrace secondTrace = RequestTrace.begin(second);
+
+        assertNotSame(firstTrace, secondTrace);
+        assertSame(firstTrace, first.getAttribute(RequestTrace.ATTRIBUTE));
+        assertTrue(firstTrace.format(0).startsWith("path=/api/first auth=NONE outcome=OK"));
+    }
+
+    @Test
+    @DisplayName("Should log a slow request at WARN regardless of sampling")
+    void emitTrace_SlowRequest_ShouldWarn() {
+        ReflectionTestUtils.setField(filter, "slowThresholdMillis", 0L);
+        ReflectionTestUtils.setField(filter, "traceSampleRate", 0.0);
+        RequestTrace trace = RequestTrace.begin(new MockHttpServletRequest("GET", "/api/slow"));
+        trace.authMethod("JWT");
+        trace.mark(RequestTrace.Stage.AUTHENTICATE);
+
+        filter.emitTrace(trace);
+
+        assertEquals(1, appender.list.size());
+        ILoggingEvent event = appender.list.get(0);
+        assertEquals(Level.WARN, event.getLevel());
+        assertTrue(event.getFormattedMessage().startsWith("Slow request trace: path=/api/slow auth=JWT"));
+    }
+
+    @Test
+    @DisplayName("Should log a sampled request at INFO")
+    void emitTrace_SampledRequest_ShouldLogInfo() {
+        ReflectionTestUtils.setField(filter, "slowThresholdMillis", 60_000L);
+        ReflectionTestUtils.setField(filter, "traceSampleRate", 1.0);
+
+        filter.emitTrace(RequestTrace.begin(new MockHttpServletRequest("GET", "/api/sampled")));
+
+        assertEquals(1, appender.list.size());
+        ILoggingEvent event = appender.list.get(0);
+        assertEquals(Level.INFO, event.getLevel());
+        assertTrue(event.getFormattedMessage().startsWith("Request trace: path=/api/sampled"));
+    }
+
+    @Test
+    @DisplayName("Should not log a fast request that was not sampled")
+    void emitTrace_FastUnsampledRequest_ShouldNotLog() {
+        ReflectionTestUtils.setField(filter, "slowThresholdMillis", 60_000L);
+        ReflectionTestUtils.setField(filter, "traceSampleRate", 0.0);
+
+        filter.emitTrace(RequestTrace.begin(new MockHttpServletRequest("GET", "/api/fast")));
+
+        assertTrue(appender.list.isEmpty());
+    }
+}
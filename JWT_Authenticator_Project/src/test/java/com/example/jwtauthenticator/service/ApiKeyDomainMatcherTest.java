@@ -0,0 +1,70 @@
+package com.example.jwtauthenticator.service;
+
+import com.example.jwtauthenticator.entity.ApiKey;
+import com.example.jwtauthenticator.enums.ApiKeyEnvironment;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ApiKeyDomainMatcherTest {
+
+    private final DomainValidationService domainValidationService = new DomainValidationService();
+
+    private ApiKey apiKey(ApiKeyEnvironment environment) {
+        return ApiKey.builder()
+                .id(UUID.randomUUID())
+                .registeredDomain("www.Example.com")
+                .allowedDomains("partner.org, example.com")
+                .mainDomain("example.com")
+                .subdomainPattern("*.example.com")
+                .environment(environment)
+                .build();
+    }
+
+    @Test
+    void matchAllowed_shouldPreferRegisteredDomain() {
+        ApiKeyDomainMatcher matcher = domainValidationService.matcherFor(apiKey(ApiKeyEnvironment.PRODUCTION));
+
+        assertEquals(ApiKeyDomainMatcher.Match.PRIMARY, matcher.matchAllowed("example.com"));
+        assertEquals(ApiKeyDomainMatcher.Match.ADDITIONAL, matcher.matchAllowed("partner.org"));
+        assertNull(matcher.matchAllowed("api.example.com"));
+    }
+
+    @Test
+    void allowsKeyDomain_shouldMatchIsValidDomain() {
+        ApiKey key = apiKey(ApiKeyEnvironment.PRODUCTION);
+        ApiKeyDomainMatcher matcher = domainValidationService.matcherFor(key);
+
+        for (String domain : new String[] {"example.com", "api.example.com", "prod.eu.example.com",
+                "test.example.com", "partner.org", "localhost", "evil-example.com", "example.com.evil.io"}) {
+            assertEquals(key.isValidDomain(domain), matcher.allowsKeyDomain(domain), domain);
+        }
+        assertTrue(matcher.allowsKeyDomain("API.Example.com"));
+        assertFalse(matcher.allowsKeyDomain("test.example.com"));
+    }
+
+    @Test
+    void allowsKeyDomain_shouldAcceptDevelopmentDomainsForDevelopmentKeys() {
+        assertTrue(domainValidationService.matcherFor(apiKey(ApiKeyEnvironment.DEVELOPMENT)).allowsKeyDomain("localhost"));
+        assertFalse(domainValidationService.matcherFor(apiKey(ApiKeyEnvironment.PRODUCTION)).allowsKeyDomain("localhost"));
+    }
+
+    @Test
+    void matcherFor_shouldRecompileWhenDomainsChange() {
+        ApiKey key = apiKey(ApiKeyEnvironment.PRODUCTION);
+        ApiKeyDomainMatcher first = domainValidationService.matcherFor(key);
+        assertTrue(first == domainValidationService.matcherFor(key));
+
+        key.setAllowedDomains("partner.org,shop.example.net");
+        ApiKeyDomainMatcher second = domainValidationService.matcherFor(key);
+
+        assertFalse(first == second);
+        assertEquals(ApiKeyDomainMatcher.Match.ADDITIONAL, second.matchAllowed("shop.example.net"));
+        assertTrue(domainValidationService.validateDomain(key, "shop.example.net").isValid());
+    }
+}
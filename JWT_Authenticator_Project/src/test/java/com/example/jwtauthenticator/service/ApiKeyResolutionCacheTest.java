@@ -0,0 +1,117 @@
+package com.example.jwtauthenticator.service;
+
+import com.example.jwtauthenticator.entity.ApiKey;
+import com.example.jwtauthenticator.enums.RateLimitTier;
+import com.example.jwtauthenticator.repository.ApiKeyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ApiKeyResolutionCache Tests")
+class ApiKeyResolutionCacheTest {
+
+    @Mock
+    private ApiKeyRepository apiKeyRepository;
+
+    private ApiKeyResolutionCache cache;
+    private ApiKey apiKey;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ApiKeyResolutionCache(apiKeyRepository);
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxSize", 100L);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 60L);
+        ReflectionTestUtils.setField(cache, "negativeTtlSeconds", 10L);
+        cache.init();
+
+        apiKey = ApiKey.builder()
+                .id(UUID.randomUUID())
+                .keyHash("hash-1")
+                .userFkId("DOMBR000001")
+                .name("Test Key")
+                .isActive(true)
+                .rateLimitTier(RateLimitTier.PRO_TIER)
+                .scopes("READ_BRANDS")
+                .expiresAt(LocalDateTime.now().plusDays(30))
+                .build();
+    }
+
+    @Test
+    @DisplayName("Should hit the database only once for repeated lookups")
+    void resolve_RepeatedLookups_ShouldLoadOnce() {
+        when(apiKeyRepository.findByKeyHash("hash-1")).thenReturn(Optional.of(apiKey));
+
+        Optional<ApiKeyResolutionCache.ResolvedApiKey> first = cache.resolve("hash-1");
+        Optional<ApiKeyResolutionCache.ResolvedApiKey> second = cache.resolve("hash-1");
+
+        assertTrue(first.isPresent());
+        assertTrue(second.isPresent());
+        assertEquals(apiKey.getId(), second.get().id());
+        assertEquals(RateLimitTier.PRO_TIER, second.get().effectiveRateLimitTier());
+        verify(apiKeyRepository, times(1)).findByKeyHash("hash-1");
+    }
+
+    @Test
+    @DisplayName("Should cache unknown key hashes")
+    void resolve_UnknownKey_ShouldCacheNegativeResult() {
+        when(apiKeyRepository.findByKeyHash("missing")).thenReturn(Optional.empty());
+
+        assertTrue(cache.resolve("missing").isEmpty());
+        assertTrue(cache.resolve("missing").isEmpty());
+
+        verify(apiKeyRepository, times(1)).findByKeyHash("missing");
+    }
+
+    @Test
+    @DisplayName("Should reload after invalidation")
+    void invalidate_ShouldForceReload() {
+        when(apiKeyRepository.findByKeyHash("hash-1")).thenReturn(Optional.of(apiKey));
+        cache.resolve("hash-1");
+
+        apiKey.setActive(false);
+        cache.invalidate(apiKey);
+
+        Optional<ApiKeyResolutionCache.ResolvedApiKey> reloaded = cache.resolve("hash-1");
+        assertTrue(reloaded.isPresent());
+        assertFalse(reloaded.get().isUsable(LocalDateTime.now()));
+        verify(apiKeyRepository, times(2)).findByKeyHash("hash-1");
+    }
+
+    @Test
+    @DisplayName("Should drop the old hash entry when invalidated by id")
+    void invalidateById_ShouldDropEntryForOldHash() {
+        when(apiKeyRepository.findByKeyHash("hash-1")).thenReturn(Optional.of(apiKey));
+        cache.resolve("hash-1");
+        assertEquals(1, cache.size());
+
+        cache.invalidateById(apiKey.getId());
+
+        cache.resolve("hash-1");
+        verify(apiKeyRepository, times(2)).findByKeyHash("hash-1");
+    }
+
+    @Test
+    @DisplayName("Should treat expired keys as unusable")
+    void resolvedKey_Expired_ShouldNotBeUsable() {
+        apiKey.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+        when(apiKeyRepository.findByKeyHash("hash-1")).thenReturn(Optional.of(apiKey));
+
+        ApiKeyResolutionCache.ResolvedApiKey resolved = cache.resolve("hash-1").orElseThrow();
+
+        assertFalse(resolved.isUsable(LocalDateTime.now()));
+        assertEquals(apiKey.getUserFkId(), resolved.toEntity().getUserFkId());
+    }
+}
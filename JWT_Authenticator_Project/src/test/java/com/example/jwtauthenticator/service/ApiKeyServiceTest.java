@@ -40,6 +40,12 @@ class ApiKeyServiceTest {
     @Mock
     private ApiKeyHashUtil apiKeyHashUtil;
 
+    @Mock
+    private ApiKeyResolutionCache apiKeyResolutionCache;
+
+    @Mock
+    private InMemoryRateLimitEngine inMemoryRateLimitEngine;
+
     @InjectMocks
     private ApiKeyService apiKeyService;
 
@@ -3,8 +3,7 @@ package com.example.jwtauthenticator.service;
 import com.example.jwtauthenticator.entity.Brand;
 import com.example.jwtauthenticator.entity.BrandCategory;
 import com.example.jwtauthenticator.entity.BrandSubCategory;
-import com.example.jwtauthenticator.repository.BrandCategoryRepository;
-import com.example.jwtauthenticator.repository.BrandSubCategoryRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -13,22 +12,17 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDateTime;
-import java.util.Optional;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.anyString;
-import static org.mockito.ArgumentMatchers.eq;
-import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verifyNoInteractions;
 
 @ExtendWith(MockitoExtension.class)
 class BrandCategoryResolutionServiceTest {
 
     @Mock
-    private BrandCategoryRepository brandCategoryRepository;
-
-    @Mock
-    private BrandSubCategoryRepository brandSubCategoryRepository;
+    private CategoryService categoryService;
 
     @InjectMocks
     private BrandCategoryResolutionService brandCategoryResolutionService;
@@ -37,7 +31,7 @@ class BrandCategoryResolutionServiceTest {
     private BrandSubCategory testSubCategory;
 
     @BeforeEach
-    void setUp() {
+    void setUp() throws Exception {
         testCategory = BrandCategory.builder()
                 .id(1L)
                 .categoryName("Technology")
@@ -56,14 +50,20 @@ class BrandCategoryResolutionServiceTest {
                 .createdDate(LocalDateTime.now())
                 .lastModifiedDate(LocalDateTime.now())
                 .build();
+
+        BrandCategory inactiveCategory = BrandCategory.builder()
+                .id(2L)
+                .categoryName("Retired")
+                .isActive(false)
+                .build();
+
+        CategoryHierarchySnapshot snapshot = CategoryHierarchySnapshot.build(
+                List.of(testCategory, inactiveCategory), List.of(testSubCategory), List.of(), List.of(), new ObjectMapper());
+        lenient().when(categoryService.getHierarchySnapshot()).thenReturn(snapshot);
     }
 
     @Test
     void testResolveCategoryIds_MatchesCategory() {
-        // Given
-        lenient().when(brandCategoryRepository.findByCategoryNameIgnoreCaseAndIsActive("Technology", true))
-                .thenReturn(Optional.of(testCategory));
-
         // When
         BrandCategoryResolutionService.CategoryResolutionResult result = 
                 brandCategoryResolutionService.resolveCategoryIds("Technology");
@@ -76,12 +76,6 @@ class BrandCategoryResolutionServiceTest {
 
     @Test
     void testResolveCategoryIds_MatchesSubCategory() {
-        // Given
-        when(brandCategoryRepository.findByCategoryNameIgnoreCaseAndIsActive("Software", true))
-                .thenReturn(Optional.empty());
-        when(brandSubCategoryRepository.findBySubCategoryNameIgnoreCaseAndIsActive("Software", true))
-                .thenReturn(Optional.of(testSubCategory));
-
         // When
         BrandCategoryResolutionService.CategoryResolutionResult result = 
                 brandCategoryResolutionService.resolveCategoryIds("Software");
@@ -94,12 +88,6 @@ class BrandCategoryResolutionServiceTest {
 
     @Test
     void testResolveCategoryIds_NoMatch() {
-        // Given
-        lenient().when(brandCategoryRepository.findByCategoryNameIgnoreCaseAndIsActive(anyString(), eq(true)))
-                .thenReturn(Optional.empty());
-        lenient().when(brandSubCategoryRepository.findBySubCategoryNameIgnoreCaseAndIsActive(anyString(), eq(true)))
-                .thenReturn(Optional.empty());
-
         // When
         BrandCategoryResolutionService.CategoryResolutionResult result = 
                 brandCategoryResolutionService.resolveCategoryIds("Unknown Industry");
@@ -136,10 +124,6 @@ class BrandCategoryResolutionServiceTest {
 
     @Test
     void testResolveCategoryIds_CaseInsensitive() {
-        // Given
-        when(brandCategoryRepository.findByCategoryNameIgnoreCaseAndIsActive("TECHNOLOGY", true))
-                .thenReturn(Optional.of(testCategory));
-
         // When
         BrandCategoryResolutionService.CategoryResolutionResult result = 
                 brandCategoryResolutionService.resolveCategoryIds("TECHNOLOGY");
@@ -150,6 +134,26 @@ class BrandCategoryResolutionServiceTest {
         assertNull(result.getSubCategoryId());
     }
 
+    @Test
+    void testResolveCategoryIds_IgnoresInactiveCategory() {
+        // When
+        BrandCategoryResolutionService.CategoryResolutionResult result = 
+                brandCategoryResolutionService.resolveCategoryIds("Retired");
+
+        // Then
+        assertNull(result.getCategoryId());
+        assertNull(result.getSubCategoryId());
+    }
+
+    @Test
+    void testResolveCategoryIds_NullIndustryDoesNotLoadSnapshot() {
+        // When
+        brandCategoryResolutionService.resolveCategoryIds(null);
+
+        // Then
+        verifyNoInteractions(categoryService);
+    }
+
     @Test
     void testSetCategoryIds() {
         // Given
@@ -158,9 +162,6 @@ class BrandCategoryResolutionServiceTest {
                 .industry("Technology")
                 .build();
 
-        when(brandCategoryRepository.findByCategoryNameIgnoreCaseAndIsActive("Technology", true))
-                .thenReturn(Optional.of(testCategory));
-
         // When
         brandCategoryResolutionService.setCategoryIds(brand);
 
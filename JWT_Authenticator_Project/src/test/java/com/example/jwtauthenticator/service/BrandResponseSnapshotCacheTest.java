@@ -0,0 +1,75 @@
+package com.example.jwtauthenticator.service;
+
+import com.example.jwtauthenticator.entity.Brand;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("BrandResponseSnapshotCache Tests")
+class BrandResponseSnapshotCacheTest {
+
+    private BrandResponseSnapshotCache cache;
+    private AtomicInteger serializations;
+    private Function<Brand, String> serializer;
+
+    @BeforeEach
+    void setUp() {
+        cache = new BrandResponseSnapshotCache(new SimpleMeterRegistry(), 1024 * 1024, 60);
+        serializations = new AtomicInteger();
+        serializer = brand -> "{\"name\":\"" + brand.getName() + "\",\"v\":" + serializations.incrementAndGet() + "}";
+    }
+
+    private Brand brand(LocalDateTime updatedAt) {
+        Brand brand = Brand.builder().id(1L).name("Acme").website("https://acme.com").build();
+        brand.setUpdatedAt(updatedAt);
+        return brand;
+    }
+
+    @Test
+    @DisplayName("Should serialize once while updatedAt is unchanged")
+    void get_SameVersion_ShouldReuseSnapshot() {
+        LocalDateTime updatedAt = LocalDateTime.now();
+
+        String first = cache.get(brand(updatedAt), serializer);
+        String second = cache.get(brand(updatedAt), serializer);
+
+        assertSame(first, second);
+        assertEquals(1, serializations.get());
+    }
+
+    @Test
+    @DisplayName("Should rebuild the snapshot when the brand changed or was invalidated")
+    void get_NewVersionOrInvalidated_ShouldReserialize() {
+        LocalDateTime updatedAt = LocalDateTime.now();
+        cache.get(brand(updatedAt), serializer);
+
+        cache.get(brand(updatedAt.plusSeconds(1)), serializer);
+        assertEquals(2, serializations.get());
+
+        cache.invalidate(1L);
+        cache.get(brand(updatedAt.plusSeconds(1)), serializer);
+        assertEquals(3, serializations.get());
+    }
+
+    @Test
+    @DisplayName("Should not store a snapshot serialized before an invalidation")
+    void get_InvalidatedWhileSerializing_ShouldNotCacheStaleSnapshot() {
+        LocalDateTime updatedAt = LocalDateTime.now();
+
+        cache.get(brand(updatedAt), brand -> {
+            // Asset statuses commit while the children are being read
+            cache.invalidate(1L);
+            return serializer.apply(brand);
+        });
+        cache.get(brand(updatedAt), serializer);
+
+        assertEquals(2, serializations.get());
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.jwtauthenticator.service;
+
+import com.example.jwtauthenticator.entity.AssetBlob;
+import com.example.jwtauthenticator.repository.AssetBlobRepository;
+import com.example.jwtauthenticator.repository.AssetSourceValidatorRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ContentAddressedAssetStoreTest {
+
+    private static final String SHA = "ab" + "0".repeat(62);
+
+    @Mock
+    private AssetBlobRepository blobRepository;
+
+    @Mock
+    private AssetSourceValidatorRepository validatorRepository;
+
+    @Mock
+    private SftpFileStorageService sftpFileStorageService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private ContentAddressedAssetStore store;
+
+    private final AssetDownloadClient.DownloadedFile file = new AssetDownloadClient.DownloadedFile(
+            Path.of("download-1.part"), 42, "image/png", SHA, null, null);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(store, "enabled", true);
+        ReflectionTestUtils.setField(store, "conditionalGetEnabled", true);
+    }
+
+    @Test
+    void store_ShouldReuseExistingBlobWithoutWriting() throws Exception {
+        AssetBlob existing = blob("blobs/ab/" + SHA + ".png");
+        when(blobRepository.addReference(eq(SHA), any(LocalDateTime.class))).thenReturn(1);
+        when(blobRepository.findById(SHA)).thenReturn(Optional.of(existing));
+
+        AssetBlob result = store.store(file, "https://cdn.example.com/logo.png", "png", "image/png",
+                (source, size, targetPath) -> fail("content already stored must not be written again"));
+
+        assertSame(existing, result);
+        verify(blobRepository, never()).insertIfAbsent(any(), any(), anyLong(), any(), any());
+    }
+
+    @Test
+    void store_ShouldWriteNewContentUnderItsHash() throws Exception {
+        List<String> written = new ArrayList<>();
+        when(blobRepository.addReference(eq(SHA), any(LocalDateTime.class))).thenReturn(0);
+        when(blobRepository.insertIfAbsent(eq(SHA), eq("blobs/ab/" + SHA + ".png"), eq(42L), eq("image/png"),
+                any(LocalDateTime.class))).thenReturn(1);
+        when(blobRepository.findById(SHA)).thenReturn(Optional.of(blob("blobs/ab/" + SHA + ".png")));
+
+        AssetBlob result = store.store(file, "https://cdn.example.com/logo.png", "PNG", "image/png",
+                (source, size, targetPath) -> {
+                    written.add(targetPath);
+                    return targetPath;
+                });
+
+        assertEquals(List.of("blobs/ab/" + SHA + ".png"), written);
+        assertEquals("blobs/ab/" + SHA + ".png", result.getStoredPath());
+    }
+
+    @Test
+    void reuse_ShouldForgetValidatorsWhenBlobIsGone() {
+        when(blobRepository.addReference(eq(SHA), any(LocalDateTime.class))).thenReturn(0);
+
+        AssetBlob result = store.reuse("https://cdn.example.com/logo.png",
+                new ContentAddressedAssetStore.SourceValidators("\"v1\"", null, SHA));
+
+        assertNull(result);
+        verify(validatorRepository).deleteById(any());
+    }
+
+    @Test
+    void reconcile_ShouldSkipRunWhenAnotherInstanceHoldsTheLock() {
+        when(blobRepository.tryLockForReconcile(anyLong())).thenReturn(false);
+
+        store.reconcile();
+
+        verify(blobRepository, never()).recomputeReferenceCounts();
+        verify(blobRepository, never()).findUnreferencedBefore(any(), any());
+        verify(validatorRepository, never()).deleteOrphaned();
+    }
+
+    private static AssetBlob blob(String storedPath) {
+        return AssetBlob.builder()
+                .sha256(SHA)
+                .storedPath(storedPath)
+                .fileSize(42L)
+                .mimeType("image/png")
+                .refCount(1L)
+                .build();
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.jwtauthenticator.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ForwardRequestCoalescer Tests")
+class ForwardRequestCoalescerTest {
+
+    private ForwardRequestCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        coalescer = new ForwardRequestCoalescer(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(coalescer, "enabled", true);
+    }
+
+    @Test
+    @DisplayName("Should share one in-flight call between concurrent requests for the same URL")
+    void execute_ConcurrentSameUrl_ShouldCallOnce() {
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<ResponseEntity<String>> upstream = new CompletableFuture<>();
+
+        CompletableFuture<ResponseEntity<String>> first = coalescer.execute("https://Example.com/", () -> {
+            calls.incrementAndGet();
+            return upstream;
+        });
+        CompletableFuture<ResponseEntity<String>> second = coalescer.execute("https://example.com", () -> {
+            calls.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+
+        assertEquals(1, coalescer.getInFlightCount());
+        upstream.complete(ResponseEntity.ok("{}"));
+
+        assertEquals("{}", first.join().getBody());
+        assertEquals("{}", second.join().getBody());
+        assertEquals(1, calls.get());
+        assertEquals(1, coalescer.getCoalescedCount());
+        assertEquals(0, coalescer.getInFlightCount());
+    }
+
+    @Test
+    @DisplayName("Should propagate failures to all waiters and allow a new call afterwards")
+    void execute_Failure_ShouldReleaseEntry() {
+        CompletableFuture<ResponseEntity<String>> upstream = new CompletableFuture<>();
+        CompletableFuture<ResponseEntity<String>> first = coalescer.execute("https://example.com", () -> upstream);
+        CompletableFuture<ResponseEntity<String>> second = coalescer.execute("https://example.com", CompletableFuture::new);
+
+        upstream.completeExceptionally(new RuntimeException("timeout"));
+
+        assertTrue(first.isCompletedExceptionally());
+        assertTrue(second.isCompletedExceptionally());
+        CompletableFuture<ResponseEntity<String>> retry = coalescer.execute("https://example.com",
+                () -> CompletableFuture.completedFuture(ResponseEntity.ok("ok")));
+        assertEquals("ok", retry.join().getBody());
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.jwtauthenticator.service;
+
+import com.example.jwtauthenticator.entity.ApiKey;
+import com.example.jwtauthenticator.entity.ApiKeyUsageStats;
+import com.example.jwtauthenticator.enums.RateLimitTier;
+import com.example.jwtauthenticator.repository.ApiKeyAddOnRepository;
+import com.example.jwtauthenticator.repository.ApiKeyRepository;
+import com.example.jwtauthenticator.repository.ApiKeyUsageStatsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.ArgumentCaptor;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("InMemoryRateLimitEngine Tests")
+class InMemoryRateLimitEngineTest {
+
+    @Mock
+    private ApiKeyRepository apiKeyRepository;
+
+    @Mock
+    private ApiKeyUsageStatsRepository usageStatsRepository;
+
+    @Mock
+    private ApiKeyAddOnRepository addOnRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private TaskScheduler taskScheduler;
+
+    private InMemoryRateLimitEngine engine;
+    private UUID apiKeyId;
+
+    @BeforeEach
+    void setUp() {
+        engine = new InMemoryRateLimitEngine(apiKeyRepository, usageStatsRepository, addOnRepository, transactionManager,
+                taskScheduler);
+        ReflectionTestUtils.setField(engine, "enabled", true);
+        ReflectionTestUtils.setField(engine, "tolerance", 1000);
+        ReflectionTestUtils.setField(engine, "idleEvictMinutes", 30L);
+        apiKeyId = UUID.randomUUID();
+    }
+
+    private void givenKey(RateLimitTier tier, int persistedCount) {
+        ApiKey apiKey = ApiKey.builder()
+                .id(apiKeyId)
+                .userFkId("DOMBR000001")
+                .rateLimitTier(tier)
+                .build();
+        when(apiKeyRepository.findById(apiKeyId)).thenReturn(Optional.of(apiKey));
+        ApiKeyUsageStats stats = ApiKeyUsageStats.builder()
+                .apiKeyId(apiKeyId)
+                .requestCount(persistedCount)
+                .build();
+        lenient().when(usageStatsRepository.findByApiKeyIdAndWindowStart(eq(apiKeyId), any(LocalDateTime.class)))
+                .thenReturn(Optional.of(stats));
+    }
+
+    @Test
+    @DisplayName("Should resume from the persisted count and deny once the limit is reached")
+    void tryAcquire_SeededFromDatabase_ShouldDenyAtLimit() {
+        givenKey(RateLimitTier.FREE_TIER, 98);
+
+        assertEquals(InMemoryRateLimitEngine.Decision.Status.ALLOWED, engine.tryAcquire(apiKeyId).status());
+        InMemoryRateLimitEngine.Decision last = engine.tryAcquire(apiKeyId);
+        assertEquals(InMemoryRateLimitEngine.Decision.Status.ALLOWED, last.status());
+        assertEquals(100, last.requestCount());
+        assertEquals(0, last.remainingRequests());
+        assertEquals(InMemoryRateLimitEngine.Decision.Status.EXHAUSTED, engine.tryAcquire(apiKeyId).status());
+
+        verify(apiKeyRepository, times(1)).findById(apiKeyId);
+        verify(usageStatsRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Should always allow unlimited tiers")
+    void tryAcquire_UnlimitedTier_ShouldAllow() {
+        givenKey(RateLimitTier.BUSINESS_TIER, 5000);
+
+        InMemoryRateLimitEngine.Decision decision = engine.tryAcquire(apiKeyId);
+
+        assertEquals(InMemoryRateLimitEngine.Decision.Status.UNLIMITED, decision.status());
+        assertEquals("DOMBR000001", decision.userFkId());
+    }
+
+    @Test
+    @DisplayName("Should report unknown API keys")
+    void tryAcquire_UnknownKey_ShouldReturnNotFound() {
+        when(apiKeyRepository.findById(apiKeyId)).thenReturn(Optional.empty());
+
+        assertEquals(InMemoryRateLimitEngine.Decision.Status.NOT_FOUND, engine.tryAcquire(apiKeyId).status());
+    }
+
+    @Test
+    @DisplayName("Should write accumulated deltas on flush")
+    void flushAll_ShouldApplyAggregatedDelta() {
+        givenKey(RateLimitTier.PRO_TIER, 10);
+        when(usageStatsRepository.applyUsageDelta(eq(apiKeyId), any(), anyInt(), anyInt(), any())).thenReturn(1);
+
+        engine.tryAcquire(apiKeyId);
+        engine.tryAcquire(apiKeyId);
+        engine.tryAcquire(apiKeyId);
+        engine.flushAll();
+        engine.flushAll();
+
+        verify(usageStatsRepository, times(1)).applyUsageDelta(eq(apiKeyId), any(), eq(3), eq(0), any());
+    }
+
+    @Test
+    @DisplayName("Should hand an over-tolerance flush to the scheduler instead of flushing inline")
+    void tryAcquire_OverTolerance_ShouldScheduleFlush() {
+        givenKey(RateLimitTier.PRO_TIER, 10);
+        ReflectionTestUtils.setField(engine, "tolerance", 2);
+        when(usageStatsRepository.applyUsageDelta(eq(apiKeyId), any(), anyInt(), anyInt(), any())).thenReturn(1);
+
+        engine.tryAcquire(apiKeyId);
+        engine.tryAcquire(apiKeyId);
+        engine.tryAcquire(apiKeyId);
+
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(taskScheduler, times(1)).schedule(task.capture(), any(Instant.class));
+        verify(usageStatsRepository, never()).applyUsageDelta(any(), any(), anyInt(), anyInt(), any());
+
+        task.getValue().run();
+        verify(usageStatsRepository).applyUsageDelta(eq(apiKeyId), any(), eq(3), eq(0), any());
+    }
+
+    @Test
+    @DisplayName("Should add counts from other instances on reconcile without losing local ones")
+    void flushAll_ShouldAddRemoteDeltaOnReconcile() {
+        givenKey(RateLimitTier.PRO_TIER, 10);
+        when(usageStatsRepository.applyUsageDelta(eq(apiKeyId), any(), anyInt(), anyInt(), any())).thenReturn(1);
+
+        engine.tryAcquire(apiKeyId);
+        engine.tryAcquire(apiKeyId);
+
+        // Row now holds 10 + our 2 + 5 from another instance
+        ApiKeyUsageStats after = ApiKeyUsageStats.builder().apiKeyId(apiKeyId).requestCount(17).build();
+        when(usageStatsRepository.findByApiKeyIdAndWindowStart(eq(apiKeyId), any(LocalDateTime.class)))
+                .thenReturn(Optional.of(after));
+        engine.flushAll();
+
+        assertEquals(18, engine.tryAcquire(apiKeyId).requestCount());
+    }
+
+    @Test
+    @DisplayName("Should persist requests counted on a dropped counter after it was evicted")
+    void evict_ShouldDrainStragglersOnNextFlush() {
+        givenKey(RateLimitTier.PRO_TIER, 10);
+        when(usageStatsRepository.applyUsageDelta(eq(apiKeyId), any(), anyInt(), anyInt(), any())).thenReturn(1);
+
+        engine.tryAcquire(apiKeyId);
+        Object counter = ((java.util.Map<?, ?>) ReflectionTestUtils.getField(engine, "counters")).get(apiKeyId);
+        engine.evict(apiKeyId);
+        verify(usageStatsRepository).applyUsageDelta(eq(apiKeyId), any(), eq(1), eq(0), any());
+
+        // A request that still held the old counter
+        ((java.util.concurrent.atomic.AtomicInteger) ReflectionTestUtils.getField(counter, "pendingRequests"))
+                .incrementAndGet();
+        engine.flushAll();
+
+        verify(usageStatsRepository, times(2)).applyUsageDelta(eq(apiKeyId), any(), eq(1), eq(0), any());
+    }
+}
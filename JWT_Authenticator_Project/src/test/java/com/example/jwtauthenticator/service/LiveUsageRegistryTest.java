@@ -0,0 +1,58 @@
+package com.example.jwtauthenticator.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("LiveUsageRegistry Tests")
+class LiveUsageRegistryTest {
+
+    private LiveUsageRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new LiveUsageRegistry();
+        ReflectionTestUtils.setField(registry, "enabled", true);
+    }
+
+    @Test
+    @DisplayName("Should count allowed requests and active keys")
+    void recordAllowed_ShouldCountRequestsAndActiveKeys() {
+        registry.recordAllowed("key-1");
+        registry.recordAllowed("key-1");
+        registry.recordAllowed("key-2");
+
+        assertEquals(3, registry.requestsLastHour());
+        assertEquals(2, registry.activeKeys());
+        assertEquals(0, registry.rateLimitedKeys());
+    }
+
+    @Test
+    @DisplayName("Should track rate-limited keys until their window resets")
+    void recordBlocked_ShouldExpireWithWindow() {
+        registry.recordBlocked("key-1", 3600);
+        registry.recordBlocked("key-2", 0);
+        assertEquals(2, registry.rateLimitedKeys());
+
+        registry.sweep();
+        assertEquals(1, registry.rateLimitedKeys());
+
+        // An allowed request (new window or add-on) clears the block
+        registry.recordAllowed("key-1");
+        assertEquals(0, registry.rateLimitedKeys());
+        assertEquals(1, registry.requestsLastHour());
+    }
+
+    @Test
+    @DisplayName("Should not replace the database queries before covering a full hour")
+    void isWarm_ShouldBeFalseAfterStartup() {
+        assertFalse(registry.isWarm());
+
+        ReflectionTestUtils.setField(registry, "enabled", false);
+        registry.recordAllowed("key-1");
+        assertEquals(0, registry.requestsLastHour());
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.jwtauthenticator.service;
+
+import com.example.jwtauthenticator.entity.ApiKeyMonthlyUsage;
+import com.example.jwtauthenticator.repository.ApiKeyMonthlyUsageRepository;
+import com.example.jwtauthenticator.repository.ApiKeyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MonthlyUsageAccumulator Tests")
+class MonthlyUsageAccumulatorTest {
+
+    @Mock
+    private ApiKeyMonthlyUsageRepository usageRepository;
+
+    @Mock
+    private ApiKeyRepository apiKeyRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private MonthlyUsageAccumulator accumulator;
+    private UUID apiKeyId;
+    private String currentMonth;
+
+    @BeforeEach
+    void setUp() {
+        accumulator = new MonthlyUsageAccumulator(usageRepository, apiKeyRepository, transactionManager);
+        ReflectionTestUtils.setField(accumulator, "enabled", true);
+        ReflectionTestUtils.setField(accumulator, "baseTtlSeconds", 30L);
+        apiKeyId = UUID.randomUUID();
+        currentMonth = ApiKeyMonthlyUsage.getCurrentMonthYear();
+    }
+
+    @Test
+    @DisplayName("Should combine the persisted base with unflushed calls")
+    void view_ShouldIncludePendingCalls() {
+        ApiKeyMonthlyUsage usage = ApiKeyMonthlyUsage.createForCurrentMonth(apiKeyId, "DOMBR000001", 10, 11);
+        usage.setTotalCalls(8);
+        accumulator.seed(usage);
+
+        accumulator.record(apiKeyId, "DOMBR000001", MonthlyUsageAccumulator.Outcome.SUCCESS);
+        assertFalse(accumulator.view(apiKeyId, currentMonth).orElseThrow().isQuotaExceeded());
+
+        accumulator.record(apiKeyId, "DOMBR000001", MonthlyUsageAccumulator.Outcome.FAILURE);
+        MonthlyUsageAccumulator.QuotaView view = accumulator.view(apiKeyId, currentMonth).orElseThrow();
+        assertEquals(10, view.totalCalls());
+        assertTrue(view.isQuotaExceeded());
+        assertFalse(view.isGraceExceeded());
+        verifyNoInteractions(usageRepository);
+    }
+
+    @Test
+    @DisplayName("Should write one additive update per key on flush")
+    void flushAll_ShouldCoalesceCalls() {
+        when(usageRepository.addToCounters(eq(apiKeyId), eq(currentMonth), anyInt(), anyInt(), anyInt(), any()))
+                .thenReturn(1);
+        when(usageRepository.findByApiKeyIdAndMonthYear(apiKeyId, currentMonth)).thenReturn(Optional.empty());
+
+        for (int i = 0; i < 5; i++) {
+            accumulator.record(apiKeyId, "DOMBR000001", MonthlyUsageAccumulator.Outcome.SUCCESS);
+        }
+        accumulator.record(apiKeyId, "DOMBR000001", MonthlyUsageAccumulator.Outcome.FAILURE);
+        accumulator.record(apiKeyId, "DOMBR000001", MonthlyUsageAccumulator.Outcome.QUOTA_EXCEEDED);
+
+        accumulator.flushAll();
+        accumulator.flushAll();
+
+        verify(usageRepository, times(1))
+                .addToCounters(eq(apiKeyId), eq(currentMonth), eq(5), eq(1), eq(1), any());
+        assertEquals(0, accumulator.pendingCalls(apiKeyId, currentMonth));
+    }
+
+    @Test
+    @DisplayName("Should keep counts pending when the flush fails")
+    void flushAll_Failure_ShouldRetainDelta() {
+        when(usageRepository.addToCounters(any(), any(), anyInt(), anyInt(), anyInt(), any()))
+                .thenThrow(new RuntimeException("db down"));
+
+        accumulator.record(apiKeyId, "DOMBR000001", MonthlyUsageAccumulator.Outcome.SUCCESS);
+        accumulator.flushAll();
+
+        assertEquals(1, accumulator.pendingCalls(apiKeyId, currentMonth));
+    }
+}
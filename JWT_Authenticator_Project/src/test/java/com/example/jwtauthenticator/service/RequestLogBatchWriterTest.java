@@ -0,0 +1,210 @@
+package com.example.jwtauthenticator.service;
+
+import com.example.jwtauthenticator.entity.ApiKeyRequestLog;
+import com.example.jwtauthenticator.entity.RivoFetchRequestLog;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@DisplayName("RequestLogBatchWriter Tests")
+class RequestLogBatchWriterTest {
+
+    private static final String BUFFER = "api-key-request-log";
+
+    private EntityManager entityManager;
+    private LatencySketchAccumulator latencySketches;
+    private RequestLogBatchWriter writer;
+    private final List<Object> persisted = Collections.synchronizedList(new ArrayList<>());
+    private final List<Boolean> interruptedWhilePersisting = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setUp() {
+        entityManager = mock(EntityManager.class);
+        doAnswer(invocation -> {
+            interruptedWhilePersisting.add(Thread.currentThread().isInterrupted());
+            persisted.add(invocation.getArgument(0));
+            return null;
+        }).when(entityManager).persist(any());
+
+        latencySketches = mock(LatencySketchAccumulator.class);
+        writer = new RequestLogBatchWriter(mock(PlatformTransactionManager.class), latencySketches);
+        ReflectionTestUtils.setField(writer, "entityManager", entityManager);
+        ReflectionTestUtils.setField(writer, "enabled", true);
+        ReflectionTestUtils.setField(writer, "capacity", 100);
+        ReflectionTestUtils.setField(writer, "batchSize", 50);
+        ReflectionTestUtils.setField(writer, "flushIntervalMs", 60_000L);
+        ReflectionTestUtils.setField(writer, "offerTimeoutMs", 1L);
+        ReflectionTestUtils.setField(writer, "shutdownTimeoutMs", 5_000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        writer.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should write a batch as soon as it reaches the batch size")
+    void enqueue_FullBatch_ShouldFlushWithoutWaitingForInterval() {
+        ReflectionTestUtils.setField(writer, "batchSize", 3);
+        writer.init();
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(writer.enqueue(new ApiKeyRequestLog()));
+        }
+
+        awaitStat("written", 3L);
+        assertEquals(1L, stat("batches"));
+    }
+
+    @Test
+    @DisplayName("Should write a partial batch once the flush interval has passed")
+    void enqueue_PartialBatch_ShouldFlushAfterInterval() {
+        ReflectionTestUtils.setField(writer, "flushIntervalMs", 50L);
+        writer.init();
+
+        writer.enqueue(new ApiKeyRequestLog());
+        writer.enqueue(new ApiKeyRequestLog());
+
+        awaitStat("written", 2L);
+        assertEquals(1L, stat("batches"));
+    }
+
+    @Test
+    @DisplayName("Should drop and count entries while the buffer stays full")
+    void enqueue_FullBuffer_ShouldDropAndCount() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            persisted.add(invocation.getArgument(0));
+            return null;
+        }).when(entityManager).persist(any());
+        ReflectionTestUtils.setField(writer, "capacity", 2);
+        ReflectionTestUtils.setField(writer, "batchSize", 1);
+        writer.init();
+
+        // The writer takes the first entry and blocks in persist, the next two fill the buffer
+        assertTrue(writer.enqueue(new ApiKeyRequestLog()));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        assertTrue(writer.enqueue(new ApiKeyRequestLog()));
+        assertTrue(writer.enqueue(new ApiKeyRequestLog()));
+
+        assertFalse(writer.enqueue(new ApiKeyRequestLog()));
+        assertFalse(writer.enqueue(new ApiKeyRequestLog()));
+        assertEquals(2L, stat("dropped"));
+        assertEquals(3L, stat("enqueued"));
+
+        release.countDown();
+        awaitStat("written", 3L);
+    }
+
+    @Test
+    @DisplayName("Should drain queued entries on shutdown")
+    void shutdown_ShouldDrainQueuedEntries() {
+        ReflectionTestUtils.setField(writer, "flushIntervalMs", 200L);
+        writer.init();
+        for (int i = 0; i < 5; i++) {
+            writer.enqueue(new ApiKeyRequestLog());
+        }
+
+        writer.shutdown();
+
+        assertEquals(5, persisted.size());
+        assertEquals(5L, stat("written"));
+        assertEquals(0, stat("queued"));
+
+        // After shutdown entries are written through on the caller thread
+        assertTrue(writer.enqueue(new ApiKeyRequestLog()));
+        assertEquals(6, persisted.size());
+    }
+
+    @Test
+    @DisplayName("Should write the pending batch without blocking when the writer is interrupted")
+    void interrupt_ShouldDrainWithoutBlockingAndExit() throws Exception {
+        writer.init();
+        writer.enqueue(new ApiKeyRequestLog());
+        writer.enqueue(new ApiKeyRequestLog());
+        // Both entries are in the writer's batch, which now waits out the 60s flush interval
+        await(() -> stat("queued").equals(0));
+
+        Thread writerThread = writerThread();
+        writerThread.interrupt();
+        writerThread.join(5_000);
+
+        assertFalse(writerThread.isAlive());
+        assertEquals(2, persisted.size());
+        assertEquals(1L, stat("batches"));
+        assertFalse(interruptedWhilePersisting.contains(true), "JDBC writes must not see the interrupt");
+    }
+
+    @Test
+    @DisplayName("Should record RivoFetch latencies only for inserted rows")
+    void enqueue_RivoFetchLog_ShouldRecordLatencyAfterInsert() {
+        ReflectionTestUtils.setField(writer, "batchSize", 2);
+        RivoFetchRequestLog good = new RivoFetchRequestLog();
+        RivoFetchRequestLog bad = new RivoFetchRequestLog();
+        good.setRivoFetchLogId("RIVO9GOOD");
+        bad.setRivoFetchLogId("RIVO9BAD");
+        // The batch insert fails, the row-by-row retry only succeeds for the good row
+        doThrow(new IllegalStateException("constraint violation")).when(entityManager).persist(any());
+        doThrow(new IllegalStateException("constraint violation")).when(entityManager).merge(bad);
+        writer.init();
+
+        writer.enqueue(good);
+        writer.enqueue(bad);
+
+        await(() -> Long.valueOf(1).equals(stat("rivo-fetch-request-log", "failed")));
+        assertEquals(1L, stat("rivo-fetch-request-log", "written"));
+        verify(latencySketches).record(good);
+        verify(latencySketches, never()).record(bad);
+    }
+
+    private Thread writerThread() {
+        Object buffer = ReflectionTestUtils.getField(writer, "auditLogs");
+        return (Thread) ReflectionTestUtils.getField(buffer, "writer");
+    }
+
+    private Object stat(String name) {
+        return stat(BUFFER, name);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object stat(String buffer, String name) {
+        return ((Map<String, Object>) writer.getStats().get(buffer)).get(name);
+    }
+
+    private void awaitStat(String name, Object expected) {
+        await(() -> expected.equals(stat(name)));
+        assertEquals(expected, stat(name));
+    }
+
+    private static void await(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(5));
+        }
+        assertTrue(condition.getAsBoolean(), "condition not met within 5s");
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.jwtauthenticator.service;
+
+import com.example.jwtauthenticator.entity.RivoFetchRollup.Granularity;
+import com.example.jwtauthenticator.repository.RivoFetchErrorRollupRepository;
+import com.example.jwtauthenticator.repository.RivoFetchLatencySketchRepository;
+import com.example.jwtauthenticator.repository.RivoFetchRequestLogRepository;
+import com.example.jwtauthenticator.repository.RivoFetchRollupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RivoFetchRollupService Tests")
+class RivoFetchRollupServiceTest {
+
+    @Mock
+    private RivoFetchRollupRepository rollupRepository;
+
+    @Mock
+    private RivoFetchErrorRollupRepository errorRollupRepository;
+
+    @Mock
+    private RivoFetchRequestLogRepository requestLogRepository;
+
+    @Mock
+    private RivoFetchLatencySketchRepository latencySketchRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private RivoFetchRollupService rollupService;
+
+    @BeforeEach
+    void setUp() {
+        rollupService = new RivoFetchRollupService(
+                rollupRepository, errorRollupRepository, requestLogRepository, latencySketchRepository, transactionManager);
+        ReflectionTestUtils.setField(rollupService, "enabled", true);
+        ReflectionTestUtils.setField(rollupService, "lateArrivalMinutes", 10L);
+        ReflectionTestUtils.setField(rollupService, "maxHoursPerRun", 48);
+        ReflectionTestUtils.setField(rollupService, "hourlyRetentionDays", 90);
+        ReflectionTestUtils.setField(rollupService, "dailyRetentionDays", 0);
+    }
+
+    @Test
+    @DisplayName("Should roll up every hour from the oldest log and re-sum the touched days")
+    void rollUp_ShouldBackfillFromOldestLog() {
+        LocalDateTime now = LocalDateTime.of(2026, 1, 2, 1, 30);
+        when(rollupRepository.findLatestBucketStart(Granularity.HOUR)).thenReturn(Optional.empty());
+        when(requestLogRepository.findEarliestTimestamp()).thenReturn(Optional.of(LocalDateTime.of(2026, 1, 1, 23, 10)));
+        when(rollupRepository.tryLockForRollup(anyLong())).thenReturn(true);
+
+        rollupService.rollUp(now);
+
+        verify(rollupRepository).insertHourFromLogs(LocalDateTime.of(2026, 1, 1, 23, 0), LocalDateTime.of(2026, 1, 2, 0, 0));
+        verify(rollupRepository).insertHourFromLogs(LocalDateTime.of(2026, 1, 2, 0, 0), LocalDateTime.of(2026, 1, 2, 1, 0));
+        verify(rollupRepository).insertHourFromLogs(LocalDateTime.of(2026, 1, 2, 1, 0), LocalDateTime.of(2026, 1, 2, 2, 0));
+        verify(rollupRepository, times(3)).insertHourFromLogs(any(), any());
+        verify(errorRollupRepository, times(3)).insertHourFromLogs(any(), any());
+        verify(rollupRepository).insertDayFromHours(LocalDateTime.of(2026, 1, 1, 0, 0), LocalDateTime.of(2026, 1, 2, 0, 0));
+        verify(rollupRepository).insertDayFromHours(LocalDateTime.of(2026, 1, 2, 0, 0), LocalDateTime.of(2026, 1, 3, 0, 0));
+
+        // Next run only revisits the current hour
+        clearInvocations(rollupRepository);
+        rollupService.rollUp(now.plusMinutes(1));
+        verify(rollupRepository, times(1)).insertHourFromLogs(any(), any());
+        verify(rollupRepository, never()).findLatestBucketStart(any());
+    }
+
+    @Test
+    @DisplayName("Should recompute the previous hour while late logs may still arrive")
+    void rollUp_ShouldRevisitHourWithinLateArrivalWindow() {
+        when(rollupRepository.findLatestBucketStart(Granularity.HOUR))
+                .thenReturn(Optional.of(LocalDateTime.of(2026, 1, 2, 1, 0)));
+        when(rollupRepository.tryLockForRollup(anyLong())).thenReturn(true);
+
+        rollupService.rollUp(LocalDateTime.of(2026, 1, 2, 2, 5));
+
+        verify(rollupRepository).insertHourFromLogs(eq(LocalDateTime.of(2026, 1, 2, 1, 0)), any());
+        verify(rollupRepository).insertHourFromLogs(eq(LocalDateTime.of(2026, 1, 2, 2, 0)), any());
+        verifyNoInteractions(requestLogRepository);
+    }
+
+    @Test
+    @DisplayName("Should skip the run when another instance holds the rollup lock")
+    void rollUp_ShouldSkipWhenLockHeld() {
+        when(rollupRepository.findLatestBucketStart(Granularity.HOUR))
+                .thenReturn(Optional.of(LocalDateTime.of(2026, 1, 2, 1, 0)));
+        when(rollupRepository.tryLockForRollup(anyLong())).thenReturn(false);
+
+        rollupService.rollUp(LocalDateTime.of(2026, 1, 2, 1, 30));
+
+        verify(rollupRepository, never()).deleteBucket(any(), any());
+        verify(rollupRepository, never()).insertHourFromLogs(any(), any());
+        verify(rollupRepository, never()).insertDayFromHours(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should read hourly rows within the hourly retention and daily rows beyond it")
+    void window_ShouldPickGranularityByLength() {
+        RivoFetchRollupService.RollupWindow day = rollupService.window(24);
+        assertEquals(Granularity.HOUR, day.granularity());
+        assertEquals(0, day.since().getMinute());
+
+        RivoFetchRollupService.RollupWindow year = rollupService.window(365 * 24);
+        assertEquals(Granularity.DAY, year.granularity());
+        assertEquals(0, year.since().getHour());
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.jwtauthenticator.service;
+
+import com.jcraft.jsch.ChannelSftp;
+import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.Session;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("SftpSessionPool Tests")
+class SftpSessionPoolTest {
+
+    private MeterRegistry meterRegistry;
+    private List<Session> createdSessions;
+    private SftpSessionPool pool;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        createdSessions = new ArrayList<>();
+        pool = new SftpSessionPool(meterRegistry) {
+            @Override
+            Session createSession() throws JSchException {
+                Session session = mock(Session.class);
+                when(session.isConnected()).thenReturn(true);
+                when(session.openChannel("sftp")).thenAnswer(invocation -> connectedChannel());
+                createdSessions.add(session);
+                return session;
+            }
+        };
+        ReflectionTestUtils.setField(pool, "minPoolSize", 0);
+        ReflectionTestUtils.setField(pool, "maxPoolSize", 1);
+        ReflectionTestUtils.setField(pool, "channelsPerSession", 2);
+        ReflectionTestUtils.setField(pool, "borrowTimeoutMs", 100L);
+        ReflectionTestUtils.setField(pool, "timeoutSeconds", 1);
+        ReflectionTestUtils.setField(pool, "idleTimeoutMs", 300000L);
+        ReflectionTestUtils.setField(pool, "bulkRequests", 32);
+        pool.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should reuse a released channel instead of opening another")
+    void release_ShouldKeepChannelForNextBorrow() throws Exception {
+        SftpSessionPool.PooledChannel first = pool.borrow();
+        assertEquals(1, channels("active"));
+
+        pool.release(first);
+        assertEquals(0, channels("active"));
+        assertEquals(1, channels("idle"));
+
+        SftpSessionPool.PooledChannel second = pool.borrow();
+        assertSame(first.getSftpChannel(), second.getSftpChannel());
+        assertEquals(1, createdSessions.size());
+        assertEquals(1, channels("active"));
+        assertEquals(0, channels("idle"));
+    }
+
+    @Test
+    @DisplayName("Should time out when every channel is borrowed and recover after a release")
+    void borrow_PoolExhausted_ShouldTimeOut() throws Exception {
+        SftpSessionPool.PooledChannel first = pool.borrow();
+        SftpSessionPool.PooledChannel second = pool.borrow();
+        assertNotSame(first.getSftpChannel(), second.getSftpChannel());
+        assertEquals(1, createdSessions.size());
+
+        assertThrows(JSchException.class, () -> pool.borrow());
+        assertEquals(1.0, meterRegistry.get("sftp.pool.borrow.timeouts").counter().count());
+
+        pool.release(second);
+        assertSame(second.getSftpChannel(), pool.borrow().getSftpChannel());
+        assertEquals(2, channels("active"));
+    }
+
+    @Test
+    @DisplayName("Should close an invalidated channel and free its slot")
+    void invalidate_ShouldDiscardChannel() throws Exception {
+        SftpSessionPool.PooledChannel broken = pool.borrow();
+
+        pool.invalidate(broken);
+
+        verify(broken.getSftpChannel()).disconnect();
+        assertEquals(0, channels("active"));
+        assertEquals(0, channels("idle"));
+        assertEquals(1.0, sessions());
+
+        SftpSessionPool.PooledChannel next = pool.borrow();
+        assertNotSame(broken.getSftpChannel(), next.getSftpChannel());
+        assertEquals(1, createdSessions.size());
+        verify(createdSessions.get(0), never()).disconnect();
+    }
+
+    @Test
+    @DisplayName("Should drop a dead session once its last channel is given back")
+    void invalidate_DeadSession_ShouldCloseSession() throws Exception {
+        SftpSessionPool.PooledChannel channel = pool.borrow();
+        Session session = createdSessions.get(0);
+        when(session.isConnected()).thenReturn(false, true);
+
+        pool.invalidate(channel);
+
+        assertEquals(0.0, sessions());
+        assertEquals(1.0, meterRegistry.get("sftp.pool.sessions.broken").counter().count());
+        verify(session).disconnect();
+
+        pool.borrow();
+        assertEquals(2, createdSessions.size());
+        assertEquals(1.0, sessions());
+    }
+
+    @Test
+    @DisplayName("Should replace a dead session without channels instead of running out of capacity")
+    void borrow_DeadEmptySession_ShouldOpenNewSession() throws Exception {
+        ReflectionTestUtils.setField(pool, "minPoolSize", 1);
+        ReflectionTestUtils.invokeMethod(pool, "topUp");
+        Session dead = createdSessions.get(0);
+        when(dead.isConnected()).thenReturn(false);
+
+        pool.borrow();
+
+        assertEquals(2, createdSessions.size());
+        assertEquals(1, channels("active"));
+        assertEquals(1.0, meterRegistry.get("sftp.pool.sessions.broken").counter().count());
+        assertEquals(1.0, sessions());
+        verify(dead).disconnect();
+    }
+
+    private static ChannelSftp connectedChannel() throws JSchException {
+        ChannelSftp channel = mock(ChannelSftp.class);
+        when(channel.isConnected()).thenReturn(true);
+        when(channel.isClosed()).thenReturn(false);
+        return channel;
+    }
+
+    private double channels(String state) {
+        return meterRegistry.get("sftp.pool.channels").tag("state", state).gauge().value();
+    }
+
+    private double sessions() {
+        return meterRegistry.get("sftp.pool.sessions").gauge().value();
+    }
+}
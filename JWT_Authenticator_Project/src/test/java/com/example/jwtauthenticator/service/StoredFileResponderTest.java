@@ -0,0 +1,109 @@
+package com.example.jwtauthenticator.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("StoredFileResponder Tests")
+class StoredFileResponderTest {
+
+    private static final String ETAG = "\"abc123\"";
+
+    private final StoredFileResponder responder = new StoredFileResponder(86400, true);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should parse single byte ranges and ignore unsupported forms")
+    void parseRange_ShouldHandleSupportedForms() {
+        assertArrayEquals(new long[] {0, 9}, StoredFileResponder.parseRange("bytes=0-9", 100));
+        assertArrayEquals(new long[] {90, 99}, StoredFileResponder.parseRange("bytes=90-", 100));
+        assertArrayEquals(new long[] {80, 99}, StoredFileResponder.parseRange("bytes=-20", 100));
+        assertArrayEquals(new long[] {50, 99}, StoredFileResponder.parseRange("bytes=50-500", 100));
+        assertNull(StoredFileResponder.parseRange("bytes=100-", 100));
+        assertEquals(0, StoredFileResponder.parseRange("bytes=0-1,5-6", 100).length);
+        assertEquals(0, StoredFileResponder.parseRange("items=0-1", 100).length);
+        assertEquals(0, StoredFileResponder.parseRange("bytes=abc", 100).length);
+    }
+
+    @Test
+    @DisplayName("Should answer 304 when the ETag matches")
+    void serve_ShouldReturnNotModifiedForMatchingETag() throws Exception {
+        AssetFileIndex.ServedFile file = file("0123456789");
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/brands/assets/1");
+        request.addHeader("If-None-Match", "W/\"other\", " + ETAG);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        responder.serve(file, request, response);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(ETAG, response.getHeader("ETag"));
+        assertEquals(0, response.getContentAsByteArray().length);
+        assertTrue(response.getHeader("Cache-Control").contains("immutable"));
+    }
+
+    @Test
+    @DisplayName("Should stream the requested range with 206")
+    void serve_ShouldStreamRange() throws Exception {
+        AssetFileIndex.ServedFile file = file("0123456789");
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/brands/assets/1");
+        request.addHeader("Range", "bytes=2-5");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        responder.serve(file, request, response);
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 2-5/10", response.getHeader("Content-Range"));
+        assertEquals("2345", response.getContentAsString());
+        assertEquals("nosniff", response.getHeader("X-Content-Type-Options"));
+        assertNull(response.getHeader("Content-Security-Policy"));
+    }
+
+    @Test
+    @DisplayName("Should sandbox SVG files")
+    void serve_ShouldSandboxSvg() throws Exception {
+        AssetFileIndex.ServedFile file = file("<svg xmlns=\"http://www.w3.org/2000/svg\"></svg>", "image/svg+xml");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        responder.serve(file, new MockHttpServletRequest("GET", "/api/brands/assets/1"), response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("nosniff", response.getHeader("X-Content-Type-Options"));
+        assertTrue(response.getHeader("Content-Security-Policy").contains("sandbox"));
+    }
+
+    @Test
+    @DisplayName("Should serve the whole file when If-Range does not match")
+    void serve_ShouldIgnoreRangeWhenIfRangeDiffers() throws Exception {
+        AssetFileIndex.ServedFile file = file("0123456789");
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/brands/assets/1");
+        request.addHeader("Range", "bytes=2-5");
+        request.addHeader("If-Range", "\"stale\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        responder.serve(file, request, response);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("0123456789", response.getContentAsString());
+    }
+
+    private AssetFileIndex.ServedFile file(String content) throws Exception {
+        return file(content, "image/png");
+    }
+
+    private AssetFileIndex.ServedFile file(String content, String mimeType) throws Exception {
+        Path path = tempDir.resolve("logo.png");
+        Files.writeString(path, content, StandardCharsets.UTF_8);
+        return new AssetFileIndex.ServedFile(path, Files.size(path), Files.getLastModifiedTime(path).toMillis(),
+                mimeType, "logo.png", ETAG);
+    }
+}
@@ -44,6 +44,9 @@ class StreamlinedUsageTrackerIntegrationTest {
     @Autowired
     private ApiKeyRequestLogRepository auditRepository;
     
+    @Autowired
+    private MonthlyUsageAccumulator usageAccumulator;
+    
     private final UUID testApiKeyId = UUID.randomUUID();
     private final String testUserId = "INTEGRATION_TEST_USER";
     private final String currentMonth = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy-MM"));
@@ -113,6 +116,7 @@ class StreamlinedUsageTrackerIntegrationTest {
 
         // Give async operations time to complete
         Thread.sleep(2000);
+        usageAccumulator.flushAll(); // Counters are coalesced in memory until flushed
 
         // CRITICAL ASSERTION: Only ONE monthly usage record should exist
         List<ApiKeyMonthlyUsage> usageRecords = quotaRepository.findByApiKeyIdOrderByMonthYearDesc(testApiKeyId);
@@ -184,6 +188,7 @@ class StreamlinedUsageTrackerIntegrationTest {
         
         // Give async operations time to complete
         Thread.sleep(1000);
+        usageAccumulator.flushAll(); // Counters are coalesced in memory until flushed
 
         ApiKeyMonthlyUsage finalUsage = quotaRepository.findByApiKeyIdAndMonthYear(testApiKeyId, currentMonth)
             .orElseThrow(() -> new AssertionError("Usage record should exist"));
@@ -237,6 +242,7 @@ class StreamlinedUsageTrackerIntegrationTest {
 
         // Give async operations time to complete
         Thread.sleep(500);
+        usageAccumulator.flushAll(); // Counters are coalesced in memory until flushed
 
         // ASSERT: Verify usage is at warning threshold
         ApiKeyMonthlyUsage updatedUsage = quotaRepository.findByApiKeyIdAndMonthYear(testApiKeyId, currentMonth)
@@ -295,6 +301,7 @@ class StreamlinedUsageTrackerIntegrationTest {
 
         // Give async operations time to complete
         Thread.sleep(1000);
+        usageAccumulator.flushAll(); // Counters are coalesced in memory until flushed
 
         // ASSERT: Verify data integrity
         ApiKeyMonthlyUsage finalUsage = quotaRepository.findByApiKeyIdAndMonthYear(testApiKeyId, currentMonth)
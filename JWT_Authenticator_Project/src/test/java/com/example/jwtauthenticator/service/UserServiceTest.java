@@ -23,6 +23,7 @@ import com.example.jwtauthenticator.dto.UserProfileUpdateRequestDTO;
 import com.example.jwtauthenticator.dto.UserResponseDTO;
 import com.example.jwtauthenticator.entity.User;
 import com.example.jwtauthenticator.repository.UserRepository;
+import com.example.jwtauthenticator.security.JwtUserDetailsService;
 import com.example.jwtauthenticator.util.TestDataFactory;
 
 
@@ -35,6 +36,9 @@ class UserServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private JwtUserDetailsService jwtUserDetailsService;
+
     @InjectMocks
     private UserService userService;
 
@@ -0,0 +1,61 @@
+package com.example.jwtauthenticator.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("AsyncSemaphore Tests")
+class AsyncSemaphoreTest {
+
+    @Test
+    @DisplayName("Should park work beyond the permit count and run it in arrival order")
+    void withPermit_ShouldQueueBeyondPermits() {
+        AsyncSemaphore semaphore = new AsyncSemaphore(2);
+        List<Sinks.One<String>> sinks = new ArrayList<>();
+        List<String> results = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Sinks.One<String> sink = Sinks.one();
+            sinks.add(sink);
+            semaphore.withPermit(sink.asMono()).subscribe(results::add);
+        }
+
+        assertEquals(0, semaphore.availablePermits());
+        assertEquals(2, semaphore.queueLength());
+
+        sinks.get(0).tryEmitValue("first");
+        assertEquals(1, semaphore.queueLength());
+        sinks.get(2).tryEmitValue("third");
+        sinks.get(1).tryEmitValue("second");
+        sinks.get(3).tryEmitValue("fourth");
+
+        assertEquals(List.of("first", "third", "second", "fourth"), results);
+        assertEquals(2, semaphore.availablePermits());
+        assertEquals(0, semaphore.queueLength());
+    }
+
+    @Test
+    @DisplayName("Should return the permit when work fails or a waiter is cancelled")
+    void withPermit_ShouldReleaseOnErrorAndCancel() {
+        AsyncSemaphore semaphore = new AsyncSemaphore(1);
+        Sinks.One<String> holder = Sinks.one();
+        semaphore.withPermit(holder.asMono()).subscribe(value -> { }, error -> { });
+
+        Disposable waiter = semaphore.withPermit(Mono.just("never")).subscribe();
+        assertEquals(1, semaphore.queueLength());
+        waiter.dispose();
+        assertEquals(0, semaphore.queueLength());
+
+        holder.tryEmitError(new IllegalStateException("boom"));
+        assertEquals(1, semaphore.availablePermits());
+
+        assertEquals("ok", semaphore.withPermit(Mono.just("ok")).block());
+        assertEquals(1, semaphore.availablePermits());
+    }
+}
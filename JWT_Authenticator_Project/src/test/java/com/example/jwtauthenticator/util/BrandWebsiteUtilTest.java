@@ -0,0 +1,48 @@
+package com.example.jwtauthenticator.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("BrandWebsiteUtil Tests")
+class BrandWebsiteUtilTest {
+
+    @Test
+    @DisplayName("Should normalize protocol, www, case and trailing slashes")
+    void normalize_ShouldStripVariations() {
+        assertEquals("example.com", BrandWebsiteUtil.normalize("https://www.Example.com/"));
+        assertEquals("example.com", BrandWebsiteUtil.normalize("http://example.com//"));
+        assertEquals("example.com/about", BrandWebsiteUtil.normalize(" example.com/about "));
+        assertNull(BrandWebsiteUtil.normalize(null));
+    }
+
+    @Test
+    @DisplayName("Should extract the host without www, path or port")
+    void host_ShouldKeepSubdomains() {
+        assertEquals("blog.example.com", BrandWebsiteUtil.host("https://www.Blog.Example.com/post?id=1"));
+        assertEquals("example.com", BrandWebsiteUtil.host("www.example.com"));
+        assertEquals("localhost", BrandWebsiteUtil.host("http://localhost:8080/"));
+        assertNull(BrandWebsiteUtil.host("https://"));
+    }
+
+    @Test
+    @DisplayName("Should reduce hosts to their registrable domain")
+    void registrableDomain_ShouldDropSubdomainsAndPaths() {
+        assertEquals("example.com", BrandWebsiteUtil.registrableDomain("https://blog.example.com/post?id=1"));
+        assertEquals("example.co.uk", BrandWebsiteUtil.registrableDomain("shop.example.co.uk"));
+        assertEquals("localhost", BrandWebsiteUtil.registrableDomain("http://localhost:8080/"));
+        assertEquals("127.0.0.1", BrandWebsiteUtil.registrableDomain("127.0.0.1"));
+        assertEquals("example.com.au", BrandWebsiteUtil.registrableDomain("www.shop.example.com.au"));
+        assertNull(BrandWebsiteUtil.registrableDomain(""));
+    }
+
+    @Test
+    @DisplayName("Should not merge sites under suffixes open for registration")
+    void registrableDomain_ShouldUsePublicSuffixList() {
+        assertEquals("x.github.io", BrandWebsiteUtil.registrableDomain("https://x.github.io/docs"));
+        assertEquals("github.io", BrandWebsiteUtil.registrableDomain("github.io"));
+        assertEquals("shop.myshopify.com", BrandWebsiteUtil.registrableDomain("shop.myshopify.com"));
+        assertEquals("api.example.internal", BrandWebsiteUtil.registrableDomain("api.example.internal"));
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.jwtauthenticator.util;
+
+import com.example.jwtauthenticator.util.IpAddressUtil.Scope;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("IpAddressUtil Tests")
+class IpAddressUtilTest {
+
+    @Test
+    @DisplayName("Should classify IPv4 and IPv6 literals like InetAddress")
+    void scope_ShouldMatchInetAddressClassification() {
+        assertEquals(Scope.PUBLIC, IpAddressUtil.scope("8.8.8.8"));
+        assertEquals(Scope.LOOPBACK, IpAddressUtil.scope("127.0.0.1"));
+        assertEquals(Scope.PRIVATE, IpAddressUtil.scope("172.16.0.1"));
+        assertEquals(Scope.PUBLIC, IpAddressUtil.scope("172.32.0.1"));
+        assertEquals(Scope.PRIVATE, IpAddressUtil.scope("169.254.1.1"));
+
+        assertEquals(Scope.LOOPBACK, IpAddressUtil.scope("::1"));
+        assertEquals(Scope.LOOPBACK, IpAddressUtil.scope("[0:0:0:0:0:0:0:1]"));
+        assertEquals(Scope.PRIVATE, IpAddressUtil.scope("fe80::1%eth0"));
+        assertEquals(Scope.PRIVATE, IpAddressUtil.scope("::ffff:10.0.0.1"));
+        assertEquals(Scope.PUBLIC, IpAddressUtil.scope("2001:db8::1"));
+    }
+
+    @Test
+    @DisplayName("Should reject anything that is not an IP literal")
+    void scope_ShouldRejectNonLiterals() {
+        assertFalse(IpAddressUtil.isIpAddress("unknown"));
+        assertFalse(IpAddressUtil.isIpAddress("localhost"));
+        assertFalse(IpAddressUtil.isIpAddress("256.1.1.1"));
+        assertFalse(IpAddressUtil.isIpAddress("1.2.3.4.5"));
+        assertFalse(IpAddressUtil.isIpAddress("1::2::3"));
+        assertFalse(IpAddressUtil.isIpAddress("1:2:3:4:5:6:7:8:9"));
+        assertFalse(IpAddressUtil.isIpAddress(""));
+        assertFalse(IpAddressUtil.isIpAddress(null));
+    }
+
+    @Test
+    @DisplayName("Should pick public, then private, then loopback, then first chain entry")
+    void bestAddressFromChain_ShouldPreferPublicAddresses() {
+        assertEquals("203.0.113.7", IpAddressUtil.bestAddressFromChain("10.0.0.1, 203.0.113.7, 8.8.8.8"));
+        assertEquals("192.168.1.100", IpAddressUtil.bestAddressFromChain("127.0.0.1 , 192.168.1.100, 10.0.0.1"));
+        assertEquals("127.0.0.1", IpAddressUtil.bestAddressFromChain("garbage, 127.0.0.1"));
+        assertEquals("garbage", IpAddressUtil.bestAddressFromChain(" garbage , other"));
+        assertEquals("1.2.3.4", IpAddressUtil.bestAddressFromChain(" 1.2.3.4 "));
+    }
+}
@@ -185,4 +185,31 @@ public class JwtUtilTest {
         assertEquals(userId, jwtUtil.extractUserId(token));
         assertFalse(jwtUtil.isTokenExpired(token));
     }
+
+    @Test
+    void parseClaims_shouldReturnCachedClaimsForSameToken() {
+        UserDetails userDetails = new User("testuser", "password", Collections.emptyList());
+        String token = jwtUtil.generateToken(userDetails, "123e4567-e89b-12d3-a456-426614174000");
+
+        Claims first = jwtUtil.parseClaims(token);
+        Claims second = jwtUtil.parseClaims(token);
+
+        assertSame(first, second);
+        assertTrue(jwtUtil.validateToken(second, userDetails));
+    }
+
+    @Test
+    void parseClaims_shouldNotReuseCachedClaimsForTamperedPayload() {
+        UserDetails userDetails = new User("testuser", "password", Collections.emptyList());
+        String token = jwtUtil.generateToken(userDetails, "123e4567-e89b-12d3-a456-426614174000");
+        String otherToken = jwtUtil.generateToken(new User("otheruser", "password", Collections.emptyList()), "other");
+        jwtUtil.parseClaims(token);
+
+        // Payload of another token with the cached signature
+        String[] parts = token.split("\\.");
+        String tampered = parts[0] + "." + otherToken.split("\\.")[1] + "." + parts[2];
+
+        assertThrows(Exception.class, () -> jwtUtil.parseClaims(tampered));
+        assertFalse(jwtUtil.validateToken(tampered, userDetails));
+    }
 }
@@ -0,0 +1,69 @@
+package com.example.jwtauthenticator.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("LatencySketch Tests")
+class LatencySketchTest {
+
+    @Test
+    @DisplayName("Should report quantiles within the relative accuracy of the exact values")
+    void quantile_ShouldBeWithinRelativeAccuracy() {
+        LatencySketch sketch = new LatencySketch();
+        long[] values = new long[50_000];
+        Random random = new Random(42);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 1 + (long) Math.exp(random.nextGaussian() * 1.5 + 5);
+            sketch.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double q : new double[] {0.5, 0.9, 0.95, 0.99}) {
+            long exact = values[(int) Math.floor(q * (values.length - 1))];
+            assertEquals(exact, sketch.quantile(q), exact * LatencySketch.RELATIVE_ACCURACY + 1, "q=" + q);
+        }
+        assertEquals(values.length, sketch.count());
+    }
+
+    @Test
+    @DisplayName("Should merge to the same sketch as recording all values into one")
+    void merge_ShouldEqualCombinedRecording() {
+        LatencySketch all = new LatencySketch();
+        LatencySketch first = new LatencySketch();
+        LatencySketch second = new LatencySketch();
+        for (long v = 0; v < 5_000; v++) {
+            all.record(v);
+            (v % 3 == 0 ? first : second).record(v);
+        }
+
+        first.merge(second);
+
+        assertArrayEquals(all.toBytes(), first.toBytes());
+        assertEquals(all.quantile(0.99), first.quantile(0.99));
+    }
+
+    @Test
+    @DisplayName("Should round-trip through its compact serialized form")
+    void toBytes_ShouldRoundTrip() {
+        LatencySketch sketch = new LatencySketch();
+        sketch.record(0);
+        sketch.record(12);
+        sketch.record(350);
+        sketch.record(350);
+        sketch.record(90_000);
+
+        LatencySketch restored = LatencySketch.fromBytes(sketch.toBytes());
+
+        assertEquals(5, restored.count());
+        assertEquals(sketch.quantile(0.5), restored.quantile(0.5));
+        assertEquals(sketch.quantile(1.0), restored.quantile(1.0));
+        assertEquals(0, restored.quantile(0.0));
+        assertTrue(LatencySketch.fromBytes(null).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> LatencySketch.fromBytes(new byte[] {9}));
+    }
+}
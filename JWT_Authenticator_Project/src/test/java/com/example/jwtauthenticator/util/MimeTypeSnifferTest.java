@@ -0,0 +1,36 @@
+package com.example.jwtauthenticator.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("MimeTypeSniffer Tests")
+class MimeTypeSnifferTest {
+
+    @Test
+    @DisplayName("Should recognise binary image signatures")
+    void sniff_ShouldRecogniseBinaryImages() {
+        assertEquals("image/png", sniff(new byte[] {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A}));
+        assertEquals("image/jpeg", sniff(new byte[] {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0}));
+        assertEquals("image/gif", sniff("GIF89a".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals("image/webp", sniff("RIFF\0\0\0\0WEBPVP8 ".getBytes(StandardCharsets.US_ASCII)));
+        assertEquals("image/x-icon", sniff(new byte[] {0, 0, 1, 0, 1, 0}));
+    }
+
+    @Test
+    @DisplayName("Should recognise SVG and HTML and give up on unknown content")
+    void sniff_ShouldHandleTextFormats() {
+        assertEquals("image/svg+xml", sniff("  <svg xmlns=\"http://www.w3.org/2000/svg\">".getBytes(StandardCharsets.UTF_8)));
+        assertEquals("image/svg+xml", sniff("<?xml version=\"1.0\"?>\n<svg>".getBytes(StandardCharsets.UTF_8)));
+        assertEquals("text/html", sniff("<!DOCTYPE html><html>".getBytes(StandardCharsets.UTF_8)));
+        assertNull(sniff("plain text".getBytes(StandardCharsets.UTF_8)));
+        assertNull(sniff(new byte[0]));
+    }
+
+    private static String sniff(byte[] bytes) {
+        return MimeTypeSniffer.sniff(bytes, bytes.length);
+    }
+}
@@ -0,0 +1,276 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Compares platform-thread and virtual-thread mode (spring.threads.virtual.enabled) on
+ * POST /api/secure/rivofetch. For each mode the harness boots the application jar with
+ * -Djdk.tracePinnedThreads=short, waits for /actuator/health, primes the target URL, runs the
+ * same closed-loop load and stops the application again. It then prints both results side by
+ * side and writes them, with the pinned-thread traces and application logs, to
+ * tools/benchmark/results/&lt;timestamp&gt;/.
+ *
+ * <pre>
+ * mvn -B package -DskipTests
+ * java -Dbenchmark.apiKey=sk-... -Dbenchmark.appArgs="--spring.profiles.active=postgres" \
+ *      tools/benchmark/RivoFetchModeBenchmark.java
+ * </pre>
+ *
+ * Run from the project directory. Both modes use the same database, so the target URL is a
+ * DATABASE_HIT after priming and the run measures the request path (filters, rate limiting,
+ * lookup, logging) rather than the external extraction API. Use an API key with a tier whose
+ * limits will not be hit. See README.md for all settings.
+ */
+public class RivoFetchModeBenchmark {
+
+    private static final String PINNED_MARKER = "<== monitors:";
+
+    record Result(String mode, long requests, long failures, double throughput,
+                  double p50, double p95, double p99, double max, Set<String> pinnedFrames) {
+
+        Result withPinnedFrames(Set<String> frames) {
+            return new Result(mode, requests, failures, throughput, p50, p95, p99, max, frames);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String apiKey = System.getProperty("benchmark.apiKey");
+        if (apiKey == null || apiKey.isBlank()) {
+            throw new IllegalArgumentException("Set -Dbenchmark.apiKey to a valid API key");
+        }
+        String jarProperty = System.getProperty("benchmark.jar");
+        Path jar = jarProperty != null ? Path.of(jarProperty) : findJar();
+        List<String> modes = List.of(System.getProperty("benchmark.modes", "platform,virtual").split(","));
+        Path resultDir = Path.of(System.getProperty("benchmark.resultsDir", "tools/benchmark/results"))
+                .resolve(LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")));
+        Files.createDirectories(resultDir);
+
+        List<Result> results = new ArrayList<>();
+        for (String mode : modes) {
+            results.add(runMode(mode.trim(), jar, apiKey, resultDir));
+        }
+
+        String report = report(results);
+        Files.writeString(resultDir.resolve("report.md"), report);
+        System.out.println();
+        System.out.println(report);
+        System.out.println("Results written to " + resultDir);
+    }
+
+    private static Result runMode(String mode, Path jar, String apiKey, Path resultDir) throws Exception {
+        if (!mode.equals("platform") && !mode.equals("virtual")) {
+            throw new IllegalArgumentException("Unknown mode " + mode + ", expected platform or virtual");
+        }
+        int port = Integer.getInteger("benchmark.port", 18080);
+        Path log = resultDir.resolve(mode + ".log");
+
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(split(System.getProperty("benchmark.jvmArgs", "-Xmx1g")));
+        command.add("-Djdk.tracePinnedThreads=short");
+        command.add("-jar");
+        command.add(jar.toString());
+        command.add("--server.port=" + port);
+        command.add("--spring.threads.virtual.enabled=" + mode.equals("virtual"));
+        command.addAll(split(System.getProperty("benchmark.appArgs", "")));
+
+        System.out.printf("[%s] starting %s%n", mode, String.join(" ", command));
+        Process app = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        Result result;
+        try {
+            String baseUrl = "http://localhost:" + port;
+            HttpClient client = HttpClient.newBuilder()
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .build();
+            awaitHealthy(client, baseUrl, app, Integer.getInteger("benchmark.startupTimeoutSeconds", 180));
+
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/secure/rivofetch"))
+                    .header("Content-Type", "application/json")
+                    .header("X-API-KEY", apiKey)
+                    .timeout(Duration.ofSeconds(120))
+                    .POST(HttpRequest.BodyPublishers.ofString(
+                            "{\"url\":\"" + System.getProperty("benchmark.targetUrl", "https://example.com") + "\"}"))
+                    .build();
+            int primeStatus = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            if (primeStatus / 100 != 2) {
+                throw new IllegalStateException("[" + mode + "] priming request failed with HTTP " + primeStatus);
+            }
+
+            result = load(mode, client, request);
+        } finally {
+            app.destroy();
+            if (!app.waitFor(30, TimeUnit.SECONDS)) {
+                app.destroyForcibly().waitFor();
+            }
+        }
+        result = result.withPinnedFrames(pinnedFrames(log));
+        System.out.printf("[%s] %d requests, %.1f req/s, p99 %.1f ms, %d pinned frames%n",
+                mode, result.requests(), result.throughput(), result.p99(), result.pinnedFrames().size());
+        return result;
+    }
+
+    /**
+     * Closed loop: each client sends the next request as soon as the previous one completes.
+     * Requests started during the warmup period are not recorded.
+     */
+    private static Result load(String mode, HttpClient client, HttpRequest request) throws Exception {
+        int concurrency = Integer.getInteger("benchmark.concurrency", 100);
+        int durationSeconds = Integer.getInteger("benchmark.durationSeconds", 60);
+        int warmupSeconds = Integer.getInteger("benchmark.warmupSeconds", 10);
+        long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = warmupEnd + TimeUnit.SECONDS.toNanos(durationSeconds);
+        AtomicLong failures = new AtomicLong();
+        List<long[]> perClient = new ArrayList<>();
+
+        System.out.printf("[%s] %d clients for %ds (+%ds warmup)%n", mode, concurrency, durationSeconds, warmupSeconds);
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                clients.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    while (System.nanoTime() < end) {
+                        long start = System.nanoTime();
+                        boolean ok;
+                        try {
+                            ok = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() / 100 == 2;
+                        } catch (Exception e) {
+                            ok = false;
+                        }
+                        long finished = System.nanoTime();
+                        if (start < warmupEnd) {
+                            continue;
+                        }
+                        if (!ok) {
+                            failures.incrementAndGet();
+                        }
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = finished - start;
+                    }
+                    long[] recorded = Arrays.copyOf(latencies, count);
+                    synchronized (perClient) {
+                        perClient.add(recorded);
+                    }
+                });
+            }
+        }
+
+        long[] all = perClient.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        if (all.length == 0) {
+            throw new IllegalStateException("[" + mode + "] no requests completed");
+        }
+        return new Result(mode, all.length, failures.get(), all.length / (double) durationSeconds,
+                percentile(all, 50), percentile(all, 95), percentile(all, 99), all[all.length - 1] / 1e6,
+                Set.of());
+    }
+
+    private static void awaitHealthy(HttpClient client, String baseUrl, Process app, int timeoutSeconds)
+            throws Exception {
+        HttpRequest health = HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/health"))
+                .timeout(Duration.ofSeconds(5))
+                .GET()
+                .build();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutSeconds);
+        while (System.nanoTime() < deadline) {
+            if (!app.isAlive()) {
+                throw new IllegalStateException("Application exited with code " + app.exitValue() + " during startup");
+            }
+            try {
+                if (client.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(1000);
+        }
+        throw new IllegalStateException("Application not healthy after " + timeoutSeconds + "s");
+    }
+
+    /**
+     * Frames reported as holding a monitor while a virtual thread was pinned. With
+     * jdk.tracePinnedThreads=short the JDK prints each distinct pinned stack once.
+     */
+    private static Set<String> pinnedFrames(Path log) throws IOException {
+        Set<String> frames = new LinkedHashSet<>();
+        try (Stream<String> lines = Files.lines(log)) {
+            lines.filter(line -> line.contains(PINNED_MARKER)).map(String::trim).forEach(frames::add);
+        }
+        return frames;
+    }
+
+    private static String report(List<Result> results) {
+        StringBuilder report = new StringBuilder("# RivoFetch throughput: platform vs virtual threads\n\n")
+                .append(String.format("Concurrency %d, %ds measured after %ds warmup, target %s%n%n",
+                        Integer.getInteger("benchmark.concurrency", 100),
+                        Integer.getInteger("benchmark.durationSeconds", 60),
+                        Integer.getInteger("benchmark.warmupSeconds", 10),
+                        System.getProperty("benchmark.targetUrl", "https://example.com")))
+                .append("| Mode | Requests | Failures | Throughput (req/s) | p50 (ms) | p95 (ms) | p99 (ms) | Max (ms) | Pinned frames |\n")
+                .append("|------|---------:|---------:|-------------------:|---------:|---------:|---------:|---------:|--------------:|\n");
+        Map<String, Set<String>> pinning = new LinkedHashMap<>();
+        for (Result result : results) {
+            Set<String> frames = result.pinnedFrames();
+            pinning.put(result.mode(), frames);
+            report.append(String.format("| %s | %d | %d | %.1f | %.1f | %.1f | %.1f | %.1f | %d |%n",
+                    result.mode(), result.requests(), result.failures(), result.throughput(),
+                    result.p50(), result.p95(), result.p99(), result.max(), frames.size()));
+        }
+        for (Map.Entry<String, Set<String>> entry : pinning.entrySet()) {
+            report.append("\n## Pinned frames (").append(entry.getKey()).append(")\n\n");
+            if (entry.getValue().isEmpty()) {
+                report.append("None reported.\n");
+            } else {
+                report.append("```\n");
+                entry.getValue().forEach(frame -> report.append(frame).append('\n'));
+                report.append("```\n");
+            }
+        }
+        return report.toString();
+    }
+
+    private static Path findJar() throws IOException {
+        Path target = Path.of("target");
+        if (!Files.isDirectory(target)) {
+            throw new IllegalStateException("No target/ directory, run from the project directory or set -Dbenchmark.jar");
+        }
+        try (Stream<Path> files = Files.list(target)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".jar"))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException("No jar in target/, run mvn package or set -Dbenchmark.jar"));
+        }
+    }
+
+    private static List<String> split(String args) {
+        return args.isBlank() ? List.of() : List.of(args.trim().split("\\s+"));
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+}